@@ -0,0 +1,50 @@
+package com.example.memory_keeper.ai;
+
+import com.example.memory_keeper.config.AIHttpConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.OkHttpClient;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hands out the OkHttpClient for each provider.
+ *
+ * Every client is derived from the shared aiHttpClient bean, so all providers
+ * use one connection pool and dispatcher. Timeouts, the metrics listener
+ * and the circuit breaker / bulkhead / retry interceptor are per provider.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class AIHttpClientFactory {
+
+    private final OkHttpClient aiHttpClient;
+    private final AIHttpConfig config;
+    private final MeterRegistry meterRegistry;
+    private final ProviderResilienceRegistry resilienceRegistry;
+
+    private final Map<AIProvider, OkHttpClient> clients = new ConcurrentHashMap<>();
+
+    public OkHttpClient forProvider(AIProvider provider) {
+        return clients.computeIfAbsent(provider, this::build);
+    }
+
+    private OkHttpClient build(AIProvider provider) {
+        AIHttpConfig.Timeouts timeouts = config.timeoutsFor(provider.getKey());
+        log.info("HTTP client for {}: connect={}, read={}, write={}",
+                provider.getKey(), timeouts.getConnect(), timeouts.getRead(), timeouts.getWrite());
+
+        return aiHttpClient.newBuilder()
+                .connectTimeout(timeouts.getConnect().toMillis(), TimeUnit.MILLISECONDS)
+                .readTimeout(timeouts.getRead().toMillis(), TimeUnit.MILLISECONDS)
+                .writeTimeout(timeouts.getWrite().toMillis(), TimeUnit.MILLISECONDS)
+                .addInterceptor(resilienceRegistry.interceptorFor(provider))
+                .eventListenerFactory(HttpMetricsEventListener.factory(provider, meterRegistry))
+                .build();
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.memory_keeper.ai;
+
+/**
+ * External AI providers we call. The key is used in configuration
+ * (ai.http.providers.<key>) and as the "provider" metric tag.
+ */
+public enum AIProvider {
+    GROQ("groq"),
+    HUGGINGFACE("huggingface"),
+    ASSEMBLYAI("assemblyai"),
+    REPLICATE("replicate"),
+    STABILITYAI("stabilityai"),
+    ELEVENLABS("elevenlabs"),
+    TTS("tts");
+
+    private final String key;
+
+    AIProvider(String key) {
+        this.key = key;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public static AIProvider fromKey(String key) {
+        for (AIProvider provider : values()) {
+            if (provider.key.equalsIgnoreCase(key)) {
+                return provider;
+            }
+        }
+        throw new IllegalArgumentException("Unknown AI provider: " + key);
+    }
+}
@@ -1,7 +1,10 @@
 package com.example.memory_keeper.ai;
 
+import com.example.memory_keeper.config.AIQuotaConfig;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import okhttp3.*;
@@ -10,7 +13,8 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * AssemblyAI Client - Speech to Text
@@ -28,36 +32,86 @@ public class AssemblyAIClient {
     private String apiUrl;
 
     private final ObjectMapper objectMapper;
-    private final OkHttpClient client = new OkHttpClient.Builder()
-            .connectTimeout(30, TimeUnit.SECONDS)
-            .readTimeout(300, TimeUnit.SECONDS)
-            .build();
+    private final AsyncJobTracker jobTracker;
+    private final AIHttpClientFactory httpClientFactory;
+    private final UsageRecorder usageRecorder;
+    private final QuotaLedger quotaLedger;
+    private final AIQuotaConfig quotaConfig;
+    private OkHttpClient client;
+
+    @PostConstruct
+    void initHttpClient() {
+        client = httpClientFactory.forProvider(AIProvider.ASSEMBLYAI);
+    }
 
     /**
-     * Transcribe audio file to text
+     * Transcribe audio file to text.
+     * Blocks until the transcript is ready; prefer transcribeAudioAsync.
      */
     public String transcribeAudio(MultipartFile audioFile) throws IOException, InterruptedException {
+        return AsyncJobTracker.await(transcribeAudioAsync(audioFile, UploadProgressListener.NONE),
+                jobTracker.timeoutFor(AIProvider.ASSEMBLYAI));
+    }
 
-        // Step 1: Upload audio file
-        String audioUrl = uploadAudio(audioFile);
-
-        // Step 2: Submit for transcription
-        String transcriptId = submitTranscription(audioUrl);
+    /**
+     * Uploads and submits the audio, then returns without waiting. The
+     * future completes when AssemblyAI calls our webhook or the shared poller
+     * sees the transcript finish.
+     *
+     * The length of the audio, estimated from its size, is reserved against
+     * the monthly quota first and settled with the real duration at the end.
+     */
+    public CompletableFuture<String> transcribeAudioAsync(MultipartFile audioFile,
+                                                         UploadProgressListener progress) throws IOException {
+
+        QuotaLedger.Reservation reservation = quotaLedger.reserve(AIProvider.ASSEMBLYAI,
+                Math.max(1, audioFile.getSize() / quotaConfig.getAudioBytesPerSecond()));
+
+        String audioUrl;
+        String transcriptId;
+        boolean webhook = jobTracker.webhooksEnabled();
+        try {
+            // Step 1: Upload audio file
+            audioUrl = uploadAudio(audioFile, progress);
+
+            // Step 2: Submit for transcription
+            transcriptId = submitTranscription(audioUrl, webhook);
+        } catch (IOException | RuntimeException e) {
+            quotaLedger.release(reservation);
+            throw e;
+        }
 
-        // Step 3: Poll for result
-        return pollTranscription(transcriptId);
+        // Step 3: Wait for the result without holding a thread
+        // (it may arrive on the webhook or poller thread, so the usage scope is captured here)
+        UsageContext.Scope usageScope = UsageContext.current();
+        return jobTracker.track(AIProvider.ASSEMBLYAI, transcriptId, webhook,
+                        () -> fetchTranscript(transcriptId),
+                        json -> "completed".equals(json.path("status").asText()) || "error".equals(json.path("status").asText()))
+                .thenApply(json -> {
+                    if ("error".equals(json.path("status").asText())) {
+                        throw new CompletionException(new IOException("Transcription failed: " + json.path("error").asText()));
+                    }
+                    String transcript = json.get("text").asText();
+                    long seconds = Math.round(json.path("audio_duration").asDouble());
+                    usageRecorder.record(usageScope, AIProvider.ASSEMBLYAI, UsageUnit.AUDIO_SECONDS, seconds);
+                    quotaLedger.commit(reservation, seconds);
+                    log.info("Transcription completed: {} characters", transcript.length());
+                    return transcript;
+                })
+                .whenComplete((transcript, ex) -> quotaLedger.release(reservation)); // No-op once committed
     }
 
     /**
-     * Upload audio to AssemblyAI
+     * Upload audio to AssemblyAI, streamed straight from the multipart file
      */
-    private String uploadAudio(MultipartFile file) throws IOException {
+    private String uploadAudio(MultipartFile file, UploadProgressListener progress) throws IOException {
 
         String uploadUrl = apiUrl + "/upload";
 
-        RequestBody body = RequestBody.create(
-                file.getBytes(),
-                MediaType.parse("application/octet-stream")
+        RequestBody body = new MultipartFileRequestBody(
+                file,
+                MediaType.parse("application/octet-stream"),
+                progress
         );
 
         Request request = new Request.Builder()
@@ -83,13 +137,15 @@ public class AssemblyAIClient {
     /**
      * Submit audio for transcription
      */
-    private String submitTranscription(String audioUrl) throws IOException {
+    private String submitTranscription(String audioUrl, boolean webhook) throws IOException {
 
         String transcriptUrl = apiUrl + "/transcript";
 
-        String requestJson = objectMapper.writeValueAsString(
-                new TranscriptionRequest(audioUrl)
-        );
+        TranscriptionRequest transcriptionRequest = new TranscriptionRequest(audioUrl);
+        if (webhook) {
+            transcriptionRequest.webhook_url = jobTracker.webhookUrl(AIProvider.ASSEMBLYAI);
+        }
+        String requestJson = objectMapper.writeValueAsString(transcriptionRequest);
 
         RequestBody body = RequestBody.create(
                 requestJson,
@@ -118,9 +174,9 @@ public class AssemblyAIClient {
     }
 
     /**
-     * Poll for transcription result
+     * Fetch the current state of a transcript
      */
-    private String pollTranscription(String transcriptId) throws IOException, InterruptedException {
+    private JsonNode fetchTranscript(String transcriptId) throws IOException {
 
         String pollUrl = apiUrl + "/transcript/" + transcriptId;
 
@@ -130,35 +186,19 @@ public class AssemblyAIClient {
                 .get()
                 .build();
 
-        // Poll for up to 5 minutes
-        for (int i = 0; i < 60; i++) {
-            try (Response response = client.newCall(request).execute()) {
-                String responseBody = response.body().string();
-                JsonNode json = objectMapper.readTree(responseBody);
-
-                String status = json.get("status").asText();
-
-                if ("completed".equals(status)) {
-                    String transcript = json.get("text").asText();
-                    log.info("Transcription completed: {} characters", transcript.length());
-                    return transcript;
-
-                } else if ("error".equals(status)) {
-                    String error = json.get("error").asText();
-                    throw new IOException("Transcription failed: " + error);
-                }
-
-                // Still processing, wait 5 seconds
-                TimeUnit.SECONDS.sleep(5);
+        try (Response response = client.newCall(request).execute()) {
+            if (!response.isSuccessful()) {
+                throw new IOException("Transcript status request failed: " + response.code());
             }
+            return objectMapper.readTree(response.body().string());
         }
-
-        throw new IOException("Transcription timeout");
     }
 
     // Inner class for request
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private static class TranscriptionRequest {
         public String audio_url;
+        public String webhook_url;
 
         public TranscriptionRequest(String audioUrl) {
             this.audio_url = audioUrl;
@@ -0,0 +1,220 @@
+package com.example.memory_keeper.ai;
+
+import com.example.memory_keeper.config.AIAsyncJobsConfig;
+import com.fasterxml.jackson.databind.JsonNode;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+
+/**
+ * Waits for long-running provider jobs (AssemblyAI transcripts, Replicate
+ * predictions) without holding a thread per job.
+ *
+ * Callers get a CompletableFuture that completes with the job's final
+ * status JSON. Completion arrives one of two ways:
+ * - The provider calls our webhook. WebhookController calls onWebhook,
+ *   which fetches the status right away. The webhook body itself is never
+ *   trusted.
+ * - One shared scheduled poller checks jobs that are due. Each job's
+ *   interval grows exponentially up to a cap. If a webhook was registered,
+ *   the first poll is delayed so polling only acts as a safety net.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class AsyncJobTracker {
+
+    private final AIAsyncJobsConfig config;
+    private final AsyncTaskExecutor aiTaskExecutor;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, TrackedJob> jobs = new ConcurrentHashMap<>();
+
+    @FunctionalInterface
+    public interface StatusFetcher {
+        JsonNode fetch() throws IOException;
+    }
+
+    @PostConstruct
+    void init() {
+        meterRegistry.gaugeMapSize("ai.async_jobs.pending", Tags.empty(), jobs);
+    }
+
+    public boolean webhooksEnabled() {
+        AIAsyncJobsConfig.Webhook webhook = config.getWebhook();
+        return webhook.isEnabled() && !webhook.getPublicBaseUrl().isBlank() && !webhook.getSecret().isBlank();
+    }
+
+    public String webhookUrl(AIProvider provider) {
+        AIAsyncJobsConfig.Webhook webhook = config.getWebhook();
+        return webhook.getPublicBaseUrl().replaceAll("/+$", "")
+                + "/api/webhooks/" + provider.getKey()
+                + "?token=" + URLEncoder.encode(webhook.getSecret(), StandardCharsets.UTF_8);
+    }
+
+    public boolean isValidToken(String token) {
+        String secret = config.getWebhook().getSecret();
+        return token != null && !secret.isBlank()
+                && MessageDigest.isEqual(secret.getBytes(StandardCharsets.UTF_8), token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param webhookRegistered whether the provider was given our webhook URL for this job
+     * @param isFinished        true for a terminal status (success or failure)
+     */
+    public CompletableFuture<JsonNode> track(AIProvider provider, String jobId, boolean webhookRegistered,
+                                             StatusFetcher fetcher, Predicate<JsonNode> isFinished) {
+        AIAsyncJobsConfig.Polling polling = config.pollingFor(provider.getKey());
+        Duration firstDelay = webhookRegistered ? polling.getWebhookInitialDelay() : polling.getInitialDelay();
+
+        TrackedJob job = new TrackedJob(provider, jobId, fetcher, isFinished, polling, firstDelay);
+        jobs.put(key(provider, jobId), job);
+        job.future.whenComplete((status, error) -> jobs.remove(key(provider, jobId), job));
+
+        log.info("⏳ Tracking {} job {} (webhook: {})", provider.getKey(), jobId, webhookRegistered);
+        return job.future;
+    }
+
+    /**
+     * @return false if the job is unknown (finished already, or not ours)
+     */
+    public boolean onWebhook(AIProvider provider, String jobId) {
+        TrackedJob job = jobs.get(key(provider, jobId));
+        if (job == null) {
+            return false;
+        }
+        log.info("🔔 Webhook for {} job {}", provider.getKey(), jobId);
+        pollAsync(job, "webhook");
+        return true;
+    }
+
+    @Scheduled(fixedDelayString = "${ai.async-jobs.poll-tick-ms:1000}")
+    public void pollDueJobs() {
+        long now = System.currentTimeMillis();
+        for (TrackedJob job : jobs.values()) {
+            if (now >= job.deadline) {
+                job.future.completeExceptionally(new TimeoutException(
+                        job.provider.getKey() + " job " + job.jobId + " did not finish within " + job.settings.getTimeout()));
+                count(job, "timeout");
+            } else if (now >= job.nextPollAt) {
+                pollAsync(job, "poll");
+            }
+        }
+    }
+
+    /**
+     * How long a job for this provider is tracked before it fails.
+     */
+    public Duration timeoutFor(AIProvider provider) {
+        return config.pollingFor(provider.getKey()).getTimeout();
+    }
+
+    /**
+     * Blocking wait for callers that still want a plain result. Failures come
+     * back as IOException, as the old sleep-and-poll loops reported them.
+     * The future is cancelled if the wait times out or is interrupted.
+     */
+    public static <T> T await(CompletableFuture<T> future, Duration timeout) throws IOException, InterruptedException {
+        try {
+            return future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            throw e;
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new IOException("No result within " + timeout, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            throw new IOException(cause.getMessage(), cause);
+        }
+    }
+
+    // ==================== HELPER METHODS ====================
+
+    private void pollAsync(TrackedJob job, String trigger) {
+        if (!job.inFlight.compareAndSet(false, true)) {
+            return;
+        }
+        aiTaskExecutor.execute(() -> {
+            try {
+                JsonNode status = job.fetcher.fetch();
+                if (job.isFinished.test(status)) {
+                    job.future.complete(status);
+                    count(job, trigger);
+                    return;
+                }
+                job.backOff();
+            } catch (IOException e) {
+                log.warn("⚠️ Polling {} job {} failed: {}", job.provider.getKey(), job.jobId, e.getMessage());
+                job.backOff();
+            } catch (RuntimeException e) {
+                job.future.completeExceptionally(e);
+            } finally {
+                // Only after backOff, or a tick in between would see the old nextPollAt and poll again
+                job.inFlight.set(false);
+            }
+        });
+    }
+
+    private void count(TrackedJob job, String via) {
+        meterRegistry.counter("ai.async_jobs.completed", "provider", job.provider.getKey(), "via", via).increment();
+    }
+
+    private static String key(AIProvider provider, String jobId) {
+        return provider.getKey() + ":" + jobId;
+    }
+
+    private static class TrackedJob {
+        final AIProvider provider;
+        final String jobId;
+        final StatusFetcher fetcher;
+        final Predicate<JsonNode> isFinished;
+        final AIAsyncJobsConfig.Polling settings;
+        final long deadline;
+        final CompletableFuture<JsonNode> future = new CompletableFuture<>();
+        final AtomicBoolean inFlight = new AtomicBoolean();
+
+        volatile long interval;
+        volatile long nextPollAt;
+
+        TrackedJob(AIProvider provider, String jobId, StatusFetcher fetcher, Predicate<JsonNode> isFinished,
+                   AIAsyncJobsConfig.Polling polling, Duration firstDelay) {
+            this.provider = provider;
+            this.jobId = jobId;
+            this.fetcher = fetcher;
+            this.isFinished = isFinished;
+            this.settings = polling;
+            long now = System.currentTimeMillis();
+            this.deadline = now + polling.getTimeout().toMillis();
+            this.interval = polling.getInitialDelay().toMillis();
+            this.nextPollAt = now + firstDelay.toMillis();
+        }
+
+        void backOff() {
+            nextPollAt = System.currentTimeMillis() + interval;
+            interval = Math.min(settings.getMaxInterval().toMillis(), (long) (interval * settings.getMultiplier()));
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.memory_keeper.ai;
+
+/**
+ * A grandparent's chat reply. When Groq fails the caller still gets a canned
+ * fallback text to show, but it is not something the grandparent said, so it
+ * must not be saved or sent back to the model as history.
+ */
+public record ChatReply(String text, boolean fallback) {
+
+    public static ChatReply of(String text) {
+        return new ChatReply(text, false);
+    }
+
+    public static ChatReply fallback(String text) {
+        return new ChatReply(text, true);
+    }
+}
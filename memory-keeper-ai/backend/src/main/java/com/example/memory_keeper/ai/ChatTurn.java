@@ -0,0 +1,7 @@
+package com.example.memory_keeper.ai;
+
+/**
+ * One question and reply of a chat, as sent back to the model as history.
+ */
+public record ChatTurn(String user, String assistant) {
+}
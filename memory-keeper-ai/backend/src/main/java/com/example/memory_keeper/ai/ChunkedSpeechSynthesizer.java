@@ -0,0 +1,122 @@
+package com.example.memory_keeper.ai;
+
+import com.example.memory_keeper.config.AITtsConfig;
+import com.example.memory_keeper.util.Mp3Utils;
+import com.example.memory_keeper.util.SentenceChunker;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Narrates text of any length.
+ *
+ * The text is split at sentence boundaries into provider-sized chunks, which
+ * are synthesized in parallel (at most ai.tts.max-parallel at a time) and
+ * joined into one MP3 as they are written to the caller's stream. Total
+ * time is roughly that of the slowest chunk instead of growing with the
+ * length of the story. If any chunk fails, the others are interrupted.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class ChunkedSpeechSynthesizer {
+
+    private final TTSClient ttsClient;
+    private final ElevenLabsClient elevenLabsClient;
+    private final AITtsConfig config;
+    private final AsyncTaskExecutor aiTaskExecutor;
+
+    @FunctionalInterface
+    public interface ChunkSynthesizer {
+        byte[] synthesize(String chunk) throws IOException;
+    }
+
+    /**
+     * Narrates with the free TTS API.
+     */
+    public void synthesize(String text, OutputStream sink) throws IOException {
+        synthesize(text, ttsClient::textToSpeech, sink);
+    }
+
+    /**
+     * Narrates with an ElevenLabs voice.
+     */
+    public void synthesize(String text, String voiceId, OutputStream sink) throws IOException {
+        synthesize(text, chunk -> elevenLabsClient.textToSpeech(chunk, voiceId), sink);
+    }
+
+    /**
+     * Writes the narration to sink. Chunks are written in order as soon as
+     * each one (and every chunk before it) is ready, so only chunks still
+     * waiting their turn are held in memory.
+     */
+    public void synthesize(String text, ChunkSynthesizer synthesizer, OutputStream sink) throws IOException {
+        if (!config.isChunked()) {
+            sink.write(synthesizer.synthesize(text));
+            return;
+        }
+
+        List<String> chunks = SentenceChunker.chunk(text, config.getMaxChunkChars());
+        if (chunks.isEmpty()) {
+            return;
+        }
+        if (chunks.size() == 1) {
+            sink.write(synthesizer.synthesize(chunks.get(0)));
+            return;
+        }
+
+        log.info("🎙️ Synthesizing {} chars as {} chunks ({} in parallel)",
+                text.length(), chunks.size(), config.getMaxParallel());
+        long start = System.currentTimeMillis();
+
+        Semaphore permits = new Semaphore(Math.max(1, config.getMaxParallel()));
+        List<Future<byte[]>> futures = chunks.stream()
+                .map(chunk -> aiTaskExecutor.submit(() -> synthesizeChunk(chunk, synthesizer, permits)))
+                .toList();
+
+        boolean completed = false;
+        try {
+            long written = 0;
+            for (Future<byte[]> future : futures) {
+                byte[] part = future.get();
+                Mp3Utils.writeFrames(part, sink);
+                written += part.length;
+            }
+            completed = true;
+            log.info("✅ Narration ready: ~{} bytes from {} chunks in {} ms",
+                    written, chunks.size(), System.currentTimeMillis() - start);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            throw new IOException("Chunked TTS failed: " + cause.getMessage(), cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while synthesizing narration", e);
+        } finally {
+            if (!completed) {
+                // Interrupts chunks still calling the provider, so they stop spending characters
+                futures.forEach(future -> future.cancel(true));
+            }
+        }
+    }
+
+    private byte[] synthesizeChunk(String chunk, ChunkSynthesizer synthesizer, Semaphore permits)
+            throws IOException, InterruptedException {
+        permits.acquire();
+        try {
+            return synthesizer.synthesize(chunk);
+        } finally {
+            permits.release();
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.memory_keeper.ai;
+
+import java.util.List;
+
+/**
+ * What the model is told about a chat so far: a summary of the older turns
+ * and the most recent turns verbatim. Kept small regardless of chat length.
+ */
+public record Conversation(String summary, List<ChatTurn> recentTurns) {
+
+    public static final Conversation EMPTY = new Conversation(null, List.of());
+
+    public boolean hasSummary() {
+        return summary != null && !summary.isBlank();
+    }
+}
@@ -2,6 +2,7 @@ package com.example.memory_keeper.ai;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import okhttp3.*;
@@ -31,7 +32,14 @@ public class ElevenLabsClient {
     private String apiUrl;
 
     private final ObjectMapper objectMapper;
-    private final OkHttpClient client = new OkHttpClient();
+    private final AIHttpClientFactory httpClientFactory;
+    private final UsageRecorder usageRecorder;
+    private OkHttpClient client;
+
+    @PostConstruct
+    void initHttpClient() {
+        client = httpClientFactory.forProvider(AIProvider.ELEVENLABS);
+    }
 
     /**
      * TEXT-TO-SPEECH
@@ -72,6 +80,7 @@ public class ElevenLabsClient {
             }
 
             byte[] audioBytes = response.body().bytes();
+            usageRecorder.record(AIProvider.ELEVENLABS, UsageUnit.CHARACTERS, text.length());
             log.info("Generated audio: {} bytes", audioBytes.length);
             return audioBytes;
         }
@@ -201,6 +210,7 @@ public class ElevenLabsClient {
             Map<String, Object> stats = new HashMap<>();
             stats.put("character_count", json.get("character_count").asInt());
             stats.put("character_limit", json.get("character_limit").asInt());
+            stats.put("next_character_count_reset_unix", json.path("next_character_count_reset_unix").asLong(0));
             stats.put("voice_limit", json.get("voice_limit").asInt());
             stats.put("can_use_instant_voice_cloning",
                     json.get("can_use_instant_voice_cloning").asBoolean());
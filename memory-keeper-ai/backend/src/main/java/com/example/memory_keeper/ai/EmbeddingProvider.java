@@ -0,0 +1,28 @@
+package com.example.memory_keeper.ai;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Turns text into a fixed-size, L2-normalised vector. Selected with
+ * ai.embedding.provider; vectors from different models are never compared,
+ * so switching provider re-embeds every story.
+ */
+public interface EmbeddingProvider {
+
+    // Stored with every vector, so embeddings from another model are recognised as stale
+    String model();
+
+    int dimensions();
+
+    float[] embed(String text) throws IOException;
+
+    default List<float[]> embedAll(List<String> texts) throws IOException {
+        List<float[]> vectors = new ArrayList<>(texts.size());
+        for (String text : texts) {
+            vectors.add(embed(text));
+        }
+        return vectors;
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.memory_keeper.ai;
+
+import com.example.memory_keeper.config.LocalClassifierConfig;
+import com.example.memory_keeper.dto.response.ClassifierComparisonResponse;
+import com.example.memory_keeper.model.enums.EmotionType;
+import com.fasterxml.jackson.databind.JsonNode;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Decides, per story, whether sentiment and emotions come from Hugging Face
+ * or from the in-process LocalEmotionClassifier.
+ *
+ * Short texts (up to fast-path-max-chars) are always classified locally.
+ * Longer ones go to Hugging Face, unless its circuit is open or the model
+ * is cold-starting; if the remote call fails or is rate-limited, the local
+ * result is used instead. So every story gets a label, even during an
+ * outage.
+ *
+ * compare() runs both classifiers side by side on sample texts, to check
+ * the lexicon's agreement with and latency against the remote models.
+ *
+ * Exposes ai.emotion.source{kind, source, reason}.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class EmotionAnalysisRouter {
+
+    private final HuggingFaceBatcher huggingFaceBatcher;
+    private final LocalEmotionClassifier localClassifier;
+    private final HuggingFaceWarmupKeeper warmupKeeper;
+    private final ProviderResilienceRegistry resilienceRegistry;
+    private final LocalClassifierConfig config;
+    private final MeterRegistry meterRegistry;
+    private final AsyncTaskExecutor aiTaskExecutor;
+
+    @FunctionalInterface
+    private interface RemoteCall<T> {
+        T call() throws IOException, InterruptedException;
+    }
+
+    public Map<String, Object> analyzeSentiment(String text) throws IOException, InterruptedException {
+        return route("sentiment", text, HuggingFaceClient.SENTIMENT_MODEL, () -> huggingFaceBatcher.analyzeSentiment(text),
+                () -> localClassifier.analyzeSentiment(text));
+    }
+
+    public JsonNode detectEmotions(String text) throws IOException, InterruptedException {
+        return route("emotions", text, HuggingFaceClient.EMOTION_MODEL, () -> huggingFaceBatcher.detectEmotions(text),
+                () -> localClassifier.detectEmotions(text));
+    }
+
+    /**
+     * Classifies every text both locally and on Hugging Face (never falling
+     * back) and reports how often they agree and how long each took.
+     */
+    public ClassifierComparisonResponse compare(List<String> texts) {
+        // Remote calls run concurrently so they share batches, as in production
+        List<CompletableFuture<RemoteResult>> remote = texts.stream()
+                .map(text -> CompletableFuture.supplyAsync(() -> classifyRemotely(text), aiTaskExecutor))
+                .toList();
+
+        List<ClassifierComparisonResponse.Sample> results = new ArrayList<>();
+        for (int i = 0; i < texts.size(); i++) {
+            String text = texts.get(i);
+            long start = System.nanoTime();
+            String localSentiment = (String) localClassifier.analyzeSentiment(text).get("label");
+            List<String> localEmotions = topLabels(localClassifier.detectEmotions(text));
+            long localMicros = (System.nanoTime() - start) / 1_000;
+
+            RemoteResult r = remote.get(i).join();
+            results.add(new ClassifierComparisonResponse.Sample(text, localSentiment, r.sentiment(), localEmotions,
+                    r.emotions(), localMicros, r.millis(), r.error()));
+        }
+        return summarize(results);
+    }
+
+    // ==================== HELPER METHODS ====================
+
+    private record RemoteResult(String sentiment, List<String> emotions, Long millis, String error) {
+    }
+
+    private RemoteResult classifyRemotely(String text) {
+        long start = System.nanoTime();
+        try {
+            String sentiment = (String) huggingFaceBatcher.analyzeSentiment(text).get("label");
+            List<String> emotions = topLabels(huggingFaceBatcher.detectEmotions(text));
+            return new RemoteResult(sentiment, emotions, (System.nanoTime() - start) / 1_000_000, null);
+        } catch (IOException e) {
+            return new RemoteResult(null, List.of(), null, e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        }
+    }
+
+    private ClassifierComparisonResponse summarize(List<ClassifierComparisonResponse.Sample> results) {
+        int answered = 0;
+        int sentimentMatches = 0;
+        int topMatches = 0;
+        int inTop3 = 0;
+        long remoteTotal = 0;
+        long remoteMax = 0;
+        for (ClassifierComparisonResponse.Sample sample : results) {
+            if (sample.getRemoteError() != null) continue;
+            answered++;
+            remoteTotal += sample.getRemoteMillis();
+            remoteMax = Math.max(remoteMax, sample.getRemoteMillis());
+            if (sample.getLocalSentiment().equalsIgnoreCase(sample.getRemoteSentiment())) sentimentMatches++;
+            if (!sample.getLocalEmotions().isEmpty() && !sample.getRemoteEmotions().isEmpty()) {
+                EmotionType local = EmotionType.fromString(sample.getLocalEmotions().get(0)).getBaseEmotion();
+                EmotionType remoteTop = EmotionType.fromString(sample.getRemoteEmotions().get(0));
+                if (local == remoteTop) topMatches++;
+                if (sample.getRemoteEmotions().stream().map(EmotionType::fromString).anyMatch(local::equals)) inTop3++;
+            }
+        }
+        return ClassifierComparisonResponse.builder()
+                .samples(results.size())
+                .remoteSucceeded(answered)
+                .sentimentAgreement(ratio(sentimentMatches, answered))
+                .topEmotionAgreement(ratio(topMatches, answered))
+                .topEmotionInRemoteTop3(ratio(inTop3, answered))
+                .localMeanMicros(results.stream().mapToLong(ClassifierComparisonResponse.Sample::getLocalMicros).average().orElse(0))
+                .localMaxMicros(results.stream().mapToLong(ClassifierComparisonResponse.Sample::getLocalMicros).max().orElse(0))
+                .remoteMeanMillis(answered == 0 ? 0 : (double) remoteTotal / answered)
+                .remoteMaxMillis(remoteMax)
+                .results(results)
+                .build();
+    }
+
+    private static List<String> topLabels(JsonNode emotions) {
+        List<String> labels = new ArrayList<>();
+        if (emotions == null || !emotions.isArray()) return labels;
+        List<JsonNode> sorted = new ArrayList<>();
+        emotions.forEach(sorted::add);
+        sorted.sort((a, b) -> Double.compare(b.path("score").asDouble(), a.path("score").asDouble()));
+        sorted.stream().limit(3).forEach(e -> labels.add(e.path("label").asText()));
+        return labels;
+    }
+
+    private static double ratio(int matches, int total) {
+        return total == 0 ? 0 : Math.round(matches * 1000.0 / total) / 1000.0;
+    }
+
+    private <T> T route(String kind, String text, String model, RemoteCall<T> remote, Supplier<T> local)
+            throws IOException, InterruptedException {
+        if (config.isEnabled() && text != null && text.length() <= config.getFastPathMaxChars()) {
+            count(kind, "local", "fast_path");
+            return local.get();
+        }
+
+        boolean fallback = config.isEnabled() && config.isFallback();
+        if (fallback && resilienceRegistry.isOpen(AIProvider.HUGGINGFACE)) {
+            count(kind, "local", "circuit_open");
+            return local.get();
+        }
+        if (fallback && warmupKeeper.getState(model) == HuggingFaceWarmupKeeper.State.LOADING) {
+            // Don't hold the story for a cold start when a local answer is available
+            count(kind, "local", "model_loading");
+            return local.get();
+        }
+
+        try {
+            T result = remote.call();
+            count(kind, "huggingface", "primary");
+            return result;
+        } catch (IOException e) {
+            if (!fallback) throw e;
+            log.warn("⚠️ HuggingFace {} failed ({}), using local classifier", kind, e.getMessage());
+            count(kind, "local", "fallback");
+            return local.get();
+        }
+    }
+
+    private void count(String kind, String source, String reason) {
+        meterRegistry.counter("ai.emotion.source", "kind", kind, "source", source, "reason", reason).increment();
+    }
+}
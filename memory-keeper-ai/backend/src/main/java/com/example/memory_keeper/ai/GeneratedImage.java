@@ -0,0 +1,32 @@
+package com.example.memory_keeper.ai;
+
+import com.example.memory_keeper.util.SpooledBuffer;
+
+import java.io.IOException;
+
+/**
+ * An image from one of the image providers. Stability and Hugging Face
+ * stream the image into a buffer, while Replicate returns a hosted URL.
+ * Close it once the image has been uploaded.
+ */
+public record GeneratedImage(AIProvider provider, SpooledBuffer buffer, String url) implements AutoCloseable {
+
+    public static GeneratedImage ofBuffer(AIProvider provider, SpooledBuffer buffer) {
+        return new GeneratedImage(provider, buffer, null);
+    }
+
+    public static GeneratedImage ofUrl(AIProvider provider, String url) {
+        return new GeneratedImage(provider, null, url);
+    }
+
+    public boolean hasBuffer() {
+        return buffer != null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (buffer != null) {
+            buffer.close();
+        }
+    }
+}
@@ -3,18 +3,19 @@ package com.example.memory_keeper.ai;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import okhttp3.*;
+import okio.BufferedSource;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.TimeUnit;
 
 /**
  * Groq AI Client - FREE & FAST!
@@ -22,6 +23,8 @@ import java.util.concurrent.TimeUnit;
  * What: Calls Groq API for text generation
  * Why: FREE 30 req/min, uses Llama 3 (very good quality)
  * When: Story enhancement, questions, chat
+ *
+ * All calls go through GroqRateLimiter, so bursts queue instead of failing.
  */
 @Component
 @Slf4j
@@ -37,13 +40,20 @@ public class GroqClient {
     @Value("${ai.groq.model}")
     private String model;
 
+    @Value("${ai.groq.rate-limit.max-retries:3}")
+    private int maxRateLimitRetries;
+
     private final ObjectMapper objectMapper;
+    private final GroqRateLimiter rateLimiter;
+    private final UsageRecorder usageRecorder;
 
-    private final OkHttpClient client = new OkHttpClient.Builder()
-            .connectTimeout(30, TimeUnit.SECONDS)
-            .readTimeout(60, TimeUnit.SECONDS)
-            .writeTimeout(30, TimeUnit.SECONDS)
-            .build();
+    private final AIHttpClientFactory httpClientFactory;
+    private OkHttpClient client;
+
+    @PostConstruct
+    void initHttpClient() {
+        client = httpClientFactory.forProvider(AIProvider.GROQ);
+    }
 
     /**
      * Call Groq API with custom system and user prompts.
@@ -57,45 +67,44 @@ public class GroqClient {
      * This is the FIXED version that prevents the 400 Bad Request error.
      */
     public String chat(String systemPrompt, String userMessage, double temperature, int maxTokens) throws IOException {
+        return chat(systemPrompt, userMessage, temperature, maxTokens, GroqPriority.STANDARD);
+    }
 
-        // --- START OF FIX ---
-
-        // 1. Build the request body using a Map for reliable JSON serialization.
-        // This avoids manual JSON string formatting and escaping issues.
-        Map<String, Object> messageSystem = new HashMap<>();
-        messageSystem.put("role", "system");
-        messageSystem.put("content", systemPrompt);
-
-        Map<String, Object> messageUser = new HashMap<>();
-        messageUser.put("role", "user");
-        messageUser.put("content", userMessage);
-
-        List<Map<String, Object>> messages = Arrays.asList(messageSystem, messageUser);
-
-        Map<String, Object> requestBodyMap = new HashMap<>();
-        requestBodyMap.put("model", model);
-        requestBodyMap.put("messages", messages);
-        requestBodyMap.put("temperature", temperature);
-        requestBodyMap.put("max_tokens", maxTokens);
+    /**
+     * Same as above, queued with the given priority when the rate limit is saturated.
+     */
+    public String chat(String systemPrompt, String userMessage, double temperature, int maxTokens,
+                       GroqPriority priority) throws IOException {
+        return chat(systemPrompt, List.of(), userMessage, temperature, maxTokens, priority);
+    }
 
-        // 2. Convert the Map to a JSON string using ObjectMapper for safety.
-        String jsonBody = objectMapper.writeValueAsString(requestBodyMap);
+    /**
+     * Multi-turn call: earlier turns of the conversation are sent as
+     * user/assistant messages between the system prompt and the new message.
+     */
+    public String chat(String systemPrompt, List<ChatTurn> history, String userMessage, double temperature,
+                       int maxTokens, GroqPriority priority) throws IOException {
+        return complete(systemPrompt, history, userMessage, temperature, maxTokens, false, priority);
+    }
 
-        // --- END OF FIX ---
+    /**
+     * Same as chat, but uses Groq's JSON mode so the reply is always a single JSON object.
+     * The system prompt must describe the expected keys.
+     */
+    public String chatJson(String systemPrompt, String userMessage, double temperature, int maxTokens) throws IOException {
+        return complete(systemPrompt, List.of(), userMessage, temperature, maxTokens, true, GroqPriority.STANDARD);
+    }
 
-        RequestBody body = RequestBody.create(
-                jsonBody,
-                MediaType.parse("application/json")
-        );
+    private String complete(String systemPrompt, List<ChatTurn> history, String userMessage, double temperature,
+                            int maxTokens, boolean jsonMode, GroqPriority priority) throws IOException {
 
-        Request request = new Request.Builder()
-                .url(apiUrl)
-                .addHeader("Authorization", "Bearer " + apiKey)
-                .addHeader("Content-Type", "application/json")
-                .post(body)
-                .build();
+        Map<String, Object> options = new HashMap<>();
+        if (jsonMode) {
+            options.put("response_format", Map.of("type", "json_object"));
+        }
+        Request request = buildRequest(systemPrompt, history, userMessage, temperature, maxTokens, options);
 
-        try (Response response = client.newCall(request).execute()) {
+        try (Response response = execute(request, priority)) {
             // Read the body once to avoid "closed" errors.
             String responseBody = response.body().string();
 
@@ -107,6 +116,7 @@ public class GroqClient {
             }
 
             JsonNode jsonResponse = objectMapper.readTree(responseBody);
+            recordUsage(jsonResponse.path("usage"));
 
             // Safer parsing of the response to prevent NullPointerExceptions.
             if (jsonResponse.has("choices") && jsonResponse.get("choices").isArray() && !jsonResponse.get("choices").isEmpty()) {
@@ -123,13 +133,132 @@ public class GroqClient {
     }
 
     /**
-     * Stream response for real-time output (WebSocket).
-     * This remains a placeholder for future implementation.
+     * Stream response for real-time output (SSE / WebSocket).
+     * Each content delta is handed to the callback as soon as Groq sends it.
+     * Someone is always watching a stream, so it is queued as INTERACTIVE.
+     *
+     * @return the full completion, once the stream has finished
      */
-    public void chatStream(String systemPrompt, String userMessage, StreamCallback callback) {
-        log.warn("chatStream is not yet implemented.");
-        // Implementation for streaming responses would go here.
-        // Useful for a real-time chatbot experience.
+    public String chatStream(String systemPrompt, String userMessage, StreamCallback callback) throws IOException {
+        return chatStream(systemPrompt, userMessage, 0.7, 1000, callback);
+    }
+
+    public String chatStream(String systemPrompt, String userMessage, double temperature, int maxTokens,
+                             StreamCallback callback) throws IOException {
+        return chatStream(systemPrompt, List.of(), userMessage, temperature, maxTokens, callback);
+    }
+
+    public String chatStream(String systemPrompt, List<ChatTurn> history, String userMessage, double temperature,
+                             int maxTokens, StreamCallback callback) throws IOException {
+
+        Request request = buildRequest(systemPrompt, history, userMessage, temperature, maxTokens, Map.of("stream", true));
+
+        try (Response response = execute(request, GroqPriority.INTERACTIVE)) {
+            if (!response.isSuccessful()) {
+                String errorBody = response.body() != null ? response.body().string() : "No response body";
+                log.error("Groq streaming call failed with status: {}. Body: {}", response.code(), errorBody);
+                throw new IOException("Groq API call failed: " + response.code());
+            }
+
+            // Server-sent events: "data: {json}" lines, terminated by "data: [DONE]".
+            StringBuilder fullText = new StringBuilder();
+            BufferedSource source = response.body().source();
+            String line;
+            while ((line = source.readUtf8Line()) != null) {
+                if (!line.startsWith("data:")) {
+                    continue;
+                }
+                String data = line.substring(5).trim();
+                if ("[DONE]".equals(data)) {
+                    break;
+                }
+
+                JsonNode chunk = objectMapper.readTree(data);
+                if (chunk.has("error")) {
+                    throw new IOException("Groq stream error: " + chunk.get("error"));
+                }
+                // The last chunk carries the token usage of the whole stream
+                recordUsage(chunk.has("usage") ? chunk.path("usage") : chunk.path("x_groq").path("usage"));
+                JsonNode delta = chunk.path("choices").path(0).path("delta").path("content");
+                if (delta.isTextual() && !delta.asText().isEmpty()) {
+                    fullText.append(delta.asText());
+                    callback.onChunk(delta.asText());
+                }
+            }
+            return fullText.toString();
+        }
+    }
+
+    /**
+     * Sends the request through the rate limiter. A 429 pauses the limiter and
+     * the call is queued again instead of failing, up to max-retries times.
+     */
+    private Response execute(Request request, GroqPriority priority) throws IOException {
+        for (int attempt = 1; ; attempt++) {
+            rateLimiter.acquire(priority);
+            Response response = client.newCall(request).execute();
+            rateLimiter.onResponse(response);
+            if (response.code() != 429 || attempt > maxRateLimitRetries) {
+                return response;
+            }
+            response.close();
+            log.warn("Groq rate limit hit, re-queueing request (retry {}/{})", attempt, maxRateLimitRetries);
+        }
+    }
+
+    private void recordUsage(JsonNode usage) {
+        if (usage.isObject()) {
+            usageRecorder.record(AIProvider.GROQ, UsageUnit.PROMPT_TOKENS, usage.path("prompt_tokens").asLong());
+            usageRecorder.record(AIProvider.GROQ, UsageUnit.COMPLETION_TOKENS, usage.path("completion_tokens").asLong());
+        }
+    }
+
+    private Request buildRequest(String systemPrompt, List<ChatTurn> history, String userMessage, double temperature,
+                                 int maxTokens, Map<String, Object> options) throws IOException {
+
+        // --- START OF FIX ---
+
+        // 1. Build the request body using a Map for reliable JSON serialization.
+        // This avoids manual JSON string formatting and escaping issues.
+        Map<String, Object> messageSystem = new HashMap<>();
+        messageSystem.put("role", "system");
+        messageSystem.put("content", systemPrompt);
+
+        Map<String, Object> messageUser = new HashMap<>();
+        messageUser.put("role", "user");
+        messageUser.put("content", userMessage);
+
+        List<Map<String, Object>> messages = new ArrayList<>();
+        messages.add(messageSystem);
+        for (ChatTurn turn : history) {
+            messages.add(Map.of("role", "user", "content", turn.user()));
+            messages.add(Map.of("role", "assistant", "content", turn.assistant()));
+        }
+        messages.add(messageUser);
+
+        Map<String, Object> requestBodyMap = new HashMap<>(options);
+        requestBodyMap.put("model", model);
+        requestBodyMap.put("messages", messages);
+        requestBodyMap.put("temperature", temperature);
+        requestBodyMap.put("max_tokens", maxTokens);
+
+        // 2. Convert the Map to a JSON string using ObjectMapper for safety.
+        String jsonBody = objectMapper.writeValueAsString(requestBodyMap);
+
+        // --- END OF FIX ---
+
+        RequestBody body = RequestBody.create(
+                jsonBody,
+                MediaType.parse("application/json")
+        );
+
+        return new Request.Builder()
+                .url(apiUrl)
+                .addHeader("Authorization", "Bearer " + apiKey)
+                .addHeader("Content-Type", "application/json")
+                .post(body)
+                .tag(ProviderResilienceInterceptor.Retry.class, ProviderResilienceInterceptor.Retry.SAFE)
+                .build();
     }
 
     @FunctionalInterface
@@ -0,0 +1,11 @@
+package com.example.memory_keeper.ai;
+
+/**
+ * Queue priority for Groq calls when the rate limit is saturated.
+ * Declaration order is the serving order.
+ */
+public enum GroqPriority {
+    INTERACTIVE,  // a user is waiting on the reply (chat, streamed text)
+    STANDARD,     // story enhancement
+    BACKGROUND    // daily prompts, backfills, summaries
+}
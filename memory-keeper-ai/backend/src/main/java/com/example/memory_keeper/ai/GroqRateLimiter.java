@@ -0,0 +1,236 @@
+package com.example.memory_keeper.ai;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Response;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Token-bucket scheduler in front of GroqClient.
+ *
+ * What: Every Groq call takes a permit first. When the bucket is empty,
+ *       callers queue (highest GroqPriority first, then FIFO) instead of
+ *       failing with a 429.
+ * Why:  The free tier allows ~30 req/min; bursts used to surface as
+ *       "AI enhancement failed".
+ * How:  The bucket refills at requests-per-minute. Groq's x-ratelimit-*
+ *       headers and Retry-After on 429s pause the bucket until the quota resets.
+ *
+ * Metrics: ai.groq.queue.depth{priority}, ai.groq.queue.wait{priority},
+ *          ai.groq.rate_limited
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class GroqRateLimiter {
+
+    private static final Pattern DURATION_PART = Pattern.compile("(\\d+(?:\\.\\d+)?)(ms|h|m|s)");
+
+    @Value("${ai.groq.rate-limit.requests-per-minute:30}")
+    private int requestsPerMinute;
+
+    @Value("${ai.groq.rate-limit.burst:5}")
+    private int burst;
+
+    @Value("${ai.groq.rate-limit.max-wait:2m}")
+    private Duration maxWait;
+
+    private final MeterRegistry meterRegistry;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final PriorityQueue<Waiter> waiters = new PriorityQueue<>(
+            Comparator.comparing(Waiter::priority).thenComparingLong(Waiter::sequence));
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<GroqPriority, AtomicLong> queued = new EnumMap<>(GroqPriority.class);
+    private final Map<GroqPriority, Timer> waitTimers = new EnumMap<>(GroqPriority.class);
+    private Counter rateLimited;
+
+    private double tokens;
+    private long lastRefillNanos;
+    private long pausedUntilMillis;
+
+    @PostConstruct
+    void init() {
+        tokens = burst;
+        lastRefillNanos = System.nanoTime();
+        for (GroqPriority priority : GroqPriority.values()) {
+            AtomicLong depth = new AtomicLong();
+            queued.put(priority, depth);
+            Gauge.builder("ai.groq.queue.depth", depth, AtomicLong::get)
+                    .tag("priority", priority.name())
+                    .register(meterRegistry);
+            waitTimers.put(priority, Timer.builder("ai.groq.queue.wait")
+                    .tag("priority", priority.name())
+                    .publishPercentiles(0.5, 0.95)
+                    .register(meterRegistry));
+        }
+        rateLimited = Counter.builder("ai.groq.rate_limited").register(meterRegistry);
+    }
+
+    /**
+     * Blocks until a request may be sent, or fails after max-wait.
+     */
+    public void acquire(GroqPriority priority) throws IOException {
+        Waiter me = new Waiter(priority, sequence.incrementAndGet());
+        long started = System.nanoTime();
+        long deadline = started + maxWait.toNanos();
+
+        lock.lock();
+        queued.get(priority).incrementAndGet();
+        try {
+            waiters.add(me);
+            while (true) {
+                refill();
+                long pausedFor = pausedUntilMillis - System.currentTimeMillis();
+                if (waiters.peek() == me && tokens >= 1 && pausedFor <= 0) {
+                    waiters.poll();
+                    tokens -= 1;
+                    changed.signalAll();
+                    waitTimers.get(priority).record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                    return;
+                }
+
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    waiters.remove(me);
+                    changed.signalAll();
+                    throw new IOException("Groq is busy: no request slot within " + maxWait.toSeconds() + "s");
+                }
+                changed.awaitNanos(Math.min(remaining, nanosUntilNextSlot(pausedFor)));
+            }
+        } catch (InterruptedException e) {
+            waiters.remove(me);
+            changed.signalAll();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a Groq request slot");
+        } finally {
+            queued.get(priority).decrementAndGet();
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Adapts the budget to what Groq reports. "requests" headers are per day,
+     * "tokens" headers per minute; either one running out pauses the bucket.
+     */
+    public void onResponse(Response response) {
+        if (response.code() == 429) {
+            Duration retryAfter = parseRetryAfter(response);
+            rateLimited.increment();
+            log.warn("Groq returned 429, pausing requests for {} ms", retryAfter.toMillis());
+            pauseFor(retryAfter);
+            return;
+        }
+
+        Long remainingRequests = parseLong(response.header("x-ratelimit-remaining-requests"));
+        if (remainingRequests != null && remainingRequests <= 0) {
+            pauseFor(parseDuration(response.header("x-ratelimit-reset-requests"), Duration.ofMinutes(1)));
+        }
+
+        Long remainingTokens = parseLong(response.header("x-ratelimit-remaining-tokens"));
+        if (remainingTokens != null && remainingTokens <= 0) {
+            pauseFor(parseDuration(response.header("x-ratelimit-reset-tokens"), Duration.ofSeconds(10)));
+        }
+    }
+
+    public Duration parseRetryAfter(Response response) {
+        String retryAfter = response.header("retry-after");
+        if (retryAfter != null) {
+            try {
+                return Duration.ofMillis((long) (Double.parseDouble(retryAfter.trim()) * 1000));
+            } catch (NumberFormatException ignored) {
+                // Fall through to the reset headers
+            }
+        }
+        return parseDuration(response.header("x-ratelimit-reset-tokens"), Duration.ofSeconds(2));
+    }
+
+    // ==================== HELPER METHODS ====================
+
+    private void pauseFor(Duration duration) {
+        lock.lock();
+        try {
+            pausedUntilMillis = Math.max(pausedUntilMillis, System.currentTimeMillis() + duration.toMillis());
+            tokens = Math.min(tokens, 0);
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        double perNano = requestsPerMinute / (double) TimeUnit.MINUTES.toNanos(1);
+        tokens = Math.min(burst, tokens + (now - lastRefillNanos) * perNano);
+        lastRefillNanos = now;
+    }
+
+    private long nanosUntilNextSlot(long pausedForMillis) {
+        if (pausedForMillis > 0) {
+            return TimeUnit.MILLISECONDS.toNanos(pausedForMillis);
+        }
+        double missing = Math.max(0, 1 - tokens);
+        long nanosPerToken = TimeUnit.MINUTES.toNanos(1) / Math.max(1, requestsPerMinute);
+        // Wake up at least every 100 ms so a waiter that is not first re-checks its position.
+        return Math.max(TimeUnit.MILLISECONDS.toNanos(1),
+                Math.min((long) (missing * nanosPerToken), TimeUnit.MILLISECONDS.toNanos(100)));
+    }
+
+    private Long parseLong(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Parses Groq's reset format, e.g. "7.66s", "2m59.56s", "1h2m", "450ms".
+     */
+    static Duration parseDuration(String value, Duration fallback) {
+        if (value == null || value.isBlank()) {
+            return fallback;
+        }
+        Matcher matcher = DURATION_PART.matcher(value.trim());
+        double millis = 0;
+        boolean matched = false;
+        while (matcher.find()) {
+            matched = true;
+            double amount = Double.parseDouble(matcher.group(1));
+            millis += switch (matcher.group(2)) {
+                case "h" -> amount * 3_600_000;
+                case "m" -> amount * 60_000;
+                case "s" -> amount * 1_000;
+                default -> amount;
+            };
+        }
+        return matched ? Duration.ofMillis((long) Math.ceil(millis)) : fallback;
+    }
+
+    private record Waiter(GroqPriority priority, long sequence) {
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.memory_keeper.ai;
+
+import com.example.memory_keeper.config.EmbeddingConfig;
+import com.example.memory_keeper.util.VectorUtils;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Local embedder that needs no model and no network: words and word pairs
+ * are hashed into a fixed number of buckets (the "hashing trick"), weighted
+ * by log term frequency, and the vector normalised.
+ *
+ * It only captures shared vocabulary, not meaning, but it is deterministic
+ * and instant, which makes it the default for offline use and tests.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "ai.embedding", name = "provider", havingValue = "local", matchIfMissing = true)
+public class HashingEmbeddingProvider implements EmbeddingProvider {
+
+    private static final float BIGRAM_WEIGHT = 0.5f;
+
+    private final EmbeddingConfig config;
+
+    @Override
+    public String model() {
+        return "local-hashing-v1-" + config.getDimensions();
+    }
+
+    @Override
+    public int dimensions() {
+        return config.getDimensions();
+    }
+
+    @Override
+    public float[] embed(String text) {
+        List<String> terms = PassageIndex.terms(text);
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < terms.size(); i++) {
+            counts.merge(terms.get(i), 1, Integer::sum);
+            if (i + 1 < terms.size()) {
+                counts.merge(terms.get(i) + " " + terms.get(i + 1), 1, Integer::sum);
+            }
+        }
+
+        float[] vector = new float[config.getDimensions()];
+        counts.forEach((feature, count) -> {
+            int hash = mix(feature.hashCode());
+            int bucket = (hash & 0x7fff_ffff) % vector.length;
+            // The remaining bit picks the sign, so collisions tend to cancel out instead of adding up
+            float sign = hash < 0 ? -1f : 1f;
+            float weight = feature.indexOf(' ') >= 0 ? BIGRAM_WEIGHT : 1f;
+            vector[bucket] += sign * weight * (float) (1 + Math.log(count));
+        });
+        return VectorUtils.normalize(vector);
+    }
+
+    // ==================== HELPER METHODS ====================
+
+    // Murmur3 finaliser: spreads String.hashCode's bits so nearby words land in unrelated buckets
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85eb_ca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2_ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
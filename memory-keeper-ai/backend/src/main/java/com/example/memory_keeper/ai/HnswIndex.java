@@ -0,0 +1,261 @@
+package com.example.memory_keeper.ai;
+
+import com.example.memory_keeper.util.VectorUtils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory approximate nearest-neighbour index (HNSW) over unit vectors,
+ * ranked by cosine similarity.
+ *
+ * Every node sits on layer 0 and, with exponentially falling probability,
+ * on the layers above. A search walks greedily down the sparse upper layers
+ * and then does a bounded best-first search (ef candidates) on layer 0, so
+ * it touches a few hundred vectors rather than all of them.
+ *
+ * Removed nodes stay in the graph as stepping stones and are filtered out
+ * of results. Once they make up a quarter of the index it is rebuilt from
+ * the live nodes. Reads share a lock, writes are exclusive.
+ */
+public class HnswIndex {
+
+    private static final double TOMBSTONE_RATIO = 0.25;
+
+    private final int m;
+    private final int maxM0;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    // Seeded, so the same inserts always build the same graph
+    private final Random random = new Random(42);
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Live nodes only; removed ones are reachable through links until the next compaction
+    private Map<Long, Node> nodes = new HashMap<>();
+    private Node entryPoint;
+    private int deleted;
+
+    public record Match(long id, float score) {
+    }
+
+    private static final class Node {
+        final long id;
+        final float[] vector;
+        final List<List<Node>> links;
+        boolean deleted;
+
+        Node(long id, float[] vector, int level) {
+            this.id = id;
+            this.vector = vector;
+            this.links = new ArrayList<>(level + 1);
+            for (int i = 0; i <= level; i++) {
+                links.add(new ArrayList<>());
+            }
+        }
+
+        int level() {
+            return links.size() - 1;
+        }
+    }
+
+    private record Candidate(Node node, float score) {
+    }
+
+    public HnswIndex(int m, int efConstruction) {
+        this.m = m;
+        this.maxM0 = m * 2;
+        this.efConstruction = efConstruction;
+        this.levelMultiplier = 1 / Math.log(m);
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return nodes.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean contains(long id) {
+        lock.readLock().lock();
+        try {
+            return nodes.containsKey(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public float[] vector(long id) {
+        lock.readLock().lock();
+        try {
+            Node node = nodes.get(id);
+            return node == null ? null : node.vector;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Adds the vector, replacing any earlier one with the same id.
+     */
+    public void add(long id, float[] vector) {
+        lock.writeLock().lock();
+        try {
+            bury(nodes.remove(id));
+            insert(new Node(id, vector, randomLevel()));
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            bury(nodes.remove(id));
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * The k nearest live vectors to the query, best first, leaving out excludeId.
+     */
+    public List<Match> search(float[] query, int k, int ef, Long excludeId) {
+        lock.readLock().lock();
+        try {
+            if (entryPoint == null) return List.of();
+            Node current = entryPoint;
+            for (int layer = entryPoint.level(); layer > 0; layer--) {
+                current = greedyClosest(query, current, layer);
+            }
+            List<Candidate> candidates = searchLayer(query, current, Math.max(ef, k + 1), 0);
+
+            List<Match> matches = new ArrayList<>(k);
+            for (Candidate candidate : candidates) {
+                if (matches.size() == k) break;
+                Node node = candidate.node();
+                if (node.deleted || (excludeId != null && node.id == excludeId)) continue;
+                matches.add(new Match(node.id, candidate.score()));
+            }
+            return matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ==================== HELPER METHODS ====================
+
+    private void insert(Node node) {
+        nodes.put(node.id, node);
+        if (entryPoint == null) {
+            entryPoint = node;
+            return;
+        }
+
+        Node current = entryPoint;
+        for (int layer = entryPoint.level(); layer > node.level(); layer--) {
+            current = greedyClosest(node.vector, current, layer);
+        }
+        for (int layer = Math.min(node.level(), entryPoint.level()); layer >= 0; layer--) {
+            List<Candidate> candidates = searchLayer(node.vector, current, efConstruction, layer);
+            int maxLinks = layer == 0 ? maxM0 : m;
+            for (Candidate candidate : candidates.subList(0, Math.min(m, candidates.size()))) {
+                Node neighbour = candidate.node();
+                node.links.get(layer).add(neighbour);
+                List<Node> back = neighbour.links.get(layer);
+                back.add(node);
+                if (back.size() > maxLinks) {
+                    back.sort(Comparator.comparingDouble(n -> -VectorUtils.dot(n.vector, neighbour.vector)));
+                    back.subList(maxLinks, back.size()).clear();
+                }
+            }
+            current = candidates.get(0).node();
+        }
+        if (node.level() > entryPoint.level()) {
+            entryPoint = node;
+        }
+    }
+
+    private Node greedyClosest(float[] query, Node start, int layer) {
+        Node best = start;
+        float bestScore = VectorUtils.dot(query, start.vector);
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            for (Node neighbour : best.links.get(layer)) {
+                float score = VectorUtils.dot(query, neighbour.vector);
+                if (score > bestScore) {
+                    best = neighbour;
+                    bestScore = score;
+                    improved = true;
+                }
+            }
+        }
+        return best;
+    }
+
+    // Best-first search keeping the ef closest nodes seen; returns them best first
+    private List<Candidate> searchLayer(float[] query, Node start, int ef, int layer) {
+        Set<Node> visited = new HashSet<>();
+        PriorityQueue<Candidate> toVisit = new PriorityQueue<>(Comparator.comparingDouble(c -> -c.score()));
+        PriorityQueue<Candidate> found = new PriorityQueue<>(Comparator.comparingDouble(Candidate::score));
+
+        Candidate first = new Candidate(start, VectorUtils.dot(query, start.vector));
+        visited.add(start);
+        toVisit.add(first);
+        found.add(first);
+
+        while (!toVisit.isEmpty()) {
+            Candidate closest = toVisit.poll();
+            if (found.size() >= ef && closest.score() < found.peek().score()) break;
+            for (Node neighbour : closest.node().links.get(layer)) {
+                if (!visited.add(neighbour)) continue;
+                float score = VectorUtils.dot(query, neighbour.vector);
+                if (found.size() < ef || score > found.peek().score()) {
+                    Candidate candidate = new Candidate(neighbour, score);
+                    toVisit.add(candidate);
+                    found.add(candidate);
+                    if (found.size() > ef) found.poll();
+                }
+            }
+        }
+
+        List<Candidate> result = new ArrayList<>(found);
+        result.sort(Comparator.comparingDouble(c -> -c.score()));
+        return result;
+    }
+
+    private void bury(Node node) {
+        if (node != null) {
+            node.deleted = true;
+            deleted++;
+        }
+    }
+
+    private int randomLevel() {
+        return (int) (-Math.log(1 - random.nextDouble()) * levelMultiplier);
+    }
+
+    private void compactIfNeeded() {
+        if (deleted < 16 || deleted < (nodes.size() + deleted) * TOMBSTONE_RATIO) return;
+        List<Node> live = List.copyOf(nodes.values());
+        nodes = new HashMap<>();
+        entryPoint = null;
+        deleted = 0;
+        for (Node old : live) {
+            insert(new Node(old.id, old.vector, randomLevel()));
+        }
+    }
+}
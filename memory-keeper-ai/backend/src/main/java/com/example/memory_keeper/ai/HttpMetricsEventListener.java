@@ -0,0 +1,209 @@
+package com.example.memory_keeper.ai;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.HttpUrl;
+import okhttp3.Protocol;
+import okhttp3.Response;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records network phases for one provider:
+ * ai.http.dns, ai.http.connect, ai.http.tls, ai.http.ttfb and ai.http.call
+ * (tagged provider and, for ai.http.call, outcome), plus
+ * ai.http.connections{reused} to show how often pooled connections are reused.
+ * The outcome follows the response status: success for 2xx and 3xx,
+ * client_error for 4xx (429 included), server_error for 5xx, and failure
+ * when no response arrived at all.
+ *
+ * Timings are per network attempt. An attempt starts with its first network
+ * event, so the circuit breaker's bulkhead wait and retry back-off (which run
+ * in an application interceptor, before and between attempts) are not
+ * counted, and every retry is a sample of its own. ai.http.ttfb runs from
+ * sending the request headers to the first response byte.
+ *
+ * OkHttp creates one listener per call and reports its events in order, so
+ * the start timestamps need no locking.
+ */
+public class HttpMetricsEventListener extends EventListener {
+
+    private final Meters meters;
+
+    private long attemptStart = -1;
+    private long requestStart;
+    private long dnsStart;
+    private long connectStart;
+    private long tlsStart;
+    private boolean newConnection;
+    private int status;
+
+    private HttpMetricsEventListener(Meters meters) {
+        this.meters = meters;
+    }
+
+    public static EventListener.Factory factory(AIProvider provider, MeterRegistry registry) {
+        Meters meters = new Meters(provider.getKey(), registry);
+        return call -> new HttpMetricsEventListener(meters);
+    }
+
+    @Override
+    public void proxySelectStart(Call call, HttpUrl url) {
+        startAttempt();
+    }
+
+    @Override
+    public void dnsStart(Call call, String domainName) {
+        startAttempt();
+        dnsStart = System.nanoTime();
+    }
+
+    @Override
+    public void dnsEnd(Call call, String domainName, List<InetAddress> inetAddressList) {
+        meters.dns.record(System.nanoTime() - dnsStart, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+        startAttempt();
+        connectStart = System.nanoTime();
+        newConnection = true;
+    }
+
+    @Override
+    public void secureConnectStart(Call call) {
+        tlsStart = System.nanoTime();
+    }
+
+    @Override
+    public void secureConnectEnd(Call call, Handshake handshake) {
+        meters.tls.record(System.nanoTime() - tlsStart, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void connectEnd(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol) {
+        meters.connect.record(System.nanoTime() - connectStart, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void connectionAcquired(Call call, Connection connection) {
+        startAttempt();
+        (newConnection ? meters.newConnections : meters.reusedConnections).increment();
+    }
+
+    @Override
+    public void requestHeadersStart(Call call) {
+        startAttempt();
+        requestStart = System.nanoTime();
+    }
+
+    @Override
+    public void requestFailed(Call call, IOException ioe) {
+        endAttempt(meters.callFailure);
+    }
+
+    @Override
+    public void responseHeadersStart(Call call) {
+        meters.ttfb.record(System.nanoTime() - requestStart, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void responseHeadersEnd(Call call, Response response) {
+        // Reset so a follow-up or retry on a pooled connection is counted as reused.
+        newConnection = false;
+        status = response.code();
+    }
+
+    @Override
+    public void responseBodyEnd(Call call, long byteCount) {
+        // Also fires when a retried response is closed unread
+        endAttempt(byStatus());
+    }
+
+    @Override
+    public void responseFailed(Call call, IOException ioe) {
+        endAttempt(meters.callFailure);
+    }
+
+    @Override
+    public void callEnd(Call call) {
+        endAttempt(byStatus());
+    }
+
+    @Override
+    public void callFailed(Call call, IOException ioe) {
+        // Connection failures end the attempt here
+        endAttempt(meters.callFailure);
+    }
+
+    private void startAttempt() {
+        if (attemptStart < 0) {
+            attemptStart = System.nanoTime();
+        }
+    }
+
+    private void endAttempt(Timer timer) {
+        if (attemptStart >= 0) {
+            timer.record(System.nanoTime() - attemptStart, TimeUnit.NANOSECONDS);
+            attemptStart = -1;
+        }
+        status = 0;
+    }
+
+    private Timer byStatus() {
+        if (status >= 500) {
+            return meters.callServerError;
+        }
+        if (status >= 400) {
+            return meters.callClientError;
+        }
+        return meters.callSuccess;
+    }
+
+    private static class Meters {
+        final Timer dns;
+        final Timer connect;
+        final Timer tls;
+        final Timer ttfb;
+        final Timer callSuccess;
+        final Timer callClientError;
+        final Timer callServerError;
+        final Timer callFailure;
+        final Counter newConnections;
+        final Counter reusedConnections;
+
+        Meters(String provider, MeterRegistry registry) {
+            dns = timer("ai.http.dns", provider, registry);
+            connect = timer("ai.http.connect", provider, registry);
+            tls = timer("ai.http.tls", provider, registry);
+            ttfb = Timer.builder("ai.http.ttfb")
+                    .tag("provider", provider)
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .register(registry);
+            callSuccess = call(provider, "success", registry);
+            callClientError = call(provider, "client_error", registry);
+            callServerError = call(provider, "server_error", registry);
+            callFailure = call(provider, "failure", registry);
+            newConnections = Counter.builder("ai.http.connections").tag("provider", provider).tag("reused", "false").register(registry);
+            reusedConnections = Counter.builder("ai.http.connections").tag("provider", provider).tag("reused", "true").register(registry);
+        }
+
+        private static Timer timer(String name, String provider, MeterRegistry registry) {
+            return Timer.builder(name).tag("provider", provider).register(registry);
+        }
+
+        private static Timer call(String provider, String outcome, MeterRegistry registry) {
+            return Timer.builder("ai.http.call").tag("provider", provider).tag("outcome", outcome).register(registry);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.memory_keeper.ai;
+
+import com.example.memory_keeper.config.HuggingFaceBatchConfig;
+import com.fasterxml.jackson.databind.JsonNode;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Collects concurrent sentiment and emotion requests and sends them to
+ * Hugging Face as one batched call per model.
+ *
+ * The first request for a model opens a batch. The batch is sent when it
+ * reaches max-batch-size or max-wait after it opened, whichever comes
+ * first. Each caller then gets its own result from the batched response.
+ * A failed batch fails every caller in it, just as their individual calls
+ * would have failed.
+ *
+ * Exposes ai.huggingface.batch.size{model}.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class HuggingFaceBatcher {
+
+    private final HuggingFaceClient huggingFaceClient;
+    private final HuggingFaceWarmupKeeper warmupKeeper;
+    private final HuggingFaceBatchConfig config;
+    private final AsyncTaskExecutor aiTaskExecutor;
+    private final MeterRegistry meterRegistry;
+    private final UsageRecorder usageRecorder;
+
+    private final Map<String, Batch> openBatches = new ConcurrentHashMap<>();
+
+    public Map<String, Object> analyzeSentiment(String text) throws IOException, InterruptedException {
+        Map<String, Object> sentiment = config.isEnabled()
+                ? huggingFaceClient.parseSentiment(AsyncJobTracker.await(submit(HuggingFaceClient.SENTIMENT_MODEL, text), config.getTimeout()))
+                : warmupKeeper.whenReady(HuggingFaceClient.SENTIMENT_MODEL, () -> huggingFaceClient.analyzeSentiment(text));
+        // Only successful calls are counted, as for every other provider
+        usageRecorder.record(AIProvider.HUGGINGFACE, UsageUnit.CHARACTERS, text.length());
+        return sentiment;
+    }
+
+    public JsonNode detectEmotions(String text) throws IOException, InterruptedException {
+        JsonNode emotions = config.isEnabled()
+                ? AsyncJobTracker.await(submit(HuggingFaceClient.EMOTION_MODEL, text), config.getTimeout())
+                : warmupKeeper.whenReady(HuggingFaceClient.EMOTION_MODEL, () -> huggingFaceClient.detectEmotions(text));
+        usageRecorder.record(AIProvider.HUGGINGFACE, UsageUnit.CHARACTERS, text.length());
+        return emotions;
+    }
+
+    public CompletableFuture<JsonNode> submit(String model, String input) {
+        CompletableFuture<JsonNode> result = new CompletableFuture<>();
+        while (true) {
+            Batch batch = openBatches.computeIfAbsent(model, this::openBatch);
+            synchronized (batch) {
+                if (batch.sealed) {
+                    continue; // Flushed meanwhile; open a new one
+                }
+                batch.inputs.add(input);
+                batch.results.add(result);
+                if (batch.inputs.size() >= config.getMaxBatchSize()) {
+                    seal(model, batch);
+                    aiTaskExecutor.execute(() -> send(model, batch));
+                }
+            }
+            return result;
+        }
+    }
+
+    // ==================== HELPER METHODS ====================
+
+    private Batch openBatch(String model) {
+        Batch batch = new Batch();
+        aiTaskExecutor.execute(() -> {
+            try {
+                Thread.sleep(config.getMaxWait().toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            synchronized (batch) {
+                if (batch.sealed) {
+                    return; // Already sent because it filled up
+                }
+                seal(model, batch);
+            }
+            send(model, batch);
+        });
+        return batch;
+    }
+
+    private void seal(String model, Batch batch) {
+        batch.sealed = true;
+        openBatches.remove(model, batch);
+    }
+
+    private void send(String model, Batch batch) {
+        DistributionSummary.builder("ai.huggingface.batch.size")
+                .tag("model", model)
+                .register(meterRegistry)
+                .record(batch.inputs.size());
+        log.info("Sending batch of {} inputs to HuggingFace {}", batch.inputs.size(), model);
+
+        try {
+            List<JsonNode> results = warmupKeeper.whenReady(model, () -> huggingFaceClient.classifyBatch(model, batch.inputs));
+            for (int i = 0; i < results.size(); i++) {
+                batch.results.get(i).complete(results.get(i));
+            }
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            batch.results.forEach(future -> future.completeExceptionally(e));
+        }
+    }
+
+    /**
+     * Inputs and futures are only touched while holding the batch lock,
+     * until the batch is sealed; after that only the sender reads them.
+     */
+    private static class Batch {
+        final List<String> inputs = new ArrayList<>();
+        final List<CompletableFuture<JsonNode>> results = new ArrayList<>();
+        boolean sealed;
+    }
+}
@@ -3,6 +3,7 @@ package com.example.memory_keeper.ai;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import okhttp3.*;
@@ -10,9 +11,12 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.TimeUnit;
 
 /**
  * Hugging Face Client (FINAL VERSION)
@@ -21,12 +25,17 @@ import java.util.concurrent.TimeUnit;
  * 1. Sentiment Analysis (Positive/Negative/Neutral)
  * 2. Emotion Detection (Joy, Sadness, etc.)
  * 3. Image Generation (Stable Diffusion)
+ * 4. Sentence Embeddings (sentence-transformers)
  */
 @Component
 @Slf4j
 @RequiredArgsConstructor
 public class HuggingFaceClient {
 
+    public static final String SENTIMENT_MODEL = "cardiffnlp/twitter-roberta-base-sentiment-latest";
+    public static final String EMOTION_MODEL = "j-hartmann/emotion-english-distilroberta-base";
+    public static final String IMAGE_MODEL = "Lykon/dreamshaper-xl-turbo";
+
     @Value("${ai.huggingface.api-key}")
     private String apiKey;
 
@@ -35,86 +44,128 @@ public class HuggingFaceClient {
 
     private final ObjectMapper objectMapper;
 
-    // Use a shared OkHttpClient with longer timeouts for AI models
-    private final OkHttpClient client = new OkHttpClient.Builder()
-            .connectTimeout(30, TimeUnit.SECONDS)
-            .readTimeout(120, TimeUnit.SECONDS) // Increased for image generation
-            .writeTimeout(30, TimeUnit.SECONDS)
-            .build();
+    private final AIHttpClientFactory httpClientFactory;
+    private final UsageRecorder usageRecorder;
+    private OkHttpClient client;
+
+    @PostConstruct
+    void initHttpClient() {
+        client = httpClientFactory.forProvider(AIProvider.HUGGINGFACE);
+    }
 
     /**
      * Analyze sentiment of text using a reliable RoBERTa model.
      */
     public Map<String, Object> analyzeSentiment(String text) throws IOException {
-        String modelUrl = baseUrl + "/cardiffnlp/twitter-roberta-base-sentiment-latest";
-        log.info("Calling HuggingFace sentiment analysis at: {}", modelUrl);
-        String jsonBody = objectMapper.writeValueAsString(Map.of("inputs", text));
-        Request request = buildPostRequest(modelUrl, jsonBody);
+        log.info("Calling HuggingFace sentiment analysis at: {}", baseUrl + "/" + SENTIMENT_MODEL);
+        return parseSentiment(classifyBatch(SENTIMENT_MODEL, List.of(text)).get(0));
+    }
+
+    /**
+     * Detect multiple emotions in a given text.
+     */
+    public JsonNode detectEmotions(String text) throws IOException {
+        log.info("Calling HuggingFace emotion detection at: {}", baseUrl + "/" + EMOTION_MODEL);
+        return classifyBatch(EMOTION_MODEL, List.of(text)).get(0);
+    }
+
+    /**
+     * Runs a text-classification model on several inputs in one request.
+     * Returns one label/score array per input, in input order.
+     */
+    public List<JsonNode> classifyBatch(String model, List<String> inputs) throws IOException {
+        String modelUrl = baseUrl + "/" + model;
+        Object payload = inputs.size() == 1 ? inputs.get(0) : inputs;
+        String jsonBody = objectMapper.writeValueAsString(Map.of("inputs", payload));
+        Request request = buildPostRequest(modelUrl, jsonBody, true);
 
         try (Response response = client.newCall(request).execute()) {
             String responseBody = response.body() != null ? response.body().string() : "";
             if (!response.isSuccessful()) {
-                log.error("HuggingFace sentiment API failed with status: {}. Body: {}", response.code(), responseBody);
-                throw new IOException("Sentiment analysis failed: " + response.code());
+                checkLoading(model, response.code(), responseBody);
+                log.error("HuggingFace {} failed with status: {}. Body: {}", model, response.code(), responseBody);
+                throw new IOException("HuggingFace classification failed: " + response.code());
             }
 
             JsonNode jsonArray = objectMapper.readTree(responseBody);
-            if (jsonArray.isArray() && !jsonArray.isEmpty() && jsonArray.get(0).isArray() && !jsonArray.get(0).isEmpty()) {
-                JsonNode topResult = jsonArray.get(0).get(0);
-                String label = topResult.get("label").asText();
-                double score = topResult.get("score").asDouble();
-                Map<String, Object> result = new HashMap<>();
-                result.put("label", label.toUpperCase());
-                result.put("score", score);
-                log.info("Sentiment result: {}", result);
-                return result;
-            } else {
-                log.error("Unexpected sentiment response format: {}", responseBody);
-                throw new IOException("Could not parse sentiment from HuggingFace response.");
+            if (!jsonArray.isArray() || jsonArray.size() != inputs.size()) {
+                log.error("Unexpected {} response format for {} inputs: {}", model, inputs.size(), responseBody);
+                throw new IOException("Could not parse classification from HuggingFace response.");
             }
+            List<JsonNode> results = new ArrayList<>(inputs.size());
+            jsonArray.forEach(results::add);
+            return results;
         }
     }
 
     /**
-     * Detect multiple emotions in a given text.
+     * Sentence embeddings for several inputs in one request, through the
+     * feature-extraction pipeline. Returns one vector per input, in input order.
      */
-    public JsonNode detectEmotions(String text) throws IOException {
-        String modelUrl = baseUrl + "/j-hartmann/emotion-english-distilroberta-base";
-        log.info("Calling HuggingFace emotion detection at: {}", modelUrl);
-        String jsonBody = objectMapper.writeValueAsString(Map.of("inputs", text));
-        Request request = buildPostRequest(modelUrl, jsonBody);
+    public List<float[]> embed(String model, List<String> inputs) throws IOException {
+        String url = baseUrl.replace("/models", "/pipeline/feature-extraction") + "/" + model;
+        String jsonBody = objectMapper.writeValueAsString(Map.of("inputs", inputs));
+        Request request = buildPostRequest(url, jsonBody, true);
 
         try (Response response = client.newCall(request).execute()) {
             String responseBody = response.body() != null ? response.body().string() : "";
             if (!response.isSuccessful()) {
-                log.error("HuggingFace emotion API failed with status: {}. Body: {}", response.code(), responseBody);
-                throw new IOException("Emotion detection failed: " + response.code());
+                checkLoading(model, response.code(), responseBody);
+                log.error("HuggingFace embedding {} failed with status: {}", model, response.code());
+                throw new IOException("HuggingFace embedding failed: " + response.code());
             }
 
             JsonNode jsonArray = objectMapper.readTree(responseBody);
-            if (jsonArray.isArray() && !jsonArray.isEmpty()) {
-                return jsonArray.get(0);
-            } else {
-                log.error("Unexpected emotion response format: {}", responseBody);
-                throw new IOException("Could not parse emotions from HuggingFace response.");
+            if (!jsonArray.isArray() || jsonArray.size() != inputs.size()) {
+                throw new IOException("Could not parse embeddings from HuggingFace response.");
+            }
+            usageRecorder.record(AIProvider.HUGGINGFACE, UsageUnit.CHARACTERS,
+                    inputs.stream().mapToLong(String::length).sum());
+            List<float[]> vectors = new ArrayList<>(inputs.size());
+            for (JsonNode row : jsonArray) {
+                float[] vector = new float[row.size()];
+                for (int i = 0; i < vector.length; i++) {
+                    vector[i] = (float) row.get(i).asDouble();
+                }
+                vectors.add(vector);
             }
+            return vectors;
+        }
+    }
+
+    /**
+     * Picks the top label from one input's sentiment result.
+     */
+    public Map<String, Object> parseSentiment(JsonNode labels) throws IOException {
+        if (labels != null && labels.isArray() && !labels.isEmpty()) {
+            JsonNode topResult = labels.get(0);
+            String label = topResult.get("label").asText();
+            double score = topResult.get("score").asDouble();
+            Map<String, Object> result = new HashMap<>();
+            result.put("label", label.toUpperCase());
+            result.put("score", score);
+            log.info("Sentiment result: {}", result);
+            return result;
         }
+        log.error("Unexpected sentiment response format: {}", labels);
+        throw new IOException("Could not parse sentiment from HuggingFace response.");
     }
 
     /**
      * Generate Image using a FREE and STABLE Hugging Face Model.
      * This is the final, corrected version.
+     * The image is copied straight from the response body to the sink.
      */
-    public byte[] generateImage(String prompt) throws IOException {
+    public void generateImage(String prompt, OutputStream sink) throws IOException {
 
         // --- START OF FIX ---
         // Using a more stable and consistently available model to avoid 404 errors.
-        String modelUrl = baseUrl + "/Lykon/dreamshaper-xl-turbo";
+        String modelUrl = baseUrl + "/" + IMAGE_MODEL;
         // --- END OF FIX ---
 
         String fullPrompt = prompt + ", nostalgic, vintage photo, heartwarming, soft lighting, detailed, high quality, masterpiece";
         String jsonBody = objectMapper.writeValueAsString(Map.of("inputs", fullPrompt));
-        Request request = buildPostRequest(modelUrl, jsonBody);
+        Request request = buildPostRequest(modelUrl, jsonBody, false);
 
         log.info("Calling Hugging Face image generation at URL: {}", modelUrl);
         log.info("Image prompt: {}", fullPrompt);
@@ -122,28 +173,74 @@ public class HuggingFaceClient {
         try (Response response = client.newCall(request).execute()) {
             if (!response.isSuccessful()) {
                 String errorBody = response.body() != null ? response.body().string() : "No response body";
+                checkLoading(IMAGE_MODEL, response.code(), errorBody);
                 log.error("Hugging Face image generation failed with status: {}. Body: {}", response.code(), errorBody);
-                if (response.code() == 503) {
-                    throw new IOException("Image generation model is currently loading on Hugging Face's servers. Please try again in a moment.");
-                }
                 throw new IOException("Hugging Face image generation failed with status code: " + response.code());
             }
 
-            byte[] imageBytes = response.body().bytes();
-            if (imageBytes == null || imageBytes.length < 1000) { // Check if the response is a valid image
-                log.error("Hugging Face returned an invalid or empty image. Response might be an error JSON instead of an image.");
+            MediaType contentType = response.body().contentType();
+            if (contentType != null && !"image".equals(contentType.type())) { // Check if the response is a valid image
+                log.error("Hugging Face returned {} instead of an image.", contentType);
+                throw new IOException("Received invalid image data from Hugging Face.");
+            }
+            long written = response.body().byteStream().transferTo(sink);
+            if (written < 1000) {
+                log.error("Hugging Face returned an invalid or empty image ({} bytes).", written);
                 throw new IOException("Received invalid image data from Hugging Face.");
             }
-            return imageBytes;
+        }
+    }
+
+    /**
+     * Sends the cheapest request the model accepts, only to get it loaded.
+     * Returns normally once the model answered, and throws
+     * ModelLoadingException while it is still loading.
+     */
+    public void warmUp(String model) throws IOException {
+        Map<String, Object> payload = IMAGE_MODEL.equals(model)
+                ? Map.of("inputs", "warm-up", "parameters", Map.of("num_inference_steps", 1, "width", 256, "height", 256))
+                : Map.of("inputs", "warm-up");
+        Request request = buildPostRequest(baseUrl + "/" + model, objectMapper.writeValueAsString(payload), false);
+
+        try (Response response = client.newCall(request).execute()) {
+            if (!response.isSuccessful()) {
+                String body = response.body() != null ? response.body().string() : "";
+                checkLoading(model, response.code(), body);
+                throw new IOException("Warm-up of " + model + " failed: " + response.code());
+            }
+        }
+    }
+
+    /**
+     * A 503 carrying estimated_time is Hugging Face's "model is loading" reply.
+     */
+    private void checkLoading(String model, int code, String body) throws ModelLoadingException {
+        if (code != 503) {
+            return;
+        }
+        try {
+            JsonNode json = objectMapper.readTree(body);
+            if (json.has("estimated_time") || json.path("error").asText().contains("loading")) {
+                double seconds = json.path("estimated_time").asDouble(20.0);
+                throw new ModelLoadingException(model, Duration.ofMillis((long) (seconds * 1000)));
+            }
+        } catch (ModelLoadingException e) {
+            throw e;
+        } catch (IOException ignored) {
+            // Not JSON, so not the loading reply
         }
     }
 
     /**
      * Helper method to build a standardized POST request with authorization.
+     * Classification and embedding calls are safe to retry; image generation is billed per call.
      */
-    private Request buildPostRequest(String url, String jsonBody) {
+    private Request buildPostRequest(String url, String jsonBody, boolean retrySafe) {
         RequestBody body = RequestBody.create(jsonBody, MediaType.parse("application/json"));
         Request.Builder requestBuilder = new Request.Builder().url(url).post(body);
+        if (retrySafe) {
+            requestBuilder.tag(ProviderResilienceInterceptor.Retry.class, ProviderResilienceInterceptor.Retry.SAFE);
+        }
 
         if (apiKey != null && !apiKey.isEmpty()) {
             requestBuilder.addHeader("Authorization", "Bearer " + apiKey);
@@ -0,0 +1,56 @@
+package com.example.memory_keeper.ai;
+
+import com.example.memory_keeper.config.EmbeddingConfig;
+import com.example.memory_keeper.util.VectorUtils;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.List;
+
+/**
+ * Embeds text with a sentence-transformers model on the Hugging Face
+ * Inference API. Better semantic matches than the local embedder, at the
+ * cost of a network call per batch.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "ai.embedding", name = "provider", havingValue = "huggingface")
+public class HuggingFaceEmbeddingProvider implements EmbeddingProvider {
+
+    // all-MiniLM-L6-v2 and most small sentence-transformers models
+    private static final int DEFAULT_DIMENSIONS = 384;
+
+    private final HuggingFaceClient huggingFaceClient;
+    private final HuggingFaceWarmupKeeper warmupKeeper;
+    private final EmbeddingConfig config;
+
+    @Override
+    public String model() {
+        return config.getHuggingfaceModel();
+    }
+
+    @Override
+    public int dimensions() {
+        return DEFAULT_DIMENSIONS;
+    }
+
+    @Override
+    public float[] embed(String text) throws IOException {
+        return embedAll(List.of(text)).get(0);
+    }
+
+    @Override
+    public List<float[]> embedAll(List<String> texts) throws IOException {
+        try {
+            List<float[]> vectors = warmupKeeper.whenReady(model(), () -> huggingFaceClient.embed(model(), texts));
+            vectors.forEach(VectorUtils::normalize);
+            return vectors;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for " + model());
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.memory_keeper.ai;
+
+import com.example.memory_keeper.config.HuggingFaceWarmupConfig;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps the Hugging Face models we depend on loaded, and holds requests
+ * that hit a cold start instead of failing them.
+ *
+ * - Warm-up: every configured model gets a cheap ping each ping-interval.
+ *   This resets Hugging Face's idle timer, so the model stays loaded. With
+ *   keep-warm-after-use set, a model is only pinged while it is in use.
+ * - Cold start: when a call gets "model is loading" (ModelLoadingException),
+ *   the model is marked LOADING. The caller waits, as one of at most
+ *   max-queued per model, until a readiness check sees the model answer.
+ *   Then the call is sent again. Callers beyond the queue limit, or still
+ *   waiting after max-wait, get the original exception.
+ *
+ * Exposes ai.huggingface.model.state{model} (0 unknown, 1 ready, 2 loading)
+ * and ai.huggingface.model.waiting{model}.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class HuggingFaceWarmupKeeper {
+
+    private final HuggingFaceClient huggingFaceClient;
+    private final HuggingFaceWarmupConfig config;
+    private final AsyncTaskExecutor aiTaskExecutor;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, ModelState> models = new ConcurrentHashMap<>();
+
+    public enum State {
+        UNKNOWN,
+        READY,
+        LOADING
+    }
+
+    @FunctionalInterface
+    public interface ModelCall<T> {
+        T call() throws IOException;
+    }
+
+    /**
+     * Runs the call, waiting out a cold start of the model if needed.
+     */
+    public <T> T whenReady(String model, ModelCall<T> call) throws IOException, InterruptedException {
+        ModelState state = state(model);
+        state.lastUsed = System.currentTimeMillis();
+        long deadline = System.nanoTime() + config.getMaxWait().toNanos();
+
+        while (true) {
+            CompletableFuture<Void> ready = state.ready;
+            if (state.state == State.LOADING) {
+                awaitReady(model, state, ready, deadline, null);
+            }
+            try {
+                T result = call.call();
+                state.markReady();
+                return result;
+            } catch (ModelLoadingException e) {
+                state.markLoading(ready);
+                awaitReady(model, state, state.ready, deadline, e);
+            }
+        }
+    }
+
+    public State getState(String model) {
+        return state(model).state;
+    }
+
+    @Scheduled(fixedDelayString = "${ai.huggingface.warmup.tick-ms:1000}")
+    public void tick() {
+        long now = System.currentTimeMillis();
+        long keepWarm = config.getKeepWarmAfterUse().toMillis();
+        if (config.isEnabled()) {
+            config.getModels().forEach(this::state);
+        }
+        for (Map.Entry<String, ModelState> entry : models.entrySet()) {
+            ModelState state = entry.getValue();
+            boolean due = state.state == State.LOADING
+                    ? now - state.lastCheck >= config.getLoadingCheckInterval().toMillis()
+                    : config.isEnabled() && config.getModels().contains(entry.getKey())
+                    && now - state.lastCheck >= config.getPingInterval().toMillis()
+                    && (keepWarm <= 0 || now - state.lastUsed <= keepWarm);
+            if (due && state.checking.compareAndSet(false, true)) {
+                state.lastCheck = now;
+                aiTaskExecutor.execute(() -> ping(entry.getKey(), state));
+            }
+        }
+    }
+
+    // ==================== HELPER METHODS ====================
+
+    private void ping(String model, ModelState state) {
+        try {
+            huggingFaceClient.warmUp(model);
+            if (state.state != State.READY) {
+                log.info("🔥 HuggingFace model {} is ready", model);
+            }
+            state.markReady();
+        } catch (ModelLoadingException e) {
+            log.info("⏳ HuggingFace model {} still loading (~{}s)", model, e.getEstimatedTime().toSeconds());
+            state.markLoading(state.ready);
+        } catch (IOException e) {
+            log.warn("⚠️ Warm-up ping for {} failed: {}", model, e.getMessage());
+        } finally {
+            state.checking.set(false);
+        }
+    }
+
+    private void awaitReady(String model, ModelState state, CompletableFuture<Void> ready, long deadline,
+                            ModelLoadingException cause) throws IOException, InterruptedException {
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0 || !state.queue.tryAcquire()) {
+            throw cause != null ? cause : new ModelLoadingException(model, config.getMaxWait());
+        }
+        try {
+            log.info("⏳ Waiting for HuggingFace model {} to load", model);
+            ready.get(remaining, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw cause != null ? cause : new ModelLoadingException(model, config.getMaxWait());
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        } finally {
+            state.queue.release();
+        }
+    }
+
+    private ModelState state(String model) {
+        return models.computeIfAbsent(model, m -> {
+            ModelState state = new ModelState(config.getMaxQueued());
+            Gauge.builder("ai.huggingface.model.state", state, s -> s.state.ordinal())
+                    .tag("model", m)
+                    .register(meterRegistry);
+            Gauge.builder("ai.huggingface.model.waiting", state, s -> config.getMaxQueued() - s.queue.availablePermits())
+                    .tag("model", m)
+                    .register(meterRegistry);
+            return state;
+        });
+    }
+
+    private static class ModelState {
+        final Semaphore queue;
+        final AtomicBoolean checking = new AtomicBoolean();
+        volatile State state = State.UNKNOWN;
+        volatile CompletableFuture<Void> ready = new CompletableFuture<>();
+        volatile long lastCheck;
+        volatile long lastUsed;
+
+        ModelState(int maxQueued) {
+            this.queue = new Semaphore(maxQueued);
+        }
+
+        synchronized void markReady() {
+            state = State.READY;
+            ready.complete(null);
+        }
+
+        /**
+         * Starts a new wait round unless someone already did since "seen" was read.
+         */
+        synchronized void markLoading(CompletableFuture<Void> seen) {
+            if (state != State.LOADING && ready == seen) {
+                if (ready.isDone()) {
+                    ready = new CompletableFuture<>();
+                }
+                state = State.LOADING;
+                lastCheck = 0; // check readiness on the next tick
+            }
+        }
+    }
+}
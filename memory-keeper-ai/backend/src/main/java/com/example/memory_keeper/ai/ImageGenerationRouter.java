@@ -0,0 +1,331 @@
+package com.example.memory_keeper.ai;
+
+import com.example.memory_keeper.config.AIImageConfig;
+import com.example.memory_keeper.util.SpooledBuffer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Picks an image provider for each story image.
+ *
+ * Every provider keeps an EWMA of its latency and error rate. Providers are
+ * tried best score first (latency weighted by errors), and those with an
+ * open circuit are skipped. Stats decay back to the initial latency while a
+ * provider is not called, so one that was demoted by a bad spell is tried
+ * again later instead of being starved forever. When a provider fails, the
+ * next one is started right away. With hedging on, a second provider also
+ * starts when the first runs past its usual latency percentile, and the
+ * first image back wins.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class ImageGenerationRouter {
+
+    private final StabilityAIClient stabilityAIClient;
+    private final HuggingFaceClient huggingFaceClient;
+    private final HuggingFaceWarmupKeeper warmupKeeper;
+    private final ReplicateClient replicateClient;
+    private final MediaBufferFactory mediaBufferFactory;
+    private final ProviderResilienceRegistry resilienceRegistry;
+    private final AIImageConfig config;
+    private final MeterRegistry meterRegistry;
+    private final AsyncTaskExecutor aiTaskExecutor;
+    private final UsageRecorder usageRecorder;
+
+    private final Map<AIProvider, ProviderStats> stats = new EnumMap<>(AIProvider.class);
+    private List<AIProvider> providers;
+    private Counter hedges;
+
+    @FunctionalInterface
+    private interface ImageCall {
+        void generate(String prompt, SpooledBuffer sink) throws Exception;
+    }
+
+    @PostConstruct
+    void init() {
+        providers = config.getProviders().stream().map(AIProvider::fromKey).toList();
+        for (AIProvider provider : providers) {
+            ProviderStats s = new ProviderStats(config.getInitialLatency().toMillis(), config.getDecayHalfLife());
+            stats.put(provider, s);
+            Gauge.builder("ai.image.latency.ewma", s, ProviderStats::latency)
+                    .tag("provider", provider.getKey())
+                    .baseUnit("milliseconds")
+                    .register(meterRegistry);
+            Gauge.builder("ai.image.error.ewma", s, ProviderStats::errorRate)
+                    .tag("provider", provider.getKey())
+                    .register(meterRegistry);
+        }
+        hedges = meterRegistry.counter("ai.image.hedged");
+        log.info("🖼️ Image router providers: {} (hedging {})", providers, config.getHedge().isEnabled() ? "on" : "off");
+    }
+
+    public GeneratedImage generate(String prompt) throws IOException {
+        Deque<AIProvider> remaining = new ArrayDeque<>(rank());
+        if (remaining.isEmpty()) {
+            throw new IOException("No image provider available: all circuits are open");
+        }
+
+        ExecutorCompletionService<Attempt> completion = new ExecutorCompletionService<>(aiTaskExecutor);
+        List<Future<Attempt>> running = new ArrayList<>();
+        AtomicBoolean done = new AtomicBoolean(false);
+        List<GeneratedImage> produced = new ArrayList<>();
+        GeneratedImage[] winner = new GeneratedImage[1];
+        List<String> errors = new ArrayList<>();
+        long deadline = System.nanoTime() + config.getTimeout().toNanos();
+
+        AIProvider primary = remaining.poll();
+        running.add(completion.submit(() -> attempt(primary, prompt, done, produced)));
+        int inFlight = 1;
+        boolean hedged = false;
+
+        try {
+            while (inFlight > 0) {
+                long left = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (left <= 0) {
+                    throw new IOException("Image generation timed out after " + config.getTimeout().toSeconds() + "s");
+                }
+
+                boolean canHedge = config.getHedge().isEnabled() && !hedged && !remaining.isEmpty();
+                long wait = canHedge ? Math.min(left, hedgeDelayMillis(primary)) : left;
+
+                Future<Attempt> finished = completion.poll(wait, TimeUnit.MILLISECONDS);
+                if (finished == null) {
+                    if (canHedge) {
+                        AIProvider hedge = remaining.poll();
+                        log.info("⏱️ {} is slow, hedging with {}", primary.getKey(), hedge.getKey());
+                        hedges.increment();
+                        running.add(completion.submit(() -> attempt(hedge, prompt, done, produced)));
+                        inFlight++;
+                        hedged = true;
+                    }
+                    continue;
+                }
+
+                inFlight--;
+                Attempt attempt = finished.get();
+                if (attempt.image() != null) {
+                    winner[0] = attempt.image();
+                    return attempt.image();
+                }
+
+                errors.add(attempt.provider().getKey() + ": " + attempt.error());
+                if (!remaining.isEmpty()) {
+                    AIProvider next = remaining.poll();
+                    log.warn("⚠️ Image provider {} failed, failing over to {}", attempt.provider().getKey(), next.getKey());
+                    running.add(completion.submit(() -> attempt(next, prompt, done, produced)));
+                    inFlight++;
+                }
+            }
+            throw new IOException("All image providers failed: " + String.join("; ", errors));
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while generating image", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Image generation failed", e.getCause());
+        } finally {
+            synchronized (produced) {
+                done.set(true);
+                produced.stream().filter(image -> image != winner[0]).forEach(this::closeQuietly);
+            }
+            // Only after done is set, so an interrupted loser is not counted as a provider failure
+            running.forEach(future -> future.cancel(true));
+        }
+    }
+
+    // ==================== HELPER METHODS ====================
+
+    private List<AIProvider> rank() {
+        return providers.stream()
+                .filter(provider -> !resilienceRegistry.isOpen(provider))
+                .sorted(Comparator.comparingDouble(provider -> stats.get(provider).score(config.getErrorPenalty())))
+                .toList();
+    }
+
+    private Attempt attempt(AIProvider provider, String prompt, AtomicBoolean done, List<GeneratedImage> produced) {
+        ProviderStats s = stats.get(provider);
+        long start = System.nanoTime();
+        GeneratedImage image = null;
+        try {
+            image = generate(provider, prompt);
+            if (image.hasBuffer() ? image.buffer().size() == 0 : image.url() == null) {
+                throw new IOException("empty image");
+            }
+            // Hedged images that lose the race are paid for too
+            usageRecorder.record(provider, UsageUnit.IMAGES, 1);
+            synchronized (produced) {
+                if (done.get()) {
+                    // Lost the race after the winner was returned; nobody will read this image.
+                    image.close();
+                    return new Attempt(provider, null, "cancelled");
+                }
+                produced.add(image);
+            }
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            s.onSuccess(millis, config.getEwmaAlpha());
+            meterRegistry.counter("ai.image.requests", "provider", provider.getKey(), "outcome", "success").increment();
+            log.info("🖼️ Image from {} in {} ms", provider.getKey(), millis);
+            return new Attempt(provider, image, null);
+        } catch (Exception e) {
+            closeQuietly(image);
+            // A hedge that lost the race is cancelled; that says nothing about the provider.
+            if (!done.get()) {
+                s.onFailure(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), config.getEwmaAlpha());
+                meterRegistry.counter("ai.image.requests", "provider", provider.getKey(), "outcome", "failure").increment();
+            }
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            return new Attempt(provider, null, e.getMessage());
+        }
+    }
+
+    private GeneratedImage generate(AIProvider provider, String prompt) throws Exception {
+        if (provider == AIProvider.REPLICATE) {
+            // Bounded by the router's own budget; a cancelled attempt interrupts the wait
+            String url = AsyncJobTracker.await(replicateClient.generateImageAsync(prompt), config.getTimeout());
+            return GeneratedImage.ofUrl(provider, url);
+        }
+        SpooledBuffer buffer = mediaBufferFactory.newBuffer();
+        try {
+            call(provider).generate(prompt, buffer);
+            return GeneratedImage.ofBuffer(provider, buffer);
+        } catch (Exception e) {
+            buffer.close();
+            throw e;
+        }
+    }
+
+    private ImageCall call(AIProvider provider) {
+        return switch (provider) {
+            case STABILITYAI -> stabilityAIClient::generateImage;
+            case HUGGINGFACE -> (prompt, sink) -> warmupKeeper.whenReady(HuggingFaceClient.IMAGE_MODEL, () -> {
+                huggingFaceClient.generateImage(prompt, sink);
+                return null;
+            });
+            default -> throw new IllegalArgumentException(provider.getKey() + " cannot generate images");
+        };
+    }
+
+    private void closeQuietly(GeneratedImage image) {
+        if (image == null) {
+            return;
+        }
+        try {
+            image.close();
+        } catch (IOException e) {
+            log.warn("Could not release image buffer: {}", e.getMessage());
+        }
+    }
+
+    private long hedgeDelayMillis(AIProvider provider) {
+        AIImageConfig.Hedge hedge = config.getHedge();
+        long delay = stats.get(provider).percentile(hedge.getPercentile(), hedge.getMinSamples())
+                .orElse(hedge.getDefaultDelay().toMillis());
+        return Math.max(delay, hedge.getMinDelay().toMillis());
+    }
+
+    private record Attempt(AIProvider provider, GeneratedImage image, String error) {
+    }
+
+    /**
+     * EWMA latency and error rate, plus the last few successful latencies for
+     * the hedge percentile. Failed calls also feed the latency EWMA, so a
+     * provider that is slow to fail still ranks low. Both EWMAs decay towards
+     * the initial latency and a zero error rate with the configured half-life.
+     */
+    private static class ProviderStats {
+        private static final int SAMPLES = 50;
+
+        private final double initialLatency;
+        private final long halfLifeNanos;
+        private double latency;
+        private double errorRate;
+        private long updatedAt = System.nanoTime();
+        private final long[] samples = new long[SAMPLES];
+        private int count;
+        private int next;
+
+        ProviderStats(long initialLatency, Duration halfLife) {
+            this.initialLatency = initialLatency;
+            this.halfLifeNanos = halfLife.toNanos();
+            this.latency = initialLatency;
+        }
+
+        synchronized void onSuccess(long millis, double alpha) {
+            decay();
+            latency = alpha * millis + (1 - alpha) * latency;
+            errorRate = (1 - alpha) * errorRate;
+            samples[next] = millis;
+            next = (next + 1) % SAMPLES;
+            count = Math.min(count + 1, SAMPLES);
+        }
+
+        synchronized void onFailure(long millis, double alpha) {
+            decay();
+            latency = alpha * millis + (1 - alpha) * latency;
+            errorRate = alpha + (1 - alpha) * errorRate;
+        }
+
+        synchronized double latency() {
+            decay();
+            return latency;
+        }
+
+        synchronized double errorRate() {
+            decay();
+            return errorRate;
+        }
+
+        synchronized double score(double errorPenalty) {
+            decay();
+            return latency * (1 + errorPenalty * errorRate);
+        }
+
+        synchronized OptionalLong percentile(double p, int minSamples) {
+            if (count < minSamples) {
+                return OptionalLong.empty();
+            }
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(p * count) - 1;
+            return OptionalLong.of(sorted[Math.max(0, Math.min(index, count - 1))]);
+        }
+
+        private void decay() {
+            long now = System.nanoTime();
+            if (halfLifeNanos <= 0) {
+                updatedAt = now;
+                return;
+            }
+            double factor = Math.pow(0.5, (double) (now - updatedAt) / halfLifeNanos);
+            latency = initialLatency + (latency - initialLatency) * factor;
+            errorRate *= factor;
+            updatedAt = now;
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package com.example.memory_keeper.ai;
+
+import com.example.memory_keeper.config.LocalClassifierConfig;
+import com.example.memory_keeper.model.enums.EmotionType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Lexicon-based sentiment and emotion classifier that runs in the JVM.
+ *
+ * Each lexicon word carries a valence and weights for one or more
+ * EmotionType values. A text is scored by summing the words it contains,
+ * with intensifiers ("very"), negations ("not", "never") and a "but"
+ * contrast taken into account. It has no network calls and takes
+ * microseconds, so it serves as the fast path for short texts and the
+ * fallback when Hugging Face is unavailable (see EmotionAnalysisRouter).
+ *
+ * Results use the same shapes as HuggingFaceClient: a label/score map for
+ * sentiment and a label/score JsonNode array for emotions, so callers can
+ * treat both sources the same way. Emotion labels are lower-case
+ * EmotionType names and may go beyond the seven the remote model returns.
+ *
+ * Exposes ai.local_classifier.latency{kind}.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class LocalEmotionClassifier {
+
+    private static final Pattern TOKEN = Pattern.compile("[a-z]+(?:'[a-z]+)?");
+
+    private static final Set<String> NEGATIONS = Set.of(
+            "not", "no", "never", "nothing", "nobody", "none", "neither", "nor", "without", "hardly", "barely",
+            "don't", "didn't", "doesn't", "wasn't", "weren't", "isn't", "aren't", "won't", "wouldn't",
+            "couldn't", "can't", "cannot", "shouldn't", "haven't", "hasn't", "hadn't");
+
+    private static final Map<String, Double> INTENSIFIERS = Map.ofEntries(
+            Map.entry("very", 1.5), Map.entry("so", 1.3), Map.entry("really", 1.4), Map.entry("truly", 1.4),
+            Map.entry("extremely", 1.8), Map.entry("incredibly", 1.7), Map.entry("deeply", 1.6),
+            Map.entry("absolutely", 1.6), Map.entry("most", 1.3), Map.entry("such", 1.2), Map.entry("always", 1.2),
+            Map.entry("quite", 1.1), Map.entry("bit", 0.6), Map.entry("slightly", 0.6),
+            Map.entry("somewhat", 0.7), Map.entry("little", 0.7));
+
+    private static final Set<String> CONTRASTS = Set.of("but", "however", "although", "though", "yet");
+
+    // Normalises the raw valence sum into (-1, 1), as in VADER
+    private static final double NORMALIZATION_ALPHA = 15.0;
+    private static final double NEUTRAL_BAND = 0.05;
+    // Weight of the implicit NEUTRAL emotion, so a single weak word cannot dominate
+    private static final double NEUTRAL_PRIOR = 1.0;
+
+    private final LocalClassifierConfig config;
+    private final ResourceLoader resourceLoader;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, Entry> lexicon = new HashMap<>();
+    private Timer sentimentTimer;
+    private Timer emotionTimer;
+
+    private record Entry(double valence, Map<EmotionType, Double> emotions) {
+    }
+
+    @PostConstruct
+    void loadLexicon() {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                resourceLoader.getResource(config.getLexicon()).getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                parseLine(line.strip());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not load emotion lexicon " + config.getLexicon(), e);
+        }
+        sentimentTimer = meterRegistry.timer("ai.local_classifier.latency", "kind", "sentiment");
+        emotionTimer = meterRegistry.timer("ai.local_classifier.latency", "kind", "emotions");
+        log.info("📖 Local emotion classifier loaded {} lexicon entries", lexicon.size());
+    }
+
+    /**
+     * Sentiment as {label: POSITIVE|NEGATIVE|NEUTRAL, score}, like HuggingFaceClient.parseSentiment.
+     */
+    public Map<String, Object> analyzeSentiment(String text) {
+        return sentimentTimer.record(() -> {
+            double compound = score(text).compound();
+            String label = compound >= NEUTRAL_BAND ? "POSITIVE" : compound <= -NEUTRAL_BAND ? "NEGATIVE" : "NEUTRAL";
+            double confidence = "NEUTRAL".equals(label) ? 1.0 - Math.abs(compound) : 0.5 + Math.abs(compound) / 2;
+            Map<String, Object> result = new HashMap<>();
+            result.put("label", label);
+            result.put("score", round(confidence));
+            return result;
+        });
+    }
+
+    /**
+     * Emotions as a [{label, score}] array sorted by score, like the Hugging Face emotion model.
+     */
+    public JsonNode detectEmotions(String text) {
+        return emotionTimer.record(() -> {
+            Map<EmotionType, Double> weights = score(text).emotions();
+            double total = NEUTRAL_PRIOR + weights.values().stream().mapToDouble(Double::doubleValue).sum();
+            weights.merge(EmotionType.NEUTRAL, NEUTRAL_PRIOR, Double::sum);
+
+            ArrayNode result = objectMapper.createArrayNode();
+            weights.entrySet().stream()
+                    .sorted(Map.Entry.<EmotionType, Double>comparingByValue().reversed())
+                    .forEach(e -> result.addObject()
+                            .put("label", e.getKey().name().toLowerCase(Locale.ROOT))
+                            .put("score", round(e.getValue() / total)));
+            return result;
+        });
+    }
+
+    public int lexiconSize() {
+        return lexicon.size();
+    }
+
+    // ==================== HELPER METHODS ====================
+
+    private record Score(double compound, Map<EmotionType, Double> emotions) {
+    }
+
+    private Score score(String text) {
+        List<String> tokens = tokenize(text);
+        double valence = 0;
+        double beforeContrast = 0;
+        Map<EmotionType, Double> emotions = new EnumMap<>(EmotionType.class);
+
+        for (int i = 0; i < tokens.size(); i++) {
+            String token = tokens.get(i);
+            if (CONTRASTS.contains(token)) {
+                // "It was hard, but we were happy": the clause after the contrast carries more weight
+                beforeContrast += valence;
+                valence = 0;
+                continue;
+            }
+
+            int first = i;
+            Entry entry = null;
+            if (i + 1 < tokens.size()) {
+                entry = lexicon.get(token + " " + tokens.get(i + 1));
+                if (entry != null) {
+                    i++;
+                }
+            }
+            if (entry == null) {
+                entry = lookup(token);
+            }
+            if (entry == null) {
+                continue;
+            }
+
+            double modifier = 1.0;
+            boolean negated = false;
+            int start = Math.max(0, first - config.getNegationWindow());
+            for (int j = first - 1; j >= start; j--) {
+                String previous = tokens.get(j);
+                if (CONTRASTS.contains(previous)) break;
+                if (NEGATIONS.contains(previous)) negated = !negated;
+                Double intensity = INTENSIFIERS.get(previous);
+                if (intensity != null && j == first - 1) modifier *= intensity;
+            }
+
+            valence += negated ? -0.75 * entry.valence() * modifier : entry.valence() * modifier;
+            if (!negated) {
+                // "not happy" is not reliably sad, so negated words only move the sentiment
+                double weight = modifier;
+                entry.emotions().forEach((emotion, w) -> emotions.merge(emotion, w * weight, Double::sum));
+            }
+        }
+
+        double sum = beforeContrast * 0.5 + valence * (beforeContrast != 0 ? 1.5 : 1.0);
+        double compound = sum / Math.sqrt(sum * sum + NORMALIZATION_ALPHA);
+        return new Score(compound, emotions);
+    }
+
+    private Entry lookup(String token) {
+        Entry entry = lexicon.get(token);
+        if (entry != null) return entry;
+        for (String suffix : new String[]{"'s", "s", "es", "ed", "d", "ing", "ly"}) {
+            if (token.length() > suffix.length() + 2 && token.endsWith(suffix)) {
+                String stem = token.substring(0, token.length() - suffix.length());
+                entry = lexicon.get(stem);
+                if (entry == null && suffix.equals("ing")) entry = lexicon.get(stem + "e");
+                if (entry != null) return entry;
+            }
+        }
+        return null;
+    }
+
+    private static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) return tokens;
+        Matcher matcher = TOKEN.matcher(text.toLowerCase(Locale.ROOT).replace('’', '\''));
+        while (matcher.find()) {
+            tokens.add(matcher.group());
+        }
+        return tokens;
+    }
+
+    private void parseLine(String line) {
+        if (line.isEmpty() || line.startsWith("#")) return;
+        String[] columns = line.split("\t");
+        if (columns.length < 2) {
+            log.warn("Skipping malformed lexicon line: {}", line);
+            return;
+        }
+        Map<EmotionType, Double> emotions = new EnumMap<>(EmotionType.class);
+        if (columns.length > 2) {
+            for (String part : columns[2].split(",")) {
+                String[] nameAndWeight = part.strip().split(":");
+                double weight = nameAndWeight.length > 1 ? Double.parseDouble(nameAndWeight[1]) : 1.0;
+                emotions.put(EmotionType.valueOf(nameAndWeight[0]), weight);
+            }
+        }
+        lexicon.put(columns[0].toLowerCase(Locale.ROOT), new Entry(Double.parseDouble(columns[1]), emotions));
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 10_000) / 10_000.0;
+    }
+}
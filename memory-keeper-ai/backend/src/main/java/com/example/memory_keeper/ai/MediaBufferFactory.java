@@ -0,0 +1,63 @@
+package com.example.memory_keeper.ai;
+
+import com.example.memory_keeper.config.AIMediaConfig;
+import com.example.memory_keeper.util.SpooledBuffer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Creates SpooledBuffers that share one heap budget (ai.media.memory-budget).
+ *
+ * Provider responses are decoded straight into these buffers and uploaded
+ * from them, so an image or narration is held at most once, on heap or on
+ * disk. Exposes ai.media.buffer.memory.used.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class MediaBufferFactory {
+
+    private final AIMediaConfig config;
+    private final MeterRegistry meterRegistry;
+
+    private final AtomicLong used = new AtomicLong();
+    private Path tempDir;
+
+    @PostConstruct
+    void init() {
+        String dir = config.getTempDir();
+        tempDir = Path.of(dir == null || dir.isBlank() ? System.getProperty("java.io.tmpdir") : dir);
+        Gauge.builder("ai.media.buffer.memory.used", used, AtomicLong::get)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    public SpooledBuffer newBuffer() {
+        return new SpooledBuffer((int) config.getMemoryThreshold().toBytes(), tempDir, this::reserve, this::release);
+    }
+
+    private boolean reserve(int bytes) {
+        long budget = config.getMemoryBudget().toBytes();
+        while (true) {
+            long current = used.get();
+            if (current + bytes > budget) {
+                log.debug("Media memory budget exhausted ({} of {} bytes used), spilling to disk", current, budget);
+                return false;
+            }
+            if (used.compareAndSet(current, current + bytes)) {
+                return true;
+            }
+        }
+    }
+
+    private void release(int bytes) {
+        used.addAndGet(-bytes);
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.memory_keeper.ai;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Hugging Face answered 503 because the model is still loading (cold start).
+ * The request itself was fine and can be sent again once the model is up.
+ */
+public class ModelLoadingException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String model;
+    private final Duration estimatedTime;
+
+    public ModelLoadingException(String model, Duration estimatedTime) {
+        super("Model " + model + " is loading on Hugging Face (estimated " + estimatedTime.toSeconds() + "s)");
+        this.model = model;
+        this.estimatedTime = estimatedTime;
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    public Duration getEstimatedTime() {
+        return estimatedTime;
+    }
+}
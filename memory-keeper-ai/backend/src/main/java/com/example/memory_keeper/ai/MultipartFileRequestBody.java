@@ -0,0 +1,63 @@
+package com.example.memory_keeper.ai;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+import okio.Okio;
+import okio.Source;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+
+/**
+ * Streams a MultipartFile to the provider in fixed-size segments instead of
+ * reading it into a byte[]. Heap use stays flat whatever the file size,
+ * because Spring already spools large uploads to disk.
+ *
+ * The body can only be written once (isOneShot), so the resilience
+ * interceptor does not retry it.
+ */
+public class MultipartFileRequestBody extends RequestBody {
+
+    private static final long SEGMENT_SIZE = 64 * 1024;
+
+    private final MultipartFile file;
+    private final MediaType contentType;
+    private final UploadProgressListener listener;
+
+    public MultipartFileRequestBody(MultipartFile file, MediaType contentType, UploadProgressListener listener) {
+        this.file = file;
+        this.contentType = contentType;
+        this.listener = listener;
+    }
+
+    @Override
+    public MediaType contentType() {
+        return contentType;
+    }
+
+    @Override
+    public long contentLength() {
+        return file.getSize();
+    }
+
+    @Override
+    public boolean isOneShot() {
+        return true;
+    }
+
+    @Override
+    public void writeTo(@NotNull BufferedSink sink) throws IOException {
+        long total = contentLength();
+        long written = 0;
+        try (Source source = Okio.source(file.getInputStream())) {
+            long read;
+            while ((read = source.read(sink.getBuffer(), SEGMENT_SIZE)) != -1) {
+                sink.emitCompleteSegments();
+                written += read;
+                listener.onProgress(written, total);
+            }
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.memory_keeper.ai;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Immutable BM25 index over story passages.
+ *
+ * Built once from a family's (or grandparent's) stories and then only
+ * read, so lookups need no locking. search() scores passages against a
+ * question and returns the best ones that fit a character budget.
+ */
+public class PassageIndex {
+
+    private static final Pattern TOKEN = Pattern.compile("[\\p{L}\\p{N}]+");
+
+    private static final Set<String> STOPWORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "but", "by", "did", "do", "does", "for", "from", "had",
+            "has", "have", "he", "her", "his", "how", "i", "if", "in", "into", "is", "it", "its", "me", "my",
+            "of", "on", "or", "our", "she", "so", "that", "the", "their", "them", "then", "there", "they",
+            "this", "to", "was", "we", "were", "what", "when", "where", "which", "who", "why", "will", "with",
+            "you", "your", "tell", "about", "grandma", "grandpa");
+
+    private final List<Passage> passages;
+    private final Map<String, Map<Integer, Integer>> postings = new HashMap<>();
+    private final int[] lengths;
+    private final double averageLength;
+    private final double k1;
+    private final double b;
+
+    /**
+     * A story passage. position is its order within the story, recency its
+     * story's order in the archive (higher is newer).
+     */
+    public record Passage(Long storyId, String title, String text, int position, long recency) {
+    }
+
+    public PassageIndex(List<Passage> passages, double k1, double b) {
+        this.passages = List.copyOf(passages);
+        this.k1 = k1;
+        this.b = b;
+        this.lengths = new int[passages.size()];
+
+        long total = 0;
+        for (int i = 0; i < passages.size(); i++) {
+            Passage passage = passages.get(i);
+            List<String> terms = terms(passage.title() + " " + passage.text());
+            lengths[i] = terms.size();
+            total += terms.size();
+            for (String term : terms) {
+                postings.computeIfAbsent(term, t -> new HashMap<>()).merge(i, 1, Integer::sum);
+            }
+        }
+        this.averageLength = passages.isEmpty() ? 1 : Math.max(1, (double) total / passages.size());
+    }
+
+    public int size() {
+        return passages.size();
+    }
+
+    /**
+     * Best-matching passages for the query, at most topK of them and at most
+     * maxChars in total. When nothing matches (e.g. "how are you?"), the
+     * openings of the most recent stories are returned instead so the reply
+     * still has some memories to draw on.
+     */
+    public List<Passage> search(String query, int topK, int maxChars) {
+        Map<Integer, Double> scores = new HashMap<>();
+        for (String term : Set.copyOf(terms(query))) {
+            Map<Integer, Integer> docs = postings.get(term);
+            if (docs == null) continue;
+            double idf = Math.log(1 + (passages.size() - docs.size() + 0.5) / (docs.size() + 0.5));
+            docs.forEach((doc, tf) -> {
+                double norm = tf * (k1 + 1) / (tf + k1 * (1 - b + b * lengths[doc] / averageLength));
+                scores.merge(doc, idf * norm, Double::sum);
+            });
+        }
+
+        PriorityQueue<Integer> ranked;
+        if (scores.isEmpty()) {
+            ranked = new PriorityQueue<>((x, y) -> {
+                int byRecency = Long.compare(passages.get(y).recency(), passages.get(x).recency());
+                return byRecency != 0 ? byRecency : Integer.compare(passages.get(x).position(), passages.get(y).position());
+            });
+            for (int i = 0; i < passages.size(); i++) {
+                if (passages.get(i).position() == 0) ranked.add(i);
+            }
+        } else {
+            ranked = new PriorityQueue<>((x, y) -> Double.compare(scores.get(y), scores.get(x)));
+            ranked.addAll(scores.keySet());
+        }
+
+        List<Passage> selected = new ArrayList<>();
+        int used = 0;
+        while (!ranked.isEmpty() && selected.size() < topK) {
+            Passage passage = passages.get(ranked.poll());
+            int cost = passage.title().length() + passage.text().length();
+            if (used + cost > maxChars) continue; // A smaller one further down may still fit
+            selected.add(passage);
+            used += cost;
+        }
+        return selected;
+    }
+
+    // ==================== HELPER METHODS ====================
+
+    static List<String> terms(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null) return terms;
+        Matcher matcher = TOKEN.matcher(text.toLowerCase(Locale.ROOT));
+        while (matcher.find()) {
+            String token = matcher.group();
+            if (token.length() < 2 || STOPWORDS.contains(token)) continue;
+            terms.add(stem(token));
+        }
+        return terms;
+    }
+
+    // Just enough stemming that "dance", "dances", "danced" and "dancing" meet
+    private static String stem(String token) {
+        if (token.length() > 5 && token.endsWith("ing")) return token.substring(0, token.length() - 3);
+        if (token.length() > 4 && token.endsWith("ed")) return token.substring(0, token.length() - 2);
+        if (token.length() > 4 && token.endsWith("es")) return token.substring(0, token.length() - 2);
+        if (token.length() > 3 && token.endsWith("s") && !token.endsWith("ss")) return token.substring(0, token.length() - 1);
+        if (token.length() > 4 && token.endsWith("e")) return token.substring(0, token.length() - 1);
+        return token;
+    }
+}
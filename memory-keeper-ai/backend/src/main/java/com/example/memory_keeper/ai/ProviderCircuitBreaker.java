@@ -0,0 +1,138 @@
+package com.example.memory_keeper.ai;
+
+import com.example.memory_keeper.config.AIResilienceConfig;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Count-based circuit breaker for one provider.
+ *
+ * CLOSED records the outcome of the last windowSize calls. Once at least
+ * minimumCalls are recorded and the failure rate reaches the threshold, it
+ * moves to OPEN. OPEN rejects every call until openDuration has passed.
+ * HALF_OPEN then lets halfOpenCalls probes through. The circuit closes if
+ * they all succeed and reopens on the first failure.
+ */
+public class ProviderCircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final AIResilienceConfig.Settings settings;
+
+    private final boolean[] outcomes;
+    private int position;
+    private int recorded;
+    private int failures;
+
+    private State state = State.CLOSED;
+    private Instant openUntil = Instant.EPOCH;
+    private int probesInFlight;
+    private int probeSuccesses;
+
+    public ProviderCircuitBreaker(AIResilienceConfig.Settings settings) {
+        this.settings = settings;
+        this.outcomes = new boolean[Math.max(1, settings.getWindowSize())];
+    }
+
+    /**
+     * @return true if the call may proceed; the caller must then report
+     *         its outcome with onSuccess or onFailure.
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (Instant.now().isBefore(openUntil)) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            probesInFlight = 0;
+            probeSuccesses = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (probesInFlight >= settings.getHalfOpenCalls()) {
+                return false;
+            }
+            probesInFlight++;
+        }
+        return true;
+    }
+
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            probesInFlight = Math.max(0, probesInFlight - 1);
+            if (++probeSuccesses >= settings.getHalfOpenCalls()) {
+                reset();
+            }
+            return;
+        }
+        record(false);
+    }
+
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+            return;
+        }
+        record(true);
+        if (recorded >= settings.getMinimumCalls() && failureRate() >= settings.getFailureRateThreshold()) {
+            open();
+        }
+    }
+
+    public synchronized State getState() {
+        if (state == State.OPEN && !Instant.now().isBefore(openUntil)) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    public synchronized double failureRate() {
+        return recorded == 0 ? 0.0 : (double) failures / recorded;
+    }
+
+    public synchronized int getRecordedCalls() {
+        return recorded;
+    }
+
+    /**
+     * Time left before an open circuit lets a probe through, or zero.
+     */
+    public synchronized Duration remainingOpen() {
+        if (state != State.OPEN) {
+            return Duration.ZERO;
+        }
+        Duration remaining = Duration.between(Instant.now(), openUntil);
+        return remaining.isNegative() ? Duration.ZERO : remaining;
+    }
+
+    private void record(boolean failure) {
+        if (recorded == outcomes.length) {
+            if (outcomes[position]) {
+                failures--;
+            }
+        } else {
+            recorded++;
+        }
+        outcomes[position] = failure;
+        if (failure) {
+            failures++;
+        }
+        position = (position + 1) % outcomes.length;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openUntil = Instant.now().plus(settings.getOpenDuration());
+    }
+
+    private void reset() {
+        state = State.CLOSED;
+        position = 0;
+        recorded = 0;
+        failures = 0;
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.memory_keeper.ai;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Polls the provider-side view of our monthly quota and hands it to the
+ * QuotaLedger, which treats it as the source of truth. Only ElevenLabs
+ * exposes one.
+ *
+ * Exposes ai.quota.used and ai.quota.limit{provider, unit}.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class ProviderQuotaMonitor {
+
+    private static final double WARN_RATIO = 0.9;
+
+    private final ElevenLabsClient elevenLabsClient;
+    private final QuotaLedger quotaLedger;
+    private final MeterRegistry meterRegistry;
+
+    private final AtomicLong elevenLabsUsed = new AtomicLong(-1);
+    private final AtomicLong elevenLabsLimit = new AtomicLong(-1);
+
+    @PostConstruct
+    void initMetrics() {
+        Gauge.builder("ai.quota.used", elevenLabsUsed, AtomicLong::get)
+                .tags("provider", AIProvider.ELEVENLABS.getKey(), "unit", UsageUnit.CHARACTERS.getKey())
+                .description("Quota used this billing period, as reported by the provider")
+                .register(meterRegistry);
+        Gauge.builder("ai.quota.limit", elevenLabsLimit, AtomicLong::get)
+                .tags("provider", AIProvider.ELEVENLABS.getKey(), "unit", UsageUnit.CHARACTERS.getKey())
+                .description("Quota available this billing period")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${ai.usage.quota-sync-ms:900000}", initialDelayString = "${ai.usage.quota-sync-initial-delay-ms:30000}")
+    public void syncElevenLabs() {
+        try {
+            Map<String, Object> stats = elevenLabsClient.getUsageStats();
+            long used = ((Number) stats.get("character_count")).longValue();
+            long limit = ((Number) stats.get("character_limit")).longValue();
+            long resetAt = ((Number) stats.get("next_character_count_reset_unix")).longValue();
+            elevenLabsUsed.set(used);
+            elevenLabsLimit.set(limit);
+            quotaLedger.syncFromProvider(AIProvider.ELEVENLABS, used, limit, resetAt);
+            if (limit > 0 && used >= limit * WARN_RATIO) {
+                log.warn("⚠️ ElevenLabs quota nearly used up: {}/{} characters", used, limit);
+            }
+        } catch (Exception e) {
+            log.debug("Could not fetch ElevenLabs usage: {}", e.getMessage());
+        }
+    }
+}
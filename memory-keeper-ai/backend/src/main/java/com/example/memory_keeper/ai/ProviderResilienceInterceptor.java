@@ -0,0 +1,182 @@
+package com.example.memory_keeper.ai;
+
+import com.example.memory_keeper.config.AIResilienceConfig;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Application interceptor that wraps every call to one provider in a
+ * circuit breaker, a bulkhead and a retry loop.
+ *
+ * Only 5xx responses and I/O errors count as failures for the breaker;
+ * a 429 means the provider is up but throttling us.
+ *
+ * Idempotent methods are retried freely. Any other request may create a
+ * billed resource (an image, a prediction, a TTS render), so it is only
+ * retried on a 429 or a failed connect, where the provider never did the
+ * work, unless it is tagged {@link Retry#SAFE}. Requests with a one-shot
+ * body (streamed uploads) are never retried.
+ */
+@Slf4j
+public class ProviderResilienceInterceptor implements Interceptor {
+
+    /**
+     * Request tag for non-idempotent calls that are safe to send twice, e.g. a
+     * chat completion: {@code builder.tag(Retry.class, Retry.SAFE)}.
+     */
+    public enum Retry { SAFE }
+
+    private static final Set<String> IDEMPOTENT_METHODS = Set.of("GET", "HEAD", "PUT", "DELETE", "OPTIONS");
+
+    private final AIProvider provider;
+    private final AIResilienceConfig.Settings settings;
+    private final ProviderCircuitBreaker breaker;
+    private final Semaphore bulkhead;
+
+    ProviderResilienceInterceptor(AIProvider provider,
+                                  AIResilienceConfig.Settings settings,
+                                  ProviderCircuitBreaker breaker,
+                                  Semaphore bulkhead) {
+        this.provider = provider;
+        this.settings = settings;
+        this.breaker = breaker;
+        this.bulkhead = bulkhead;
+    }
+
+    @NotNull
+    @Override
+    public Response intercept(@NotNull Chain chain) throws IOException {
+        acquireBulkhead();
+        try {
+            return proceedWithRetries(chain);
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    private Response proceedWithRetries(Chain chain) throws IOException {
+        Request request = chain.request();
+        boolean replayable = request.body() == null || !request.body().isOneShot();
+        boolean retryable = replayable
+                && (IDEMPOTENT_METHODS.contains(request.method()) || request.tag(Retry.class) == Retry.SAFE);
+
+        for (int attempt = 0; ; attempt++) {
+            if (!breaker.tryAcquire()) {
+                throw new ProviderUnavailableException(
+                        "Circuit open for " + provider.getKey() + ", retry in " + breaker.remainingOpen().toSeconds() + "s");
+            }
+
+            Response response;
+            try {
+                response = chain.proceed(request);
+            } catch (IOException e) {
+                breaker.onFailure();
+                boolean notSent = e instanceof ConnectException;
+                if (!(retryable || replayable && notSent) || attempt >= settings.getMaxRetries() || e instanceof InterruptedIOException && Thread.currentThread().isInterrupted()) {
+                    throw e;
+                }
+                Duration delay = backoff(attempt);
+                log.warn("⚠️ {} call failed ({}), retry {}/{} in {} ms",
+                        provider.getKey(), e.getMessage(), attempt + 1, settings.getMaxRetries(), delay.toMillis());
+                sleep(delay);
+                continue;
+            } catch (RuntimeException e) {
+                // Still settle the call with the breaker, or a HALF_OPEN probe slot is never given back
+                breaker.onFailure();
+                throw e;
+            }
+
+            if (response.code() >= 500 && !settings.getNonFailureStatus().contains(response.code())) {
+                breaker.onFailure();
+            } else {
+                breaker.onSuccess();
+            }
+
+            boolean throttled = response.code() == 429;
+            if (!(retryable || replayable && throttled) || attempt >= settings.getMaxRetries()
+                    || !settings.getRetryOnStatus().contains(response.code())) {
+                return response;
+            }
+
+            Duration delay = retryAfter(response);
+            if (delay == null) {
+                delay = backoff(attempt);
+            }
+            log.warn("⚠️ {} returned {}, retry {}/{} in {} ms",
+                    provider.getKey(), response.code(), attempt + 1, settings.getMaxRetries(), delay.toMillis());
+            response.close();
+            sleep(delay);
+        }
+    }
+
+    private void acquireBulkhead() throws IOException {
+        try {
+            if (!bulkhead.tryAcquire(settings.getMaxWait().toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new ProviderUnavailableException(
+                        "Too many concurrent calls to " + provider.getKey() + " (limit " + settings.getMaxConcurrent() + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for " + provider.getKey() + " bulkhead");
+        }
+    }
+
+    /**
+     * Full jitter: a random delay between zero and the capped exponential backoff.
+     */
+    private Duration backoff(int attempt) {
+        long cap = settings.getMaxBackoff().toMillis();
+        long exponential = settings.getBaseBackoff().toMillis() << Math.min(attempt, 20);
+        long bound = Math.max(1, Math.min(cap, exponential));
+        return Duration.ofMillis(ThreadLocalRandom.current().nextLong(bound + 1));
+    }
+
+    /**
+     * Retry-After as delta-seconds or an HTTP date, capped at maxBackoff.
+     */
+    private Duration retryAfter(Response response) {
+        String header = response.header("Retry-After");
+        if (header == null || header.isBlank()) {
+            return null;
+        }
+        Duration delay;
+        try {
+            delay = Duration.ofMillis((long) (Double.parseDouble(header.trim()) * 1000));
+        } catch (NumberFormatException e) {
+            try {
+                ZonedDateTime at = ZonedDateTime.parse(header.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+                delay = Duration.between(ZonedDateTime.now(at.getZone()), at);
+            } catch (DateTimeParseException ignored) {
+                return null;
+            }
+        }
+        if (delay.isNegative()) {
+            return Duration.ZERO;
+        }
+        return delay.compareTo(settings.getMaxBackoff()) > 0 ? settings.getMaxBackoff() : delay;
+    }
+
+    private void sleep(Duration delay) throws IOException {
+        try {
+            Thread.sleep(delay.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted during " + provider.getKey() + " retry backoff");
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.memory_keeper.ai;
+
+import com.example.memory_keeper.config.AIResilienceConfig;
+import com.example.memory_keeper.dto.response.ProviderStatusResponse;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Owns one circuit breaker and one bulkhead per AI provider.
+ *
+ * Exposes ai.provider.circuit.state (0 closed, 1 half-open, 2 open),
+ * ai.provider.failure.rate and ai.provider.bulkhead.available gauges,
+ * tagged provider.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class ProviderResilienceRegistry {
+
+    private final AIResilienceConfig config;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<AIProvider, Entry> entries = new ConcurrentHashMap<>();
+
+    public ProviderResilienceInterceptor interceptorFor(AIProvider provider) {
+        Entry entry = entry(provider);
+        return new ProviderResilienceInterceptor(provider, entry.settings, entry.breaker, entry.bulkhead);
+    }
+
+    /**
+     * True while the provider's circuit is open, so callers that can pick
+     * another provider do not even try this one.
+     */
+    public boolean isOpen(AIProvider provider) {
+        return entry(provider).breaker.getState() == ProviderCircuitBreaker.State.OPEN;
+    }
+
+    public List<ProviderStatusResponse> getStatus() {
+        return Arrays.stream(AIProvider.values())
+                .map(this::status)
+                .toList();
+    }
+
+    private ProviderStatusResponse status(AIProvider provider) {
+        Entry entry = entry(provider);
+        return ProviderStatusResponse.builder()
+                .provider(provider.getKey())
+                .state(entry.breaker.getState().name())
+                .failureRate(entry.breaker.failureRate())
+                .recordedCalls(entry.breaker.getRecordedCalls())
+                .retryInSeconds(entry.breaker.remainingOpen().toSeconds())
+                .activeCalls(entry.settings.getMaxConcurrent() - entry.bulkhead.availablePermits())
+                .maxConcurrent(entry.settings.getMaxConcurrent())
+                .build();
+    }
+
+    private Entry entry(AIProvider provider) {
+        return entries.computeIfAbsent(provider, this::create);
+    }
+
+    private Entry create(AIProvider provider) {
+        AIResilienceConfig.Settings settings = config.settingsFor(provider.getKey());
+        Entry entry = new Entry(settings, new ProviderCircuitBreaker(settings), new Semaphore(settings.getMaxConcurrent(), true));
+
+        Gauge.builder("ai.provider.circuit.state", entry.breaker, b -> stateValue(b.getState()))
+                .tag("provider", provider.getKey())
+                .register(meterRegistry);
+        Gauge.builder("ai.provider.failure.rate", entry.breaker, ProviderCircuitBreaker::failureRate)
+                .tag("provider", provider.getKey())
+                .register(meterRegistry);
+        Gauge.builder("ai.provider.bulkhead.available", entry.bulkhead, Semaphore::availablePermits)
+                .tag("provider", provider.getKey())
+                .register(meterRegistry);
+
+        log.info("Resilience for {}: maxConcurrent={}, maxRetries={}, openDuration={}",
+                provider.getKey(), settings.getMaxConcurrent(), settings.getMaxRetries(), settings.getOpenDuration());
+        return entry;
+    }
+
+    // Ordered by severity for alerting, independent of the enum's declaration order
+    static int stateValue(ProviderCircuitBreaker.State state) {
+        return switch (state) {
+            case CLOSED -> 0;
+            case HALF_OPEN -> 1;
+            case OPEN -> 2;
+        };
+    }
+
+    private record Entry(AIResilienceConfig.Settings settings, ProviderCircuitBreaker breaker, Semaphore bulkhead) {
+    }
+}
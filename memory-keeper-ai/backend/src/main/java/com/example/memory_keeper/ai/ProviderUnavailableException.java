@@ -0,0 +1,17 @@
+package com.example.memory_keeper.ai;
+
+import java.io.IOException;
+
+/**
+ * Thrown without touching the network when a provider's circuit is open
+ * or its bulkhead is full. It is an IOException so every client's existing
+ * error handling covers it.
+ */
+public class ProviderUnavailableException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ProviderUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.memory_keeper.ai;
+
+import java.io.IOException;
+
+/**
+ * Thrown without touching the network when a call would exceed the
+ * provider's monthly budget or the caller's family share of it.
+ */
+public class QuotaExceededException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    public QuotaExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,278 @@
+package com.example.memory_keeper.ai;
+
+import com.example.memory_keeper.config.AIQuotaConfig;
+import com.example.memory_keeper.model.entity.User;
+import com.example.memory_keeper.repository.UserRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Date;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Monthly budgets for metered providers (ElevenLabs characters, AssemblyAI
+ * audio seconds), so one busy family cannot use up a free tier for everyone.
+ *
+ * A caller reserves its estimated usage before the call and settles the
+ * reservation afterwards with what was actually used, or releases it if the
+ * call failed. A reservation is refused when it would take the provider
+ * past its monthly limit, or the caller's family (or the user, without a
+ * family) past max-family-share of it; callers then degrade, e.g. to the
+ * free TTS voice.
+ *
+ * ElevenLabs' own subscription counter is the source of truth: every sync
+ * from ProviderQuotaMonitor replaces our running total and limit with it,
+ * and per-family totals start over when its reset time moves forward.
+ * Per-family totals are rebuilt from ai_usage_rollups at startup.
+ *
+ * Exposes ai.quota.reserved{provider} and ai.quota.denied{provider, reason}.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class QuotaLedger {
+
+    private static final String BACKGROUND = "background";
+    private static final String USAGE_SQL = "SELECT user_id, family_id, SUM(amount) AS amount FROM ai_usage_rollups " +
+            "WHERE provider = ? AND unit = ? AND usage_date >= ? GROUP BY user_id, family_id";
+
+    private final AIQuotaConfig config;
+    private final UserRepository userRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<AIProvider, Account> accounts = new EnumMap<>(AIProvider.class);
+    // email -> owner key; families rarely change, and a stale entry only shifts whose share is charged
+    private final Map<String, String> owners = new ConcurrentHashMap<>();
+
+    public static final class Reservation {
+        private final AIProvider provider;
+        private final String owner;
+        private final long amount;
+        private final AtomicBoolean settled = new AtomicBoolean();
+
+        private Reservation(AIProvider provider, String owner, long amount) {
+            this.provider = provider;
+            this.owner = owner;
+            this.amount = amount;
+        }
+    }
+
+    private static final class Account {
+        final UsageUnit unit;
+        YearMonth period = currentPeriod();
+        long limit;
+        long used;
+        long reserved;
+        // Provider's next reset (epoch seconds) as of the last sync; 0 until known
+        long providerResetAt;
+        final Map<String, Long> ownerUsed = new HashMap<>();
+        final Map<String, Long> ownerReserved = new HashMap<>();
+
+        Account(UsageUnit unit, long limit) {
+            this.unit = unit;
+            this.limit = limit;
+        }
+
+        long ownerTotal(String owner) {
+            return ownerUsed.getOrDefault(owner, 0L) + ownerReserved.getOrDefault(owner, 0L);
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        config.getProviders().forEach((key, budget) -> {
+            AIProvider provider = AIProvider.fromKey(key);
+            Account account = new Account(unitOf(provider), budget.getMonthlyLimit());
+            accounts.put(provider, account);
+            Gauge.builder("ai.quota.reserved", account, a -> {
+                        synchronized (a) {
+                            return a.reserved;
+                        }
+                    })
+                    .tags("provider", provider.getKey())
+                    .description("Budget held by calls in flight")
+                    .register(meterRegistry);
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadUsage() {
+        accounts.forEach((provider, account) -> {
+            try {
+                synchronized (account) {
+                    rollOver(account);
+                    jdbcTemplate.query(USAGE_SQL, rs -> {
+                        String owner = ownerKey(rs.getLong("family_id"), rs.getLong("user_id"));
+                        long amount = rs.getLong("amount");
+                        account.ownerUsed.merge(owner, amount, Long::sum);
+                        account.used += amount;
+                    }, provider.getKey(), account.unit.getKey(), Date.valueOf(account.period.atDay(1)));
+                    log.info("🎫 {} quota: {}/{} {} used this month", provider.getKey(), account.used,
+                            account.limit, account.unit.getKey());
+                }
+            } catch (Exception e) {
+                log.warn("⚠️ Could not load {} usage for the quota ledger: {}", provider.getKey(), e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Reserves amount for the current caller, or returns empty when the
+     * provider's budget or the caller's share of it would be exceeded.
+     * Providers without a budget are always granted.
+     */
+    public Optional<Reservation> tryReserve(AIProvider provider, long amount) {
+        Account account = accounts.get(provider);
+        if (!config.isEnabled() || account == null) {
+            return Optional.of(new Reservation(provider, BACKGROUND, 0));
+        }
+        String owner = currentOwner();
+        synchronized (account) {
+            rollOver(account);
+            if (account.used + account.reserved + amount > account.limit) {
+                deny(provider, "global", owner, amount, account);
+                return Optional.empty();
+            }
+            long share = (long) (account.limit * config.getMaxFamilyShare());
+            if (!BACKGROUND.equals(owner) && account.ownerTotal(owner) + amount > share) {
+                deny(provider, "family", owner, amount, account);
+                return Optional.empty();
+            }
+            account.reserved += amount;
+            account.ownerReserved.merge(owner, amount, Long::sum);
+        }
+        return Optional.of(new Reservation(provider, owner, amount));
+    }
+
+    /**
+     * As tryReserve, but throws when refused.
+     */
+    public Reservation reserve(AIProvider provider, long amount) throws QuotaExceededException {
+        return tryReserve(provider, amount).orElseThrow(() -> new QuotaExceededException(
+                "Monthly " + provider.getKey() + " quota for your family is used up"));
+    }
+
+    /**
+     * Settles a reservation with what the call actually used.
+     */
+    public void commit(Reservation reservation, long actual) {
+        settle(reservation, actual);
+    }
+
+    /**
+     * Returns a reservation unused, e.g. after the call failed.
+     */
+    public void release(Reservation reservation) {
+        settle(reservation, 0);
+    }
+
+    /**
+     * Replaces our running total with the provider's own count. When the
+     * provider's next reset time has moved forward since the last sync, a
+     * new billing cycle began, so per-family usage starts over. A lower
+     * count alone proves nothing: the provider may simply lag behind us.
+     *
+     * @param resetAt the provider's next reset in epoch seconds, or 0 if unknown
+     */
+    public void syncFromProvider(AIProvider provider, long used, long limit, long resetAt) {
+        Account account = accounts.get(provider);
+        if (account == null) {
+            return;
+        }
+        synchronized (account) {
+            if (resetAt > 0) {
+                if (account.providerResetAt > 0 && resetAt > account.providerResetAt) {
+                    log.info("🎫 {} billing cycle reset; per-family usage starts over", provider.getKey());
+                    account.ownerUsed.clear();
+                }
+                account.providerResetAt = resetAt;
+            }
+            if (Math.abs(used - account.used) > account.limit / 100) {
+                log.info("🎫 {} quota reconciled: {} -> {} {} (provider-reported)", provider.getKey(),
+                        account.used, used, account.unit.getKey());
+            }
+            account.used = used;
+            if (limit > 0) {
+                account.limit = limit;
+            }
+        }
+    }
+
+    // ==================== HELPER METHODS ====================
+
+    private void settle(Reservation reservation, long actual) {
+        Account account = accounts.get(reservation.provider);
+        if (account == null || reservation.amount == 0 && actual == 0 || !reservation.settled.compareAndSet(false, true)) {
+            return;
+        }
+        synchronized (account) {
+            account.reserved -= reservation.amount;
+            account.ownerReserved.merge(reservation.owner, -reservation.amount, Long::sum);
+            account.used += actual;
+            account.ownerUsed.merge(reservation.owner, actual, Long::sum);
+        }
+    }
+
+    private void deny(AIProvider provider, String reason, String owner, long amount, Account account) {
+        meterRegistry.counter("ai.quota.denied", "provider", provider.getKey(), "reason", reason).increment();
+        log.warn("🎫 {} quota refused for {} ({} {}): {} used, {} reserved, limit {}", provider.getKey(), owner,
+                amount, account.unit.getKey(), account.used, account.reserved, account.limit);
+    }
+
+    // Calendar months (UTC); ElevenLabs' own cycle is applied by syncFromProvider
+    private void rollOver(Account account) {
+        YearMonth now = currentPeriod();
+        if (!now.equals(account.period)) {
+            account.period = now;
+            account.used = 0;
+            account.ownerUsed.clear();
+        }
+    }
+
+    private String currentOwner() {
+        String email = UsageContext.current().userEmail();
+        if (email == null) {
+            return BACKGROUND;
+        }
+        return owners.computeIfAbsent(email, e -> userRepository.findByEmailWithFamily(e)
+                .map(this::ownerKey)
+                .orElse(BACKGROUND));
+    }
+
+    private String ownerKey(User user) {
+        return ownerKey(user.getFamily() != null ? user.getFamily().getId() : 0, user.getId());
+    }
+
+    private static String ownerKey(long familyId, long userId) {
+        if (familyId != 0) return "family:" + familyId;
+        if (userId != 0) return "user:" + userId;
+        return BACKGROUND;
+    }
+
+    private static YearMonth currentPeriod() {
+        return YearMonth.now(ZoneOffset.UTC);
+    }
+
+    private static UsageUnit unitOf(AIProvider provider) {
+        return switch (provider) {
+            case ELEVENLABS -> UsageUnit.CHARACTERS;
+            case ASSEMBLYAI -> UsageUnit.AUDIO_SECONDS;
+            default -> throw new IllegalArgumentException(provider.getKey() + " has no metered quota");
+        };
+    }
+}
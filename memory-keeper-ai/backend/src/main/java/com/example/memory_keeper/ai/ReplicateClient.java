@@ -2,6 +2,7 @@ package com.example.memory_keeper.ai;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import okhttp3.*;
@@ -9,8 +10,12 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.TimeUnit;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * Replicate Client - Image Generation
@@ -20,6 +25,8 @@ import java.util.concurrent.TimeUnit;
 @RequiredArgsConstructor
 public class ReplicateClient {
 
+    private static final Set<String> TERMINAL_STATUSES = Set.of("succeeded", "failed", "canceled");
+
     @Value("${ai.replicate.api-key}")
     private String apiKey;
 
@@ -27,18 +34,31 @@ public class ReplicateClient {
     private String apiUrl;
 
     private final ObjectMapper objectMapper;
+    private final AsyncJobTracker jobTracker;
 
     // Create client with proper timeouts
-    private final OkHttpClient client = new OkHttpClient.Builder()
-            .connectTimeout(30, TimeUnit.SECONDS)
-            .readTimeout(120, TimeUnit.SECONDS)
-            .writeTimeout(30, TimeUnit.SECONDS)
-            .build();
+    private final AIHttpClientFactory httpClientFactory;
+    private OkHttpClient client;
+
+    @PostConstruct
+    void initHttpClient() {
+        client = httpClientFactory.forProvider(AIProvider.REPLICATE);
+    }
 
     /**
-     * Generate image from prompt using Stable Diffusion XL
+     * Generate image from prompt using Stable Diffusion XL.
+     * Blocks until the prediction finishes; prefer generateImageAsync.
      */
     public String generateImage(String prompt) throws IOException, InterruptedException {
+        return AsyncJobTracker.await(generateImageAsync(prompt), jobTracker.timeoutFor(AIProvider.REPLICATE));
+    }
+
+    /**
+     * Starts the prediction and returns without waiting. The future completes
+     * with the image URL when Replicate calls our webhook or the shared poller
+     * sees the prediction finish.
+     */
+    public CompletableFuture<String> generateImageAsync(String prompt) throws IOException {
         log.info("Starting image generation with prompt: {}", prompt);
 
         // Prepare request body with correct SDXL version
@@ -52,10 +72,15 @@ public class ReplicateClient {
         );
 
         // Use the correct stable diffusion model version
-        Map<String, Object> requestBody = Map.of(
+        Map<String, Object> requestBody = new HashMap<>(Map.of(
                 "version", "39ed52f2a78e934b3ba6e2a89f5b1c712de7dfea535525255b1aa35c5565e08b", // SDXL 1.0
                 "input", input
-        );
+        ));
+        boolean webhook = jobTracker.webhooksEnabled();
+        if (webhook) {
+            requestBody.put("webhook", jobTracker.webhookUrl(AIProvider.REPLICATE));
+            requestBody.put("webhook_events_filter", List.of("completed"));
+        }
 
         String jsonBody = objectMapper.writeValueAsString(requestBody);
         log.debug("Request body: {}", jsonBody);
@@ -95,11 +120,20 @@ public class ReplicateClient {
             log.info("Prediction ID: {}", predictionId);
         }
 
-        // Poll for result
-        return pollPrediction(predictionId);
+        // Wait for the result without holding a thread
+        return jobTracker.track(AIProvider.REPLICATE, predictionId, webhook,
+                        () -> fetchPrediction(predictionId),
+                        json -> TERMINAL_STATUSES.contains(json.path("status").asText()))
+                .thenApply(json -> {
+                    try {
+                        return extractImageUrl(json);
+                    } catch (IOException e) {
+                        throw new CompletionException(e);
+                    }
+                });
     }
 
-    private String pollPrediction(String predictionId) throws IOException, InterruptedException {
+    private JsonNode fetchPrediction(String predictionId) throws IOException {
         String getUrl = apiUrl + "/predictions/" + predictionId;
 
         Request request = new Request.Builder()
@@ -108,60 +142,52 @@ public class ReplicateClient {
                 .get()
                 .build();
 
-        // Poll for up to 60 seconds (image generation can take time)
-        int maxAttempts = 60;
-        for (int i = 0; i < maxAttempts; i++) {
-            try (Response response = client.newCall(request).execute()) {
-                if (!response.isSuccessful()) {
-                    String errorBody = response.body() != null ? response.body().string() : "No response body";
-                    log.error("Poll request failed: {} - {}", response.code(), errorBody);
-                    throw new IOException("Failed to poll prediction: " + response.code());
-                }
-
-                String responseBody = response.body().string();
-                JsonNode json = objectMapper.readTree(responseBody);
+        try (Response response = client.newCall(request).execute()) {
+            if (!response.isSuccessful()) {
+                String errorBody = response.body() != null ? response.body().string() : "No response body";
+                log.error("Poll request failed: {} - {}", response.code(), errorBody);
+                throw new IOException("Failed to poll prediction: " + response.code());
+            }
 
-                String status = json.get("status").asText();
-                log.debug("Poll attempt {}: status = {}", i + 1, status);
+            JsonNode json = objectMapper.readTree(response.body().string());
+            log.debug("Prediction {}: status = {}", predictionId, json.path("status").asText());
+            return json;
+        }
+    }
 
-                if ("succeeded".equals(status)) {
-                    JsonNode output = json.get("output");
+    private String extractImageUrl(JsonNode json) throws IOException {
+        String status = json.get("status").asText();
 
-                    if (output == null) {
-                        log.error("No output in successful response");
-                        throw new IOException("Image generation succeeded but no output returned");
-                    }
+        if ("succeeded".equals(status)) {
+            JsonNode output = json.get("output");
 
-                    // Output can be array or single string
-                    if (output.isArray() && output.size() > 0) {
-                        String imageUrl = output.get(0).asText();
-                        log.info("Image generated successfully: {}", imageUrl);
-                        return imageUrl;
-                    } else if (output.isTextual()) {
-                        String imageUrl = output.asText();
-                        log.info("Image generated successfully: {}", imageUrl);
-                        return imageUrl;
-                    } else {
-                        log.error("Unexpected output format: {}", output);
-                        throw new IOException("Unexpected output format");
-                    }
+            if (output == null) {
+                log.error("No output in successful response");
+                throw new IOException("Image generation succeeded but no output returned");
+            }
 
-                } else if ("failed".equals(status)) {
-                    String error = json.has("error") ? json.get("error").asText() : "Unknown error";
-                    log.error("Image generation failed: {}", error);
-                    throw new IOException("Image generation failed: " + error);
+            // Output can be array or single string
+            if (output.isArray() && output.size() > 0) {
+                String imageUrl = output.get(0).asText();
+                log.info("Image generated successfully: {}", imageUrl);
+                return imageUrl;
+            } else if (output.isTextual()) {
+                String imageUrl = output.asText();
+                log.info("Image generated successfully: {}", imageUrl);
+                return imageUrl;
+            } else {
+                log.error("Unexpected output format: {}", output);
+                throw new IOException("Unexpected output format");
+            }
 
-                } else if ("canceled".equals(status)) {
-                    log.error("Image generation was canceled");
-                    throw new IOException("Image generation was canceled");
-                }
+        } else if ("failed".equals(status)) {
+            String error = json.has("error") ? json.get("error").asText() : "Unknown error";
+            log.error("Image generation failed: {}", error);
+            throw new IOException("Image generation failed: " + error);
 
-                // Status is "starting" or "processing", wait before next poll
-                TimeUnit.SECONDS.sleep(1);
-            }
+        } else {
+            log.error("Image generation was canceled");
+            throw new IOException("Image generation was canceled");
         }
-
-        log.error("Image generation timeout after {} seconds", maxAttempts);
-        throw new IOException("Image generation timeout after " + maxAttempts + " seconds");
     }
-}
\ No newline at end of file
+}
@@ -1,8 +1,10 @@
 // src/main/java/com/example/memory_keeper/ai/StabilityAIClient.java
 package com.example.memory_keeper.ai;
 
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import okhttp3.*;
@@ -10,7 +12,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
-import java.util.concurrent.TimeUnit;
+import java.io.OutputStream;
 
 @Component
 @Slf4j
@@ -24,13 +26,20 @@ public class StabilityAIClient {
     private String apiUrl;
 
     private final ObjectMapper objectMapper;
-    private final OkHttpClient client = new OkHttpClient.Builder()
-            .connectTimeout(30, TimeUnit.SECONDS)
-            .readTimeout(120, TimeUnit.SECONDS)
-            .writeTimeout(30, TimeUnit.SECONDS)
-            .build();
+    private final AIHttpClientFactory httpClientFactory;
+    private OkHttpClient client;
 
-    public byte[] generateImage(String prompt) throws IOException {
+    @PostConstruct
+    void initHttpClient() {
+        client = httpClientFactory.forProvider(AIProvider.STABILITYAI);
+    }
+
+    /**
+     * Generates an image and writes the decoded PNG to the sink.
+     * The base64 payload is decoded while it is read, so the response is
+     * never held in memory as a String.
+     */
+    public void generateImage(String prompt, OutputStream sink) throws IOException {
 
         // --- START OF FINAL FIX for the "Core" API ---
         MultipartBody.Builder builder = new MultipartBody.Builder()
@@ -52,23 +61,30 @@ public class StabilityAIClient {
         log.info("Calling Stability AI (Core) for image generation at URL: {}", apiUrl);
 
         try (Response response = client.newCall(request).execute()) {
-            String responseBody = response.body() != null ? response.body().string() : "No response body";
-
             if (!response.isSuccessful()) {
+                String responseBody = response.body() != null ? response.body().string() : "No response body";
                 log.error("Stability AI API failed with status: {}. Body: {}", response.code(), responseBody);
                 throw new IOException("Stability AI image generation failed: " + response.code());
             }
 
-            JsonNode jsonResponse = objectMapper.readTree(responseBody);
-
             // The "Core" API returns the Base64 image directly in the `image` field.
-            if (jsonResponse.has("image")) {
-                String base64Image = jsonResponse.get("image").asText();
-                return java.util.Base64.getDecoder().decode(base64Image);
-            } else {
-                log.error("Stability AI response did not contain image data. Body: {}", responseBody);
+            try (JsonParser parser = objectMapper.getFactory().createParser(response.body().byteStream())) {
+                if (parser.nextToken() != JsonToken.START_OBJECT) {
+                    throw new IOException("Could not parse image from Stability AI response.");
+                }
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.currentName();
+                    parser.nextToken();
+                    if ("image".equals(field)) {
+                        int written = parser.readBinaryValue(sink);
+                        log.info("Decoded {} bytes of image data from Stability AI", written);
+                        return;
+                    }
+                    parser.skipChildren();
+                }
+                log.error("Stability AI response did not contain image data.");
                 throw new IOException("Could not parse image from Stability AI response.");
             }
         }
     }
-}
\ No newline at end of file
+}
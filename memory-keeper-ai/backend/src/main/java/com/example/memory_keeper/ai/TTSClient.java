@@ -1,5 +1,6 @@
 package com.example.memory_keeper.ai;
 
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import okhttp3.*;
@@ -17,7 +18,16 @@ import java.nio.charset.StandardCharsets;
 @RequiredArgsConstructor
 public class TTSClient {
 
-    private final OkHttpClient client = new OkHttpClient();
+    public static final String VOICE = "Brian";
+
+    private final AIHttpClientFactory httpClientFactory;
+    private final UsageRecorder usageRecorder;
+    private OkHttpClient client;
+
+    @PostConstruct
+    void initHttpClient() {
+        client = httpClientFactory.forProvider(AIProvider.TTS);
+    }
 
     public byte[] textToSpeech(String text) throws IOException {
 
@@ -37,7 +47,7 @@ public class TTSClient {
 
         // Build the URL correctly. This is a simple GET request.
         String encodedText = URLEncoder.encode(text, StandardCharsets.UTF_8);
-        String apiUrl = "https://api.streamelements.com/kappa/v2/speech?voice=Brian&text=" + encodedText;
+        String apiUrl = "https://api.streamelements.com/kappa/v2/speech?voice=" + VOICE + "&text=" + encodedText;
 
         log.info("Calling TTS API at URL: {}", apiUrl);
 
@@ -54,6 +64,7 @@ public class TTSClient {
             }
 
             byte[] audioBytes = response.body().bytes();
+            usageRecorder.record(AIProvider.TTS, UsageUnit.CHARACTERS, text.length());
             log.info("✅ Free TTS generated {} bytes of audio", audioBytes.length);
             return audioBytes;
 
@@ -0,0 +1,16 @@
+package com.example.memory_keeper.ai;
+
+/**
+ * Receives upload progress from MultipartFileRequestBody. Called on the
+ * uploading thread, so implementations should be quick.
+ */
+@FunctionalInterface
+public interface UploadProgressListener {
+
+    UploadProgressListener NONE = (bytesWritten, totalBytes) -> { };
+
+    /**
+     * @param totalBytes -1 if the size is unknown
+     */
+    void onProgress(long bytesWritten, long totalBytes);
+}
@@ -0,0 +1,75 @@
+package com.example.memory_keeper.ai;
+
+/**
+ * Who an AI call is made for: the endpoint and user that triggered it and,
+ * inside the enhancement pipeline, the step and the per-story tally.
+ *
+ * Held in a thread local. UsageContextInterceptor sets it per request and
+ * the AI executor's task decorator (wrap) carries it into background tasks,
+ * so provider clients can attribute usage without it being passed around.
+ * Work started by neither, e.g. scheduled jobs, is attributed to BACKGROUND.
+ */
+public final class UsageContext {
+
+    public static final Scope BACKGROUND = new Scope("background", null, null, null);
+
+    private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<>();
+
+    public record Scope(String endpoint, String userEmail, String step, UsageTally tally) {
+
+        public Scope withStep(String step) {
+            return new Scope(endpoint, userEmail, step, tally);
+        }
+
+        public Scope withTally(UsageTally tally) {
+            return new Scope(endpoint, userEmail, step, tally);
+        }
+    }
+
+    /**
+     * Restores the previous scope; for try-with-resources.
+     */
+    public interface Handle extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private UsageContext() {
+    }
+
+    public static Scope current() {
+        Scope scope = CURRENT.get();
+        return scope != null ? scope : BACKGROUND;
+    }
+
+    public static Handle open(Scope scope) {
+        Scope previous = CURRENT.get();
+        CURRENT.set(scope);
+        return () -> {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        };
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Task decorator: runs the task under the scope of the thread that submitted it.
+     */
+    public static Runnable wrap(Runnable task) {
+        Scope scope = CURRENT.get();
+        if (scope == null) {
+            return task;
+        }
+        return () -> {
+            try (Handle ignored = open(scope)) {
+                task.run();
+            }
+        };
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.memory_keeper.ai;
+
+import com.example.memory_keeper.config.AIUsageConfig;
+import com.example.memory_keeper.dto.response.CostBreakdown;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records what every provider call consumed: tokens, characters, audio
+ * seconds or images.
+ *
+ * Each record is attributed to the current UsageContext and goes three
+ * ways: into the ai.usage and ai.usage.cost counters (tagged by provider,
+ * unit and endpoint), into the scope's tally when there is one, and into
+ * daily per-user rollups that UsageRollupWriter drains into
+ * ai_usage_rollups. Users are not metric tags, to keep cardinality bounded.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class UsageRecorder {
+
+    private final AIUsageConfig config;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<RollupKey, Totals> rollups = new ConcurrentHashMap<>();
+
+    public record RollupKey(LocalDate day, AIProvider provider, UsageUnit unit, String endpoint, String userEmail) {
+    }
+
+    public record Totals(long amount, long calls) {
+        Totals plus(Totals other) {
+            return new Totals(amount + other.amount, calls + other.calls);
+        }
+    }
+
+    public void record(AIProvider provider, UsageUnit unit, long amount) {
+        record(UsageContext.current(), provider, unit, amount);
+    }
+
+    /**
+     * For completions that arrive on another thread, e.g. webhooks: pass the scope captured at submission.
+     */
+    public void record(UsageContext.Scope scope, AIProvider provider, UsageUnit unit, long amount) {
+        if (!config.isEnabled() || amount <= 0) {
+            return;
+        }
+        meterRegistry.counter("ai.usage", "provider", provider.getKey(), "unit", unit.getKey(),
+                "endpoint", scope.endpoint()).increment(amount);
+        double cost = cost(provider, unit, amount);
+        if (cost > 0) {
+            meterRegistry.counter("ai.usage.cost", "provider", provider.getKey(),
+                    "endpoint", scope.endpoint()).increment(cost);
+        }
+        if (scope.tally() != null) {
+            scope.tally().add(provider, scope.step(), unit, amount);
+        }
+        rollups.merge(new RollupKey(LocalDate.now(), provider, unit, scope.endpoint(), scope.userEmail()),
+                new Totals(amount, 1), Totals::plus);
+    }
+
+    /**
+     * Estimated cost from ai.usage.prices; 0 for units without a price.
+     */
+    public double cost(AIProvider provider, UsageUnit unit, long amount) {
+        Map<String, Double> prices = config.getPrices().get(provider.getKey());
+        Double price = prices != null ? prices.get(unit.getKey()) : null;
+        return price == null ? 0 : price * amount / unit.getPriceQuantity();
+    }
+
+    public CostBreakdown breakdown(UsageTally tally) {
+        List<CostBreakdown.Item> items = tally.lines().stream()
+                .map(line -> CostBreakdown.Item.builder()
+                        .step(line.step())
+                        .provider(line.provider().getKey())
+                        .unit(line.unit().getKey())
+                        .amount(line.amount())
+                        .cost(cost(line.provider(), line.unit(), line.amount()))
+                        .build())
+                .toList();
+        return CostBreakdown.builder()
+                .items(items)
+                .totalCost(items.stream().mapToDouble(CostBreakdown.Item::getCost).sum())
+                .currency(config.getCurrency())
+                .build();
+    }
+
+    /**
+     * Removes and returns the rollups collected so far.
+     */
+    public Map<RollupKey, Totals> drain() {
+        Map<RollupKey, Totals> drained = new HashMap<>();
+        for (RollupKey key : rollups.keySet()) {
+            Totals totals = rollups.remove(key);
+            if (totals != null) {
+                drained.put(key, totals);
+            }
+        }
+        return drained;
+    }
+
+    /**
+     * Puts back rollups that could not be written, to be retried with the next drain.
+     */
+    public void restore(Map<RollupKey, Totals> undelivered) {
+        undelivered.forEach((key, totals) -> rollups.merge(key, totals, Totals::plus));
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.memory_keeper.ai;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Usage collected for one unit of work, such as enhancing one story, by
+ * provider, pipeline step and unit. Safe to add to from parallel steps.
+ */
+public class UsageTally {
+
+    public record Line(AIProvider provider, String step, UsageUnit unit, long amount) {
+    }
+
+    private record Key(AIProvider provider, String step, UsageUnit unit) {
+    }
+
+    private final Map<Key, LongAdder> amounts = new ConcurrentHashMap<>();
+
+    public void add(AIProvider provider, String step, UsageUnit unit, long amount) {
+        amounts.computeIfAbsent(new Key(provider, step != null ? step : "", unit), k -> new LongAdder()).add(amount);
+    }
+
+    public List<Line> lines() {
+        return amounts.entrySet().stream()
+                .map(e -> new Line(e.getKey().provider(), e.getKey().step(), e.getKey().unit(), e.getValue().sum()))
+                .sorted(Comparator.comparing(Line::step).thenComparing(Line::provider).thenComparing(Line::unit))
+                .toList();
+    }
+}
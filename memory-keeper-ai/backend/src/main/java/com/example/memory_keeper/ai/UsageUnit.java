@@ -0,0 +1,30 @@
+package com.example.memory_keeper.ai;
+
+/**
+ * What a provider bills us for. The key is used in configuration
+ * (ai.usage.prices.<provider>.<key>) and as the "unit" metric tag; prices
+ * are quoted per priceQuantity units, the way providers list them.
+ */
+public enum UsageUnit {
+    PROMPT_TOKENS("prompt-tokens", 1_000_000),
+    COMPLETION_TOKENS("completion-tokens", 1_000_000),
+    CHARACTERS("characters", 1_000),
+    AUDIO_SECONDS("audio-seconds", 3_600),
+    IMAGES("images", 1);
+
+    private final String key;
+    private final long priceQuantity;
+
+    UsageUnit(String key, long priceQuantity) {
+        this.key = key;
+        this.priceQuantity = priceQuantity;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public long getPriceQuantity() {
+        return priceQuantity;
+    }
+}
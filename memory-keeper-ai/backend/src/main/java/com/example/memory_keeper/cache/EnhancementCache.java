@@ -0,0 +1,55 @@
+package com.example.memory_keeper.cache;
+
+import com.example.memory_keeper.config.AICacheConfig;
+import com.example.memory_keeper.config.AIEnhanceConfig;
+import com.example.memory_keeper.dto.response.AIResponse;
+import com.example.memory_keeper.util.HashUtils;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+/**
+ * Content-addressed cache for enhanceStory results.
+ *
+ * The key is a hash of the normalized transcript and answers plus everything
+ * that changes the output: prompt version, Groq model and enhancement mode.
+ * Bump ai.enhance.prompt-version whenever the prompts change.
+ *
+ * Results where a best-effort step failed are returned but not cached, so a
+ * retry after a Hugging Face or TTS outage runs the pipeline again. Callers
+ * get their own copy; cached and coalesced results are never shared.
+ */
+@Component
+public class EnhancementCache {
+
+    private final TieredCache<AIResponse> cache;
+    private final ObjectMapper objectMapper;
+    private final String version;
+
+    public EnhancementCache(AICacheConfig cacheConfig,
+                            AIEnhanceConfig enhanceConfig,
+                            RedisTemplate<String, Object> redisTemplate,
+                            ObjectMapper objectMapper,
+                            MeterRegistry meterRegistry,
+                            @Value("${ai.groq.model}") String model) {
+        this.cache = new TieredCache<>("enhance", AIResponse.class, cacheConfig.getEnhance(),
+                redisTemplate, objectMapper, meterRegistry);
+        this.objectMapper = objectMapper;
+        this.version = "v" + enhanceConfig.getPromptVersion() + ":" + model + ":" + enhanceConfig.getMode();
+    }
+
+    public AIResponse getOrCompute(String transcript, String additionalAnswers, Supplier<AIResponse> pipeline) {
+        AIResponse response = cache.getOrCompute(key(transcript, additionalAnswers), pipeline,
+                result -> result.getFailedSteps() == null || result.getFailedSteps().isEmpty());
+        return objectMapper.convertValue(response, AIResponse.class);
+    }
+
+    private String key(String transcript, String additionalAnswers) {
+        String content = HashUtils.normalizeText(transcript) + "\u0000" + HashUtils.normalizeText(additionalAnswers);
+        return version + ":" + HashUtils.sha256Hex(content);
+    }
+}
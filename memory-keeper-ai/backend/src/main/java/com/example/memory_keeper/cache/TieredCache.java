@@ -0,0 +1,274 @@
+package com.example.memory_keeper.cache;
+
+import com.example.memory_keeper.config.AICacheConfig;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Two-level cache: a bounded in-process LRU in front of Redis.
+ *
+ * - Local entries expire after localTtl and the least recently used entry is
+ *   dropped once localMaxEntries is reached.
+ * - Redis entries expire after redisTtl. If Redis is unreachable the cache
+ *   keeps working locally and retries Redis after a short back-off.
+ * - Concurrent getOrCompute calls for the same key share one computation.
+ * - An entry Redis can't deserialize (e.g. written by an older version) is
+ *   dropped and treated as a miss; only connection errors trigger the back-off.
+ *
+ * Metrics: ai.cache.requests{cache,result}, ai.cache.evictions{cache},
+ * ai.cache.coalesced{cache} and the ai.cache.local.size{cache} gauge.
+ */
+@Slf4j
+public final class TieredCache<V> {
+
+    private static final Duration REDIS_BACKOFF = Duration.ofSeconds(30);
+
+    private final String name;
+    private final Class<V> type;
+    private final AICacheConfig.Settings settings;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final ObjectMapper objectMapper;
+
+    private final Map<String, Entry<V>> local;
+    private final Map<String, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private volatile long redisRetryAt = 0;
+
+    private final Counter localHits;
+    private final Counter redisHits;
+    private final Counter misses;
+    private final Counter evictions;
+    private final Counter coalesced;
+
+    public TieredCache(String name, Class<V> type, AICacheConfig.Settings settings,
+                       RedisTemplate<String, Object> redisTemplate, ObjectMapper objectMapper,
+                       MeterRegistry meterRegistry) {
+        this.name = name;
+        this.type = type;
+        this.settings = settings;
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+
+        int maxEntries = settings.getLocalMaxEntries();
+        this.local = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry<V>> eldest) {
+                if (size() > maxEntries) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+
+        this.localHits = counter(meterRegistry, "hit_local");
+        this.redisHits = counter(meterRegistry, "hit_redis");
+        this.misses = counter(meterRegistry, "miss");
+        this.evictions = Counter.builder("ai.cache.evictions").tag("cache", name).register(meterRegistry);
+        this.coalesced = Counter.builder("ai.cache.coalesced").tag("cache", name).register(meterRegistry);
+        Gauge.builder("ai.cache.local.size", this, TieredCache::localSize).tag("cache", name).register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return settings.isEnabled();
+    }
+
+    public V get(String key) {
+        if (!isEnabled()) {
+            return null;
+        }
+        V value = getLocal(key);
+        if (value != null) {
+            localHits.increment();
+            return value;
+        }
+        value = getRedis(key);
+        if (value != null) {
+            redisHits.increment();
+            putLocal(key, value);
+            return value;
+        }
+        misses.increment();
+        return null;
+    }
+
+    public void put(String key, V value) {
+        if (!isEnabled() || value == null) {
+            return;
+        }
+        putLocal(key, value);
+        putRedis(key, value);
+    }
+
+    public void evict(String key) {
+        synchronized (local) {
+            local.remove(key);
+        }
+        if (redisAvailable()) {
+            try {
+                redisTemplate.delete(redisKey(key));
+            } catch (Exception e) {
+                markRedisDown(e);
+            }
+        }
+    }
+
+    /**
+     * Returns the cached value, or computes it once no matter how many callers ask at the same time.
+     * Failures are not cached.
+     */
+    public V getOrCompute(String key, Supplier<V> loader) {
+        return getOrCompute(key, loader, value -> true);
+    }
+
+    /**
+     * As above, but a computed value is only stored when cacheable accepts it.
+     * Callers waiting on the same computation still receive it.
+     */
+    public V getOrCompute(String key, Supplier<V> loader, Predicate<V> cacheable) {
+        if (!isEnabled()) {
+            return loader.get();
+        }
+        V cached = get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            coalesced.increment();
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException re ? re : e;
+            }
+        }
+
+        try {
+            V value = loader.get();
+            if (value != null && cacheable.test(value)) {
+                put(key, value);
+            }
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    // ==================== HELPER METHODS ====================
+
+    private V getLocal(String key) {
+        synchronized (local) {
+            Entry<V> entry = local.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expiresAt < System.currentTimeMillis()) {
+                local.remove(key);
+                evictions.increment();
+                return null;
+            }
+            return entry.value;
+        }
+    }
+
+    private void putLocal(String key, V value) {
+        long expiresAt = System.currentTimeMillis() + settings.getLocalTtl().toMillis();
+        synchronized (local) {
+            local.put(key, new Entry<>(value, expiresAt));
+        }
+    }
+
+    private V getRedis(String key) {
+        if (!redisAvailable()) {
+            return null;
+        }
+        Object value;
+        try {
+            value = redisTemplate.opsForValue().get(redisKey(key));
+        } catch (SerializationException e) {
+            dropUnreadable(key, e);
+            return null;
+        } catch (Exception e) {
+            markRedisDown(e);
+            return null;
+        }
+        if (value == null) {
+            return null;
+        }
+        try {
+            return type.isInstance(value) ? type.cast(value) : objectMapper.convertValue(value, type);
+        } catch (IllegalArgumentException e) {
+            dropUnreadable(key, e);
+            return null;
+        }
+    }
+
+    private void putRedis(String key, V value) {
+        if (!redisAvailable()) {
+            return;
+        }
+        try {
+            redisTemplate.opsForValue().set(redisKey(key), value, settings.getRedisTtl());
+        } catch (Exception e) {
+            markRedisDown(e);
+        }
+    }
+
+    private void dropUnreadable(String key, Exception e) {
+        log.warn("Dropping unreadable entry from cache '{}': {}", name, e.getMessage());
+        try {
+            redisTemplate.delete(redisKey(key));
+        } catch (Exception deleteFailure) {
+            markRedisDown(deleteFailure);
+        }
+    }
+
+    private boolean redisAvailable() {
+        return System.currentTimeMillis() >= redisRetryAt;
+    }
+
+    private void markRedisDown(Exception e) {
+        redisRetryAt = System.currentTimeMillis() + REDIS_BACKOFF.toMillis();
+        log.warn("Redis unavailable for cache '{}', using local tier only for {}s: {}",
+                name, REDIS_BACKOFF.toSeconds(), e.getMessage());
+    }
+
+    private String redisKey(String key) {
+        return "cache:" + name + ":" + key;
+    }
+
+    private double localSize() {
+        synchronized (local) {
+            return local.size();
+        }
+    }
+
+    private Counter counter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("ai.cache.requests")
+                .tag("cache", name)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private record Entry<V>(V value, long expiresAt) {
+    }
+}
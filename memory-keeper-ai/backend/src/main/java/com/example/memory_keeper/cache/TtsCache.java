@@ -0,0 +1,44 @@
+package com.example.memory_keeper.cache;
+
+import com.example.memory_keeper.ai.AIProvider;
+import com.example.memory_keeper.config.AICacheConfig;
+import com.example.memory_keeper.util.HashUtils;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+/**
+ * Maps narrated text to the Cloudinary URL of its audio, so the same text is
+ * never synthesized or uploaded twice.
+ *
+ * The key is a hash of the normalized text, the voice and the provider.
+ * Narration assets are never deleted from Cloudinary, so entries only
+ * leave the cache when they expire.
+ */
+@Component
+public class TtsCache {
+
+    private final TieredCache<String> urls;
+
+    public TtsCache(AICacheConfig cacheConfig,
+                    RedisTemplate<String, Object> redisTemplate,
+                    ObjectMapper objectMapper,
+                    MeterRegistry meterRegistry) {
+        this.urls = new TieredCache<>("tts", String.class, cacheConfig.getTts(),
+                redisTemplate, objectMapper, meterRegistry);
+    }
+
+    public String getOrCompute(AIProvider provider, String voice, String text, Supplier<String> synthesizeAndUpload) {
+        return urls.getOrCompute(key(provider, voice, text), synthesizeAndUpload);
+    }
+
+    // ==================== HELPER METHODS ====================
+
+    private String key(AIProvider provider, String voice, String text) {
+        String content = provider.getKey() + "\u0000" + voice + "\u0000" + HashUtils.normalizeText(text);
+        return HashUtils.sha256Hex(content);
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.memory_keeper.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Completion tracking for long-running provider jobs such as AssemblyAI
+ * transcripts and Replicate predictions (ai.async-jobs.*).
+ */
+@Configuration
+@ConfigurationProperties(prefix = "ai.async-jobs")
+@Data
+public class AIAsyncJobsConfig {
+
+    private Webhook webhook = new Webhook();
+
+    // How often the shared poller looks for jobs that are due
+    private long pollTickMs = 1000;
+
+    private Polling defaults = Polling.builtIn();
+
+    /**
+     * Per-provider overrides, keyed by AIProvider key (assemblyai, replicate).
+     * Only the fields a provider sets are overridden; the rest come from defaults.
+     */
+    private Map<String, Polling> providers = new HashMap<>();
+
+    public Polling pollingFor(String provider) {
+        Polling override = providers.get(provider);
+        if (override == null) {
+            return defaults;
+        }
+        Polling merged = new Polling();
+        merged.initialDelay = override.initialDelay != null ? override.initialDelay : defaults.initialDelay;
+        merged.maxInterval = override.maxInterval != null ? override.maxInterval : defaults.maxInterval;
+        merged.multiplier = override.multiplier != null ? override.multiplier : defaults.multiplier;
+        merged.webhookInitialDelay = override.webhookInitialDelay != null ? override.webhookInitialDelay : defaults.webhookInitialDelay;
+        merged.timeout = override.timeout != null ? override.timeout : defaults.timeout;
+        return merged;
+    }
+
+    @Data
+    public static class Webhook {
+        private boolean enabled = false;
+
+        // Public base URL providers can reach, e.g. https://api.example.com
+        private String publicBaseUrl = "";
+
+        // Sent back by the provider as ?token=..., checked by WebhookController
+        private String secret = "";
+    }
+
+    // Null until bound, so unset provider fields fall back to defaults
+    @Data
+    public static class Polling {
+        private Duration initialDelay;
+        private Duration maxInterval;
+        private Double multiplier;
+
+        // First poll when a webhook was registered; polling is then only a safety net
+        private Duration webhookInitialDelay;
+
+        // Give up and fail the job after this long
+        private Duration timeout;
+
+        public static Polling builtIn() {
+            Polling polling = new Polling();
+            polling.initialDelay = Duration.ofSeconds(2);
+            polling.maxInterval = Duration.ofSeconds(30);
+            polling.multiplier = 1.5;
+            polling.webhookInitialDelay = Duration.ofSeconds(60);
+            polling.timeout = Duration.ofMinutes(10);
+            return polling;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.memory_keeper.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Settings for the AI result caches (ai.cache.*).
+ */
+@Configuration
+@ConfigurationProperties(prefix = "ai.cache")
+@Data
+public class AICacheConfig {
+
+    /**
+     * Full enhanceStory results, keyed by normalized transcript + prompt version.
+     */
+    private Settings enhance = new Settings();
+
+    /**
+     * Narration audio URLs, keyed by normalized text + voice + provider.
+     */
+    private Settings tts = new Settings();
+
+    @Data
+    public static class Settings {
+        private boolean enabled = true;
+        private int localMaxEntries = 500;
+        private Duration localTtl = Duration.ofMinutes(30);
+        private Duration redisTtl = Duration.ofHours(24);
+    }
+}
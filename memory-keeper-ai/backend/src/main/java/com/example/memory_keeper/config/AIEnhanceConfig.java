@@ -0,0 +1,62 @@
+package com.example.memory_keeper.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Settings for the story enhancement pipeline (ai.enhance.*).
+ */
+@Configuration
+@ConfigurationProperties(prefix = "ai.enhance")
+@Data
+public class AIEnhanceConfig {
+
+    /**
+     * FUSED asks Groq for title, questions, tags, category and summary in one
+     * JSON call. MULTI keeps the original one-call-per-field behaviour.
+     */
+    private Mode mode = Mode.FUSED;
+
+    /**
+     * Part of the enhancement cache key. Bump it whenever the prompts change
+     * so stale results are not served.
+     */
+    private int promptVersion = 1;
+
+    /**
+     * Per-step timeouts. A step that runs past its timeout is treated
+     * exactly like a step whose provider call failed.
+     */
+    private Timeouts timeouts = new Timeouts();
+
+    /**
+     * Background enhancement jobs (POST /api/ai/enhance/jobs).
+     */
+    private Jobs jobs = new Jobs();
+
+    public enum Mode {
+        FUSED,
+        MULTI
+    }
+
+    @Data
+    public static class Timeouts {
+        private Duration questions = Duration.ofSeconds(30);
+        private Duration enhance = Duration.ofSeconds(60);
+        private Duration title = Duration.ofSeconds(20);
+        private Duration metadata = Duration.ofSeconds(30);
+        private Duration analysis = Duration.ofSeconds(30);
+        private Duration sentiment = Duration.ofSeconds(20);
+        private Duration emotions = Duration.ofSeconds(20);
+        private Duration tts = Duration.ofSeconds(45);
+    }
+
+    @Data
+    public static class Jobs {
+        private int maxActive = 100;
+        private Duration retention = Duration.ofMinutes(30);
+    }
+}
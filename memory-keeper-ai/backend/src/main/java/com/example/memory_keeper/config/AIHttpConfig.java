@@ -0,0 +1,60 @@
+package com.example.memory_keeper.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Settings for the shared HTTP client used by every ai.* client (ai.http.*).
+ */
+@Configuration
+@ConfigurationProperties(prefix = "ai.http")
+@Data
+public class AIHttpConfig {
+
+    // Connection pool shared by all providers
+    private int maxIdleConnections = 20;
+    private Duration keepAlive = Duration.ofMinutes(5);
+
+    // Limits for asynchronous (enqueued) calls
+    private int maxRequests = 128;
+    private int maxRequestsPerHost = 32;
+
+    // HTTP/2 keep-alive pings; 0 disables them
+    private Duration pingInterval = Duration.ofSeconds(30);
+
+    private Timeouts defaults = new Timeouts(Duration.ofSeconds(10), Duration.ofSeconds(60), Duration.ofSeconds(30));
+
+    /**
+     * Per-provider overrides, keyed by AIProvider key (groq, huggingface, ...).
+     * Timeouts a provider leaves out come from defaults.
+     */
+    private Map<String, Timeouts> providers = new HashMap<>();
+
+    public Timeouts timeoutsFor(String provider) {
+        Timeouts override = providers.get(provider);
+        if (override == null) {
+            return defaults;
+        }
+        return new Timeouts(
+                override.connect != null ? override.connect : defaults.connect,
+                override.read != null ? override.read : defaults.read,
+                override.write != null ? override.write : defaults.write);
+    }
+
+    // Null until bound, so unset provider fields fall back to defaults
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Timeouts {
+        private Duration connect;
+        private Duration read;
+        private Duration write;
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.memory_keeper.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Settings for routing story image generation across providers (ai.image.*).
+ */
+@Configuration
+@ConfigurationProperties(prefix = "ai.image")
+@Data
+public class AIImageConfig {
+
+    /**
+     * Providers the router may use (stabilityai, huggingface, replicate).
+     * Ties in score are broken by this order.
+     */
+    private List<String> providers = new ArrayList<>(List.of("stabilityai", "huggingface", "replicate"));
+
+    // Weight of the newest sample in the latency and error-rate EWMAs
+    private double ewmaAlpha = 0.2;
+
+    // Latency assumed for a provider that has not been called yet
+    private Duration initialLatency = Duration.ofSeconds(15);
+
+    // Score = latency * (1 + errorPenalty * errorRate); higher penalty prefers reliable providers
+    private double errorPenalty = 4.0;
+
+    // Idle stats drift back to initialLatency and no errors with this half-life, so a demoted
+    // provider gets tried again once it has been left alone long enough; 0 disables the decay
+    private Duration decayHalfLife = Duration.ofMinutes(10);
+
+    // Overall budget for one image, including failover and hedges
+    private Duration timeout = Duration.ofSeconds(150);
+
+    private Hedge hedge = new Hedge();
+
+    @Data
+    public static class Hedge {
+        private boolean enabled = false;
+
+        // Start a second provider once the first runs past this latency percentile
+        private double percentile = 0.9;
+
+        // Samples needed before the percentile is trusted; until then defaultDelay applies
+        private int minSamples = 5;
+        private Duration defaultDelay = Duration.ofSeconds(20);
+        private Duration minDelay = Duration.ofSeconds(3);
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.memory_keeper.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Durable story image queue in the image_jobs table (ai.image-jobs.*).
+ */
+@Configuration
+@ConfigurationProperties(prefix = "ai.image-jobs")
+@Data
+public class AIImageJobsConfig {
+
+    // Workers on this node claim jobs; when off, jobs are still queued for other nodes
+    private boolean workerEnabled = true;
+
+    // Queue an image for every new story saved without one
+    private boolean enqueueOnCreate = true;
+
+    // Jobs one node generates at a time
+    private int maxConcurrent = 4;
+
+    // A claimed job is handed to another worker if not finished within this; keep above ai.image.timeout
+    private Duration lease = Duration.ofMinutes(5);
+
+    private int maxAttempts = 5;
+
+    // Retry delay doubles from baseBackoff up to maxBackoff
+    private Duration baseBackoff = Duration.ofSeconds(30);
+    private Duration maxBackoff = Duration.ofMinutes(30);
+
+    // Completed and failed jobs are deleted after this long
+    private Duration retention = Duration.ofDays(7);
+}
@@ -0,0 +1,24 @@
+package com.example.memory_keeper.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Buffering for generated media on its way to Cloudinary (ai.media.*).
+ */
+@Configuration
+@ConfigurationProperties(prefix = "ai.media")
+@Data
+public class AIMediaConfig {
+
+    // Largest artifact kept in memory; bigger ones spill to a temp file
+    private DataSize memoryThreshold = DataSize.ofMegabytes(4);
+
+    // Heap shared by all in-memory buffers; once used up, new data spills to disk
+    private DataSize memoryBudget = DataSize.ofMegabytes(64);
+
+    // Where spilled artifacts go; empty means java.io.tmpdir
+    private String tempDir = "";
+}
@@ -0,0 +1,35 @@
+package com.example.memory_keeper.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Monthly budgets for metered providers, shared fairly between families (ai.quota.*).
+ */
+@Configuration
+@ConfigurationProperties(prefix = "ai.quota")
+@Data
+public class AIQuotaConfig {
+
+    private boolean enabled = true;
+
+    // Most of a provider's monthly budget one family (or family-less user) may use
+    private double maxFamilyShare = 0.25;
+
+    // Used to estimate the length of an upload before AssemblyAI reports it (16000 = 128 kbps)
+    private long audioBytesPerSecond = 16_000;
+
+    // provider key -> budget; providers not listed are not metered
+    private Map<String, Budget> providers = new HashMap<>();
+
+    @Data
+    public static class Budget {
+        // In the provider's billing unit: characters for ElevenLabs, audio seconds for AssemblyAI.
+        // ElevenLabs replaces it with the limit of the subscription once synced.
+        private long monthlyLimit;
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.memory_keeper.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Circuit breaker, bulkhead and retry settings per AI provider (ai.resilience.*).
+ */
+@Configuration
+@ConfigurationProperties(prefix = "ai.resilience")
+@Data
+public class AIResilienceConfig {
+
+    private Settings defaults = Settings.builtIn();
+
+    /**
+     * Per-provider overrides, keyed by AIProvider key (groq, huggingface, ...).
+     * Only the fields a provider sets are overridden; the rest come from defaults.
+     */
+    private Map<String, Settings> providers = new HashMap<>();
+
+    public Settings settingsFor(String provider) {
+        return defaults.overlay(providers.get(provider));
+    }
+
+    /**
+     * Fields are null until bound, so a provider entry can be told apart from one that
+     * repeats the defaults.
+     */
+    @Data
+    public static class Settings {
+
+        // Circuit breaker: opens when failureRateThreshold of the last windowSize calls failed
+        private Integer windowSize;
+        private Integer minimumCalls;
+        private Double failureRateThreshold;
+        private Duration openDuration;
+        private Integer halfOpenCalls;
+
+        // Bulkhead: concurrent calls allowed, and how long a caller waits for a slot
+        private Integer maxConcurrent;
+        private Duration maxWait;
+
+        // Retries with full-jitter exponential backoff; Retry-After wins when present
+        private Integer maxRetries;
+        private Duration baseBackoff;
+        private Duration maxBackoff;
+        private List<Integer> retryOnStatus;
+
+        // 5xx statuses that mean "busy", not "down", and so do not count towards opening the circuit
+        private List<Integer> nonFailureStatus;
+
+        public static Settings builtIn() {
+            Settings settings = new Settings();
+            settings.windowSize = 20;
+            settings.minimumCalls = 10;
+            settings.failureRateThreshold = 0.5;
+            settings.openDuration = Duration.ofSeconds(30);
+            settings.halfOpenCalls = 2;
+            settings.maxConcurrent = 16;
+            settings.maxWait = Duration.ofSeconds(2);
+            settings.maxRetries = 2;
+            settings.baseBackoff = Duration.ofMillis(500);
+            settings.maxBackoff = Duration.ofSeconds(10);
+            settings.retryOnStatus = List.of(429, 502, 503, 504);
+            settings.nonFailureStatus = List.of();
+            return settings;
+        }
+
+        /**
+         * A copy of these settings with every field the override sets replaced.
+         */
+        public Settings overlay(Settings override) {
+            Settings merged = new Settings();
+            Settings o = override != null ? override : new Settings();
+            merged.windowSize = pick(o.windowSize, windowSize);
+            merged.minimumCalls = pick(o.minimumCalls, minimumCalls);
+            merged.failureRateThreshold = pick(o.failureRateThreshold, failureRateThreshold);
+            merged.openDuration = pick(o.openDuration, openDuration);
+            merged.halfOpenCalls = pick(o.halfOpenCalls, halfOpenCalls);
+            merged.maxConcurrent = pick(o.maxConcurrent, maxConcurrent);
+            merged.maxWait = pick(o.maxWait, maxWait);
+            merged.maxRetries = pick(o.maxRetries, maxRetries);
+            merged.baseBackoff = pick(o.baseBackoff, baseBackoff);
+            merged.maxBackoff = pick(o.maxBackoff, maxBackoff);
+            merged.retryOnStatus = pick(o.retryOnStatus, retryOnStatus);
+            merged.nonFailureStatus = pick(o.nonFailureStatus, nonFailureStatus);
+            return merged;
+        }
+
+        private static <T> T pick(T override, T fallback) {
+            return override != null ? override : fallback;
+        }
+    }
+}
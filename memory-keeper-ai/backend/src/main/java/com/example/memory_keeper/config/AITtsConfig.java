@@ -0,0 +1,29 @@
+package com.example.memory_keeper.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Settings for story narration (ai.tts.*).
+ */
+@Configuration
+@ConfigurationProperties(prefix = "ai.tts")
+@Data
+public class AITtsConfig {
+
+    /**
+     * Split long stories into sentence-aligned chunks and synthesize them in
+     * parallel. When off, the provider truncates the text at its limit.
+     */
+    private boolean chunked = true;
+
+    // Must stay under the provider's per-request limit (about 1000 chars)
+    private int maxChunkChars = 900;
+
+    // Chunks synthesized at the same time for one story
+    private int maxParallel = 4;
+
+    // ElevenLabs voice for narration, within the monthly quota (ai.quota); empty = always the free voice
+    private String premiumVoiceId = "";
+}
@@ -0,0 +1,30 @@
+package com.example.memory_keeper.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Token, character and audio accounting for AI calls (ai.usage.*).
+ */
+@Configuration
+@ConfigurationProperties(prefix = "ai.usage")
+@Data
+public class AIUsageConfig {
+
+    private boolean enabled = true;
+
+    // Attach a per-story cost breakdown to enhancement responses
+    private boolean includeCost = false;
+
+    private String currency = "USD";
+
+    // A rollup row that fails this many flushes in a row is logged and dropped
+    private int maxWriteAttempts = 10;
+
+    // provider -> unit -> price per UsageUnit.priceQuantity (1M tokens, 1K characters, 1 hour of audio, 1 image)
+    private Map<String, Map<String, Double>> prices = new HashMap<>();
+}
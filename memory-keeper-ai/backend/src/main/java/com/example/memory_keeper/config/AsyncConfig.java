@@ -0,0 +1,65 @@
+package com.example.memory_keeper.config;
+
+import com.example.memory_keeper.ai.UsageContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.aop.interceptor.AsyncUncaughtExceptionHandler;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.annotation.AsyncConfigurer;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Async execution for AI work.
+ *
+ * Provider calls spend almost all of their time waiting on the network,
+ * so they run on virtual threads instead of a small platform thread pool.
+ * The same executor backs @Async methods. Tasks inherit the UsageContext
+ * of the thread that submitted them, so their AI usage is attributed to
+ * the request that started them.
+ *
+ * Scheduled jobs get their own small scheduler so they never share
+ * threads with the WebSocket broker's heartbeat scheduler. Jobs that call
+ * providers hand that work to aiTaskExecutor, so the fast tickers are not
+ * held up behind them.
+ */
+@Configuration
+@EnableAsync
+@EnableScheduling
+@Slf4j
+public class AsyncConfig implements AsyncConfigurer {
+
+    @Bean(name = "aiTaskExecutor")
+    @Primary
+    public AsyncTaskExecutor aiTaskExecutor() {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("ai-");
+        executor.setVirtualThreads(true);
+        executor.setTaskDecorator(UsageContext::wrap);
+        return executor;
+    }
+
+    @Bean(name = "taskScheduler")
+    public ThreadPoolTaskScheduler taskScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        // Eleven jobs, several ticking every second or faster; slow work is handed to aiTaskExecutor
+        scheduler.setPoolSize(4);
+        scheduler.setThreadNamePrefix("scheduled-");
+        return scheduler;
+    }
+
+    @Override
+    public Executor getAsyncExecutor() {
+        return aiTaskExecutor();
+    }
+
+    @Override
+    public AsyncUncaughtExceptionHandler getAsyncUncaughtExceptionHandler() {
+        return (ex, method, params) -> log.error("Async method {} failed", method.getName(), ex);
+    }
+}
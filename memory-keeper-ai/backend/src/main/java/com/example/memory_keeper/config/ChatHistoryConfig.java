@@ -0,0 +1,34 @@
+package com.example.memory_keeper.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Persisted grandparent chat sessions (ai.chat.history.*).
+ */
+@Configuration
+@ConfigurationProperties(prefix = "ai.chat.history")
+@Data
+public class ChatHistoryConfig {
+
+    private boolean enabled = true;
+
+    // Turns sent to the model verbatim; older ones only through the summary
+    private int recentTurns = 6;
+
+    // Older turns are folded into the summary once this many have piled up...
+    private int summarizeBatch = 4;
+
+    // ...and dropped unsummarised past this many (e.g. while summaries keep failing)
+    private int maxUnsummarizedTurns = 30;
+
+    // Sessions kept in memory, least recently used dropped first
+    private int maxSessions = 2000;
+
+    // Queued messages are written once this many are waiting, or every flush-ms
+    private int flushBatchSize = 50;
+
+    // A message the database keeps rejecting is dropped after this many flushes
+    private int maxWriteAttempts = 5;
+}
@@ -0,0 +1,36 @@
+package com.example.memory_keeper.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Story passage retrieval for grandparent chat (ai.chat.retrieval.*).
+ */
+@Configuration
+@ConfigurationProperties(prefix = "ai.chat.retrieval")
+@Data
+public class ChatRetrievalConfig {
+
+    // At most this many passages go into the prompt...
+    private int topK = 6;
+
+    // ...and together no more than this many tokens (estimated as chars / chars-per-token)
+    private int tokenBudget = 1500;
+    private int charsPerToken = 4;
+
+    // Stories are split into passages of about this size, at sentence boundaries
+    private int passageChars = 600;
+
+    // BM25 parameters
+    private double k1 = 1.2;
+    private double b = 0.75;
+
+    // Indexes kept in memory (one per family or grandparent), least recently used dropped first
+    private int maxIndexes = 200;
+
+    // Rebuilt after this long even without a story change event, to pick up edits made elsewhere
+    private Duration indexTtl = Duration.ofMinutes(15);
+}
@@ -0,0 +1,41 @@
+package com.example.memory_keeper.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Story embeddings and the in-memory vector index (ai.embedding.*).
+ */
+@Configuration
+@ConfigurationProperties(prefix = "ai.embedding")
+@Data
+public class EmbeddingConfig {
+
+    /**
+     * local: deterministic feature-hashing embedder, no network (default).
+     * huggingface: a sentence-transformers model on the Inference API.
+     */
+    private String provider = "local";
+
+    // Size of the local embedder's vectors
+    private int dimensions = 384;
+
+    private String huggingfaceModel = "sentence-transformers/all-MiniLM-L6-v2";
+
+    // Story text beyond this is not embedded
+    private int maxChars = 4000;
+
+    // Stories without an embedding from the current model are embedded in batches after startup
+    private int backfillBatchSize = 32;
+
+    private Index index = new Index();
+
+    @Data
+    public static class Index {
+        // Links per node (layer 0 gets twice as many)
+        private int m = 16;
+        private int efConstruction = 100;
+        private int efSearch = 64;
+    }
+}
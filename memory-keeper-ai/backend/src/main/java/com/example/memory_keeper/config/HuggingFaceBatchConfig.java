@@ -0,0 +1,27 @@
+package com.example.memory_keeper.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Micro-batching of Hugging Face classification calls (ai.huggingface.batch.*).
+ */
+@Configuration
+@ConfigurationProperties(prefix = "ai.huggingface.batch")
+@Data
+public class HuggingFaceBatchConfig {
+
+    private boolean enabled = true;
+
+    // A batch is sent as soon as it holds this many inputs...
+    private int maxBatchSize = 16;
+
+    // ...or this long after its first input arrived, whichever comes first
+    private Duration maxWait = Duration.ofMillis(25);
+
+    // A caller gives up on its batched result after this; covers a cold model loading
+    private Duration timeout = Duration.ofMinutes(3);
+}
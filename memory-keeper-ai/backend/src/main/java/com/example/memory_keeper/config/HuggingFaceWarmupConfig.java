@@ -0,0 +1,44 @@
+package com.example.memory_keeper.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeping Hugging Face models loaded, and holding requests during a cold start
+ * (ai.huggingface.warmup.*).
+ */
+@Configuration
+@ConfigurationProperties(prefix = "ai.huggingface.warmup")
+@Data
+public class HuggingFaceWarmupConfig {
+
+    private boolean enabled = true;
+
+    // Models to keep warm; others are still protected by the cold-start queue.
+    // Image models are left out: each ping is a real, billed image generation.
+    private List<String> models = new ArrayList<>(List.of(
+            "cardiffnlp/twitter-roberta-base-sentiment-latest",
+            "j-hartmann/emotion-english-distilroberta-base"
+    ));
+
+    // Ping a warm model this often; Hugging Face unloads idle models after a while
+    private Duration pingInterval = Duration.ofMinutes(4);
+
+    // Only ping a model that served a request within this long, so an idle app stops paying
+    // for warm-ups; 0 keeps listed models warm all the time
+    private Duration keepWarmAfterUse = Duration.ZERO;
+
+    // While a model is loading, check this often whether it is ready
+    private Duration loadingCheckInterval = Duration.ofSeconds(3);
+
+    // Requests allowed to wait per loading model; beyond this they fail at once
+    private int maxQueued = 32;
+
+    // Longest a request waits for a model to finish loading
+    private Duration maxWait = Duration.ofSeconds(90);
+}
@@ -0,0 +1,27 @@
+package com.example.memory_keeper.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * In-process sentiment and emotion classifier (ai.local-classifier.*).
+ */
+@Configuration
+@ConfigurationProperties(prefix = "ai.local-classifier")
+@Data
+public class LocalClassifierConfig {
+
+    private boolean enabled = true;
+
+    private String lexicon = "classpath:lexicon/emotion-lexicon.tsv";
+
+    // Texts up to this length are classified locally and never sent to Hugging Face (0 = off)
+    private int fastPathMaxChars = 280;
+
+    // Use the local result when Hugging Face fails, is rate-limited or its circuit is open
+    private boolean fallback = true;
+
+    // How many tokens before a lexicon word a "not"/"never" still negates it
+    private int negationWindow = 3;
+}
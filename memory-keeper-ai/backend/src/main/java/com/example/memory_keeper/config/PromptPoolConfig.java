@@ -0,0 +1,35 @@
+package com.example.memory_keeper.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Pre-generated daily prompts (ai.prompts.*).
+ */
+@Configuration
+@ConfigurationProperties(prefix = "ai.prompts")
+@Data
+public class PromptPoolConfig {
+
+    // Refill generates new prompts with Groq; when off, only the prompts already in the table are served
+    private boolean refillEnabled = true;
+
+    // Active prompts kept per category
+    private int poolSize = 20;
+
+    // Prompts asked for in one Groq call
+    private int batchSize = 5;
+
+    // Groq calls per refill run, so a cold start doesn't eat the rate limit
+    private int maxCallsPerRefill = 6;
+
+    // A prompt's weight is 1 / (1 + usage_count)^exponent; 0 = uniform
+    private double usageWeightExponent = 1.0;
+
+    // A user is not shown any of their last this-many prompts again (while the category has others)
+    private int recentPerUser = 20;
+
+    // Users whose recent prompts are remembered, least recently active dropped first
+    private int maxTrackedUsers = 10_000;
+}
@@ -51,6 +51,8 @@ public class SecurityConfig {
                         .requestMatchers("/api/auth/**").permitAll()
                         .requestMatchers("/api-docs/**", "/swagger-ui/**", "/swagger-ui.html").permitAll()
                         .requestMatchers("/actuator/").permitAll()
+                        // Provider callbacks authenticate with a shared secret instead of a JWT
+                        .requestMatchers("/api/webhooks/**").permitAll()
 
                         // All other requests must be authenticated
                         .anyRequest().authenticated()
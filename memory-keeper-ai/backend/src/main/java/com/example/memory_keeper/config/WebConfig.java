@@ -1,9 +1,11 @@
 package com.example.memory_keeper.config;
 
+import com.example.memory_keeper.ai.UsageContextInterceptor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
@@ -26,4 +28,14 @@ public class WebConfig {
             }
         };
     }
+
+    @Bean
+    public WebMvcConfigurer usageContextConfigurer(UsageContextInterceptor usageContextInterceptor) {
+        return new WebMvcConfigurer() {
+            @Override
+            public void addInterceptors(InterceptorRegistry registry) {
+                registry.addInterceptor(usageContextInterceptor).addPathPatterns("/api/**");
+            }
+        };
+    }
 }
\ No newline at end of file
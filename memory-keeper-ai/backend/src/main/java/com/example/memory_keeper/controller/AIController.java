@@ -1,26 +1,63 @@
 package com.example.memory_keeper.controller;
 
+import com.example.memory_keeper.ai.ChatReply;
+import com.example.memory_keeper.ai.Conversation;
+import com.example.memory_keeper.ai.EmotionAnalysisRouter;
+import com.example.memory_keeper.ai.GroqClient;
+import com.example.memory_keeper.ai.ProviderResilienceRegistry;
 import com.example.memory_keeper.dto.request.ChatRequest;
+import com.example.memory_keeper.dto.request.ClassifierComparisonRequest;
 import com.example.memory_keeper.dto.request.EnhanceRequest;
 import com.example.memory_keeper.dto.response.AIResponse;
 import com.example.memory_keeper.dto.response.ApiResponse;
+import com.example.memory_keeper.dto.response.ChatMessageResponse;
+import com.example.memory_keeper.dto.response.ClassifierComparisonResponse;
+import com.example.memory_keeper.dto.response.EnhancementJobResponse;
+import com.example.memory_keeper.dto.response.ImageJobResponse;
+import com.example.memory_keeper.dto.response.ProviderStatusResponse;
 import com.example.memory_keeper.service.AIService;
+import com.example.memory_keeper.service.ChatContextService;
+import com.example.memory_keeper.service.ChatSessionService;
+import com.example.memory_keeper.service.EnhancementJobService;
+import com.example.memory_keeper.service.ImageJobService;
+import com.example.memory_keeper.service.PromptService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import jakarta.validation.Valid;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.function.Function;
 
 @RestController
+@Slf4j
 @RequestMapping("/api/ai")
 @RequiredArgsConstructor
 @CrossOrigin(origins = "*")
 @Tag(name = "AI", description = "AI-powered features")
 public class AIController {
 
+    private static final long STREAM_TIMEOUT_MS = 120_000;
+
     private final AIService aiService;
+    private final EnhancementJobService enhancementJobService;
+    private final AsyncTaskExecutor aiTaskExecutor;
+    private final ProviderResilienceRegistry resilienceRegistry;
+    private final EmotionAnalysisRouter emotionAnalysisRouter;
+    private final ChatContextService chatContextService;
+    private final ChatSessionService chatSessionService;
+    private final PromptService promptService;
+    private final ImageJobService imageJobService;
 
     @PostMapping("/enhance")
     @Operation(summary = "Enhance story with AI")
@@ -35,41 +72,175 @@ public class AIController {
         return ResponseEntity.ok(ApiResponse.success(response, "Story enhanced successfully"));
     }
 
+    @PostMapping("/enhance/jobs")
+    @Operation(summary = "Start story enhancement in the background",
+            description = "Returns a job id immediately. Progress is pushed to /topic/jobs/{id} over /ws.")
+    public ResponseEntity<ApiResponse<EnhancementJobResponse>> submitEnhancementJob(
+            @Valid @RequestBody EnhanceRequest request) {
+
+        EnhancementJobResponse job = enhancementJobService.submit(
+                request.getTranscript(),
+                request.getAdditionalAnswers()
+        );
+
+        return ResponseEntity.accepted()
+                .body(ApiResponse.success(job, "Story enhancement started"));
+    }
+
+    @GetMapping("/jobs/{jobId}")
+    @Operation(summary = "Get enhancement job status and partial results")
+    public ResponseEntity<ApiResponse<EnhancementJobResponse>> getEnhancementJob(@PathVariable String jobId) {
+        return ResponseEntity.ok(ApiResponse.success(enhancementJobService.getJob(jobId)));
+    }
+
+    @GetMapping("/providers/status")
+    @Operation(summary = "Circuit breaker and bulkhead state per AI provider")
+    public ResponseEntity<ApiResponse<List<ProviderStatusResponse>>> getProviderStatus() {
+        return ResponseEntity.ok(ApiResponse.success(resilienceRegistry.getStatus()));
+    }
+
+    @PostMapping("/classify/compare")
+    @Operation(summary = "Compare the local sentiment/emotion classifier with Hugging Face",
+            description = "Classifies each text with both and reports agreement rates and latencies")
+    public ResponseEntity<ApiResponse<ClassifierComparisonResponse>> compareClassifiers(
+            @Valid @RequestBody ClassifierComparisonRequest request) {
+        return ResponseEntity.ok(ApiResponse.success(emotionAnalysisRouter.compare(request.getTexts())));
+    }
+
     @PostMapping("/chat")
-    @Operation(summary = "Chat with AI grandparent")
+    @Operation(summary = "Chat with AI grandparent",
+            description = "Send grandparentId or familyId; the most relevant story passages are retrieved server-side. "
+                    + "Earlier turns of the same session are remembered; pass sessionId to keep separate conversations.")
     public ResponseEntity<ApiResponse<String>> chat(
             @Valid @RequestBody ChatRequest request) {
 
-        String answer = aiService.chatWithGrandparent(
-                request.getStories(),
+        ChatSessionService.SessionRef session = chatSessionService.open(request);
+        ChatReply answer = aiService.chatWithGrandparent(
+                chatContextService.findRelevantPassages(request),
+                chatSessionService.getConversation(session),
                 request.getQuestion(),
                 request.getGrandparentName()
         );
+        record(session, request, answer);
 
-        return ResponseEntity.ok(ApiResponse.success(answer, "Response generated"));
+        return ResponseEntity.ok(ApiResponse.success(answer.text(), "Response generated"));
+    }
+
+    @PostMapping(value = "/chat/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Chat with AI grandparent, streamed",
+            description = "Server-sent events: 'token' for each chunk, then 'done' with the full reply, "
+                    + "or 'error' if the reply breaks off.")
+    public SseEmitter chatStream(@Valid @RequestBody ChatRequest request) {
+        // Resolved here, on the request thread, where the caller's security context is
+        List<String> passages = chatContextService.findRelevantPassages(request);
+        ChatSessionService.SessionRef session = chatSessionService.open(request);
+        Conversation conversation = chatSessionService.getConversation(session);
+        return stream(callback -> {
+            ChatReply answer = aiService.chatWithGrandparentStream(
+                    passages,
+                    conversation,
+                    request.getQuestion(),
+                    request.getGrandparentName(),
+                    callback
+            );
+            record(session, request, answer);
+            return answer.text();
+        });
+    }
+
+    @GetMapping("/chat/history")
+    @Operation(summary = "Get your chat history with a grandparent, newest first",
+            description = "Identify the conversation by sessionId, grandparentId or familyId, as sent to /chat.")
+    public ResponseEntity<ApiResponse<List<ChatMessageResponse>>> getChatHistory(
+            @RequestParam(required = false) Long grandparentId,
+            @RequestParam(required = false) Long familyId,
+            @RequestParam(required = false) String sessionId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+
+        ChatRequest scope = new ChatRequest();
+        scope.setGrandparentId(grandparentId);
+        scope.setFamilyId(familyId);
+        scope.setSessionId(sessionId);
+        Page<ChatMessageResponse> history = chatSessionService.getHistory(scope, PageRequest.of(page, size));
+
+        return ResponseEntity.ok(ApiResponse.success(
+                history.getContent(),
+                "Chat history retrieved successfully",
+                history.getTotalElements()
+        ));
+    }
+
+    @PostMapping(value = "/enhance/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream the enhanced story text",
+            description = "Server-sent events: 'token' for each chunk, then 'done' with the full story.")
+    public SseEmitter enhanceStoryStream(@Valid @RequestBody EnhanceRequest request) {
+        return stream(callback -> aiService.streamEnhancedStory(
+                request.getTranscript(),
+                request.getAdditionalAnswers(),
+                callback
+        ));
     }
 
     @GetMapping("/prompt")
-    @Operation(summary = "Get daily prompt")
+    @Operation(summary = "Get daily prompt", description = "Served from the pre-generated prompt pool")
     public ResponseEntity<ApiResponse<String>> getDailyPrompt(
             @RequestParam(defaultValue = "GENERAL") String category) {
 
-        String prompt = aiService.generateDailyPrompt(category);
+        String prompt = promptService.getDailyPrompt(category);
         return ResponseEntity.ok(ApiResponse.success(prompt));
     }
 
     @PostMapping("/image")
-    @Operation(summary = "Generate image for story")
-    public ResponseEntity<ApiResponse<String>> generateImage(
-            @RequestParam String story,
-            @RequestParam String title) {
-
-        aiService.generateStoryImage(story, title)
-                .thenAccept(imageUrl -> {
-                    // Store image URL in database
-                });
+    @Operation(summary = "Generate image for story",
+            description = "Queues image generation; progress is pushed to /topic/stories/{storyId}/image and the URL is saved on the story")
+    public ResponseEntity<ApiResponse<ImageJobResponse>> generateImage(@RequestParam Long storyId) {
 
+        ImageJobResponse job = imageJobService.requestImage(storyId);
         return ResponseEntity.accepted()
-                .body(ApiResponse.success(null, "Image generation started"));
+                .body(ApiResponse.success(job, "Image generation queued"));
+    }
+
+    @GetMapping("/image/jobs/{jobId}")
+    @Operation(summary = "Get image job status")
+    public ResponseEntity<ApiResponse<ImageJobResponse>> getImageJob(@PathVariable Long jobId) {
+        return ResponseEntity.ok(ApiResponse.success(imageJobService.getJob(jobId)));
+    }
+
+    // A fallback reply is shown to the caller but never becomes part of the chat history
+    private void record(ChatSessionService.SessionRef session, ChatRequest request, ChatReply answer) {
+        if (!answer.fallback()) {
+            chatSessionService.recordTurn(session, request.getQuestion(), answer.text());
+        }
+    }
+
+    /**
+     * Runs a streaming call off the request thread and forwards every chunk as an SSE event.
+     * If the client goes away, the failed send aborts the upstream Groq stream too.
+     */
+    private SseEmitter stream(Function<GroqClient.StreamCallback, String> call) {
+        SseEmitter emitter = new SseEmitter(STREAM_TIMEOUT_MS);
+        aiTaskExecutor.execute(() -> {
+            try {
+                String fullText = call.apply(chunk -> {
+                    try {
+                        emitter.send(SseEmitter.event().name("token").data(chunk));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                emitter.send(SseEmitter.event().name("done").data(fullText));
+            } catch (Exception e) {
+                log.warn("Stream ended early: {}", e.getMessage());
+                try {
+                    emitter.send(SseEmitter.event().name("error").data(e.getMessage() != null ? e.getMessage() : "Stream failed"));
+                } catch (Exception ignored) {
+                    // Client is already gone
+                }
+            } finally {
+                emitter.complete();
+            }
+        });
+        return emitter;
     }
 }
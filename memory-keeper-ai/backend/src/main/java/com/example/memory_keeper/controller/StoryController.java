@@ -2,9 +2,11 @@ package com.example.memory_keeper.controller;
 
 import com.example.memory_keeper.dto.request.StoryRequest;
 import com.example.memory_keeper.dto.response.ApiResponse;
+import com.example.memory_keeper.dto.response.StoryMatchResponse;
 import com.example.memory_keeper.dto.response.StoryResponse;
 import com.example.memory_keeper.model.entity.Story;
 import com.example.memory_keeper.model.enums.ReactionType;
+import com.example.memory_keeper.service.SemanticSearchService;
 import com.example.memory_keeper.service.StoryService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -26,6 +28,7 @@ import java.util.List;
 public class StoryController {
 
     private final StoryService storyService;
+    private final SemanticSearchService semanticSearchService;
 
     @PostMapping
     @Operation(summary = "Create new story")
@@ -100,6 +103,28 @@ public class StoryController {
         return ResponseEntity.ok(ApiResponse.success(stories.getContent()));
     }
 
+    @GetMapping("/semantic-search")
+    @Operation(summary = "Search stories by meaning",
+            description = "Nearest stories to the query in your family (or the given familyId), best first")
+    public ResponseEntity<ApiResponse<List<StoryMatchResponse>>> semanticSearch(
+            @RequestParam String query,
+            @RequestParam(required = false) Long familyId,
+            @RequestParam(defaultValue = "10") int size) {
+
+        List<StoryMatchResponse> matches = semanticSearchService.search(query, familyId, Math.min(size, 50));
+        return ResponseEntity.ok(ApiResponse.success(matches));
+    }
+
+    @GetMapping("/{id}/similar")
+    @Operation(summary = "Get similar memories", description = "Stories from the same family closest in meaning")
+    public ResponseEntity<ApiResponse<List<StoryMatchResponse>>> getSimilarStories(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "5") int size) {
+
+        List<StoryMatchResponse> matches = semanticSearchService.findSimilarStories(id, Math.min(size, 50));
+        return ResponseEntity.ok(ApiResponse.success(matches));
+    }
+
     @GetMapping("/category/{category}")
     @Operation(summary = "Get stories by category")
     public ResponseEntity<ApiResponse<List<StoryResponse>>> getStoriesByCategory(
@@ -0,0 +1,62 @@
+package com.example.memory_keeper.controller;
+
+import com.example.memory_keeper.ai.AIProvider;
+import com.example.memory_keeper.ai.AsyncJobTracker;
+import com.example.memory_keeper.dto.response.ApiResponse;
+import com.example.memory_keeper.exception.BadRequestException;
+import com.example.memory_keeper.exception.UnauthorizedException;
+import com.fasterxml.jackson.databind.JsonNode;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Completion callbacks from AI providers. These endpoints are public, so
+ * each call must carry the shared secret (ai.async-jobs.webhook.secret) as
+ * ?token=. The body only tells us which job to look at; the job's status
+ * is always fetched from the provider's API.
+ */
+@RestController
+@Slf4j
+@RequestMapping("/api/webhooks")
+@RequiredArgsConstructor
+@Tag(name = "Webhooks", description = "AI provider completion callbacks")
+public class WebhookController {
+
+    private final AsyncJobTracker jobTracker;
+
+    @PostMapping("/assemblyai")
+    @Operation(summary = "AssemblyAI transcript completed")
+    public ResponseEntity<ApiResponse<Boolean>> assemblyAi(
+            @RequestParam(required = false) String token,
+            @RequestBody JsonNode payload) {
+
+        return handle(AIProvider.ASSEMBLYAI, token, payload.path("transcript_id").asText(null));
+    }
+
+    @PostMapping("/replicate")
+    @Operation(summary = "Replicate prediction completed")
+    public ResponseEntity<ApiResponse<Boolean>> replicate(
+            @RequestParam(required = false) String token,
+            @RequestBody JsonNode payload) {
+
+        return handle(AIProvider.REPLICATE, token, payload.path("id").asText(null));
+    }
+
+    private ResponseEntity<ApiResponse<Boolean>> handle(AIProvider provider, String token, String jobId) {
+        if (!jobTracker.isValidToken(token)) {
+            log.warn("Rejected {} webhook with an invalid token", provider.getKey());
+            throw new UnauthorizedException("Invalid webhook token");
+        }
+        if (jobId == null || jobId.isBlank()) {
+            throw new BadRequestException("Webhook payload has no job id");
+        }
+
+        // Unknown jobs are acknowledged too, so the provider does not keep retrying.
+        boolean tracked = jobTracker.onWebhook(provider, jobId);
+        return ResponseEntity.ok(ApiResponse.success(tracked, tracked ? "Job updated" : "Job not tracked"));
+    }
+}
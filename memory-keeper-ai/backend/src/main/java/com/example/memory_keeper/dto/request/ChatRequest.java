@@ -1,7 +1,7 @@
 package com.example.memory_keeper.dto.request;
 
 import jakarta.validation.constraints.NotBlank;
-import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
 import lombok.Data;
 
 import java.util.List;
@@ -9,7 +9,19 @@ import java.util.List;
 @Data
 public class ChatRequest {
 
-    @NotEmpty(message = "Stories are required")
+    /**
+     * Whose memories to draw on. With grandparentId only that user's stories
+     * are searched, with familyId all of the family's. The most relevant
+     * passages are picked on the server.
+     */
+    private Long familyId;
+    private Long grandparentId;
+
+    // Optional: separates several conversations with the same grandparent or family
+    @Size(max = 64, message = "Session id is too long")
+    private String sessionId;
+
+    // Deprecated: full story texts sent by older clients. Still searched, but only the relevant passages are used.
     private List<String> stories;
 
     @NotBlank(message = "Question is required")
@@ -17,4 +29,4 @@ public class ChatRequest {
 
     @NotBlank(message = "Grandparent name is required")
     private String grandparentName;
-}
\ No newline at end of file
+}
@@ -0,0 +1,15 @@
+package com.example.memory_keeper.dto.request;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class ClassifierComparisonRequest {
+
+    @NotEmpty(message = "Texts are required")
+    @Size(max = 50, message = "At most 50 texts per comparison")
+    private List<String> texts;
+}
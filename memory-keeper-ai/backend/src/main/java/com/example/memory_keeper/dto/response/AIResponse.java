@@ -1,7 +1,9 @@
 package com.example.memory_keeper.dto.response;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Data;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -19,4 +21,13 @@ public class AIResponse {
     private String imageUrl;
     private String ttsAudioUrl;
     private Integer wordCount;
+
+    // Best-effort steps (sentiment, emotions, tts) that failed; such results are not cached
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private List<String> failedSteps = new ArrayList<>();
+
+    // Tokens, characters and seconds this story used, per step (only when ai.usage.include-cost is on);
+    // empty when the result came from the enhancement cache
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private CostBreakdown cost;
 }
\ No newline at end of file
@@ -0,0 +1,21 @@
+package com.example.memory_keeper.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatMessageResponse {
+    private Long id;
+    private Long grandparentId;
+    private String message;
+    private String response;
+    private Boolean isHelpful;
+    private LocalDateTime createdAt;
+}
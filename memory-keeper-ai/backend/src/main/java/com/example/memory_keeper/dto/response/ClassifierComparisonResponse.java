@@ -0,0 +1,43 @@
+package com.example.memory_keeper.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClassifierComparisonResponse {
+
+    private int samples;
+    private int remoteSucceeded;
+
+    // Share of samples (where Hugging Face answered) on which both agree
+    private double sentimentAgreement;
+    private double topEmotionAgreement;     // local label collapsed to its base emotion
+    private double topEmotionInRemoteTop3;  // local top label among the remote top 3
+
+    private double localMeanMicros;
+    private double localMaxMicros;
+    private double remoteMeanMillis;
+    private double remoteMaxMillis;
+
+    private List<Sample> results;
+
+    @Data
+    @AllArgsConstructor
+    public static class Sample {
+        private String text;
+        private String localSentiment;
+        private String remoteSentiment;
+        private List<String> localEmotions;
+        private List<String> remoteEmotions;
+        private long localMicros;
+        private Long remoteMillis;
+        private String remoteError;
+    }
+}
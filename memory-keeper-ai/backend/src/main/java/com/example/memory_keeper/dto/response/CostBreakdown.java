@@ -0,0 +1,31 @@
+package com.example.memory_keeper.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CostBreakdown {
+    private List<Item> items;
+    private double totalCost;
+    private String currency;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Item {
+        private String step;
+        private String provider;
+        private String unit;
+        private long amount;
+        // Estimated from ai.usage.prices
+        private double cost;
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.memory_keeper.dto.response;
+
+import com.example.memory_keeper.model.enums.JobStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EnhancementJobResponse {
+
+    private String jobId;
+    private JobStatus status;
+
+    private List<String> completedSteps;
+    private Map<String, String> failedSteps;
+
+    // Partial until status is COMPLETED
+    private AIResponse result;
+    private String error;
+
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
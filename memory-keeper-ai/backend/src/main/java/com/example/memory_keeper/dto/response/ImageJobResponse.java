@@ -0,0 +1,28 @@
+package com.example.memory_keeper.dto.response;
+
+import com.example.memory_keeper.model.enums.JobStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImageJobResponse {
+
+    private Long jobId;
+    private Long storyId;
+    private JobStatus status;
+    private Integer attempts;
+
+    // Set once status is COMPLETED; also written to the story
+    private String imageUrl;
+    private String error;
+
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
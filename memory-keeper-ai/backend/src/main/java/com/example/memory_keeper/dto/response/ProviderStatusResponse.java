@@ -0,0 +1,20 @@
+package com.example.memory_keeper.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProviderStatusResponse {
+    private String provider;
+    private String state;
+    private double failureRate;
+    private int recordedCalls;
+    private long retryInSeconds;
+    private int activeCalls;
+    private int maxConcurrent;
+}
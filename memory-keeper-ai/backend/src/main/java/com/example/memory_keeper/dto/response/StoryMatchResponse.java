@@ -0,0 +1,21 @@
+package com.example.memory_keeper.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StoryMatchResponse {
+    private Long storyId;
+    private Long userId;
+    private String title;
+    private String summary;
+    private String imageUrl;
+    private String category;
+    // Cosine similarity, 1.0 = same direction
+    private double score;
+}
@@ -0,0 +1,8 @@
+package com.example.memory_keeper.event;
+
+/**
+ * Published when a story is created or deleted, so in-memory views of a
+ * user's or family's stories (e.g. the chat passage index) can be rebuilt.
+ */
+public record StoryChangedEvent(Long storyId, Long userId, boolean deleted) {
+}
@@ -0,0 +1,45 @@
+package com.example.memory_keeper.model.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "chat_messages")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ChatMessage {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id")
+    private User user;
+
+    // Null when chatting with a whole family's memories
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "grandparent_id")
+    private User grandparent;
+
+    @Column(name = "session_key", length = 100)
+    private String sessionKey;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String message;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String response;
+
+    @Column(name = "is_helpful")
+    private Boolean isHelpful;
+
+    // Set when the turn happens, not when the batched insert runs
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+}
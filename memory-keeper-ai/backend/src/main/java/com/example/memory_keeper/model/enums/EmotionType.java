@@ -88,6 +88,41 @@ public enum EmotionType {
                 this == LONELINESS || this == DESPAIR || this == DISAPPOINTMENT;
     }
 
+    /**
+     * Collapse to the nearest of the basic emotions (plus NEUTRAL), which are
+     * the only labels the Hugging Face emotion model returns
+     */
+    public EmotionType getBaseEmotion() {
+        switch (this) {
+            case LOVE:
+            case PRIDE:
+            case GRATITUDE:
+            case EXCITEMENT:
+            case RELIEF:
+            case HOPE:
+            case ADMIRATION:
+                return JOY;
+
+            case NOSTALGIA:
+            case LONELINESS:
+            case DESPAIR:
+            case DISAPPOINTMENT:
+            case GUILT:
+            case SHAME:
+                return SADNESS;
+
+            case CURIOSITY:
+            case CONFUSION:
+                return SURPRISE;
+
+            case MIXED:
+                return NEUTRAL;
+
+            default:
+                return this;
+        }
+    }
+
     /**
      * Get intensity level (1-5)
      */
@@ -0,0 +1,8 @@
+package com.example.memory_keeper.model.enums;
+
+public enum JobStatus {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
@@ -0,0 +1,19 @@
+package com.example.memory_keeper.repository;
+
+import com.example.memory_keeper.model.entity.ChatMessage;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ChatMessageRepository extends JpaRepository<ChatMessage, Long> {
+
+    Page<ChatMessage> findByUserIdAndSessionKey(Long userId, String sessionKey, Pageable pageable);
+
+    List<ChatMessage> findByUserIdAndSessionKeyAndCreatedAtAfter(Long userId, String sessionKey,
+                                                                 LocalDateTime after, Pageable pageable);
+}
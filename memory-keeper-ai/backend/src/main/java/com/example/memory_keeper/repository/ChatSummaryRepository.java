@@ -0,0 +1,13 @@
+package com.example.memory_keeper.repository;
+
+import com.example.memory_keeper.model.entity.ChatSummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface ChatSummaryRepository extends JpaRepository<ChatSummary, Long> {
+
+    Optional<ChatSummary> findByUserIdAndSessionKey(Long userId, String sessionKey);
+}
@@ -3,6 +3,8 @@ package com.example.memory_keeper.repository;
 
 import com.example.memory_keeper.model.entity.Family;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -12,4 +14,18 @@ import java.util.Optional;
 public interface FamilyRepository extends JpaRepository<Family, Long> {
     List<Family> findByCreatedById(Long userId);
     Optional<Family> findByInviteCode(String inviteCode);
-}
\ No newline at end of file
+
+    @Query("SELECT COUNT(u) > 0 FROM User u LEFT JOIN u.families f " +
+            "WHERE u.id = :userId AND (u.family.id = :familyId OR f.id = :familyId)")
+    boolean isMember(@Param("familyId") Long familyId, @Param("userId") Long userId);
+
+    @Query("SELECT COUNT(a) > 0 FROM User a LEFT JOIN a.families fa, User b LEFT JOIN b.families fb " +
+            "WHERE a.id = :userA AND b.id = :userB AND (a.family.id = b.family.id OR fa.id = fb.id " +
+            "OR a.family.id = fb.id OR fa.id = b.family.id)")
+    boolean shareFamily(@Param("userA") Long userA, @Param("userB") Long userB);
+
+    // Families the user belongs to, either as their own family or as a member
+    @Query("SELECT f.id FROM Family f WHERE f.id IN (SELECT u.family.id FROM User u WHERE u.id = :userId) " +
+            "OR f.id IN (SELECT m.id FROM User u2 JOIN u2.families m WHERE u2.id = :userId)")
+    List<Long> findIdsByUserId(@Param("userId") Long userId);
+}
@@ -0,0 +1,21 @@
+package com.example.memory_keeper.repository;
+
+import com.example.memory_keeper.model.entity.Prompt;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface PromptRepository extends JpaRepository<Prompt, Long> {
+
+    List<Prompt> findByIsActiveTrue();
+
+    List<Prompt> findByCategory(String category);
+
+    long countByCategoryAndIsActiveTrue(String category);
+
+    // Active or not, so deactivated prompts can be dropped from the snapshot
+    List<Prompt> findByUpdatedAtAfter(LocalDateTime since);
+}
@@ -0,0 +1,13 @@
+package com.example.memory_keeper.repository;
+
+import com.example.memory_keeper.model.entity.StoryEmbedding;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface StoryEmbeddingRepository extends JpaRepository<StoryEmbedding, Long> {
+
+    Page<StoryEmbedding> findByModel(String model, Pageable pageable);
+}
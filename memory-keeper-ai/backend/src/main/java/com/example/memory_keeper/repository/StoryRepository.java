@@ -9,6 +9,9 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface StoryRepository extends JpaRepository<Story, Long> {
 
@@ -23,4 +26,38 @@ public interface StoryRepository extends JpaRepository<Story, Long> {
     Page<Story> searchStories(@Param("query") String query, Pageable pageable);
 
     long countByUserId(Long userId);
-}
\ No newline at end of file
+
+    /**
+     * Just the text of a story, for building search indexes without loading
+     * its tags, emotions and comments. familyId is the story's own family,
+     * or else its author's.
+     */
+    interface StoryTextView {
+        Long getId();
+        Long getUserId();
+        Long getFamilyId();
+        String getTitle();
+        String getText();
+    }
+
+    String TEXT_VIEW_SELECT = "SELECT s.id AS id, u.id AS userId, COALESCE(f.id, uf.id) AS familyId, " +
+            "s.title AS title, COALESCE(s.enhancedStory, s.transcript) AS text " +
+            "FROM Story s JOIN s.user u LEFT JOIN s.family f LEFT JOIN u.family uf ";
+
+    @Query(TEXT_VIEW_SELECT + "WHERE u.id = :userId ORDER BY s.createdAt")
+    List<StoryTextView> findTextsByUserId(@Param("userId") Long userId);
+
+    // A family's stories: those filed under it and those of its members
+    @Query(TEXT_VIEW_SELECT + "WHERE f.id = :familyId OR uf.id = :familyId OR u.id IN " +
+            "(SELECT m.id FROM Family fam JOIN fam.members m WHERE fam.id = :familyId) " +
+            "ORDER BY s.createdAt")
+    List<StoryTextView> findTextsByFamilyId(@Param("familyId") Long familyId);
+
+    @Query(TEXT_VIEW_SELECT + "WHERE s.id IN :ids")
+    List<StoryTextView> findTextsByIds(@Param("ids") Collection<Long> ids);
+
+    // Stories with no embedding from the given model yet
+    @Query("SELECT s.id FROM Story s WHERE NOT EXISTS " +
+            "(SELECT e.storyId FROM StoryEmbedding e WHERE e.storyId = s.id AND e.model = :model)")
+    List<Long> findIdsWithoutEmbedding(@Param("model") String model, Pageable pageable);
+}
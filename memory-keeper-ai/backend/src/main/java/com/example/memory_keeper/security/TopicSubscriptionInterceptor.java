@@ -0,0 +1,116 @@
+package com.example.memory_keeper.security;
+
+import com.example.memory_keeper.service.EnhancementJobService;
+import com.example.memory_keeper.service.ImageJobService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.security.Principal;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Authenticates STOMP sessions and limits who may subscribe to per-job topics.
+ *
+ * The session user is the principal of the /ws handshake, or the JWT sent
+ * as an Authorization header on the CONNECT frame. Subscribing to
+ * /topic/jobs/{id} requires owning the job, and /topic/stories/{id}/image
+ * being the story's author or in its family. Any other /topic destination
+ * is refused, as is any pattern: the simple broker matches a subscription
+ * as an Ant pattern, so /topic/** would receive every user's messages.
+ */
+@Component
+@Slf4j
+public class TopicSubscriptionInterceptor implements ChannelInterceptor {
+
+    private static final String BROKER_PREFIX = "/topic";
+    private static final Pattern JOB_TOPIC = Pattern.compile("^/topic/jobs/([A-Za-z0-9-]+)$");
+    private static final Pattern STORY_IMAGE_TOPIC = Pattern.compile("^/topic/stories/(\\d+)/image$");
+
+    private final JwtTokenProvider tokenProvider;
+    private final CustomUserDetailsService customUserDetailsService;
+    // Looked up lazily: the services depend on the messaging template this interceptor is registered with
+    private final ObjectProvider<EnhancementJobService> enhancementJobService;
+    private final ObjectProvider<ImageJobService> imageJobService;
+
+    public TopicSubscriptionInterceptor(JwtTokenProvider tokenProvider,
+                                        CustomUserDetailsService customUserDetailsService,
+                                        ObjectProvider<EnhancementJobService> enhancementJobService,
+                                        ObjectProvider<ImageJobService> imageJobService) {
+        this.tokenProvider = tokenProvider;
+        this.customUserDetailsService = customUserDetailsService;
+        this.enhancementJobService = enhancementJobService;
+        this.imageJobService = imageJobService;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() == null) {
+            return message;
+        }
+        if (accessor.getCommand() == StompCommand.CONNECT) {
+            authenticate(accessor);
+        } else if (accessor.getCommand() == StompCommand.SUBSCRIBE) {
+            checkSubscription(accessor.getDestination(), accessor.getUser());
+        }
+        return message;
+    }
+
+    // ==================== HELPER METHODS ====================
+
+    private void authenticate(StompHeaderAccessor accessor) {
+        String bearerToken = accessor.getFirstNativeHeader("Authorization");
+        if (!StringUtils.hasText(bearerToken) || !bearerToken.startsWith("Bearer ")) {
+            return;
+        }
+        String jwt = bearerToken.substring(7);
+        if (!tokenProvider.validateToken(jwt)) {
+            throw new AccessDeniedException("Invalid token");
+        }
+        UserDetails userDetails = customUserDetailsService.loadUserByUsername(tokenProvider.getUsernameFromToken(jwt));
+        accessor.setUser(new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities()));
+    }
+
+    private void checkSubscription(String destination, Principal user) {
+        if (destination == null) {
+            throw reject("(none)", user, "A subscription needs a destination");
+        }
+        if (destination.indexOf('*') >= 0 || destination.indexOf('?') >= 0 || destination.indexOf('{') >= 0) {
+            throw reject(destination, user, "Wildcard subscriptions are not allowed");
+        }
+        Matcher job = JOB_TOPIC.matcher(destination);
+        if (job.matches()) {
+            if (user == null || !enhancementJobService.getObject().isOwner(job.group(1), user.getName())) {
+                throw reject(destination, user, "You can only follow your own jobs");
+            }
+            return;
+        }
+        Matcher storyImage = STORY_IMAGE_TOPIC.matcher(destination);
+        if (storyImage.matches()) {
+            if (user == null || !imageJobService.getObject().canView(Long.valueOf(storyImage.group(1)), user.getName())) {
+                throw reject(destination, user, "You can only follow images of your family's stories");
+            }
+            return;
+        }
+        if (destination.startsWith(BROKER_PREFIX)) {
+            throw reject(destination, user, "Unknown topic");
+        }
+    }
+
+    private static AccessDeniedException reject(String destination, Principal user, String reason) {
+        log.warn("Rejected subscription to {} by {}", destination, user != null ? user.getName() : "anonymous");
+        return new AccessDeniedException(reason);
+    }
+}
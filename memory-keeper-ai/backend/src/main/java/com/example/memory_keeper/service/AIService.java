@@ -1,13 +1,23 @@
 package com.example.memory_keeper.service;
 
+import com.example.memory_keeper.ai.ChatReply;
+import com.example.memory_keeper.ai.ChatTurn;
+import com.example.memory_keeper.ai.Conversation;
+import com.example.memory_keeper.ai.GroqClient;
 import com.example.memory_keeper.dto.response.AIResponse;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
 public interface AIService {
     AIResponse enhanceStory(String transcript, String additionalAnswers);
-    String chatWithGrandparent(List<String> stories, String question, String grandparentName);
-    String generateDailyPrompt(String category);
+    AIResponse enhanceStory(String transcript, String additionalAnswers, EnhancementListener listener);
+    ChatReply chatWithGrandparent(List<String> stories, Conversation conversation, String question, String grandparentName);
+    ChatReply chatWithGrandparentStream(List<String> stories, Conversation conversation, String question,
+                                        String grandparentName, GroqClient.StreamCallback callback);
+    String summarizeConversation(String summary, List<ChatTurn> turns, String grandparentName) throws IOException;
+    String streamEnhancedStory(String transcript, String additionalAnswers, GroqClient.StreamCallback callback);
+    List<String> generatePrompts(String category, int count) throws IOException;
     CompletableFuture<String> generateStoryImage(String story, String title);
 }
\ No newline at end of file
@@ -0,0 +1,9 @@
+package com.example.memory_keeper.service;
+
+import com.example.memory_keeper.dto.request.ChatRequest;
+
+import java.util.List;
+
+public interface ChatContextService {
+    List<String> findRelevantPassages(ChatRequest request);
+}
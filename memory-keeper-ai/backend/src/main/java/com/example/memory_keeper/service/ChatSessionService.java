@@ -0,0 +1,23 @@
+package com.example.memory_keeper.service;
+
+import com.example.memory_keeper.ai.Conversation;
+import com.example.memory_keeper.dto.request.ChatRequest;
+import com.example.memory_keeper.dto.response.ChatMessageResponse;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+public interface ChatSessionService {
+
+    /**
+     * Identifies the caller's chat session. Resolve it on the request thread;
+     * it can then be used from any thread.
+     */
+    record SessionRef(Long userId, Long grandparentId, String key, String grandparentName) {
+    }
+
+    // Null when the request has no grandparent, family or session id (nothing to persist)
+    SessionRef open(ChatRequest request);
+    Conversation getConversation(SessionRef session);
+    void recordTurn(SessionRef session, String question, String reply);
+    Page<ChatMessageResponse> getHistory(ChatRequest scope, Pageable pageable);
+}
@@ -1,9 +1,13 @@
 package com.example.memory_keeper.service;
 
+import com.example.memory_keeper.util.SpooledBuffer;
 import org.springframework.web.multipart.MultipartFile;
 
 public interface CloudinaryService {
     String uploadAudio(MultipartFile file);
     String uploadImage(MultipartFile file);
+    String uploadImageFromUrl(String imageUrl);
+    String uploadAudio(SpooledBuffer buffer);
+    String uploadImage(SpooledBuffer buffer);
     void deleteFile(String publicId);
 }
\ No newline at end of file
@@ -0,0 +1,13 @@
+package com.example.memory_keeper.service;
+
+import com.example.memory_keeper.dto.response.EnhancementJobResponse;
+
+public interface EnhancementJobService {
+    EnhancementJobResponse submit(String transcript, String additionalAnswers);
+    EnhancementJobResponse getJob(String jobId);
+
+    /**
+     * Whether the job exists and was submitted by this user (for topic subscriptions).
+     */
+    boolean isOwner(String jobId, String username);
+}
@@ -0,0 +1,21 @@
+package com.example.memory_keeper.service;
+
+import com.example.memory_keeper.dto.response.AIResponse;
+
+/**
+ * Receives progress from the story enhancement pipeline as each step finishes.
+ * Callbacks run on the pipeline's worker threads. The partial response is
+ * still being written by other steps, always while they hold its monitor,
+ * so synchronize on it to read a consistent copy.
+ */
+public interface EnhancementListener {
+
+    EnhancementListener NONE = new EnhancementListener() {
+    };
+
+    default void onStepCompleted(String step, AIResponse partial) {
+    }
+
+    default void onStepFailed(String step, String error) {
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.memory_keeper.service;
+
+import com.example.memory_keeper.dto.response.ImageJobResponse;
+
+public interface ImageJobService {
+
+    /**
+     * Queues an image for the story, joining the caller's transaction.
+     * Returns the story's already queued or running job if there is one.
+     */
+    Long enqueue(Long storyId);
+
+    /**
+     * Queues a (new) image for a story of the current user.
+     */
+    ImageJobResponse requestImage(Long storyId);
+
+    /**
+     * A job of a story the current user may see: their own, or one of their family's.
+     */
+    ImageJobResponse getJob(Long jobId);
+
+    /**
+     * Whether the user may see the story's image jobs, e.g. to follow its image topic.
+     */
+    boolean canView(Long storyId, String username);
+}
@@ -0,0 +1,9 @@
+package com.example.memory_keeper.service;
+
+public interface PromptService {
+
+    /**
+     * A memory prompt for the category (a StoryCategory name; unknown ones get GENERAL).
+     */
+    String getDailyPrompt(String category);
+}
@@ -0,0 +1,10 @@
+package com.example.memory_keeper.service;
+
+import com.example.memory_keeper.dto.response.StoryMatchResponse;
+
+import java.util.List;
+
+public interface SemanticSearchService {
+    List<StoryMatchResponse> findSimilarStories(Long storyId, int limit);
+    List<StoryMatchResponse> search(String query, Long familyId, int limit);
+}
@@ -1,25 +1,49 @@
 // src/main/java/com/example/memory_keeper/service/impl/AIServiceImpl.java
 package com.example.memory_keeper.service.impl;
 
+import com.example.memory_keeper.ai.AIProvider;
+import com.example.memory_keeper.ai.ChatReply;
+import com.example.memory_keeper.ai.ChatTurn;
+import com.example.memory_keeper.ai.ChunkedSpeechSynthesizer;
+import com.example.memory_keeper.ai.Conversation;
+import com.example.memory_keeper.ai.QuotaExceededException;
+import com.example.memory_keeper.ai.QuotaLedger;
 import com.example.memory_keeper.ai.TTSClient;
+import com.example.memory_keeper.ai.UsageContext;
+import com.example.memory_keeper.ai.UsageRecorder;
+import com.example.memory_keeper.ai.UsageTally;
+import com.example.memory_keeper.cache.EnhancementCache;
+import com.example.memory_keeper.cache.TtsCache;
+import com.example.memory_keeper.config.AIEnhanceConfig;
+import com.example.memory_keeper.config.AITtsConfig;
+import com.example.memory_keeper.config.AIUsageConfig;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.example.memory_keeper.ai.GroqClient;
-import com.example.memory_keeper.ai.HuggingFaceClient;
-import com.example.memory_keeper.ai.StabilityAIClient; // Import the new, correct client
+import com.example.memory_keeper.ai.GroqPriority;
+import com.example.memory_keeper.ai.EmotionAnalysisRouter;
+import com.example.memory_keeper.ai.GeneratedImage;
+import com.example.memory_keeper.ai.ImageGenerationRouter;
+import com.example.memory_keeper.ai.MediaBufferFactory;
 import com.example.memory_keeper.dto.response.AIResponse;
+import com.example.memory_keeper.model.enums.StoryCategory;
 import com.example.memory_keeper.service.AIService;
 import com.example.memory_keeper.service.CloudinaryService;
-import com.example.memory_keeper.util.ByteArrayMultipartFile;
+import com.example.memory_keeper.service.EnhancementListener;
+import com.example.memory_keeper.util.SpooledBuffer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
 /**
@@ -27,8 +51,9 @@ import java.util.stream.Collectors;
  *
  * Orchestrates multiple free AI providers for comprehensive story enhancement.
  * - Groq: For all text generation (story, title, questions, metadata).
- * - Hugging Face: For sentiment analysis and emotion detection.
- * - Stability AI: For reliable, free-tier image generation.
+ * - Hugging Face: For sentiment analysis and emotion detection, with a local
+ *   lexicon classifier for short texts and outages (EmotionAnalysisRouter).
+ * - Stability AI / Hugging Face / Replicate: Image generation, routed by ImageGenerationRouter.
  * - Cloudinary: For storing the AI-generated image.
  */
 @Service
@@ -36,189 +61,331 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class AIServiceImpl implements AIService {
 
+    private static final String ENHANCE_SYSTEM_PROMPT = "You are an expert storyteller... Transform this raw memory...";
+    private static final String CHAT_FALLBACK_REPLY = "I'm having trouble remembering right now, dear.";
+    private static final String CONVERSATION_SUMMARY_PROMPT = "You keep notes on a conversation between a grandparent " +
+            "and their grandchild. Merge the new exchanges into the summary so far. Keep names, facts, questions " +
+            "asked and promises made; drop small talk. Reply with the updated summary only, at most 150 words.";
+
     private final GroqClient groqClient;
-    private final HuggingFaceClient huggingFaceClient;
-    private final StabilityAIClient stabilityAIClient; // Inject the new Stability AI client
+    private final EmotionAnalysisRouter emotionAnalysisRouter;
+    private final ImageGenerationRouter imageGenerationRouter;
     private final CloudinaryService cloudinaryService;
-    private final TTSClient ttsClient;
+    private final ChunkedSpeechSynthesizer speechSynthesizer;
+    private final MediaBufferFactory mediaBufferFactory;
     private final ObjectMapper objectMapper;
+    private final EnhancementCache enhancementCache;
+    private final TtsCache ttsCache;
+    private final AIEnhanceConfig enhanceConfig;
+    private final AsyncTaskExecutor aiTaskExecutor;
+    private final UsageRecorder usageRecorder;
+    private final AIUsageConfig usageConfig;
+    private final QuotaLedger quotaLedger;
+    private final AITtsConfig ttsConfig;
 
     /**
      * MAIN METHOD: Complete Story Enhancement
      * This is the master method that coordinates all AI calls.
+     *
+     * The steps form a small dependency graph: questions, enhancement, title,
+     * metadata, sentiment and emotions only need the transcript, so they all
+     * start at once. TTS is the only step that waits, on the enhanced story.
+     * The Groq steps are required; sentiment, emotions and TTS are best-effort.
+     *
+     * In FUSED mode (ai.enhance.mode) questions, title and metadata come back
+     * from a single JSON call instead of three separate ones.
      */
     @Override
     public AIResponse enhanceStory(String transcript, String additionalAnswers) {
+        return enhanceStory(transcript, additionalAnswers, EnhancementListener.NONE);
+    }
+
+    @Override
+    public AIResponse enhanceStory(String transcript, String additionalAnswers, EnhancementListener listener) {
+        // Identical transcripts (retries, double-clicks, re-sends) are served from cache,
+        // and identical requests already in flight share one pipeline run.
+        AtomicBoolean ranPipeline = new AtomicBoolean(false);
+        AIResponse response = enhancementCache.getOrCompute(transcript, additionalAnswers, () -> {
+            ranPipeline.set(true);
+            return runPipeline(transcript, additionalAnswers, listener);
+        });
+        if (!ranPipeline.get()) {
+            log.info("♻️ Story enhancement served from cache.");
+            // The cached entry carries the cost of the run that filled it; this request cost nothing
+            response.setCost(usageConfig.isIncludeCost() ? usageRecorder.breakdown(new UsageTally()) : null);
+            listener.onStepCompleted("cache", response);
+        }
+        return response;
+    }
+
+    /**
+     * Runs the steps under a fresh usage tally, so the response can carry what this story cost.
+     */
+    private AIResponse runPipeline(String transcript, String additionalAnswers, EnhancementListener listener) {
+        UsageTally tally = new UsageTally();
+        try (UsageContext.Handle ignored = UsageContext.open(UsageContext.current().withTally(tally))) {
+            AIResponse response = runSteps(transcript, additionalAnswers, listener);
+            if (usageConfig.isIncludeCost()) {
+                response.setCost(usageRecorder.breakdown(tally));
+            }
+            return response;
+        }
+    }
+
+    private AIResponse runSteps(String transcript, String additionalAnswers, EnhancementListener listener) {
 
         String fullTranscript = transcript;
         if (additionalAnswers != null && !additionalAnswers.isEmpty()) {
             fullTranscript += "\n\n" + additionalAnswers;
         }
+        final String storyText = fullTranscript;
 
         AIResponse response = new AIResponse();
+        AIEnhanceConfig.Timeouts timeouts = enhanceConfig.getTimeouts();
+        EnhancementPipeline pipeline = new EnhancementPipeline(response, listener, aiTaskExecutor);
 
-        try {
-            // Step 1: Generate Follow-up Questions (Groq)
-            log.info("Step 1/7: Calling Groq for follow-up questions...");
-            String questions = groqClient.chat(
-                    "You are a compassionate interviewer helping preserve family memories...",
-                    "Story: " + fullTranscript + "\n\nGenerate 3 questions:"
-            );
-            response.setQuestions(parseQuestions(questions));
-            log.info("✅ Step 1 complete.");
+        log.info("Starting story enhancement ({} chars)...", storyText.length());
 
-            // Step 2: Enhance Story (Groq)
-            log.info("Step 2/7: Calling Groq to enhance story...");
+        // Required steps (Groq)
+        List<CompletableFuture<?>> requiredSteps = new ArrayList<>();
+
+        CompletableFuture<String> enhanceStep = pipeline.step("enhance", timeouts.getEnhance(), step -> {
             String enhancedStory = groqClient.chat(
-                    "You are an expert storyteller... Transform this raw memory...",
-                    fullTranscript, 0.8, 1000
-            );
-            response.setEnhancedStory(enhancedStory);
-            log.info("✅ Step 2 complete.");
-
-            // Step 3: Generate Title (Groq)
-            log.info("Step 3/7: Calling Groq to generate title...");
-            String title = groqClient.chat(
-                    "Create a short, emotional, memorable title...",
-                    "Story: " + fullTranscript, 0.7, 30
-            );
-            response.setTitle(cleanTitle(title));
-            log.info("✅ Step 3 complete.");
-
-            // Step 4: Extract Metadata (Groq)
-            log.info("Step 4/7: Calling Groq to extract metadata...");
-            String metadataPrompt = "Analyze this story and extract... Return ONLY valid JSON...";
-            String metadataJson = groqClient.chat(
-                    "You are a precise data extractor...",
-                    metadataPrompt, 0.3, 300
+                    ENHANCE_SYSTEM_PROMPT,
+                    storyText, 0.8, 1000
             );
-            Map<String, Object> metadata = parseMetadata(metadataJson);
-            response.setTags((List<String>) metadata.get("tags"));
-            response.setCategory((String) metadata.get("category"));
-            response.setSummary((String) metadata.get("summary"));
-            log.info("✅ Step 4 complete.");
-
-            // Step 5: Analyze Sentiment (Hugging Face)
-            log.info("Step 5/7: Calling Hugging Face for sentiment analysis...");
-            try {
-                Map<String, Object> sentiment = huggingFaceClient.analyzeSentiment(fullTranscript);
-                if (sentiment != null) {
-                    response.setSentimentLabel((String) sentiment.get("label"));
-                    response.setSentimentScore((Double) sentiment.get("score"));
-                    log.info("✅ Step 5 complete. Sentiment: {}", sentiment);
+            step.update(r -> r.setEnhancedStory(enhancedStory));
+            return enhancedStory;
+        });
+        requiredSteps.add(enhanceStep);
+
+        if (enhanceConfig.getMode() == AIEnhanceConfig.Mode.FUSED) {
+            // One JSON call for everything except the enhanced story itself.
+            requiredSteps.add(pipeline.step("analysis", timeouts.getAnalysis(), step -> {
+                String analysisJson = groqClient.chatJson(
+                        "You are a precise data extractor and a compassionate interviewer helping preserve family memories. "
+                                + "Return ONLY valid JSON with these keys: "
+                                + "\"title\" (a short, emotional, memorable title), "
+                                + "\"questions\" (an array of 3 follow-up questions), "
+                                + "\"tags\" (an array of 3-5 lowercase tags), "
+                                + "\"category\" (one of " + Arrays.toString(StoryCategory.values()) + "), "
+                                + "\"summary\" (one or two sentences).",
+                        "Story: " + storyText, 0.5, 500
+                );
+                Map<String, Object> analysis = parseMetadata(analysisJson);
+                String title = (String) analysis.get("title");
+                List<String> questions = parseQuestions((String) analysis.get("questions"));
+                if (title == null || title.isBlank() || questions.isEmpty()) {
+                    // parseMetadata falls back to defaults; without this the degraded story would be cached
+                    log.warn("Fused analysis had no title or questions. JSON was: {}", analysisJson);
+                    throw new IOException("Fused analysis returned no title or questions");
                 }
-            } catch (Exception e) {
-                log.warn("⚠️ Step 5 (Sentiment Analysis) failed, continuing without it. Error: {}", e.getMessage());
-            }
+                step.update(r -> {
+                    r.setTitle(cleanTitle(title));
+                    r.setQuestions(questions);
+                    r.setTags(tagsOf(analysis));
+                    r.setCategory((String) analysis.get("category"));
+                    r.setSummary((String) analysis.get("summary"));
+                });
+                return null;
+            }));
+        } else {
+            requiredSteps.add(pipeline.step("questions", timeouts.getQuestions(), step -> {
+                String questions = groqClient.chat(
+                        "You are a compassionate interviewer helping preserve family memories...",
+                        "Story: " + storyText + "\n\nGenerate 3 questions:"
+                );
+                step.update(r -> r.setQuestions(parseQuestions(questions)));
+                return null;
+            }));
+
+            requiredSteps.add(pipeline.step("title", timeouts.getTitle(), step -> {
+                String title = groqClient.chat(
+                        "Create a short, emotional, memorable title...",
+                        "Story: " + storyText, 0.7, 30
+                );
+                step.update(r -> r.setTitle(cleanTitle(title)));
+                return null;
+            }));
+
+            requiredSteps.add(pipeline.step("metadata", timeouts.getMetadata(), step -> {
+                String metadataPrompt = "Analyze this story and extract... Return ONLY valid JSON...";
+                String metadataJson = groqClient.chat(
+                        "You are a precise data extractor...",
+                        metadataPrompt, 0.3, 300
+                );
+                Map<String, Object> metadata = parseMetadata(metadataJson);
+                step.update(r -> {
+                    r.setTags(tagsOf(metadata));
+                    r.setCategory((String) metadata.get("category"));
+                    r.setSummary((String) metadata.get("summary"));
+                });
+                return null;
+            }));
+        }
 
-            // Step 6: Detect Emotions (Hugging Face)
-            log.info("Step 6/7: Calling Hugging Face to detect emotions...");
-            try {
-                JsonNode emotionsArray = huggingFaceClient.detectEmotions(fullTranscript);
-                if (emotionsArray != null) {
-                    List<Map<String, Object>> emotions = parseEmotions(emotionsArray);
-                    response.setEmotions(emotions);
-                    log.info("✅ Step 6 complete. Emotions detected: {}", emotions.size());
-                }
-            } catch (Exception e) {
-                log.warn("⚠️ Step 6 (Emotion Detection) failed, continuing without it. Error: {}", e.getMessage());
+        // Optional steps (Hugging Face, TTS)
+        CompletableFuture<Void> sentimentStep = pipeline.optional("sentiment", pipeline.step("sentiment", timeouts.getSentiment(), step -> {
+            Map<String, Object> sentiment = emotionAnalysisRouter.analyzeSentiment(storyText);
+            if (sentiment != null) {
+                step.update(r -> {
+                    r.setSentimentLabel((String) sentiment.get("label"));
+                    r.setSentimentScore((Double) sentiment.get("score"));
+                });
             }
-
-            // Step 7: Generate Image using Stability AI (Asynchronously)
-            log.info("Step 7/7: Starting Stability AI image generation (async)...");
-            generateStoryImage(response.getEnhancedStory(), response.getTitle())
-                    .thenAccept(response::setImageUrl)
-                    .exceptionally(ex -> {
-                        log.warn("🖼️ Async Image generation failed (non-critical): {}", ex.getMessage());
-                        return null;
-                    });
-
-            response.setWordCount(fullTranscript.split("\\s+").length);
-            log.info("🎉 Story enhancement complete! (Image is generating in the background)");
-            if (response.getEnhancedStory() != null && !response.getEnhancedStory().isEmpty()) {
-                try {
-                    log.info("🎙️ Generating TTS audio...");
-                    byte[] audioBytes = ttsClient.textToSpeech(response.getEnhancedStory());
-
-                    // Upload to Cloudinary
-                    ByteArrayMultipartFile audioFile = new ByteArrayMultipartFile(
-                            audioBytes,
-                            "tts-audio",
-                            "tts-audio.mp3",
-                            "audio/mpeg"
-                    );
-
-                    String ttsUrl = cloudinaryService.uploadAudio(audioFile);
-                    response.setTtsAudioUrl(ttsUrl);  // Add this field to AIResponse
-
-                    log.info("✅ TTS audio generated: {}", ttsUrl);
-                } catch (Exception e) {
-                    log.warn("⚠️ TTS generation failed (non-critical): {}", e.getMessage());
-                }
+            return null;
+        }));
+
+        CompletableFuture<Void> emotionsStep = pipeline.optional("emotions", pipeline.step("emotions", timeouts.getEmotions(), step -> {
+            JsonNode emotionsArray = emotionAnalysisRouter.detectEmotions(storyText);
+            if (emotionsArray != null) {
+                List<Map<String, Object>> emotions = parseEmotions(emotionsArray);
+                step.update(r -> r.setEmotions(emotions));
             }
+            return null;
+        }));
 
-            return response;
+        CompletableFuture<Void> ttsStep = pipeline.optional("tts", enhanceStep.thenCompose(enhancedStory ->
+                pipeline.step("tts", timeouts.getTts(), step -> {
+                    String ttsAudioUrl = generateNarration(enhancedStory);
+                    step.update(r -> r.setTtsAudioUrl(ttsAudioUrl));
+                    return null;
+                })));
 
-        } catch (Exception e) {
-            log.error("❌ CRITICAL ERROR during AI enhancement process (likely a Groq call failed)", e);
-            throw new RuntimeException("AI enhancement failed: " + e.getMessage(), e);
+        try {
+            CompletableFuture.allOf(requiredSteps.toArray(new CompletableFuture<?>[0])).join();
+        } catch (CompletionException e) {
+            // No point finishing the best-effort steps for a story that won't be returned
+            pipeline.close();
+            Throwable cause = rootCause(e);
+            log.error("❌ CRITICAL ERROR during AI enhancement process (likely a Groq call failed)", cause);
+            throw new RuntimeException("AI enhancement failed: " + cause.getMessage(), cause);
         }
+
+        CompletableFuture.allOf(sentimentStep, emotionsStep, ttsStep).join();
+        // Every step has settled; nothing may touch the response from here on
+        pipeline.close();
+
+        response.setWordCount(storyText.split("\\s+").length);
+        log.info("🎉 Story enhancement complete! (The image is queued when the story is saved)");
+        return response;
     }
 
     @Override
-    public String chatWithGrandparent(List<String> stories, String question, String grandparentName) {
-        String storiesContext = String.join("\n\n---\n\n", stories);
-        String systemPrompt = String.format("You are %s...", grandparentName, storiesContext);
+    public ChatReply chatWithGrandparent(List<String> stories, Conversation conversation, String question,
+                                         String grandparentName) {
         try {
-            return groqClient.chat(systemPrompt, question, 0.9, 400);
+            return ChatReply.of(groqClient.chat(grandparentPrompt(stories, conversation, grandparentName),
+                    conversation.recentTurns(), question, 0.9, 400, GroqPriority.INTERACTIVE));
         } catch (Exception e) {
             log.error("Chat failed", e);
-            return "I'm having trouble remembering right now, dear.";
+            return ChatReply.fallback(CHAT_FALLBACK_REPLY);
         }
     }
 
     @Override
-    @Cacheable("daily-prompts")
-    public String generateDailyPrompt(String category) {
-        String systemPrompt = "You are a thoughtful interviewer...";
-        String userPrompt = "Generate a memory prompt about: " + category;
+    public ChatReply chatWithGrandparentStream(List<String> stories, Conversation conversation, String question,
+                                               String grandparentName, GroqClient.StreamCallback callback) {
+        AtomicBoolean streamed = new AtomicBoolean(false);
         try {
-            return groqClient.chat(systemPrompt, userPrompt, 0.8, 100);
-        } catch (Exception e) {
-            return "What's a happy memory that always makes you smile?";
+            return ChatReply.of(groqClient.chatStream(grandparentPrompt(stories, conversation, grandparentName),
+                    conversation.recentTurns(), question, 0.9, 400, chunk -> {
+                        streamed.set(true);
+                        callback.onChunk(chunk);
+                    }));
+        } catch (IOException e) {
+            log.error("Streaming chat failed", e);
+            if (streamed.get()) {
+                // The client already has half an answer; appending the apology would read as part of it
+                throw new UncheckedIOException("The reply was cut off", e);
+            }
+            callback.onChunk(CHAT_FALLBACK_REPLY);
+            return ChatReply.fallback(CHAT_FALLBACK_REPLY);
+        }
+    }
+
+    /**
+     * Folds older chat turns into the running summary, so the prompt only
+     * ever carries the summary plus a few recent turns.
+     */
+    @Override
+    public String summarizeConversation(String summary, List<ChatTurn> turns, String grandparentName) throws IOException {
+        StringBuilder transcript = new StringBuilder();
+        if (summary != null && !summary.isBlank()) {
+            transcript.append("Summary so far:\n").append(summary).append("\n\n");
+        }
+        transcript.append("New exchanges:\n");
+        for (ChatTurn turn : turns) {
+            transcript.append("Grandchild: ").append(turn.user()).append("\n")
+                    .append(grandparentName).append(": ").append(turn.assistant()).append("\n");
+        }
+        return groqClient.chat(CONVERSATION_SUMMARY_PROMPT, List.of(), transcript.toString(), 0.3, 300,
+                GroqPriority.BACKGROUND).trim();
+    }
+
+    /**
+     * Streams only the enhanced story text, token by token. The structured
+     * fields (title, questions, metadata, ...) still come from enhanceStory.
+     */
+    @Override
+    public String streamEnhancedStory(String transcript, String additionalAnswers, GroqClient.StreamCallback callback) {
+        String fullTranscript = transcript;
+        if (additionalAnswers != null && !additionalAnswers.isEmpty()) {
+            fullTranscript += "\n\n" + additionalAnswers;
+        }
+        try {
+            return groqClient.chatStream(ENHANCE_SYSTEM_PROMPT, fullTranscript, 0.8, 1000, callback);
+        } catch (IOException e) {
+            log.error("❌ Streaming story enhancement failed", e);
+            throw new RuntimeException("AI enhancement failed: " + e.getMessage(), e);
         }
     }
 
     /**
-     * Async Image Generation (FINAL, STABILITY.AI VERSION)
-     * This method now uses the reliable Stability AI API.
+     * New daily prompts for the prompt pool, one per line of the reply.
+     */
+    @Override
+    public List<String> generatePrompts(String category, int count) throws IOException {
+        String systemPrompt = "You are a thoughtful interviewer helping older people record their life stories. "
+                + "Write short, warm, open-ended questions that invite a specific memory. "
+                + "Reply with one question per line, with no numbering and nothing else.";
+        String userPrompt = "Write " + count + " different memory prompts about: " + category;
+        String reply = groqClient.chat(systemPrompt, userPrompt, 0.9, 60 * count, GroqPriority.BACKGROUND);
+        return Arrays.stream(reply.split("\n"))
+                .map(line -> line.replaceFirst("^\\s*(\\d+[.)]|[-*•])\\s*", "").replace("\"", "").trim())
+                .filter(line -> line.length() > 10)
+                .limit(count)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Async Image Generation
+     * The router picks the healthiest image provider and fails over to the others.
      */
     @Async
     @Override
     public CompletableFuture<String> generateStoryImage(String story, String title) {
         try {
             String prompt = createImagePrompt(story, title);
-            log.info("Calling Stability AI with image prompt: {}", prompt);
-
-            // 1. Call Stability AI to get the raw image bytes (PNG data)
-            byte[] imageBytes = stabilityAIClient.generateImage(prompt);
+            log.info("Generating story image with prompt: {}", prompt);
+
+            // 1. Get the image from whichever provider answers first
+            try (GeneratedImage image = imageGenerationRouter.generate(prompt)) {
+
+                // 2. Upload to Cloudinary to get a permanent URL
+                String imageUrl;
+                if (image.hasBuffer()) {
+                    log.info("Uploading AI-generated image ({} bytes) to Cloudinary...", image.buffer().size());
+                    imageUrl = cloudinaryService.uploadImage(image.buffer());
+                } else {
+                    log.info("Copying AI-generated image from {} to Cloudinary...", image.provider().getKey());
+                    imageUrl = cloudinaryService.uploadImageFromUrl(image.url());
+                }
 
-            if (imageBytes == null || imageBytes.length == 0) {
-                throw new IOException("Stability AI returned an empty image.");
+                log.info("🖼️ Image from {} successfully generated and uploaded to: {}", image.provider().getKey(), imageUrl);
+                return CompletableFuture.completedFuture(imageUrl);
             }
 
-            // 2. Wrap the bytes in our custom MultipartFile implementation
-            ByteArrayMultipartFile multipartFile = new ByteArrayMultipartFile(
-                    imageBytes, "file", "story-image.png", "image/png"
-            );
-
-            // 3. Upload to Cloudinary to get a permanent URL
-            log.info("Uploading AI-generated image ({} bytes) to Cloudinary...", imageBytes.length);
-            String imageUrl = cloudinaryService.uploadImage(multipartFile);
-
-            log.info("🖼️ Image successfully generated and uploaded to: {}", imageUrl);
-            return CompletableFuture.completedFuture(imageUrl);
-
         } catch (Exception e) {
             log.error("Image generation and upload failed in async method", e);
             return CompletableFuture.failedFuture(e);
@@ -227,6 +394,102 @@ public class AIServiceImpl implements AIService {
 
     // ==================== HELPER METHODS ====================
 
+    private static void checkNotCancelled(String what) throws InterruptedIOException {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedIOException(what + " cancelled");
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> tagsOf(Map<String, Object> metadata) {
+        return (List<String>) metadata.get("tags");
+    }
+
+    private Throwable rootCause(Throwable ex) {
+        return EnhancementPipeline.rootCause(ex);
+    }
+
+    /**
+     * stories are the passages ChatContextService picked for the question,
+     * not whole stories, and older turns arrive as a summary, so the prompt
+     * stays small however big the archive or long the chat.
+     */
+    private String grandparentPrompt(List<String> stories, Conversation conversation, String grandparentName) {
+        String storiesContext = stories.isEmpty() ? "(no memories recorded yet)" : String.join("\n\n---\n\n", stories);
+        String prompt = String.format("You are %s, a loving grandparent talking with a grandchild. " +
+                "Answer warmly, in the first person and in a few sentences, drawing on these memories of yours. " +
+                "If they don't cover the question, say you don't quite remember rather than inventing details.\n\n" +
+                "Your memories:\n%s", grandparentName, storiesContext);
+        if (conversation.hasSummary()) {
+            prompt += "\n\nWhat you have talked about earlier in this conversation:\n" + conversation.summary();
+        }
+        return prompt;
+    }
+
+    /**
+     * Narration is cached by text and voice, so re-enhancing an unchanged
+     * story reuses the audio already on Cloudinary.
+     *
+     * With a premium voice configured (ai.tts.premium-voice-id) ElevenLabs is
+     * tried first, within the family's share of the monthly character quota;
+     * once that is used up, or if ElevenLabs fails, the free voice is used.
+     */
+    private String generateNarration(String enhancedStory) throws IOException {
+        if (enhancedStory == null || enhancedStory.isEmpty()) {
+            return null;
+        }
+        String premiumVoice = ttsConfig.getPremiumVoiceId();
+        if (premiumVoice != null && !premiumVoice.isBlank()) {
+            try {
+                return narrate(AIProvider.ELEVENLABS, premiumVoice, enhancedStory);
+            } catch (QuotaExceededException e) {
+                log.info("🎫 Premium voice quota used up, narrating with the free voice.");
+            } catch (IOException e) {
+                log.warn("⚠️ Premium narration failed, narrating with the free voice. Error: {}", e.getMessage());
+            }
+        }
+        return narrate(AIProvider.TTS, TTSClient.VOICE, enhancedStory);
+    }
+
+    private String narrate(AIProvider provider, String voice, String text) throws IOException {
+        checkNotCancelled("narration");
+        try {
+            return ttsCache.getOrCompute(provider, voice, text, () -> {
+                try {
+                    return synthesizeAndUpload(provider, voice, text);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private String synthesizeAndUpload(AIProvider provider, String voice, String text) throws IOException {
+        log.info("🎙️ Generating TTS audio with {}...", provider.getKey());
+        // Only the premium voice is metered; the free one is always granted
+        QuotaLedger.Reservation reservation = quotaLedger.reserve(provider, text.length());
+        try (SpooledBuffer audio = mediaBufferFactory.newBuffer()) {
+            if (provider == AIProvider.ELEVENLABS) {
+                speechSynthesizer.synthesize(text, voice, audio);
+            } else {
+                speechSynthesizer.synthesize(text, audio);
+            }
+            quotaLedger.commit(reservation, text.length());
+
+            // A step that timed out or was cancelled leaves nothing behind on Cloudinary
+            checkNotCancelled("narration upload");
+            // Upload to Cloudinary
+            String ttsUrl = cloudinaryService.uploadAudio(audio);
+            log.info("✅ TTS audio generated: {}", ttsUrl);
+            return ttsUrl;
+        } finally {
+            quotaLedger.release(reservation); // No-op once committed
+        }
+    }
+
+
     private List<String> parseQuestions(String questionsText) {
         if (questionsText == null || questionsText.isEmpty()) return Collections.emptyList();
         return Arrays.stream(questionsText.split("\n"))
@@ -269,6 +532,16 @@ public class AIServiceImpl implements AIService {
             String summary = node.has("summary") ? node.get("summary").asText() : "";
             result.put("summary", summary);
 
+            // Only present in the fused analysis response
+            if (node.hasNonNull("title")) {
+                result.put("title", node.get("title").asText());
+            }
+            if (node.has("questions") && node.get("questions").isArray()) {
+                List<String> questions = new ArrayList<>();
+                node.get("questions").forEach(q -> questions.add((questions.size() + 1) + ". " + q.asText()));
+                result.put("questions", String.join("\n", questions));
+            }
+
             return result;
         } catch (Exception e) {
             log.warn("Metadata parsing failed, using defaults. JSON was: {}", metadataJson, e);
@@ -300,4 +573,4 @@ public class AIServiceImpl implements AIService {
         String visualContext = (story != null && story.length() > 200) ? story.substring(0, 200) + "..." : story;
         return basePrompt + ". " + visualContext + ". Style: warm colors, soft lighting, emotional, heartwarming, vintage photography aesthetic, detailed, high quality.";
     }
-}
\ No newline at end of file
+}
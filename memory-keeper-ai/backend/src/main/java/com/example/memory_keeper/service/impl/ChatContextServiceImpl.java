@@ -0,0 +1,197 @@
+package com.example.memory_keeper.service.impl;
+
+import com.example.memory_keeper.ai.PassageIndex;
+import com.example.memory_keeper.config.ChatRetrievalConfig;
+import com.example.memory_keeper.dto.request.ChatRequest;
+import com.example.memory_keeper.event.StoryChangedEvent;
+import com.example.memory_keeper.exception.BadRequestException;
+import com.example.memory_keeper.exception.ResourceNotFoundException;
+import com.example.memory_keeper.exception.UnauthorizedException;
+import com.example.memory_keeper.model.entity.User;
+import com.example.memory_keeper.repository.FamilyRepository;
+import com.example.memory_keeper.repository.StoryRepository;
+import com.example.memory_keeper.repository.UserRepository;
+import com.example.memory_keeper.security.SecurityUtils;
+import com.example.memory_keeper.service.ChatContextService;
+import com.example.memory_keeper.util.SentenceChunker;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Picks the story passages a grandparent chat reply should draw on.
+ *
+ * Each family (or single grandparent) gets an in-memory BM25 index of its
+ * stories, split into passages. Per question only the top-k passages that
+ * fit the token budget go into the prompt, so prompt size, latency and
+ * cost stay flat however large the archive grows. Indexes are rebuilt
+ * after a story of theirs changes, after index-ttl, or when evicted.
+ *
+ * Exposes ai.chat.context.tokens and ai.chat.index.build{scope}.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class ChatContextServiceImpl implements ChatContextService {
+
+    private final StoryRepository storyRepository;
+    private final UserRepository userRepository;
+    private final FamilyRepository familyRepository;
+    private final ChatRetrievalConfig config;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, ScopeIndex> indexes = new ConcurrentHashMap<>();
+    // Bumped by every story change, so an index built concurrently with one is not cached
+    private final AtomicLong generation = new AtomicLong();
+    private DistributionSummary contextTokens;
+
+    private record ScopeIndex(PassageIndex index, Set<Long> userIds, long builtAt, AtomicLong lastUsed) {
+    }
+
+    @PostConstruct
+    void initMetrics() {
+        contextTokens = DistributionSummary.builder("ai.chat.context.tokens")
+                .description("Estimated tokens of story context per chat prompt")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public List<String> findRelevantPassages(ChatRequest request) {
+        PassageIndex index;
+        if (request.getGrandparentId() != null) {
+            User caller = currentUser();
+            Long grandparentId = request.getGrandparentId();
+            if (!userRepository.existsById(grandparentId)) {
+                throw new ResourceNotFoundException("Grandparent not found");
+            }
+            if (!caller.getId().equals(grandparentId) && !familyRepository.shareFamily(caller.getId(), grandparentId)) {
+                throw new UnauthorizedException("You can only chat with grandparents in your family");
+            }
+            index = indexFor("user:" + grandparentId, () -> storyRepository.findTextsByUserId(grandparentId));
+        } else if (request.getFamilyId() != null) {
+            User caller = currentUser();
+            Long familyId = request.getFamilyId();
+            if (!familyRepository.existsById(familyId)) {
+                throw new ResourceNotFoundException("Family not found");
+            }
+            if (!familyRepository.isMember(familyId, caller.getId())) {
+                throw new UnauthorizedException("You are not a member of this family");
+            }
+            index = indexFor("family:" + familyId, () -> storyRepository.findTextsByFamilyId(familyId));
+        } else if (request.getStories() != null && !request.getStories().isEmpty()) {
+            index = buildIndex(inlinePassages(request.getStories()));
+        } else {
+            throw new BadRequestException("Either grandparentId, familyId or stories is required");
+        }
+
+        List<PassageIndex.Passage> passages = index.search(request.getQuestion(), config.getTopK(),
+                config.getTokenBudget() * config.getCharsPerToken());
+        int chars = passages.stream().mapToInt(p -> p.title().length() + p.text().length()).sum();
+        contextTokens.record((double) chars / config.getCharsPerToken());
+        log.debug("Chat context: {} of {} passages, ~{} tokens", passages.size(), index.size(),
+                chars / config.getCharsPerToken());
+
+        return passages.stream()
+                .map(p -> p.title().isEmpty() ? p.text() : p.title() + ": " + p.text())
+                .collect(Collectors.toList());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public void onStoryChanged(StoryChangedEvent event) {
+        generation.incrementAndGet();
+        indexes.values().removeIf(scope -> scope.userIds().contains(event.userId()));
+        // Also scopes the author had no stories in yet
+        indexes.remove("user:" + event.userId());
+        familyRepository.findIdsByUserId(event.userId()).forEach(familyId -> indexes.remove("family:" + familyId));
+    }
+
+    // ==================== HELPER METHODS ====================
+
+    private PassageIndex indexFor(String key, Supplier<List<StoryRepository.StoryTextView>> loader) {
+        long now = System.currentTimeMillis();
+        ScopeIndex cached = indexes.get(key);
+        if (cached != null && now - cached.builtAt() < config.getIndexTtl().toMillis()) {
+            cached.lastUsed().set(now);
+            return cached.index();
+        }
+
+        long startGeneration = generation.get();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        List<StoryRepository.StoryTextView> stories = loader.get();
+        PassageIndex index = buildIndex(storyPassages(stories));
+        sample.stop(meterRegistry.timer("ai.chat.index.build", "scope", key.substring(0, key.indexOf(':'))));
+        log.info("📚 Built chat index {}: {} stories, {} passages", key, stories.size(), index.size());
+
+        if (generation.get() == startGeneration) {
+            Set<Long> userIds = stories.stream().map(StoryRepository.StoryTextView::getUserId).collect(Collectors.toSet());
+            indexes.put(key, new ScopeIndex(index, userIds, now, new AtomicLong(now)));
+            evictIfFull();
+        }
+        return index;
+    }
+
+    private void evictIfFull() {
+        while (indexes.size() > config.getMaxIndexes()) {
+            indexes.entrySet().stream()
+                    .min(Comparator.comparingLong(e -> e.getValue().lastUsed().get()))
+                    .ifPresent(e -> indexes.remove(e.getKey(), e.getValue()));
+        }
+    }
+
+    private PassageIndex buildIndex(List<PassageIndex.Passage> passages) {
+        return new PassageIndex(passages, config.getK1(), config.getB());
+    }
+
+    private List<PassageIndex.Passage> storyPassages(List<StoryRepository.StoryTextView> stories) {
+        List<PassageIndex.Passage> passages = new ArrayList<>();
+        for (int i = 0; i < stories.size(); i++) {
+            StoryRepository.StoryTextView story = stories.get(i);
+            String title = story.getTitle() != null ? story.getTitle() : "";
+            List<String> chunks = SentenceChunker.chunk(story.getText(), config.getPassageChars());
+            for (int position = 0; position < chunks.size(); position++) {
+                passages.add(new PassageIndex.Passage(story.getId(), title, chunks.get(position), position, i));
+            }
+        }
+        return passages;
+    }
+
+    private List<PassageIndex.Passage> inlinePassages(List<String> stories) {
+        List<PassageIndex.Passage> passages = new ArrayList<>();
+        for (int i = 0; i < stories.size(); i++) {
+            List<String> chunks = SentenceChunker.chunk(stories.get(i), config.getPassageChars());
+            for (int position = 0; position < chunks.size(); position++) {
+                passages.add(new PassageIndex.Passage(null, "", chunks.get(position), position, i));
+            }
+        }
+        return passages;
+    }
+
+    private User currentUser() {
+        String email = SecurityUtils.getCurrentUsername();
+        if (email == null) {
+            throw new UnauthorizedException("Not authenticated");
+        }
+        return userRepository.findByEmail(email)
+                .orElseThrow(() -> new UnauthorizedException("User not found"));
+    }
+}
@@ -0,0 +1,260 @@
+package com.example.memory_keeper.service.impl;
+
+import com.example.memory_keeper.config.ChatHistoryConfig;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Writes chat messages in the background, many rows per statement, so
+ * saving a turn never delays the reply.
+ *
+ * Messages are queued in memory and written once flush-batch-size are
+ * waiting or on the next tick, whichever comes first, and on shutdown.
+ * Inserts go through JdbcTemplate because Hibernate cannot batch inserts
+ * into IDENTITY-keyed tables. If a batch fails, its messages are written
+ * one at a time, so a row the database rejects does not take the others
+ * with it. A failed message is queued again for the next flush, and dropped
+ * after ai.chat.history.max-write-attempts failures. A reader about to
+ * query a session's history flushes just that session's messages, so it
+ * never waits on other users' writes; the chat path instead reads the
+ * session's unwritten messages from memory and never waits at all.
+ *
+ * Exposes ai.chat.history.pending.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class ChatHistoryWriter {
+
+    private static final String INSERT_SQL = "INSERT INTO chat_messages " +
+            "(user_id, grandparent_id, session_key, message, response, created_at) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ChatHistoryConfig config;
+    private final AsyncTaskExecutor aiTaskExecutor;
+    private final MeterRegistry meterRegistry;
+
+    private final Queue<Queued> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    // Held while messages move from the queue to writing, so readers always find theirs in one of the two
+    private final Object takeLock = new Object();
+    // Batches taken off the queue and not yet written
+    private final Set<Batch> writing = ConcurrentHashMap.newKeySet();
+
+    public record PendingMessage(Long userId, Long grandparentId, String sessionKey, String message,
+                                 String response, LocalDateTime createdAt) {
+    }
+
+    private record Queued(PendingMessage message, int failures) {
+        boolean belongsTo(Long userId, String sessionKey) {
+            return message.userId().equals(userId) && message.sessionKey().equals(sessionKey);
+        }
+    }
+
+    private static final class Batch {
+        final List<Queued> rows;
+        final CompletableFuture<Void> written = new CompletableFuture<>();
+
+        Batch(List<Queued> rows) {
+            this.rows = rows;
+        }
+
+        boolean holds(Long userId, String sessionKey) {
+            return rows.stream().anyMatch(queued -> queued.belongsTo(userId, sessionKey));
+        }
+    }
+
+    @PostConstruct
+    void initMetrics() {
+        Gauge.builder("ai.chat.history.pending", pendingCount, AtomicInteger::get)
+                .description("Chat messages waiting to be written")
+                .register(meterRegistry);
+    }
+
+    public void enqueue(PendingMessage message) {
+        pending.add(new Queued(message, 0));
+        if (pendingCount.incrementAndGet() >= config.getFlushBatchSize() && !flushLock.isLocked()) {
+            aiTaskExecutor.execute(this::flush);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${ai.chat.history.flush-ms:500}")
+    public void flush() {
+        if (!flushLock.tryLock()) {
+            return; // Another flush is running and will drain the queue
+        }
+        try {
+            drain();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Writes the session's queued messages before returning, for callers
+     * about to read its chat_messages. Also waits for batches a running
+     * flush has taken off the queue, but only those holding some of this
+     * session's messages.
+     */
+    public void flushSession(Long userId, String sessionKey) {
+        List<Queued> own = new ArrayList<>();
+        List<Batch> running;
+        Batch batch = null;
+        synchronized (takeLock) {
+            for (Iterator<Queued> it = pending.iterator(); it.hasNext(); ) {
+                Queued queued = it.next();
+                if (queued.belongsTo(userId, sessionKey)) {
+                    it.remove();
+                    own.add(queued);
+                }
+            }
+            running = writing.stream().filter(b -> b.holds(userId, sessionKey)).toList();
+            if (!own.isEmpty()) {
+                batch = start(own);
+            }
+        }
+        if (batch != null) {
+            List<Queued> retry = new ArrayList<>();
+            finish(batch, retry);
+            requeue(retry);
+        }
+        running.forEach(b -> b.written.join());
+    }
+
+    /**
+     * The session's messages that may not be in chat_messages yet: those
+     * still queued and those in a batch being written. Taken under takeLock,
+     * so a message moving from one to the other is not missed, but it may
+     * already have been written by the time the caller queries the table.
+     */
+    public List<PendingMessage> pendingFor(Long userId, String sessionKey) {
+        List<PendingMessage> own = new ArrayList<>();
+        synchronized (takeLock) {
+            writing.forEach(batch -> batch.rows.stream()
+                    .filter(queued -> queued.belongsTo(userId, sessionKey))
+                    .forEach(queued -> own.add(queued.message())));
+            pending.stream()
+                    .filter(queued -> queued.belongsTo(userId, sessionKey))
+                    .forEach(queued -> own.add(queued.message()));
+        }
+        return own;
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flushLock.lock();
+        try {
+            drain();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    // ==================== HELPER METHODS ====================
+
+    private void drain() {
+        List<Queued> retry = new ArrayList<>();
+        Batch batch;
+        while ((batch = take()) != null) {
+            finish(batch, retry);
+        }
+        // Queued again only now, so a failing message is not retried within the same flush
+        requeue(retry);
+    }
+
+    private Batch take() {
+        synchronized (takeLock) {
+            List<Queued> rows = new ArrayList<>(config.getFlushBatchSize());
+            Queued queued;
+            while (rows.size() < config.getFlushBatchSize() && (queued = pending.poll()) != null) {
+                rows.add(queued);
+            }
+            return rows.isEmpty() ? null : start(rows);
+        }
+    }
+
+    // Callers hold takeLock
+    private Batch start(List<Queued> rows) {
+        Batch batch = new Batch(rows);
+        pendingCount.addAndGet(-rows.size());
+        writing.add(batch);
+        return batch;
+    }
+
+    private void finish(Batch batch, List<Queued> retry) {
+        try {
+            write(batch.rows, retry);
+        } finally {
+            writing.remove(batch);
+            batch.written.complete(null);
+        }
+    }
+
+    private void requeue(List<Queued> retry) {
+        pending.addAll(retry);
+        pendingCount.addAndGet(retry.size());
+    }
+
+    private void write(List<Queued> batch, List<Queued> retry) {
+        try {
+            // pgjdbc runs an auto-commit batch as one implicit transaction, so a failed batch wrote nothing
+            jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, queued) -> bind(ps, queued.message()));
+            log.debug("💾 Wrote {} chat messages", batch.size());
+        } catch (Exception e) {
+            log.warn("⚠️ Failed to write {} chat messages as a batch, writing them one by one: {}",
+                    batch.size(), e.getMessage());
+            batch.forEach(queued -> writeOne(queued, retry));
+        }
+    }
+
+    private void writeOne(Queued queued, List<Queued> retry) {
+        PendingMessage m = queued.message();
+        try {
+            jdbcTemplate.update(INSERT_SQL, ps -> bind(ps, m));
+        } catch (Exception e) {
+            int attempts = queued.failures() + 1;
+            if (attempts >= config.getMaxWriteAttempts()) {
+                log.error("❌ Dropping chat message of user {} in {} after {} failed writes: {}",
+                        m.userId(), m.sessionKey(), attempts, e.getMessage());
+            } else {
+                retry.add(new Queued(m, attempts));
+                log.warn("⚠️ Failed to write chat message of user {} in {} (attempt {}), will retry: {}",
+                        m.userId(), m.sessionKey(), attempts, e.getMessage());
+            }
+        }
+    }
+
+    private static void bind(PreparedStatement ps, PendingMessage m) throws SQLException {
+        ps.setLong(1, m.userId());
+        ps.setObject(2, m.grandparentId(), Types.BIGINT);
+        ps.setString(3, m.sessionKey());
+        ps.setString(4, m.message());
+        ps.setString(5, m.response());
+        ps.setTimestamp(6, Timestamp.valueOf(m.createdAt()));
+    }
+}
@@ -0,0 +1,276 @@
+package com.example.memory_keeper.service.impl;
+
+import com.example.memory_keeper.ai.ChatTurn;
+import com.example.memory_keeper.ai.Conversation;
+import com.example.memory_keeper.config.ChatHistoryConfig;
+import com.example.memory_keeper.dto.request.ChatRequest;
+import com.example.memory_keeper.dto.response.ChatMessageResponse;
+import com.example.memory_keeper.exception.BadRequestException;
+import com.example.memory_keeper.exception.UnauthorizedException;
+import com.example.memory_keeper.model.entity.ChatMessage;
+import com.example.memory_keeper.model.entity.ChatSummary;
+import com.example.memory_keeper.model.entity.User;
+import com.example.memory_keeper.repository.ChatMessageRepository;
+import com.example.memory_keeper.repository.ChatSummaryRepository;
+import com.example.memory_keeper.repository.UserRepository;
+import com.example.memory_keeper.security.SecurityUtils;
+import com.example.memory_keeper.service.AIService;
+import com.example.memory_keeper.service.ChatSessionService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Grandparent chat sessions with bounded prompts.
+ *
+ * A session belongs to one user and is keyed by grandparent, family or a
+ * client-chosen session id. Its recent turns and a rolling summary of the
+ * older ones are kept in memory (reloaded from the database and the write
+ * queue on a miss), so building a prompt needs no query. Once enough turns pile up beyond
+ * recent-turns, the oldest are folded into the summary by a background
+ * Groq call; the prompt thus never holds more than the summary and a few
+ * turns. New turns are handed to ChatHistoryWriter and written in batches.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ChatSessionServiceImpl implements ChatSessionService {
+
+    private static final LocalDateTime BEGINNING = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final ChatMessageRepository chatMessageRepository;
+    private final ChatSummaryRepository chatSummaryRepository;
+    private final UserRepository userRepository;
+    private final ChatHistoryWriter historyWriter;
+    private final AIService aiService;
+    private final ChatHistoryConfig config;
+    private final AsyncTaskExecutor aiTaskExecutor;
+
+    private final Map<String, SessionState> sessions = new ConcurrentHashMap<>();
+
+    private record TimedTurn(ChatTurn turn, LocalDateTime at) {
+    }
+
+    private static final class SessionState {
+        final Deque<TimedTurn> turns = new ArrayDeque<>();
+        final AtomicBoolean summarizing = new AtomicBoolean();
+        String summary;
+        int summarizedTurns;
+        LocalDateTime summarizedThrough = BEGINNING;
+        volatile long lastUsed = System.currentTimeMillis();
+    }
+
+    @Override
+    public SessionRef open(ChatRequest request) {
+        if (!config.isEnabled()) {
+            return null;
+        }
+        String key = sessionKey(request);
+        if (key == null) {
+            return null;
+        }
+        return new SessionRef(currentUser().getId(), request.getGrandparentId(), key, request.getGrandparentName());
+    }
+
+    @Override
+    public Conversation getConversation(SessionRef session) {
+        if (session == null) {
+            return Conversation.EMPTY;
+        }
+        SessionState state = state(session);
+        synchronized (state) {
+            List<ChatTurn> recent = state.turns.stream()
+                    .skip(Math.max(0, state.turns.size() - config.getRecentTurns()))
+                    .map(TimedTurn::turn)
+                    .toList();
+            // Turns waiting to be summarised are not in the prompt; the summary catches up shortly
+            return new Conversation(state.summary, recent);
+        }
+    }
+
+    @Override
+    public void recordTurn(SessionRef session, String question, String reply) {
+        if (session == null) {
+            return;
+        }
+        // Stored to the microsecond, so a reload can tell a queued turn from its written row
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        // Resolved before the turn is queued, so reloading an evicted session cannot pick it up twice
+        SessionState state = state(session);
+        boolean summarize;
+        synchronized (state) {
+            state.turns.addLast(new TimedTurn(new ChatTurn(question, reply), now));
+            while (state.turns.size() > config.getMaxUnsummarizedTurns()) {
+                state.turns.removeFirst();
+            }
+            summarize = state.turns.size() >= config.getRecentTurns() + config.getSummarizeBatch();
+        }
+        historyWriter.enqueue(new ChatHistoryWriter.PendingMessage(session.userId(), session.grandparentId(),
+                session.key(), question, reply, now));
+
+        if (summarize && state.summarizing.compareAndSet(false, true)) {
+            aiTaskExecutor.execute(() -> summarize(session, state));
+        }
+    }
+
+    @Override
+    public Page<ChatMessageResponse> getHistory(ChatRequest scope, Pageable pageable) {
+        String key = sessionKey(scope);
+        if (key == null) {
+            throw new BadRequestException("Either sessionId, grandparentId or familyId is required");
+        }
+        Long userId = currentUser().getId();
+        // Include turns still waiting in the write queue
+        historyWriter.flushSession(userId, key);
+        Pageable newestFirst = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(),
+                Sort.by("createdAt").descending());
+        return chatMessageRepository.findByUserIdAndSessionKey(userId, key, newestFirst)
+                .map(this::toResponse);
+    }
+
+    // ==================== HELPER METHODS ====================
+
+    private void summarize(SessionRef session, SessionState state) {
+        try {
+            List<TimedTurn> folded;
+            String previousSummary;
+            synchronized (state) {
+                int count = state.turns.size() - config.getRecentTurns();
+                if (count <= 0) return;
+                folded = new ArrayList<>(state.turns).subList(0, count);
+                previousSummary = state.summary;
+            }
+
+            String summary = aiService.summarizeConversation(previousSummary,
+                    folded.stream().map(TimedTurn::turn).toList(), session.grandparentName());
+            LocalDateTime through = folded.get(folded.size() - 1).at();
+
+            synchronized (state) {
+                // Turns may have been dropped meanwhile; remove only those actually folded
+                while (!state.turns.isEmpty() && !state.turns.peekFirst().at().isAfter(through)) {
+                    state.turns.removeFirst();
+                }
+                state.summary = summary;
+                state.summarizedTurns += folded.size();
+                state.summarizedThrough = through;
+            }
+            saveSummary(session, summary, state.summarizedTurns, through);
+            log.debug("📝 Folded {} turns into the summary of chat {}", folded.size(), session.key());
+        } catch (Exception e) {
+            log.warn("⚠️ Could not summarise chat {}: {}", session.key(), e.getMessage());
+        } finally {
+            state.summarizing.set(false);
+        }
+    }
+
+    private void saveSummary(SessionRef session, String summary, int summarizedTurns, LocalDateTime through) {
+        ChatSummary row = chatSummaryRepository.findByUserIdAndSessionKey(session.userId(), session.key())
+                .orElseGet(() -> ChatSummary.builder().userId(session.userId()).sessionKey(session.key()).build());
+        row.setSummary(summary);
+        row.setSummarizedTurns(summarizedTurns);
+        row.setSummarizedThrough(through);
+        chatSummaryRepository.save(row);
+    }
+
+    private SessionState state(SessionRef session) {
+        String cacheKey = session.userId() + "|" + session.key();
+        SessionState state = sessions.get(cacheKey);
+        if (state == null) {
+            // Loaded outside the map so DB reads never block other sessions' bins; if two
+            // callers race, the first one in wins and the other copy is dropped
+            SessionState loaded = load(session);
+            state = sessions.putIfAbsent(cacheKey, loaded);
+            if (state == null) {
+                state = loaded;
+                evictIfFull();
+            }
+        }
+        state.lastUsed = System.currentTimeMillis();
+        return state;
+    }
+
+    private SessionState load(SessionRef session) {
+        // Unwritten turns come from the write queue rather than a flush, so the reply never waits on
+        // inserts. Read before the table, so a turn written in between is found in both and kept once
+        List<ChatHistoryWriter.PendingMessage> queued = historyWriter.pendingFor(session.userId(), session.key());
+        SessionState state = new SessionState();
+        chatSummaryRepository.findByUserIdAndSessionKey(session.userId(), session.key()).ifPresent(summary -> {
+            state.summary = summary.getSummary();
+            state.summarizedTurns = summary.getSummarizedTurns();
+            state.summarizedThrough = summary.getSummarizedThrough();
+        });
+        Set<TimedTurn> unsummarized = new HashSet<>();
+        chatMessageRepository.findByUserIdAndSessionKeyAndCreatedAtAfter(
+                session.userId(), session.key(), state.summarizedThrough,
+                PageRequest.of(0, config.getMaxUnsummarizedTurns(), Sort.by("createdAt").descending()))
+                .forEach(m -> unsummarized.add(
+                        new TimedTurn(new ChatTurn(m.getMessage(), m.getResponse()), m.getCreatedAt())));
+        queued.stream()
+                .filter(m -> m.createdAt().isAfter(state.summarizedThrough))
+                .forEach(m -> unsummarized.add(new TimedTurn(new ChatTurn(m.message(), m.response()), m.createdAt())));
+        unsummarized.stream()
+                .sorted(Comparator.comparing(TimedTurn::at))
+                .skip(Math.max(0, unsummarized.size() - config.getMaxUnsummarizedTurns()))
+                .forEach(state.turns::addLast);
+        return state;
+    }
+
+    private void evictIfFull() {
+        while (sessions.size() > config.getMaxSessions()) {
+            sessions.entrySet().stream()
+                    .min(Comparator.comparingLong(e -> e.getValue().lastUsed))
+                    .ifPresent(e -> sessions.remove(e.getKey(), e.getValue()));
+        }
+    }
+
+    private static String sessionKey(ChatRequest request) {
+        if (request.getSessionId() != null && !request.getSessionId().isBlank()) {
+            return "session:" + request.getSessionId();
+        }
+        if (request.getGrandparentId() != null) {
+            return "grandparent:" + request.getGrandparentId();
+        }
+        if (request.getFamilyId() != null) {
+            return "family:" + request.getFamilyId();
+        }
+        return null;
+    }
+
+    private ChatMessageResponse toResponse(ChatMessage message) {
+        return ChatMessageResponse.builder()
+                .id(message.getId())
+                .grandparentId(message.getGrandparent() != null ? message.getGrandparent().getId() : null)
+                .message(message.getMessage())
+                .response(message.getResponse())
+                .isHelpful(message.getIsHelpful())
+                .createdAt(message.getCreatedAt())
+                .build();
+    }
+
+    private User currentUser() {
+        String email = SecurityUtils.getCurrentUsername();
+        if (email == null) {
+            throw new UnauthorizedException("Not authenticated");
+        }
+        return userRepository.findByEmail(email)
+                .orElseThrow(() -> new UnauthorizedException("User not found"));
+    }
+}
@@ -3,6 +3,7 @@ package com.example.memory_keeper.service.impl;
 import com.cloudinary.Cloudinary;
 import com.cloudinary.utils.ObjectUtils;
 import com.example.memory_keeper.service.CloudinaryService;
+import com.example.memory_keeper.util.SpooledBuffer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -21,14 +22,7 @@ public class CloudinaryServiceImpl implements CloudinaryService {
     @Override
     public String uploadAudio(MultipartFile file) {
         try {
-            Map uploadResult = cloudinary.uploader().upload(
-                    file.getBytes(),
-                    ObjectUtils.asMap(
-                            "resource_type", "video",
-                            "folder", "memory-keeper/audio",
-                            "format", "mp3"
-                    )
-            );
+            Map<?, ?> uploadResult = cloudinary.uploader().upload(file.getBytes(), audioOptions());
 
             String url = uploadResult.get("secure_url").toString();
             log.info("Audio uploaded: {}", url);
@@ -43,16 +37,7 @@ public class CloudinaryServiceImpl implements CloudinaryService {
     @Override
     public String uploadImage(MultipartFile file) {
         try {
-            Map uploadResult = cloudinary.uploader().upload(
-                    file.getBytes(),
-                    ObjectUtils.asMap(
-                            "folder", "memory-keeper/images",
-                            "transformation", new com.cloudinary.Transformation()
-                                    .width(1024)
-                                    .height(1024)
-                                    .crop("limit")
-                    )
-            );
+            Map<?, ?> uploadResult = cloudinary.uploader().upload(file.getBytes(), imageOptions());
 
             String url = uploadResult.get("secure_url").toString();
             log.info("Image uploaded: {}", url);
@@ -64,6 +49,55 @@ public class CloudinaryServiceImpl implements CloudinaryService {
         }
     }
 
+    /**
+     * Cloudinary fetches the image itself, so provider-hosted images
+     * (e.g. Replicate output URLs) never pass through this server.
+     */
+    @Override
+    public String uploadImageFromUrl(String imageUrl) {
+        try {
+            Map<?, ?> uploadResult = cloudinary.uploader().upload(imageUrl, imageOptions());
+
+            String url = uploadResult.get("secure_url").toString();
+            log.info("Image uploaded from URL: {}", url);
+            return url;
+
+        } catch (IOException e) {
+            log.error("Image upload from URL failed", e);
+            throw new RuntimeException("Image upload failed: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public String uploadAudio(SpooledBuffer buffer) {
+        try {
+            Map<?, ?> uploadResult = cloudinary.uploader().upload(source(buffer), audioOptions());
+
+            String url = uploadResult.get("secure_url").toString();
+            log.info("Audio uploaded ({} bytes): {}", buffer.size(), url);
+            return url;
+
+        } catch (IOException e) {
+            log.error("Audio upload failed", e);
+            throw new RuntimeException("Audio upload failed: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public String uploadImage(SpooledBuffer buffer) {
+        try {
+            Map<?, ?> uploadResult = cloudinary.uploader().upload(source(buffer), imageOptions());
+
+            String url = uploadResult.get("secure_url").toString();
+            log.info("Image uploaded ({} bytes): {}", buffer.size(), url);
+            return url;
+
+        } catch (IOException e) {
+            log.error("Image upload failed", e);
+            throw new RuntimeException("Image upload failed: " + e.getMessage());
+        }
+    }
+
     @Override
     public void deleteFile(String publicId) {
         try {
@@ -73,4 +107,33 @@ public class CloudinaryServiceImpl implements CloudinaryService {
             log.error("File deletion failed", e);
         }
     }
-}
\ No newline at end of file
+
+    // ==================== HELPER METHODS ====================
+
+    /**
+     * The Cloudinary SDK streams a File from disk and sends a byte[] as is.
+     * A buffer still in memory is handed over as one exactly-sized array,
+     * which costs a single trimming copy (see SpooledBuffer.toByteArray).
+     */
+    private Object source(SpooledBuffer buffer) throws IOException {
+        return buffer.isInMemory() ? buffer.toByteArray() : buffer.toFile();
+    }
+
+    private Map<?, ?> audioOptions() {
+        return ObjectUtils.asMap(
+                "resource_type", "video",
+                "folder", "memory-keeper/audio",
+                "format", "mp3"
+        );
+    }
+
+    private Map<?, ?> imageOptions() {
+        return ObjectUtils.asMap(
+                "folder", "memory-keeper/images",
+                "transformation", new com.cloudinary.Transformation()
+                        .width(1024)
+                        .height(1024)
+                        .crop("limit")
+        );
+    }
+}
@@ -0,0 +1,222 @@
+package com.example.memory_keeper.service.impl;
+
+import com.example.memory_keeper.config.AIEnhanceConfig;
+import com.example.memory_keeper.dto.response.AIResponse;
+import com.example.memory_keeper.dto.response.EnhancementJobResponse;
+import com.example.memory_keeper.exception.BadRequestException;
+import com.example.memory_keeper.exception.ResourceNotFoundException;
+import com.example.memory_keeper.exception.UnauthorizedException;
+import com.example.memory_keeper.model.enums.JobStatus;
+import com.example.memory_keeper.security.SecurityUtils;
+import com.example.memory_keeper.service.AIService;
+import com.example.memory_keeper.service.EnhancementJobService;
+import com.example.memory_keeper.service.EnhancementListener;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs story enhancement in the background.
+ *
+ * Jobs live in memory only. Every step completion is pushed to
+ * /topic/jobs/{id} and the latest state can be polled with GET /api/ai/jobs/{id};
+ * both are limited to the user who submitted the job. Finished jobs are
+ * dropped after ai.enhance.jobs.retention.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class EnhancementJobServiceImpl implements EnhancementJobService {
+
+    private static final String JOB_TOPIC = "/topic/jobs/";
+
+    private final AIService aiService;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final AsyncTaskExecutor aiTaskExecutor;
+    private final AIEnhanceConfig enhanceConfig;
+    private final ObjectMapper objectMapper;
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final AtomicInteger activeJobs = new AtomicInteger();
+
+    @Override
+    public EnhancementJobResponse submit(String transcript, String additionalAnswers) {
+        String owner = SecurityUtils.getCurrentUsername();
+        if (owner == null) {
+            throw new UnauthorizedException("Not authenticated");
+        }
+        if (!reserveSlot()) {
+            throw new BadRequestException("Too many stories are being enhanced right now. Please try again shortly.");
+        }
+
+        Job job = new Job(UUID.randomUUID().toString(), owner);
+        jobs.put(job.id, job);
+        log.info("Enhancement job {} queued", job.id);
+
+        try {
+            aiTaskExecutor.execute(() -> {
+                try {
+                    run(job, transcript, additionalAnswers);
+                } finally {
+                    activeJobs.decrementAndGet();
+                }
+            });
+        } catch (RuntimeException e) {
+            activeJobs.decrementAndGet();
+            jobs.remove(job.id);
+            throw e;
+        }
+        return job.toResponse();
+    }
+
+    @Override
+    public EnhancementJobResponse getJob(String jobId) {
+        Job job = jobs.get(jobId);
+        if (job == null) {
+            throw new ResourceNotFoundException("Enhancement job not found: " + jobId);
+        }
+        if (!job.owner.equals(SecurityUtils.getCurrentUsername())) {
+            throw new UnauthorizedException("You can only view your own enhancement jobs");
+        }
+        return job.toResponse();
+    }
+
+    @Override
+    public boolean isOwner(String jobId, String username) {
+        Job job = jobs.get(jobId);
+        return job != null && job.owner.equals(username);
+    }
+
+    @Scheduled(fixedDelayString = "${ai.enhance.jobs.cleanup-interval:60000}")
+    public void evictFinishedJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(enhanceConfig.getJobs().getRetention());
+        jobs.values().removeIf(job -> !job.isActive() && job.updatedAt.isBefore(cutoff));
+    }
+
+    private void run(Job job, String transcript, String additionalAnswers) {
+        job.update(JobStatus.RUNNING, null);
+        publish(job);
+
+        // Progress arriving after the job has finished is stale and must not overwrite its outcome
+        EnhancementListener listener = new EnhancementListener() {
+            @Override
+            public void onStepCompleted(String step, AIResponse partial) {
+                synchronized (job) {
+                    if (!job.isActive()) {
+                        return;
+                    }
+                    job.completedSteps.add(step);
+                    job.result = snapshot(partial);
+                    job.updatedAt = LocalDateTime.now();
+                }
+                publish(job);
+            }
+
+            @Override
+            public void onStepFailed(String step, String error) {
+                synchronized (job) {
+                    if (!job.isActive()) {
+                        return;
+                    }
+                    job.failedSteps.put(step, error);
+                    job.updatedAt = LocalDateTime.now();
+                }
+                publish(job);
+            }
+        };
+
+        try {
+            AIResponse result = aiService.enhanceStory(transcript, additionalAnswers, listener);
+            synchronized (job) {
+                job.result = result;
+                job.update(JobStatus.COMPLETED, null);
+            }
+            log.info("Enhancement job {} completed", job.id);
+        } catch (Exception e) {
+            log.error("Enhancement job {} failed", job.id, e);
+            job.update(JobStatus.FAILED, e.getMessage());
+        }
+        publish(job);
+    }
+
+    private AIResponse snapshot(AIResponse partial) {
+        // The pipeline keeps writing into the live object, under its monitor; hand out a copy.
+        synchronized (partial) {
+            return objectMapper.convertValue(partial, AIResponse.class);
+        }
+    }
+
+    private boolean reserveSlot() {
+        int max = enhanceConfig.getJobs().getMaxActive();
+        while (true) {
+            int active = activeJobs.get();
+            if (active >= max) {
+                return false;
+            }
+            if (activeJobs.compareAndSet(active, active + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private void publish(Job job) {
+        try {
+            messagingTemplate.convertAndSend(JOB_TOPIC + job.id, job.toResponse());
+        } catch (Exception e) {
+            log.warn("Could not publish progress for job {}: {}", job.id, e.getMessage());
+        }
+    }
+
+    private static class Job {
+        private final String id;
+        private final String owner;
+        private final LocalDateTime createdAt = LocalDateTime.now();
+        private final List<String> completedSteps = new ArrayList<>();
+        private final Map<String, String> failedSteps = new LinkedHashMap<>();
+        private volatile JobStatus status = JobStatus.QUEUED;
+        private volatile LocalDateTime updatedAt = createdAt;
+        private AIResponse result;
+        private String error;
+
+        Job(String id, String owner) {
+            this.id = id;
+            this.owner = owner;
+        }
+
+        boolean isActive() {
+            return status == JobStatus.QUEUED || status == JobStatus.RUNNING;
+        }
+
+        synchronized void update(JobStatus status, String error) {
+            this.status = status;
+            this.error = error;
+            this.updatedAt = LocalDateTime.now();
+        }
+
+        synchronized EnhancementJobResponse toResponse() {
+            return EnhancementJobResponse.builder()
+                    .jobId(id)
+                    .status(status)
+                    .completedSteps(List.copyOf(completedSteps))
+                    .failedSteps(Map.copyOf(failedSteps))
+                    .result(result)
+                    .error(error)
+                    .createdAt(createdAt)
+                    .updatedAt(updatedAt)
+                    .build();
+        }
+    }
+}
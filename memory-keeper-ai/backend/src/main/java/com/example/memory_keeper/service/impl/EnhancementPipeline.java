@@ -0,0 +1,170 @@
+package com.example.memory_keeper.service.impl;
+
+import com.example.memory_keeper.ai.UsageContext;
+import com.example.memory_keeper.dto.response.AIResponse;
+import com.example.memory_keeper.service.EnhancementListener;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.AsyncTaskExecutor;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+/**
+ * Runs the steps of one enhanceStory call and reports each of them to its listener.
+ *
+ * Each step settles exactly once, under the response's monitor: by finishing,
+ * by failing, or by running out of time. Only a step that finishes first gets
+ * its writes applied and reported, so a step that completes just after its
+ * timeout leaves the response alone. Once the pipeline is closed no step
+ * settles at all, and the listener hears nothing more.
+ */
+@Slf4j
+class EnhancementPipeline {
+
+    /**
+     * The work of one step. Writes to the response go through the step, which
+     * holds them until the step has settled as finished.
+     */
+    @FunctionalInterface
+    interface StepWork<T> {
+        T run(Step step) throws Exception;
+    }
+
+    /**
+     * Collects one step's writes; used only by the thread running the step.
+     */
+    static final class Step {
+        private final List<Consumer<AIResponse>> writes = new ArrayList<>();
+        // Guarded by the response's monitor
+        private boolean settled;
+
+        void update(Consumer<AIResponse> write) {
+            writes.add(write);
+        }
+    }
+
+    private final AIResponse response;
+    private final EnhancementListener listener;
+    private final AsyncTaskExecutor executor;
+    private final List<Future<?>> tasks = new CopyOnWriteArrayList<>();
+    // Guarded by the response's monitor
+    private boolean closed;
+
+    EnhancementPipeline(AIResponse response, EnhancementListener listener, AsyncTaskExecutor executor) {
+        this.response = response;
+        this.listener = listener;
+        this.executor = executor;
+    }
+
+    /**
+     * Runs one step on the executor, bounded by its own timeout. A step
+     * that times out is interrupted rather than left running in the background.
+     */
+    <T> CompletableFuture<T> step(String name, Duration timeout, StepWork<T> work) {
+        Step step = new Step();
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Future<?> task = executor.submit(() -> {
+            long started = System.currentTimeMillis();
+            try (UsageContext.Handle ignored = UsageContext.open(UsageContext.current().withStep(name))) {
+                T value = work.run(step);
+                if (!settle(step, true)) {
+                    log.info("Step '{}' finished after it timed out or the pipeline ended; result dropped.", name);
+                    return;
+                }
+                log.info("✅ Step '{}' complete in {} ms.", name, System.currentTimeMillis() - started);
+                listener.onStepCompleted(name, response);
+                result.complete(value);
+            } catch (Exception e) {
+                if (settle(step, false)) {
+                    result.completeExceptionally(e);
+                }
+            }
+        });
+        tasks.add(task);
+        CompletableFuture.delayedExecutor(timeout.toMillis(), TimeUnit.MILLISECONDS).execute(() -> {
+            if (settle(step, false)) {
+                result.completeExceptionally(new TimeoutException("Step '" + name + "' timed out after " + timeout));
+                task.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Writes to the response outside any step, holding its monitor, so
+     * listeners can copy the partial response under the same lock. Ignored
+     * once the pipeline is closed.
+     */
+    void update(Consumer<AIResponse> write) {
+        synchronized (response) {
+            if (!closed) {
+                write.accept(response);
+            }
+        }
+    }
+
+    /**
+     * Ends the pipeline: steps still running are interrupted, and nothing
+     * they produce reaches the response or the listener.
+     */
+    void close() {
+        synchronized (response) {
+            closed = true;
+        }
+        tasks.forEach(task -> task.cancel(true));
+    }
+
+    /**
+     * Turns a failed best-effort step into a warning, so the story is still returned without it.
+     */
+    CompletableFuture<Void> optional(String name, CompletableFuture<?> step) {
+        return step.handle((result, ex) -> {
+            if (ex != null && !isClosed()) {
+                Throwable cause = rootCause(ex);
+                String reason = cause instanceof TimeoutException ? "timed out" : cause.getMessage();
+                log.warn("⚠️ Step '{}' failed, continuing without it. Error: {}", name, reason);
+                update(r -> r.getFailedSteps().add(name));
+                listener.onStepFailed(name, reason);
+            }
+            return null;
+        });
+    }
+
+    static Throwable rootCause(Throwable ex) {
+        Throwable cause = ex;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException) && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    // ==================== HELPER METHODS ====================
+
+    private boolean settle(Step step, boolean apply) {
+        synchronized (response) {
+            if (step.settled || closed) {
+                return false;
+            }
+            step.settled = true;
+            if (apply) {
+                step.writes.forEach(write -> write.accept(response));
+            }
+            return true;
+        }
+    }
+
+    private boolean isClosed() {
+        synchronized (response) {
+            return closed;
+        }
+    }
+}
@@ -0,0 +1,430 @@
+package com.example.memory_keeper.service.impl;
+
+import com.example.memory_keeper.ai.UsageContext;
+import com.example.memory_keeper.config.AIImageJobsConfig;
+import com.example.memory_keeper.dto.response.ImageJobResponse;
+import com.example.memory_keeper.exception.ResourceNotFoundException;
+import com.example.memory_keeper.exception.UnauthorizedException;
+import com.example.memory_keeper.model.entity.User;
+import com.example.memory_keeper.model.enums.JobStatus;
+import com.example.memory_keeper.repository.FamilyRepository;
+import com.example.memory_keeper.repository.StoryRepository;
+import com.example.memory_keeper.repository.UserRepository;
+import com.example.memory_keeper.service.AIService;
+import com.example.memory_keeper.service.ImageJobService;
+import com.example.memory_keeper.security.SecurityUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.net.InetAddress;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Durable story image queue backed by the image_jobs table.
+ *
+ * A job row is written in the same transaction as the story (outbox style),
+ * so a committed story always has its image queued and a rolled-back one
+ * never does. Workers on every node claim due jobs with FOR UPDATE SKIP
+ * LOCKED, so nodes never pick the same job, and hold them on a lease: a job
+ * whose node died is claimed again once the lease runs out. The result is
+ * written to the job and stories.image_url in one statement, fenced on the
+ * claiming worker, and failures are retried with exponential backoff up to
+ * ai.image-jobs.max-attempts.
+ *
+ * Every transition is pushed to /topic/stories/{storyId}/image on this
+ * node's broker; the state is in the table, so GET /api/ai/image/jobs/{id}
+ * answers from any node. Jobs and their topic are open to the story's
+ * author and members of its family. Exposes ai.image.jobs{result} and
+ * ai.image.jobs.running.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ImageJobServiceImpl implements ImageJobService {
+
+    private static final String STORY_TOPIC = "/topic/stories/";
+    private static final String USAGE_ENDPOINT = "image-job";
+
+    private static final String INSERT_SQL = "INSERT INTO image_jobs (story_id) VALUES (?) " +
+            "ON CONFLICT (story_id) WHERE status IN ('QUEUED', 'RUNNING') DO NOTHING RETURNING id";
+
+    private static final String ACTIVE_JOB_SQL = "SELECT id FROM image_jobs " +
+            "WHERE story_id = ? AND status IN ('QUEUED', 'RUNNING')";
+
+    private static final String SELECT_JOB_SQL = "SELECT id, story_id, status, attempts, image_url, last_error, " +
+            "created_at, updated_at FROM image_jobs WHERE id = ?";
+
+    // Due queued jobs, plus running ones whose worker let the lease run out
+    private static final String CLAIM_SQL = "UPDATE image_jobs j SET status = 'RUNNING', attempts = j.attempts + 1, " +
+            "locked_by = ?, locked_until = CURRENT_TIMESTAMP + (? * INTERVAL '1 second'), updated_at = CURRENT_TIMESTAMP " +
+            "FROM (SELECT id FROM image_jobs " +
+            "WHERE (status = 'QUEUED' AND available_at <= CURRENT_TIMESTAMP) " +
+            "OR (status = 'RUNNING' AND locked_until < CURRENT_TIMESTAMP) " +
+            "ORDER BY available_at LIMIT ? FOR UPDATE SKIP LOCKED) due " +
+            "WHERE j.id = due.id RETURNING j.id, j.story_id, j.attempts";
+
+    private static final String STORY_TEXT_SQL = "SELECT s.title, COALESCE(s.enhanced_story, s.transcript) AS text, " +
+            "u.email FROM stories s JOIN users u ON u.id = s.user_id WHERE s.id = ?";
+
+    private static final String STORY_OWNER_SQL = "SELECT user_id FROM stories WHERE id = ?";
+
+    // Only the worker still holding the job may finish it
+    private static final String COMPLETE_SQL = "WITH done AS (UPDATE image_jobs SET status = 'COMPLETED', " +
+            "image_url = ?, last_error = NULL, locked_by = NULL, locked_until = NULL, updated_at = CURRENT_TIMESTAMP " +
+            "WHERE id = ? AND locked_by = ? AND status = 'RUNNING' RETURNING story_id) " +
+            "UPDATE stories s SET image_url = ?, updated_at = CURRENT_TIMESTAMP FROM done " +
+            "WHERE s.id = done.story_id RETURNING s.user_id";
+
+    private static final String FAIL_SQL = "UPDATE image_jobs SET status = ?, " +
+            "available_at = CURRENT_TIMESTAMP + (? * INTERVAL '1 second'), last_error = ?, " +
+            "locked_by = NULL, locked_until = NULL, updated_at = CURRENT_TIMESTAMP " +
+            "WHERE id = ? AND locked_by = ? AND status = 'RUNNING'";
+
+    // A shutdown hands its jobs back without using up an attempt
+    private static final String RELEASE_SQL = "UPDATE image_jobs SET status = 'QUEUED', " +
+            "attempts = GREATEST(attempts - 1, 0), locked_by = NULL, locked_until = NULL, updated_at = CURRENT_TIMESTAMP " +
+            "WHERE locked_by = ? AND status = 'RUNNING'";
+
+    private static final String CLEANUP_SQL = "DELETE FROM image_jobs WHERE status IN ('COMPLETED', 'FAILED') " +
+            "AND updated_at < CURRENT_TIMESTAMP - (? * INTERVAL '1 second')";
+
+    private final AIService aiService;
+    private final AIImageJobsConfig config;
+    private final JdbcTemplate jdbcTemplate;
+    private final UserRepository userRepository;
+    private final StoryRepository storyRepository;
+    private final FamilyRepository familyRepository;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final AsyncTaskExecutor aiTaskExecutor;
+    private final CacheManager cacheManager;
+    private final MeterRegistry meterRegistry;
+
+    private final String workerId = workerId();
+    private final AtomicInteger running = new AtomicInteger();
+    private volatile boolean stopping;
+
+    private Counter completed;
+    private Counter retried;
+    private Counter failed;
+
+    private record ClaimedJob(long id, long storyId, int attempts) {
+    }
+
+    private record StoryText(String title, String text, String email) {
+    }
+
+    private final RowMapper<ImageJobResponse> jobMapper = (rs, rowNum) -> ImageJobResponse.builder()
+            .jobId(rs.getLong("id"))
+            .storyId(rs.getLong("story_id"))
+            .status(JobStatus.valueOf(rs.getString("status")))
+            .attempts(rs.getInt("attempts"))
+            .imageUrl(rs.getString("image_url"))
+            .error(rs.getString("last_error"))
+            .createdAt(toLocalDateTime(rs.getTimestamp("created_at")))
+            .updatedAt(toLocalDateTime(rs.getTimestamp("updated_at")))
+            .build();
+
+    @PostConstruct
+    void registerMetrics() {
+        completed = Counter.builder("ai.image.jobs").tag("result", "completed").register(meterRegistry);
+        retried = Counter.builder("ai.image.jobs").tag("result", "retried").register(meterRegistry);
+        failed = Counter.builder("ai.image.jobs").tag("result", "failed").register(meterRegistry);
+        Gauge.builder("ai.image.jobs.running", running, AtomicInteger::get).register(meterRegistry);
+    }
+
+    @Override
+    @Transactional
+    public Long enqueue(Long storyId) {
+        List<Long> inserted = jdbcTemplate.queryForList(INSERT_SQL, Long.class, storyId);
+        if (inserted.isEmpty()) {
+            List<Long> active = jdbcTemplate.queryForList(ACTIVE_JOB_SQL, Long.class, storyId);
+            if (!active.isEmpty()) {
+                return active.get(0);
+            }
+            // The active job finished in between; queue a fresh one
+            inserted = jdbcTemplate.queryForList(INSERT_SQL, Long.class, storyId);
+        }
+        Long jobId = inserted.get(0);
+        log.info("🖼️ Image job {} queued for story {}", jobId, storyId);
+        wakeWorkersAfterCommit();
+        return jobId;
+    }
+
+    @Override
+    public ImageJobResponse requestImage(Long storyId) {
+        User user = currentUser();
+        List<Long> owners = jdbcTemplate.queryForList(STORY_OWNER_SQL, Long.class, storyId);
+        if (owners.isEmpty()) {
+            throw new ResourceNotFoundException("Story not found with id: " + storyId);
+        }
+        if (!user.getId().equals(owners.get(0))) {
+            throw new UnauthorizedException("You can only generate images for your own stories");
+        }
+        return findJob(enqueue(storyId));
+    }
+
+    @Override
+    public ImageJobResponse getJob(Long jobId) {
+        ImageJobResponse job = findJob(jobId);
+        if (!canView(job.getStoryId(), currentUser())) {
+            throw new UnauthorizedException("You are not a member of this story's family");
+        }
+        return job;
+    }
+
+    @Override
+    public boolean canView(Long storyId, String username) {
+        return userRepository.findByEmail(username)
+                .map(user -> canView(storyId, user))
+                .orElse(false);
+    }
+
+    /**
+     * Claims as many due jobs as this node has free slots for and runs them
+     * on the AI executor. Also called right after a job is committed, so new
+     * stories don't wait for the next tick.
+     */
+    @Scheduled(fixedDelayString = "${ai.image-jobs.poll-ms:2000}")
+    public synchronized void poll() {
+        if (!config.isWorkerEnabled() || stopping) {
+            return;
+        }
+        int free = config.getMaxConcurrent() - running.get();
+        if (free <= 0) {
+            return;
+        }
+        List<ClaimedJob> claimed;
+        try {
+            claimed = jdbcTemplate.query(CLAIM_SQL,
+                    (rs, rowNum) -> new ClaimedJob(rs.getLong("id"), rs.getLong("story_id"), rs.getInt("attempts")),
+                    workerId, config.getLease().toSeconds(), free);
+        } catch (Exception e) {
+            log.error("❌ Could not claim image jobs: {}", e.getMessage());
+            return;
+        }
+        for (ClaimedJob job : claimed) {
+            running.incrementAndGet();
+            try {
+                aiTaskExecutor.execute(() -> {
+                    try {
+                        process(job);
+                    } finally {
+                        running.decrementAndGet();
+                    }
+                });
+            } catch (Exception e) {
+                // Lease expiry hands it to another worker
+                running.decrementAndGet();
+                log.error("❌ Could not start image job {}: {}", job.id(), e.getMessage());
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${ai.image-jobs.cleanup-ms:3600000}")
+    public void deleteFinishedJobs() {
+        try {
+            int deleted = jdbcTemplate.update(CLEANUP_SQL, config.getRetention().toSeconds());
+            if (deleted > 0) {
+                log.debug("🧹 Deleted {} finished image jobs", deleted);
+            }
+        } catch (Exception e) {
+            log.warn("⚠️ Image job cleanup failed: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void releaseClaimedJobs() {
+        stopping = true;
+        try {
+            int released = jdbcTemplate.update(RELEASE_SQL, workerId);
+            if (released > 0) {
+                log.info("🖼️ Released {} running image jobs for other workers", released);
+            }
+        } catch (Exception e) {
+            log.warn("⚠️ Could not release image jobs, they will be picked up when their lease expires: {}",
+                    e.getMessage());
+        }
+    }
+
+    // ==================== HELPER METHODS ====================
+
+    private void process(ClaimedJob job) {
+        if (job.attempts() > config.getMaxAttempts()) {
+            // Only reachable when workers keep dying mid-job
+            fail(job, "Gave up after " + config.getMaxAttempts() + " attempts");
+            return;
+        }
+        publish(job.id());
+
+        List<StoryText> stories = jdbcTemplate.query(STORY_TEXT_SQL,
+                (rs, rowNum) -> new StoryText(rs.getString("title"), rs.getString("text"), rs.getString("email")),
+                job.storyId());
+        if (stories.isEmpty()) {
+            // Story deleted; its jobs go with it
+            return;
+        }
+        StoryText story = stories.get(0);
+
+        String imageUrl;
+        try (UsageContext.Handle ignored = UsageContext.open(
+                new UsageContext.Scope(USAGE_ENDPOINT, story.email(), "image", null))) {
+            imageUrl = aiService.generateStoryImage(story.text(), story.title()).join();
+        } catch (Exception e) {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            retryOrFail(job, cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName());
+            return;
+        }
+
+        try {
+            List<Long> authors = jdbcTemplate.queryForList(COMPLETE_SQL, Long.class,
+                    imageUrl, job.id(), workerId, imageUrl);
+            if (authors.isEmpty()) {
+                log.warn("⚠️ Image job {} was taken over by another worker or its story deleted, dropping {}", job.id(), imageUrl);
+                return;
+            }
+            evictStory(job.storyId(), authors.get(0));
+            completed.increment();
+            log.info("🖼️ Image job {} completed, story {} now has {}", job.id(), job.storyId(), imageUrl);
+        } catch (Exception e) {
+            retryOrFail(job, "Could not save image: " + e.getMessage());
+            return;
+        }
+        publish(job.id());
+    }
+
+    private void retryOrFail(ClaimedJob job, String error) {
+        if (job.attempts() >= config.getMaxAttempts()) {
+            fail(job, error);
+            return;
+        }
+        Duration delay = backoff(job.attempts());
+        try {
+            jdbcTemplate.update(FAIL_SQL, JobStatus.QUEUED.name(), delay.toSeconds(), error, job.id(), workerId);
+            retried.increment();
+            log.warn("⚠️ Image job {} attempt {} failed, retrying in {}s: {}",
+                    job.id(), job.attempts(), delay.toSeconds(), error);
+        } catch (Exception e) {
+            log.error("❌ Could not reschedule image job {}, it will be retried when its lease expires: {}",
+                    job.id(), e.getMessage());
+        }
+        publish(job.id());
+    }
+
+    private void fail(ClaimedJob job, String error) {
+        try {
+            jdbcTemplate.update(FAIL_SQL, JobStatus.FAILED.name(), 0, error, job.id(), workerId);
+            failed.increment();
+            log.error("❌ Image job {} for story {} failed: {}", job.id(), job.storyId(), error);
+        } catch (Exception e) {
+            log.error("❌ Could not mark image job {} as failed: {}", job.id(), e.getMessage());
+        }
+        publish(job.id());
+    }
+
+    private Duration backoff(int attempts) {
+        long base = config.getBaseBackoff().toSeconds();
+        long max = config.getMaxBackoff().toSeconds();
+        long delay = base << Math.min(attempts - 1, 20);
+        return Duration.ofSeconds(Math.min(delay, max));
+    }
+
+    private void wakeWorkersAfterCommit() {
+        if (!config.isWorkerEnabled()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    aiTaskExecutor.execute(ImageJobServiceImpl.this::poll);
+                }
+            });
+        } else {
+            aiTaskExecutor.execute(this::poll);
+        }
+    }
+
+    private void evictStory(Long storyId, Long userId) {
+        Cache stories = cacheManager.getCache("stories");
+        if (stories != null) {
+            stories.evict(storyId);
+        }
+        Cache userStories = cacheManager.getCache("user-stories");
+        if (userStories != null) {
+            userStories.evict(userId);
+        }
+    }
+
+    private void publish(long jobId) {
+        try {
+            // Runs on worker threads with no principal; the topic is guarded at subscription
+            ImageJobResponse job = findJob(jobId);
+            messagingTemplate.convertAndSend(STORY_TOPIC + job.getStoryId() + "/image", job);
+        } catch (Exception e) {
+            log.warn("Could not publish image job {}: {}", jobId, e.getMessage());
+        }
+    }
+
+    private ImageJobResponse findJob(Long jobId) {
+        List<ImageJobResponse> jobs = jdbcTemplate.query(SELECT_JOB_SQL, jobMapper, jobId);
+        if (jobs.isEmpty()) {
+            throw new ResourceNotFoundException("Image job not found: " + jobId);
+        }
+        return jobs.get(0);
+    }
+
+    private boolean canView(Long storyId, User user) {
+        List<StoryRepository.StoryTextView> stories = storyRepository.findTextsByIds(List.of(storyId));
+        if (stories.isEmpty()) {
+            return false;
+        }
+        StoryRepository.StoryTextView story = stories.get(0);
+        return user.getId().equals(story.getUserId())
+                || (story.getFamilyId() != null && familyRepository.isMember(story.getFamilyId(), user.getId()));
+    }
+
+    private User currentUser() {
+        String email = SecurityUtils.getCurrentUsername();
+        if (email == null) {
+            throw new UnauthorizedException("Not authenticated");
+        }
+        return userRepository.findByEmail(email)
+                .orElseThrow(() -> new UnauthorizedException("User not found"));
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+
+    private static String workerId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "node";
+        }
+        return host + ":" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
@@ -0,0 +1,383 @@
+package com.example.memory_keeper.service.impl;
+
+import com.example.memory_keeper.config.PromptPoolConfig;
+import com.example.memory_keeper.model.entity.Prompt;
+import com.example.memory_keeper.model.enums.StoryCategory;
+import com.example.memory_keeper.repository.PromptRepository;
+import com.example.memory_keeper.security.SecurityUtils;
+import com.example.memory_keeper.service.AIService;
+import com.example.memory_keeper.service.PromptService;
+import com.example.memory_keeper.util.AliasSampler;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Daily prompts served from a pool in the prompts table.
+ *
+ * Active prompts are held in memory per StoryCategory with an alias table,
+ * so picking one is O(1) and needs no database round trip. Prompts are
+ * weighted by 1 / (1 + usage_count)^exponent, so less-used ones come up
+ * more often, and a user is not shown one of their recent prompts again.
+ *
+ * Usage counts are kept in memory and added to the table in batches. The
+ * snapshot refreshes incrementally from prompts.updated_at, and the weights
+ * of categories that were used since are rebuilt at the same time. A
+ * scheduled refill tops each category up to pool-size with Groq and then
+ * reloads everything, picking up other instances' usage. The refill runs on
+ * aiTaskExecutor, so its Groq calls don't hold a scheduler thread.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class PromptServiceImpl implements PromptService {
+
+    private static final String FALLBACK_PROMPT = "What's a happy memory that always makes you smile?";
+    private static final String USAGE_SQL = "UPDATE prompts SET usage_count = usage_count + ? WHERE id = ?";
+    private static final int MAX_DRAWS = 8;
+    // Overlap between incremental refreshes, for rows committed while the last one ran
+    private static final Duration REFRESH_OVERLAP = Duration.ofSeconds(5);
+
+    private final PromptRepository promptRepository;
+    private final AIService aiService;
+    private final PromptPoolConfig config;
+    private final JdbcTemplate jdbcTemplate;
+    private final AsyncTaskExecutor aiTaskExecutor;
+
+    private static final class PromptState {
+        final Long id;
+        final StoryCategory category;
+        final String content;
+        final AtomicLong usage;
+
+        PromptState(Long id, StoryCategory category, String content, long usage) {
+            this.id = id;
+            this.category = category;
+            this.content = content;
+            this.usage = new AtomicLong(usage);
+        }
+    }
+
+    private record CategoryPool(PromptState[] prompts, AliasSampler sampler) {
+    }
+
+    // Every active prompt; changed only by refreshes, under refreshLock
+    private final Map<Long, PromptState> active = new ConcurrentHashMap<>();
+    private volatile Map<StoryCategory, CategoryPool> pools = Map.of();
+    private final Set<StoryCategory> usedSinceRebuild = ConcurrentHashMap.newKeySet();
+    private final Map<Long, Long> pendingUsage = new ConcurrentHashMap<>();
+    private final Map<String, Deque<Long>> recentByUser = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Deque<Long>> eldest) {
+            return size() > config.getMaxTrackedUsers();
+        }
+    };
+    private final Object refreshLock = new Object();
+    private final AtomicBoolean refilling = new AtomicBoolean();
+    private LocalDateTime lastRefresh;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        try {
+            reloadAll();
+        } catch (Exception e) {
+            log.error("❌ Could not load the prompt pool", e);
+        }
+    }
+
+    @Override
+    public String getDailyPrompt(String category) {
+        Map<StoryCategory, CategoryPool> current = pools;
+        CategoryPool pool = current.get(parseCategory(category));
+        if (pool == null) {
+            pool = current.get(StoryCategory.GENERAL);
+        }
+        if (pool == null) {
+            return FALLBACK_PROMPT;
+        }
+
+        PromptState prompt = pick(pool, SecurityUtils.getCurrentUsername());
+        prompt.usage.incrementAndGet();
+        pendingUsage.merge(prompt.id, 1L, Long::sum);
+        usedSinceRebuild.add(prompt.category);
+        return prompt.content;
+    }
+
+    @Scheduled(fixedDelayString = "${ai.prompts.refresh-ms:60000}", initialDelayString = "${ai.prompts.refresh-ms:60000}")
+    public void refresh() {
+        synchronized (refreshLock) {
+            if (lastRefresh == null) {
+                reloadAll();
+                return;
+            }
+            LocalDateTime started = LocalDateTime.now();
+            List<Prompt> changed = promptRepository.findByUpdatedAtAfter(lastRefresh.minus(REFRESH_OVERLAP));
+            Set<StoryCategory> dirty = new HashSet<>(drainUsed());
+            for (Prompt prompt : changed) {
+                PromptState previous = active.remove(prompt.getId());
+                if (previous != null) {
+                    dirty.add(previous.category);
+                }
+                if (Boolean.TRUE.equals(prompt.getIsActive()) && prompt.getCategory() != null) {
+                    PromptState state = toState(prompt, previous != null ? previous.usage.get() : null);
+                    active.put(state.id, state);
+                    dirty.add(state.category);
+                }
+            }
+            lastRefresh = started;
+            rebuild(dirty);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${ai.prompts.refill-ms:3600000}", initialDelayString = "${ai.prompts.refill-initial-delay-ms:60000}")
+    public void refill() {
+        if (!refilling.compareAndSet(false, true)) {
+            log.info("⏭️ Prompt refill still running, skipping this one");
+            return;
+        }
+        aiTaskExecutor.execute(() -> {
+            try {
+                doRefill();
+            } catch (RuntimeException e) {
+                log.error("❌ Prompt refill failed", e);
+            } finally {
+                refilling.set(false);
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${ai.prompts.usage-flush-ms:10000}")
+    public void flushUsage() {
+        Map<Long, Long> drained = new HashMap<>();
+        for (Long id : pendingUsage.keySet()) {
+            Long count = pendingUsage.remove(id);
+            if (count != null) {
+                drained.put(id, count);
+            }
+        }
+        if (drained.isEmpty()) {
+            return;
+        }
+        try {
+            List<Object[]> rows = drained.entrySet().stream()
+                    .map(e -> new Object[]{e.getValue(), e.getKey()})
+                    .toList();
+            jdbcTemplate.batchUpdate(USAGE_SQL, rows);
+        } catch (Exception e) {
+            drained.forEach((id, count) -> pendingUsage.merge(id, count, Long::sum));
+            log.warn("⚠️ Could not write usage of {} prompts, will retry: {}", drained.size(), e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flushUsage();
+    }
+
+    // ==================== HELPER METHODS ====================
+
+    private void doRefill() {
+        if (config.isRefillEnabled()) {
+            int calls = 0;
+            for (StoryCategory category : StoryCategory.values()) {
+                if (calls >= config.getMaxCallsPerRefill()) {
+                    break;
+                }
+                calls += topUp(category, config.getMaxCallsPerRefill() - calls);
+            }
+        }
+        reloadAll();
+    }
+
+    /**
+     * Draws by weight, redrawing a few times if the user saw the prompt
+     * recently; if every draw was recent, takes any prompt they haven't seen.
+     */
+    private PromptState pick(CategoryPool pool, String user) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (user == null || config.getRecentPerUser() <= 0) {
+            return pool.prompts()[pool.sampler().sample(random)];
+        }
+        synchronized (recentByUser) {
+            Deque<Long> recent = recentByUser.computeIfAbsent(user, u -> new ArrayDeque<>());
+            PromptState chosen = null;
+            for (int draw = 0; draw < MAX_DRAWS && chosen == null; draw++) {
+                PromptState candidate = pool.prompts()[pool.sampler().sample(random)];
+                if (!recent.contains(candidate.id)) {
+                    chosen = candidate;
+                }
+            }
+            if (chosen == null) {
+                chosen = unseen(pool, recent, random);
+            }
+            recent.remove(chosen.id);
+            recent.addLast(chosen.id);
+            while (recent.size() > config.getRecentPerUser()) {
+                recent.removeFirst();
+            }
+            return chosen;
+        }
+    }
+
+    private PromptState unseen(CategoryPool pool, Deque<Long> recent, ThreadLocalRandom random) {
+        PromptState[] prompts = pool.prompts();
+        int offset = random.nextInt(prompts.length);
+        for (int i = 0; i < prompts.length; i++) {
+            PromptState candidate = prompts[(offset + i) % prompts.length];
+            if (!recent.contains(candidate.id)) {
+                return candidate;
+            }
+        }
+        // The user has seen the whole category lately; repeat the one seen longest ago
+        Set<Long> inPool = new HashSet<>();
+        for (PromptState prompt : prompts) inPool.add(prompt.id);
+        Long oldest = recent.stream().filter(inPool::contains).findFirst().orElse(prompts[0].id);
+        return active.getOrDefault(oldest, prompts[0]);
+    }
+
+    private void reloadAll() {
+        synchronized (refreshLock) {
+            LocalDateTime started = LocalDateTime.now();
+            Map<Long, PromptState> loaded = new HashMap<>();
+            for (Prompt prompt : promptRepository.findByIsActiveTrue()) {
+                if (prompt.getCategory() != null) {
+                    loaded.put(prompt.getId(), toState(prompt, null));
+                }
+            }
+            active.clear();
+            active.putAll(loaded);
+            drainUsed();
+            lastRefresh = started;
+            rebuild(List.of(StoryCategory.values()));
+            log.info("💡 Prompt pool loaded: {} prompts in {} categories", loaded.size(), pools.size());
+        }
+    }
+
+    /**
+     * Rebuilds the alias tables of the given categories from the current usage counts.
+     */
+    private void rebuild(Collection<StoryCategory> categories) {
+        if (categories.isEmpty()) {
+            return;
+        }
+        Set<StoryCategory> wanted = Set.copyOf(categories);
+        Map<StoryCategory, List<PromptState>> byCategory = active.values().stream()
+                .filter(p -> wanted.contains(p.category))
+                .collect(Collectors.groupingBy(p -> p.category));
+
+        Map<StoryCategory, CategoryPool> next = new EnumMap<>(StoryCategory.class);
+        next.putAll(pools);
+        for (StoryCategory category : wanted) {
+            List<PromptState> prompts = byCategory.get(category);
+            if (prompts == null || prompts.isEmpty()) {
+                next.remove(category);
+                continue;
+            }
+            double[] weights = new double[prompts.size()];
+            for (int i = 0; i < weights.length; i++) {
+                weights[i] = Math.pow(1 + prompts.get(i).usage.get(), -config.getUsageWeightExponent());
+            }
+            next.put(category, new CategoryPool(prompts.toArray(new PromptState[0]), new AliasSampler(weights)));
+        }
+        pools = next;
+    }
+
+    private Set<StoryCategory> drainUsed() {
+        Set<StoryCategory> used = new HashSet<>();
+        for (StoryCategory category : StoryCategory.values()) {
+            if (usedSinceRebuild.remove(category)) {
+                used.add(category);
+            }
+        }
+        return used;
+    }
+
+    // Usage counted here but not yet written is added to the table's count
+    private PromptState toState(Prompt prompt, Long knownUsage) {
+        long usage = knownUsage != null ? knownUsage
+                : (prompt.getUsageCount() != null ? prompt.getUsageCount() : 0) + pendingUsage.getOrDefault(prompt.getId(), 0L);
+        return new PromptState(prompt.getId(), parseCategory(prompt.getCategory()), prompt.getContent(), usage);
+    }
+
+    /**
+     * Generates prompts until the category's pool is full or the call budget is spent; returns the calls made.
+     */
+    private int topUp(StoryCategory category, int maxCalls) {
+        long missing = config.getPoolSize() - promptRepository.countByCategoryAndIsActiveTrue(category.name());
+        if (missing <= 0) {
+            return 0;
+        }
+        Set<String> known = promptRepository.findByCategory(category.name()).stream()
+                .map(p -> normalize(p.getContent()))
+                .collect(Collectors.toCollection(HashSet::new));
+
+        int calls = 0;
+        int added = 0;
+        while (added < missing && calls < maxCalls) {
+            calls++;
+            List<String> generated;
+            try {
+                generated = aiService.generatePrompts(category.name().toLowerCase(Locale.ROOT),
+                        (int) Math.min(config.getBatchSize(), missing - added));
+            } catch (Exception e) {
+                log.warn("⚠️ Could not generate {} prompts: {}", category, e.getMessage());
+                break;
+            }
+            List<Prompt> fresh = new ArrayList<>();
+            for (String content : generated) {
+                if (known.add(normalize(content))) {
+                    fresh.add(Prompt.builder()
+                            .content(content)
+                            .category(category.name())
+                            .isActive(true)
+                            .usageCount(0)
+                            .build());
+                }
+            }
+            promptRepository.saveAll(fresh);
+            added += fresh.size();
+        }
+        if (added > 0) {
+            log.info("💡 Added {} {} prompts to the pool", added, category);
+        }
+        return calls;
+    }
+
+    private static StoryCategory parseCategory(String category) {
+        try {
+            return StoryCategory.valueOf(category.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException | NullPointerException e) {
+            return StoryCategory.GENERAL;
+        }
+    }
+
+    private static String normalize(String content) {
+        return content.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9 ]", "").trim();
+    }
+}
@@ -0,0 +1,296 @@
+package com.example.memory_keeper.service.impl;
+
+import com.example.memory_keeper.ai.EmbeddingProvider;
+import com.example.memory_keeper.ai.HnswIndex;
+import com.example.memory_keeper.config.EmbeddingConfig;
+import com.example.memory_keeper.dto.response.StoryMatchResponse;
+import com.example.memory_keeper.event.StoryChangedEvent;
+import com.example.memory_keeper.exception.ResourceNotFoundException;
+import com.example.memory_keeper.exception.UnauthorizedException;
+import com.example.memory_keeper.model.entity.Story;
+import com.example.memory_keeper.model.entity.StoryEmbedding;
+import com.example.memory_keeper.model.entity.User;
+import com.example.memory_keeper.repository.FamilyRepository;
+import com.example.memory_keeper.repository.StoryEmbeddingRepository;
+import com.example.memory_keeper.repository.StoryRepository;
+import com.example.memory_keeper.repository.UserRepository;
+import com.example.memory_keeper.security.SecurityUtils;
+import com.example.memory_keeper.service.SemanticSearchService;
+import com.example.memory_keeper.util.VectorUtils;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Semantic search and "similar memories" over story embeddings.
+ *
+ * Each story is embedded once, after its creation commits, and the vector
+ * is stored in story_embeddings. Serving happens from in-memory HNSW
+ * indexes, one per family (stories without a family are partitioned by
+ * author), which are rebuilt from the table at startup. Stories that have
+ * no embedding from the current model yet, e.g. after switching provider,
+ * are embedded in the background after the rebuild.
+ *
+ * Exposes ai.embedding.latency, ai.vector.search.latency and ai.vector.index.size.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class SemanticSearchServiceImpl implements SemanticSearchService {
+
+    private static final int REBUILD_PAGE_SIZE = 500;
+
+    private final EmbeddingProvider embeddingProvider;
+    private final StoryEmbeddingRepository embeddingRepository;
+    private final StoryRepository storyRepository;
+    private final UserRepository userRepository;
+    private final FamilyRepository familyRepository;
+    private final EmbeddingConfig config;
+    private final MeterRegistry meterRegistry;
+    private final AsyncTaskExecutor aiTaskExecutor;
+
+    private final Map<String, HnswIndex> partitions = new ConcurrentHashMap<>();
+    private final Map<Long, String> partitionOfStory = new ConcurrentHashMap<>();
+    private Timer embeddingTimer;
+    private Timer searchTimer;
+
+    @PostConstruct
+    void initMetrics() {
+        embeddingTimer = meterRegistry.timer("ai.embedding.latency", "model", embeddingProvider.model());
+        searchTimer = meterRegistry.timer("ai.vector.search.latency");
+        Gauge.builder("ai.vector.index.size", partitionOfStory, Map::size)
+                .description("Stories in the in-memory vector index")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        aiTaskExecutor.execute(() -> {
+            try {
+                rebuild();
+                backfill();
+            } catch (Exception e) {
+                log.error("❌ Vector index rebuild failed", e);
+            }
+        });
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onStoryChanged(StoryChangedEvent event) {
+        if (event.deleted()) {
+            unindex(event.storyId());
+            return;
+        }
+        aiTaskExecutor.execute(() -> {
+            try {
+                embedStories(List.of(event.storyId()));
+            } catch (IOException | RuntimeException e) {
+                // Picked up again by the backfill on the next start
+                log.warn("⚠️ Could not embed story {}: {}", event.storyId(), e.getMessage());
+            }
+        });
+    }
+
+    @Override
+    public List<StoryMatchResponse> findSimilarStories(Long storyId, int limit) {
+        List<StoryRepository.StoryTextView> stories = storyRepository.findTextsByIds(List.of(storyId));
+        if (stories.isEmpty()) {
+            throw new ResourceNotFoundException("Story not found with id: " + storyId);
+        }
+        StoryRepository.StoryTextView story = stories.get(0);
+        User caller = currentUser();
+        if (!caller.getId().equals(story.getUserId())
+                && (story.getFamilyId() == null || !familyRepository.isMember(story.getFamilyId(), caller.getId()))) {
+            throw new UnauthorizedException("You are not a member of this story's family");
+        }
+        if (!partitionOfStory.containsKey(storyId)) {
+            try {
+                embedStories(List.of(storyId));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        HnswIndex index = partitions.get(partitionOfStory.get(storyId));
+        float[] vector = index != null ? index.vector(storyId) : null;
+        if (vector == null) {
+            return List.of();
+        }
+        return toResponses(searchTimer.record(() ->
+                index.search(vector, limit, config.getIndex().getEfSearch(), storyId)));
+    }
+
+    @Override
+    public List<StoryMatchResponse> search(String query, Long familyId, int limit) {
+        User caller = currentUser();
+        String partition;
+        if (familyId != null) {
+            if (!familyRepository.isMember(familyId, caller.getId())) {
+                throw new UnauthorizedException("You are not a member of this family");
+            }
+            partition = partitionKey(familyId, caller.getId());
+        } else {
+            partition = partitionKey(caller.getFamily() != null ? caller.getFamily().getId() : null, caller.getId());
+        }
+
+        HnswIndex index = partitions.get(partition);
+        if (index == null) {
+            return List.of();
+        }
+        float[] vector;
+        try {
+            vector = embed(List.of(query)).get(0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return toResponses(searchTimer.record(() ->
+                index.search(vector, limit, config.getIndex().getEfSearch(), null)));
+    }
+
+    // ==================== HELPER METHODS ====================
+
+    private void rebuild() {
+        long started = System.currentTimeMillis();
+        int loaded = 0;
+        Page<StoryEmbedding> page;
+        int pageNumber = 0;
+        do {
+            page = embeddingRepository.findByModel(embeddingProvider.model(),
+                    PageRequest.of(pageNumber++, REBUILD_PAGE_SIZE, Sort.by("storyId")));
+            for (StoryEmbedding embedding : page) {
+                index(embedding.getStoryId(), partitionKey(embedding.getFamilyId(), embedding.getUserId()),
+                        VectorUtils.fromBytes(embedding.getVector()));
+                loaded++;
+            }
+        } while (page.hasNext());
+        log.info("🧭 Vector index rebuilt: {} stories in {} partitions ({} ms)",
+                loaded, partitions.size(), System.currentTimeMillis() - started);
+    }
+
+    private void backfill() throws IOException {
+        int embedded = 0;
+        while (true) {
+            List<Long> ids = storyRepository.findIdsWithoutEmbedding(embeddingProvider.model(),
+                    PageRequest.of(0, config.getBackfillBatchSize()));
+            if (ids.isEmpty()) break;
+            if (embedStories(ids) == 0) break; // Stories vanished meanwhile; don't spin
+            embedded += ids.size();
+        }
+        if (embedded > 0) {
+            log.info("🧭 Embedded {} stories missing from the vector index", embedded);
+        }
+    }
+
+    private int embedStories(Collection<Long> storyIds) throws IOException {
+        List<StoryRepository.StoryTextView> stories = storyRepository.findTextsByIds(storyIds);
+        if (stories.isEmpty()) return 0;
+
+        List<String> texts = stories.stream().map(this::embeddingText).toList();
+        List<float[]> vectors = embed(texts);
+
+        List<StoryEmbedding> rows = new ArrayList<>(stories.size());
+        for (int i = 0; i < stories.size(); i++) {
+            StoryRepository.StoryTextView story = stories.get(i);
+            float[] vector = vectors.get(i);
+            rows.add(StoryEmbedding.builder()
+                    .storyId(story.getId())
+                    .userId(story.getUserId())
+                    .familyId(story.getFamilyId())
+                    .model(embeddingProvider.model())
+                    .dimensions(vector.length)
+                    .vector(VectorUtils.toBytes(vector))
+                    .build());
+            index(story.getId(), partitionKey(story.getFamilyId(), story.getUserId()), vector);
+        }
+        embeddingRepository.saveAll(rows);
+        return rows.size();
+    }
+
+    private List<float[]> embed(List<String> texts) throws IOException {
+        long start = System.nanoTime();
+        try {
+            return embeddingProvider.embedAll(texts);
+        } finally {
+            embeddingTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void index(Long storyId, String partition, float[] vector) {
+        String previous = partitionOfStory.put(storyId, partition);
+        if (previous != null && !previous.equals(partition)) {
+            HnswIndex old = partitions.get(previous);
+            if (old != null) old.remove(storyId);
+        }
+        partitions.computeIfAbsent(partition, p -> new HnswIndex(config.getIndex().getM(),
+                config.getIndex().getEfConstruction())).add(storyId, vector);
+    }
+
+    private void unindex(Long storyId) {
+        String partition = partitionOfStory.remove(storyId);
+        HnswIndex index = partition != null ? partitions.get(partition) : null;
+        if (index != null) {
+            index.remove(storyId);
+        }
+    }
+
+    private String embeddingText(StoryRepository.StoryTextView story) {
+        String text = (story.getTitle() != null ? story.getTitle() + "\n" : "") + story.getText();
+        return text.length() > config.getMaxChars() ? text.substring(0, config.getMaxChars()) : text;
+    }
+
+    private static String partitionKey(Long familyId, Long userId) {
+        return familyId != null ? "family:" + familyId : "user:" + userId;
+    }
+
+    private List<StoryMatchResponse> toResponses(List<HnswIndex.Match> matches) {
+        Map<Long, Story> stories = storyRepository.findAllById(matches.stream().map(HnswIndex.Match::id).toList())
+                .stream().collect(Collectors.toMap(Story::getId, Function.identity()));
+        return matches.stream()
+                .filter(match -> stories.containsKey(match.id()))
+                .map(match -> {
+                    Story story = stories.get(match.id());
+                    return StoryMatchResponse.builder()
+                            .storyId(story.getId())
+                            .userId(story.getUser().getId())
+                            .title(story.getTitle())
+                            .summary(story.getSummary())
+                            .imageUrl(story.getImageUrl())
+                            .category(story.getCategory() != null ? story.getCategory().toString() : null)
+                            .score(match.score())
+                            .build();
+                })
+                .collect(Collectors.toList());
+    }
+
+    private User currentUser() {
+        String email = SecurityUtils.getCurrentUsername();
+        if (email == null) {
+            throw new UnauthorizedException("Not authenticated");
+        }
+        return userRepository.findByEmailWithFamily(email)
+                .orElseThrow(() -> new UnauthorizedException("User not found"));
+    }
+}
@@ -1,18 +1,22 @@
 package com.example.memory_keeper.service.impl;
 
+import com.example.memory_keeper.config.AIImageJobsConfig;
 import com.example.memory_keeper.dto.request.StoryRequest;
 import com.example.memory_keeper.dto.response.StoryResponse;
+import com.example.memory_keeper.event.StoryChangedEvent;
 import com.example.memory_keeper.exception.ResourceNotFoundException;
 import com.example.memory_keeper.model.entity.*;
 import com.example.memory_keeper.model.enums.EmotionType;
 import com.example.memory_keeper.model.enums.ReactionType;
 import com.example.memory_keeper.model.enums.StoryCategory;
 import com.example.memory_keeper.repository.*;
+import com.example.memory_keeper.service.ImageJobService;
 import com.example.memory_keeper.service.StoryService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -35,6 +39,9 @@ public class StoryServiceImpl implements StoryService {
     private final ReactionRepository reactionRepository;
     private final CommentRepository commentRepository;
     private final EmotionRepository emotionRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ImageJobService imageJobService;
+    private final AIImageJobsConfig imageJobsConfig;
 
 
     @Override
@@ -95,7 +102,14 @@ public class StoryServiceImpl implements StoryService {
         user.setTotalStories(currentStories + 1);
         userRepository.save(user);
 
+        // Queued in this transaction, so the image job commits (or rolls back) with the story
+        if (imageJobsConfig.isEnqueueOnCreate()
+                && (savedStory.getImageUrl() == null || savedStory.getImageUrl().isBlank())) {
+            imageJobService.enqueue(savedStory.getId());
+        }
+
         log.info("Story created: {} by user: {}", savedStory.getId(), user.getId());
+        eventPublisher.publishEvent(new StoryChangedEvent(savedStory.getId(), user.getId(), false));
 
         return convertToResponse(savedStory);
     }
@@ -188,6 +202,7 @@ public class StoryServiceImpl implements StoryService {
 
         storyRepository.delete(story);
         log.info("Story deleted: {}", id);
+        eventPublisher.publishEvent(new StoryChangedEvent(id, story.getUser().getId(), true));
     }
 
     // ==================== HELPER METHODS ====================
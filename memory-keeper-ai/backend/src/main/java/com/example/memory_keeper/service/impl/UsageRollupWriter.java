@@ -0,0 +1,109 @@
+package com.example.memory_keeper.service.impl;
+
+import com.example.memory_keeper.ai.UsageRecorder;
+import com.example.memory_keeper.config.AIUsageConfig;
+import com.example.memory_keeper.model.entity.User;
+import com.example.memory_keeper.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Periodically adds the usage collected by UsageRecorder to the daily
+ * ai_usage_rollups table, one upsert per (day, provider, unit, endpoint,
+ * user, family). Users are resolved to ids and families here, once per
+ * flush, rather than on every AI call.
+ *
+ * Rows are written one at a time, so a row the database rejects does not
+ * hold back the others. A failed row is put back and retried on the next
+ * flush, and dropped after ai.usage.max-write-attempts failures.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class UsageRollupWriter {
+
+    private static final String UPSERT_SQL = "INSERT INTO ai_usage_rollups " +
+            "(usage_date, provider, unit, endpoint, user_id, family_id, amount, calls, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, CURRENT_TIMESTAMP) " +
+            "ON CONFLICT (usage_date, provider, unit, endpoint, user_id, family_id) DO UPDATE SET " +
+            "amount = ai_usage_rollups.amount + EXCLUDED.amount, " +
+            "calls = ai_usage_rollups.calls + EXCLUDED.calls, " +
+            "updated_at = CURRENT_TIMESTAMP";
+
+    // Width of ai_usage_rollups.endpoint (V4)
+    private static final int MAX_ENDPOINT_LENGTH = 150;
+
+    private final UsageRecorder usageRecorder;
+    private final UserRepository userRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final AIUsageConfig config;
+
+    // Consecutive failed writes per rollup; only touched under the flush lock
+    private final Map<UsageRecorder.RollupKey, Integer> failedAttempts = new HashMap<>();
+
+    private record Owner(long userId, long familyId) {
+        static final Owner NONE = new Owner(0, 0);
+    }
+
+    @Scheduled(fixedDelayString = "${ai.usage.flush-ms:60000}")
+    public synchronized void flush() {
+        Map<UsageRecorder.RollupKey, UsageRecorder.Totals> rollups = usageRecorder.drain();
+        if (rollups.isEmpty()) {
+            return;
+        }
+        Map<String, Owner> owners = new HashMap<>();
+        Map<UsageRecorder.RollupKey, UsageRecorder.Totals> retry = new HashMap<>();
+        int written = 0;
+        for (Map.Entry<UsageRecorder.RollupKey, UsageRecorder.Totals> rollup : rollups.entrySet()) {
+            UsageRecorder.RollupKey key = rollup.getKey();
+            UsageRecorder.Totals totals = rollup.getValue();
+            try {
+                Owner owner = key.userEmail() == null ? Owner.NONE
+                        : owners.computeIfAbsent(key.userEmail(), this::resolve);
+                jdbcTemplate.update(UPSERT_SQL, Date.valueOf(key.day()), key.provider().getKey(), key.unit().getKey(),
+                        truncate(key.endpoint()), owner.userId(), owner.familyId(), totals.amount(), totals.calls());
+                failedAttempts.remove(key);
+                written++;
+            } catch (Exception e) {
+                int attempts = failedAttempts.merge(key, 1, Integer::sum);
+                if (attempts >= config.getMaxWriteAttempts()) {
+                    failedAttempts.remove(key);
+                    log.error("❌ Dropping usage rollup {} after {} failed writes: {}", key, attempts, e.getMessage());
+                } else {
+                    retry.put(key, totals);
+                    log.warn("⚠️ Failed to write usage rollup {} (attempt {}), will retry: {}", key, attempts, e.getMessage());
+                }
+            }
+        }
+        if (!retry.isEmpty()) {
+            usageRecorder.restore(retry);
+        }
+        log.debug("📊 Wrote {} usage rollups", written);
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+
+    // ==================== HELPER METHODS ====================
+
+    private Owner resolve(String email) {
+        Optional<User> user = userRepository.findByEmailWithFamily(email);
+        return user.map(u -> new Owner(u.getId(), u.getFamily() != null ? u.getFamily().getId() : 0))
+                .orElse(Owner.NONE);
+    }
+
+    private static String truncate(String endpoint) {
+        return endpoint.length() > MAX_ENDPOINT_LENGTH ? endpoint.substring(0, MAX_ENDPOINT_LENGTH) : endpoint;
+    }
+}
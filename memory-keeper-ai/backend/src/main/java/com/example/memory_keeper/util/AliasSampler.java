@@ -0,0 +1,65 @@
+package com.example.memory_keeper.util;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.random.RandomGenerator;
+
+/**
+ * Weighted random sampling in O(1) per draw (Vose's alias method).
+ *
+ * Building the table is O(n). Each of the n slots holds its own index with
+ * some probability and an alias with the rest, so a draw is one uniform
+ * slot pick plus one biased coin flip. Immutable once built.
+ */
+public final class AliasSampler {
+
+    private final double[] probability;
+    private final int[] alias;
+
+    public AliasSampler(double[] weights) {
+        int n = weights.length;
+        probability = new double[n];
+        alias = new int[n];
+        if (n == 0) return;
+
+        double total = 0;
+        for (double weight : weights) {
+            if (weight < 0 || Double.isNaN(weight)) {
+                throw new IllegalArgumentException("Weights must be non-negative");
+            }
+            total += weight;
+        }
+
+        double[] scaled = new double[n];
+        Deque<Integer> small = new ArrayDeque<>();
+        Deque<Integer> large = new ArrayDeque<>();
+        for (int i = 0; i < n; i++) {
+            // All-zero weights: sample uniformly
+            scaled[i] = total > 0 ? weights[i] * n / total : 1;
+            (scaled[i] < 1 ? small : large).push(i);
+        }
+        while (!small.isEmpty() && !large.isEmpty()) {
+            int less = small.pop();
+            int more = large.pop();
+            probability[less] = scaled[less];
+            alias[less] = more;
+            scaled[more] = scaled[more] + scaled[less] - 1;
+            (scaled[more] < 1 ? small : large).push(more);
+        }
+        // Leftovers are 1 up to rounding error
+        while (!large.isEmpty()) probability[large.pop()] = 1;
+        while (!small.isEmpty()) probability[small.pop()] = 1;
+    }
+
+    public int size() {
+        return probability.length;
+    }
+
+    /**
+     * An index, drawn with probability proportional to its weight.
+     */
+    public int sample(RandomGenerator random) {
+        int slot = random.nextInt(probability.length);
+        return random.nextDouble() < probability[slot] ? slot : alias[slot];
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.memory_keeper.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+public class Mp3Utils {
+
+    // Bitrates in kbps for MPEG-1 and MPEG-2/2.5 Layer III, by header index
+    private static final int[] BITRATES_V1 = {0, 32, 40, 48, 56, 64, 80, 96, 112, 128, 160, 192, 224, 256, 320, 0};
+    private static final int[] BITRATES_V2 = {0, 8, 16, 24, 32, 40, 48, 56, 64, 80, 96, 112, 128, 144, 160, 0};
+    private static final int[][] SAMPLE_RATES = {
+            {11025, 12000, 8000},   // MPEG 2.5
+            {0, 0, 0},              // reserved
+            {22050, 24000, 16000},  // MPEG 2
+            {44100, 48000, 32000}   // MPEG 1
+    };
+
+    /**
+     * Writes one part's MPEG frames to out, so that calling this for each
+     * part in order concatenates MP3 files into one stream of frames.
+     *
+     * Each part loses its ID3v2 header, ID3v1 trailer and any leading
+     * Xing/Info/VBRI frame. Those describe a single file, and players would
+     * otherwise report the first chunk's duration for the whole track.
+     * Frames from different parts must share the same sample rate, which
+     * holds when they come from the same voice and provider.
+     */
+    public static void writeFrames(byte[] part, OutputStream out) throws IOException {
+        int start = skipId3v2(part);
+        int end = stripId3v1(part);
+        start = skipInfoFrame(part, start, end);
+        if (end > start) {
+            out.write(part, start, end - start);
+        }
+    }
+
+    private static int skipId3v2(byte[] data) {
+        if (data.length < 10 || data[0] != 'I' || data[1] != 'D' || data[2] != '3') {
+            return 0;
+        }
+        // Tag size is a 28-bit "syncsafe" integer (7 bits per byte)
+        int size = (data[6] & 0x7F) << 21 | (data[7] & 0x7F) << 14 | (data[8] & 0x7F) << 7 | (data[9] & 0x7F);
+        boolean hasFooter = (data[5] & 0x10) != 0;
+        return Math.min(data.length, 10 + size + (hasFooter ? 10 : 0));
+    }
+
+    private static int stripId3v1(byte[] data) {
+        int end = data.length;
+        if (end >= 128 && data[end - 128] == 'T' && data[end - 127] == 'A' && data[end - 126] == 'G') {
+            end -= 128;
+        }
+        return end;
+    }
+
+    private static int skipInfoFrame(byte[] data, int start, int end) {
+        int frame = findFrame(data, start, end);
+        if (frame < 0) {
+            return start;
+        }
+        int length = frameLength(data, frame);
+        if (length <= 0 || frame + length > end) {
+            return frame;
+        }
+        // The VBR tag sits right after the side info, at most 36 bytes into the frame
+        String head = new String(data, frame, Math.min(length, 40), StandardCharsets.ISO_8859_1);
+        if (head.contains("Xing") || head.contains("Info") || head.contains("VBRI")) {
+            return frame + length;
+        }
+        return frame;
+    }
+
+    private static int findFrame(byte[] data, int from, int end) {
+        for (int i = from; i + 4 <= end; i++) {
+            if ((data[i] & 0xFF) == 0xFF && (data[i + 1] & 0xE0) == 0xE0 && frameLength(data, i) > 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int frameLength(byte[] data, int i) {
+        int version = (data[i + 1] >> 3) & 0x03;
+        int layer = (data[i + 1] >> 1) & 0x03;
+        int bitrateIndex = (data[i + 2] >> 4) & 0x0F;
+        int sampleRateIndex = (data[i + 2] >> 2) & 0x03;
+        int padding = (data[i + 2] >> 1) & 0x01;
+
+        if (version == 1 || layer != 1 || sampleRateIndex == 3) {
+            return -1; // reserved version, not Layer III, or reserved sample rate
+        }
+        int bitrate = (version == 3 ? BITRATES_V1 : BITRATES_V2)[bitrateIndex] * 1000;
+        int sampleRate = SAMPLE_RATES[version][sampleRateIndex];
+        if (bitrate == 0) {
+            return -1;
+        }
+        int factor = version == 3 ? 144 : 72; // samples per frame / 8
+        return factor * bitrate / sampleRate + padding;
+    }
+}
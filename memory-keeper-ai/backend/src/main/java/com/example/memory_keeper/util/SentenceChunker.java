@@ -0,0 +1,58 @@
+package com.example.memory_keeper.util;
+
+import java.text.BreakIterator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+public class SentenceChunker {
+
+    /**
+     * Splits text into chunks of at most maxChars, breaking only between
+     * sentences. Consecutive sentences are packed into the same chunk. A
+     * single sentence longer than maxChars is split at the last space that
+     * fits, or hard-split if there is none.
+     */
+    public static List<String> chunk(String text, int maxChars) {
+        List<String> chunks = new ArrayList<>();
+        if (text == null || text.isBlank()) {
+            return chunks;
+        }
+
+        BreakIterator sentences = BreakIterator.getSentenceInstance(Locale.ENGLISH);
+        sentences.setText(text);
+
+        StringBuilder current = new StringBuilder();
+        int start = sentences.first();
+        for (int end = sentences.next(); end != BreakIterator.DONE; start = end, end = sentences.next()) {
+            String sentence = text.substring(start, end).trim();
+            if (sentence.isEmpty()) {
+                continue;
+            }
+
+            if (current.length() > 0 && current.length() + 1 + sentence.length() > maxChars) {
+                chunks.add(current.toString());
+                current.setLength(0);
+            }
+
+            while (sentence.length() > maxChars) {
+                int cut = sentence.lastIndexOf(' ', maxChars);
+                if (cut <= 0) {
+                    cut = maxChars;
+                }
+                chunks.add(sentence.substring(0, cut).trim());
+                sentence = sentence.substring(cut).trim();
+            }
+
+            if (current.length() > 0) {
+                current.append(' ');
+            }
+            current.append(sentence);
+        }
+
+        if (current.length() > 0) {
+            chunks.add(current.toString());
+        }
+        return chunks;
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.memory_keeper.util;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+
+/**
+ * An OutputStream that keeps data in memory up to a threshold and then
+ * spills it to a temp file.
+ *
+ * In memory it behaves like a ByteArrayOutputStream: the array doubles as
+ * it grows, copying what was written so far, and is trimmed to size by
+ * toByteArray. Spilling writes the in-memory bytes to the file once.
+ *
+ * Heap is reserved through the given callbacks, so many buffers can share
+ * one memory budget. When a reservation is refused, the buffer spills early.
+ * Always close the buffer: that deletes the temp file and returns the
+ * reserved memory.
+ */
+public class SpooledBuffer extends OutputStream {
+
+    private final int threshold;
+    private final Path tempDir;
+    private final IntPredicate reserve;
+    private final IntConsumer release;
+
+    private byte[] memory = new byte[0];
+    private int reserved;
+    private long size;
+
+    private Path file;
+    private OutputStream fileOut;
+    private boolean closed;
+
+    public SpooledBuffer(int threshold, Path tempDir, IntPredicate reserve, IntConsumer release) {
+        this.threshold = threshold;
+        this.tempDir = tempDir;
+        this.reserve = reserve;
+        this.release = release;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (closed) {
+            throw new IOException("Buffer is closed");
+        }
+        if (file == null && !ensureMemory(size + len)) {
+            spill();
+        }
+        if (file != null) {
+            fileOut.write(b, off, len);
+        } else {
+            System.arraycopy(b, off, memory, (int) size, len);
+        }
+        size += len;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (fileOut != null) {
+            fileOut.flush();
+        }
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public boolean isInMemory() {
+        return file == null;
+    }
+
+    /**
+     * The buffered bytes. Only valid while in memory. The first call copies
+     * them into an array of exactly size() bytes, unless the buffer is full;
+     * later calls return the same instance.
+     */
+    public byte[] toByteArray() {
+        if (file != null) {
+            throw new IllegalStateException("Buffer has spilled to " + file);
+        }
+        if (memory.length != size) {
+            memory = Arrays.copyOf(memory, (int) size);
+        }
+        return memory;
+    }
+
+    /**
+     * The temp file holding the data. Only valid after spilling.
+     */
+    public File toFile() throws IOException {
+        if (file == null) {
+            throw new IllegalStateException("Buffer is in memory");
+        }
+        fileOut.flush();
+        return file.toFile();
+    }
+
+    public InputStream openStream() throws IOException {
+        if (file == null) {
+            return new ByteArrayInputStream(memory, 0, (int) size);
+        }
+        fileOut.flush();
+        return Files.newInputStream(file);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        memory = new byte[0];
+        releaseMemory();
+        if (file != null) {
+            try {
+                fileOut.close();
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    // ==================== HELPER METHODS ====================
+
+    private boolean ensureMemory(long needed) {
+        if (needed > threshold) {
+            return false;
+        }
+        if (needed <= memory.length) {
+            return true;
+        }
+        int capacity = (int) Math.min(threshold, Math.max(needed, Math.max(8192, (long) memory.length * 2)));
+        int extra = capacity - reserved;
+        if (!reserve.test(extra)) {
+            return false;
+        }
+        reserved = capacity;
+        memory = Arrays.copyOf(memory, capacity);
+        return true;
+    }
+
+    private void spill() throws IOException {
+        file = Files.createTempFile(tempDir, "media-", ".spool");
+        fileOut = new BufferedOutputStream(Files.newOutputStream(file), 64 * 1024);
+        fileOut.write(memory, 0, (int) size);
+        memory = new byte[0];
+        releaseMemory();
+    }
+
+    private void releaseMemory() {
+        if (reserved > 0) {
+            release.accept(reserved);
+            reserved = 0;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+-- src/main/resources/db/migration/V2__create_story_embeddings.sql
+
+-- One embedding vector per story, loaded into the in-memory ANN index at startup.
+-- family_id / user_id are denormalised so the index can be partitioned without joins.
+CREATE TABLE IF NOT EXISTS story_embeddings (
+    story_id BIGINT PRIMARY KEY REFERENCES stories(id) ON DELETE CASCADE,
+    user_id BIGINT NOT NULL,
+    family_id BIGINT,
+    model VARCHAR(255) NOT NULL,
+    dimensions INT NOT NULL,
+    vector BYTEA NOT NULL, -- float32, little-endian, L2-normalised
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_story_embeddings_model ON story_embeddings(model);
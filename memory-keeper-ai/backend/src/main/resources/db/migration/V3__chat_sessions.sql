@@ -0,0 +1,17 @@
+-- src/main/resources/db/migration/V3__chat_sessions.sql
+
+-- Group chat_messages into sessions (per user: a grandparent, a family, or a client-chosen session id)
+ALTER TABLE chat_messages ADD COLUMN IF NOT EXISTS session_key VARCHAR(100);
+CREATE INDEX IF NOT EXISTS idx_chat_messages_session ON chat_messages(user_id, session_key, created_at);
+
+-- Rolling summary of the turns of a session that are no longer sent to the model verbatim
+CREATE TABLE IF NOT EXISTS chat_summaries (
+    id BIGSERIAL PRIMARY KEY,
+    user_id BIGINT NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    session_key VARCHAR(100) NOT NULL,
+    summary TEXT NOT NULL,
+    summarized_turns INT NOT NULL DEFAULT 0,
+    summarized_through TIMESTAMP NOT NULL, -- created_at of the last message folded into the summary
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    UNIQUE (user_id, session_key)
+);
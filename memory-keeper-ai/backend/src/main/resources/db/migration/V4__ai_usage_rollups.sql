@@ -0,0 +1,19 @@
+-- src/main/resources/db/migration/V4__ai_usage_rollups.sql
+
+-- Daily AI usage per provider, unit, endpoint, user and family, upserted by UsageRollupWriter.
+-- user_id / family_id are 0 for background work and users without a family (they are part of the key).
+CREATE TABLE IF NOT EXISTS ai_usage_rollups (
+    usage_date DATE NOT NULL,
+    provider VARCHAR(30) NOT NULL,
+    unit VARCHAR(30) NOT NULL,
+    endpoint VARCHAR(150) NOT NULL,
+    user_id BIGINT NOT NULL DEFAULT 0,
+    family_id BIGINT NOT NULL DEFAULT 0,
+    amount BIGINT NOT NULL DEFAULT 0, -- tokens, characters, audio seconds or images, per unit
+    calls BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (usage_date, provider, unit, endpoint, user_id, family_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_ai_usage_rollups_family ON ai_usage_rollups(family_id, usage_date);
+CREATE INDEX IF NOT EXISTS idx_ai_usage_rollups_user ON ai_usage_rollups(user_id, usage_date);
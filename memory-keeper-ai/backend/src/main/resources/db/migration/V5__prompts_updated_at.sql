@@ -0,0 +1,6 @@
+-- src/main/resources/db/migration/V5__prompts_updated_at.sql
+
+-- Lets the prompt engine reload only prompts added or changed since its last refresh.
+-- usage_count updates deliberately leave it alone; the engine counts usage itself.
+ALTER TABLE prompts ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP;
+CREATE INDEX IF NOT EXISTS idx_prompts_updated_at ON prompts(updated_at);
@@ -0,0 +1,24 @@
+-- src/main/resources/db/migration/V6__image_jobs.sql
+
+-- Story image generation queue. Rows are written in the same transaction as the story (outbox style)
+-- and claimed by ImageJobServiceImpl workers on any node with FOR UPDATE SKIP LOCKED.
+CREATE TABLE IF NOT EXISTS image_jobs (
+    id BIGSERIAL PRIMARY KEY,
+    story_id BIGINT NOT NULL REFERENCES stories(id) ON DELETE CASCADE,
+    status VARCHAR(20) NOT NULL DEFAULT 'QUEUED', -- QUEUED, RUNNING, COMPLETED, FAILED
+    attempts INT NOT NULL DEFAULT 0,
+    available_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP, -- next attempt, pushed back after a failure
+    locked_by VARCHAR(100),
+    locked_until TIMESTAMP, -- a RUNNING job past its lease is claimed again
+    image_url TEXT,
+    last_error TEXT,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+-- At most one queued or running job per story
+CREATE UNIQUE INDEX IF NOT EXISTS idx_image_jobs_active_story ON image_jobs(story_id)
+    WHERE status IN ('QUEUED', 'RUNNING');
+
+CREATE INDEX IF NOT EXISTS idx_image_jobs_due ON image_jobs(available_at) WHERE status = 'QUEUED';
+CREATE INDEX IF NOT EXISTS idx_image_jobs_lease ON image_jobs(locked_until) WHERE status = 'RUNNING';
@@ -0,0 +1,163 @@
+package com.example.memory_keeper.ai;
+
+import com.example.memory_keeper.config.AIAsyncJobsConfig;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs the tracker against a stand-in provider that reports a job as
+ * "processing" a few times before it succeeds.
+ */
+class AsyncJobTrackerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicInteger statusCalls = new AtomicInteger();
+    private volatile int pendingPolls;
+
+    private HttpServer server;
+    private ExecutorService executor;
+    private AIAsyncJobsConfig config;
+    private AsyncJobTracker tracker;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/predictions/job-1", exchange -> {
+            String status = statusCalls.incrementAndGet() > pendingPolls ? "succeeded" : "processing";
+            byte[] body = ("{\"id\":\"job-1\",\"status\":\"" + status + "\"}").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+
+        executor = Executors.newCachedThreadPool();
+        config = new AIAsyncJobsConfig();
+        AIAsyncJobsConfig.Polling polling = new AIAsyncJobsConfig.Polling();
+        polling.setInitialDelay(Duration.ofMillis(20));
+        polling.setMaxInterval(Duration.ofMillis(50));
+        polling.setTimeout(Duration.ofSeconds(5));
+        config.getProviders().put("replicate", polling);
+        tracker = new AsyncJobTracker(config, new TaskExecutorAdapter(executor), new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    @Test
+    void pollsUntilTheJobFinishes() throws Exception {
+        pendingPolls = 2;
+        CompletableFuture<JsonNode> future = track();
+
+        JsonNode status = tickUntilDone(future);
+
+        assertThat(status.get("status").asText()).isEqualTo("succeeded");
+        assertThat(statusCalls).hasValue(3);
+    }
+
+    @Test
+    void ticksWhileAPollIsRunningDoNotPollAgain() throws Exception {
+        pendingPolls = 3;
+        CompletableFuture<JsonNode> future = track();
+
+        // Tick much faster than the poll interval; each due job is fetched once per interval
+        long until = System.currentTimeMillis() + 5000;
+        while (!future.isDone() && System.currentTimeMillis() < until) {
+            tracker.pollDueJobs();
+            Thread.sleep(1);
+        }
+
+        assertThat(future).isCompleted();
+        assertThat(statusCalls).hasValue(4);
+    }
+
+    @Test
+    void webhookFetchesStatusRightAway() throws Exception {
+        pendingPolls = 0;
+        CompletableFuture<JsonNode> future = tracker.track(AIProvider.REPLICATE, "job-1", true,
+                this::fetchStatus, status -> "succeeded".equals(status.get("status").asText()));
+
+        assertThat(tracker.onWebhook(AIProvider.REPLICATE, "job-1")).isTrue();
+
+        assertThat(future.get(5, TimeUnit.SECONDS).get("status").asText()).isEqualTo("succeeded");
+        assertThat(tracker.onWebhook(AIProvider.REPLICATE, "unknown")).isFalse();
+    }
+
+    @Test
+    void failsJobsPastTheirDeadline() throws Exception {
+        pendingPolls = Integer.MAX_VALUE;
+        config.getProviders().get("replicate").setTimeout(Duration.ofMillis(100));
+        CompletableFuture<JsonNode> future = track();
+
+        assertThatThrownBy(() -> tickUntilDone(future))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("did not finish within");
+    }
+
+    @Test
+    void awaitGivesUpAfterItsTimeout() {
+        CompletableFuture<String> never = new CompletableFuture<>();
+
+        assertThatThrownBy(() -> AsyncJobTracker.await(never, Duration.ofMillis(50)))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("No result within");
+        assertThat(never).isCancelled();
+    }
+
+    private CompletableFuture<JsonNode> track() {
+        return tracker.track(AIProvider.REPLICATE, "job-1", false,
+                this::fetchStatus, status -> "succeeded".equals(status.get("status").asText()));
+    }
+
+    private JsonNode tickUntilDone(CompletableFuture<JsonNode> future) throws Exception {
+        CompletableFuture<Void> ticker = CompletableFuture.runAsync(() -> {
+            while (!future.isDone()) {
+                tracker.pollDueJobs();
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }, executor);
+        try {
+            return AsyncJobTracker.await(future, Duration.ofSeconds(5));
+        } finally {
+            ticker.cancel(true);
+        }
+    }
+
+    private JsonNode fetchStatus() throws IOException {
+        URI uri = URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/predictions/job-1");
+        try (InputStream in = uri.toURL().openStream()) {
+            return objectMapper.readTree(in);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.memory_keeper.ai;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GroqRateLimiterTest {
+
+    private GroqRateLimiter limiter(int requestsPerMinute, int burst, Duration maxWait) {
+        GroqRateLimiter limiter = new GroqRateLimiter(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(limiter, "requestsPerMinute", requestsPerMinute);
+        ReflectionTestUtils.setField(limiter, "burst", burst);
+        ReflectionTestUtils.setField(limiter, "maxWait", maxWait);
+        limiter.init();
+        return limiter;
+    }
+
+    @Test
+    void burstIsGrantedImmediately() throws IOException {
+        GroqRateLimiter limiter = limiter(1, 3, Duration.ofMillis(50));
+        long started = System.nanoTime();
+
+        for (int i = 0; i < 3; i++) {
+            limiter.acquire(GroqPriority.STANDARD);
+        }
+
+        assertThat(Duration.ofNanos(System.nanoTime() - started)).isLessThan(Duration.ofMillis(50));
+    }
+
+    @Test
+    void failsOnceMaxWaitPassesWithoutASlot() throws IOException {
+        GroqRateLimiter limiter = limiter(1, 1, Duration.ofMillis(100));
+        limiter.acquire(GroqPriority.STANDARD);
+
+        assertThatThrownBy(() -> limiter.acquire(GroqPriority.STANDARD))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Groq is busy");
+    }
+
+    @Test
+    void servesHigherPriorityWaitersFirst() throws Exception {
+        // One token every 200 ms, none left
+        GroqRateLimiter limiter = limiter(300, 1, Duration.ofSeconds(5));
+        limiter.acquire(GroqPriority.STANDARD);
+
+        List<GroqPriority> served = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(2);
+        Thread background = Thread.ofVirtual().start(() -> acquire(limiter, GroqPriority.BACKGROUND, served, done));
+        // Make sure the background call is queued first
+        Thread.sleep(20);
+        Thread interactive = Thread.ofVirtual().start(() -> acquire(limiter, GroqPriority.INTERACTIVE, served, done));
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(served).containsExactly(GroqPriority.INTERACTIVE, GroqPriority.BACKGROUND);
+        background.join();
+        interactive.join();
+    }
+
+    @Test
+    void retryAfterOn429PausesTheBucket() throws IOException {
+        GroqRateLimiter limiter = limiter(6000, 5, Duration.ofSeconds(5));
+
+        limiter.onResponse(response(429, "retry-after", "0.3"));
+        long started = System.nanoTime();
+        limiter.acquire(GroqPriority.INTERACTIVE);
+
+        assertThat(Duration.ofNanos(System.nanoTime() - started)).isGreaterThanOrEqualTo(Duration.ofMillis(250));
+    }
+
+    @Test
+    void exhaustedTokenQuotaPausesUntilReset() throws IOException {
+        GroqRateLimiter limiter = limiter(6000, 5, Duration.ofSeconds(5));
+
+        limiter.onResponse(new Response.Builder()
+                .request(new Request.Builder().url("http://localhost/").build())
+                .protocol(Protocol.HTTP_1_1)
+                .code(200)
+                .message("OK")
+                .header("x-ratelimit-remaining-tokens", "0")
+                .header("x-ratelimit-reset-tokens", "300ms")
+                .build());
+        long started = System.nanoTime();
+        limiter.acquire(GroqPriority.INTERACTIVE);
+
+        assertThat(Duration.ofNanos(System.nanoTime() - started)).isGreaterThanOrEqualTo(Duration.ofMillis(250));
+    }
+
+    @Test
+    void parsesGroqResetDurations() {
+        Duration fallback = Duration.ofSeconds(9);
+
+        assertThat(GroqRateLimiter.parseDuration("7.66s", fallback)).isEqualTo(Duration.ofMillis(7660));
+        assertThat(GroqRateLimiter.parseDuration("2m59.56s", fallback)).isEqualTo(Duration.ofMillis(179_560));
+        assertThat(GroqRateLimiter.parseDuration("1h2m", fallback)).isEqualTo(Duration.ofMinutes(62));
+        assertThat(GroqRateLimiter.parseDuration("450ms", fallback)).isEqualTo(Duration.ofMillis(450));
+        assertThat(GroqRateLimiter.parseDuration("soon", fallback)).isEqualTo(fallback);
+        assertThat(GroqRateLimiter.parseDuration(null, fallback)).isEqualTo(fallback);
+    }
+
+    private static void acquire(GroqRateLimiter limiter, GroqPriority priority,
+                                List<GroqPriority> served, CountDownLatch done) {
+        try {
+            limiter.acquire(priority);
+            served.add(priority);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            done.countDown();
+        }
+    }
+
+    private static Response response(int code, String header, String value) {
+        return new Response.Builder()
+                .request(new Request.Builder().url("http://localhost/").build())
+                .protocol(Protocol.HTTP_1_1)
+                .code(code)
+                .message("")
+                .header(header, value)
+                .build();
+    }
+}
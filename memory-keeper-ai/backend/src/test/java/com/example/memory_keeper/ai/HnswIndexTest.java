@@ -0,0 +1,134 @@
+package com.example.memory_keeper.ai;
+
+import com.example.memory_keeper.config.EmbeddingConfig;
+import com.example.memory_keeper.util.VectorUtils;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HnswIndexTest {
+
+    private static final String[] VOCABULARY = {
+            "farm", "cows", "milking", "harvest", "wedding", "dance", "cake", "church", "war", "ration",
+            "letters", "ship", "school", "teacher", "garden", "roses", "kitchen", "bread", "holiday", "beach",
+            "train", "station", "factory", "shift", "baby", "hospital", "snow", "winter", "radio", "music"
+    };
+
+    private final HashingEmbeddingProvider embedder = new HashingEmbeddingProvider(new EmbeddingConfig());
+
+    @Test
+    void findsTheStoryThatSharesTheMostVocabulary() {
+        HnswIndex index = new HnswIndex(16, 200);
+        index.add(1, embedder.embed("We danced at the wedding and the cake collapsed"));
+        index.add(2, embedder.embed("Milking the cows on the farm before school"));
+        index.add(3, embedder.embed("Ration books and letters from the war"));
+
+        List<HnswIndex.Match> matches = index.search(embedder.embed("cows on the farm"), 2, 50, null);
+
+        assertThat(matches).first().extracting(HnswIndex.Match::id).isEqualTo(2L);
+        assertThat(matches.get(0).score()).isGreaterThan(matches.get(1).score());
+    }
+
+    @Test
+    void excludesTheQueryStoryItself() {
+        HnswIndex index = new HnswIndex(16, 200);
+        float[] farm = embedder.embed("Milking the cows on the farm");
+        index.add(1, farm);
+        index.add(2, embedder.embed("Harvest on the farm"));
+
+        assertThat(index.search(farm, 5, 50, 1L)).extracting(HnswIndex.Match::id).containsExactly(2L);
+    }
+
+    @Test
+    void removedAndReplacedVectorsAreNotReturned() {
+        HnswIndex index = new HnswIndex(16, 200);
+        index.add(1, embedder.embed("Milking the cows on the farm"));
+        index.add(2, embedder.embed("Harvest on the farm"));
+        index.add(3, embedder.embed("Wedding cake"));
+
+        index.remove(1);
+        index.add(2, embedder.embed("Snow in winter"));
+
+        assertThat(index.contains(1)).isFalse();
+        assertThat(index.size()).isEqualTo(2);
+        assertThat(index.search(embedder.embed("farm"), 3, 50, null))
+                .extracting(HnswIndex.Match::id)
+                .doesNotContain(1L)
+                .containsExactlyInAnyOrder(2L, 3L);
+    }
+
+    @Test
+    void recallMatchesExactSearch() {
+        List<float[]> vectors = randomStories(1000, new Random(7));
+        HnswIndex index = new HnswIndex(16, 200);
+        for (int i = 0; i < vectors.size(); i++) {
+            index.add(i, vectors.get(i));
+        }
+
+        Random queries = new Random(11);
+        int found = 0;
+        int expected = 0;
+        for (int q = 0; q < 50; q++) {
+            float[] query = vectors.get(queries.nextInt(vectors.size()));
+            Set<Long> exact = exactTop(vectors, query, 10);
+            Set<Long> approximate = index.search(query, 10, 100, null).stream()
+                    .map(HnswIndex.Match::id).collect(Collectors.toSet());
+            approximate.retainAll(exact);
+            found += approximate.size();
+            expected += exact.size();
+        }
+
+        assertThat((double) found / expected).isGreaterThanOrEqualTo(0.9);
+    }
+
+    @Test
+    void staysSearchableAfterMostNodesAreRemoved() {
+        List<float[]> vectors = randomStories(400, new Random(3));
+        HnswIndex index = new HnswIndex(8, 100);
+        for (int i = 0; i < vectors.size(); i++) {
+            index.add(i, vectors.get(i));
+        }
+        // Enough removals to trigger compaction at least once
+        for (int i = 0; i < 300; i++) {
+            index.remove(i);
+        }
+
+        assertThat(index.size()).isEqualTo(100);
+        List<HnswIndex.Match> matches = index.search(vectors.get(350), 5, 50, null);
+        assertThat(matches).isNotEmpty().allSatisfy(match -> assertThat(match.id()).isGreaterThanOrEqualTo(300));
+        assertThat(matches.get(0).id()).isEqualTo(350L);
+    }
+
+    @Test
+    void emptyIndexReturnsNothing() {
+        assertThat(new HnswIndex(16, 200).search(embedder.embed("farm"), 5, 50, null)).isEmpty();
+    }
+
+    private List<float[]> randomStories(int count, Random random) {
+        List<float[]> vectors = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String text = IntStream.range(0, 8)
+                    .mapToObj(w -> VOCABULARY[random.nextInt(VOCABULARY.length)])
+                    .collect(Collectors.joining(" "));
+            vectors.add(embedder.embed(text));
+        }
+        return vectors;
+    }
+
+    private static Set<Long> exactTop(List<float[]> vectors, float[] query, int k) {
+        return IntStream.range(0, vectors.size()).boxed()
+                .sorted(Comparator.comparingDouble(i -> -VectorUtils.dot(query, vectors.get(i))))
+                .limit(k)
+                .map(Integer::longValue)
+                .collect(Collectors.toCollection(HashSet::new));
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.memory_keeper.ai;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.Call;
+import okhttp3.EventListener;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Feeds the listener the events OkHttp reports for one attempt and checks
+ * which ai.http.call outcome it lands in.
+ */
+class HttpMetricsEventListenerTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final EventListener.Factory factory = HttpMetricsEventListener.factory(AIProvider.GROQ, registry);
+    private final Call call = mock(Call.class);
+
+    @Test
+    void outcomeFollowsTheResponseStatus() {
+        attempt(200);
+        attempt(304);
+        attempt(429);
+        attempt(404);
+        attempt(503);
+
+        assertThat(calls("success")).isEqualTo(2);
+        assertThat(calls("client_error")).isEqualTo(2);
+        assertThat(calls("server_error")).isEqualTo(1);
+        assertThat(calls("failure")).isZero();
+    }
+
+    @Test
+    void retryAfterAnErrorIsTaggedByItsOwnStatus() {
+        EventListener listener = factory.create(call);
+        listener.requestHeadersStart(call);
+        listener.responseHeadersEnd(call, response(503));
+        listener.responseBodyEnd(call, 0);
+        listener.requestHeadersStart(call);
+        listener.responseHeadersEnd(call, response(200));
+        listener.responseBodyEnd(call, 42);
+        listener.callEnd(call);
+
+        assertThat(calls("server_error")).isEqualTo(1);
+        assertThat(calls("success")).isEqualTo(1);
+    }
+
+    @Test
+    void noResponseIsAFailure() {
+        EventListener listener = factory.create(call);
+        listener.requestHeadersStart(call);
+        listener.callFailed(call, new IOException("connection reset"));
+
+        assertThat(calls("failure")).isEqualTo(1);
+        assertThat(calls("success")).isZero();
+    }
+
+    // ==================== HELPER METHODS ====================
+
+    private void attempt(int status) {
+        EventListener listener = factory.create(call);
+        listener.requestHeadersStart(call);
+        listener.responseHeadersStart(call);
+        listener.responseHeadersEnd(call, response(status));
+        listener.responseBodyEnd(call, 10);
+        listener.callEnd(call);
+    }
+
+    private static Response response(int status) {
+        return new Response.Builder()
+                .request(new Request.Builder().url("https://api.groq.com/openai/v1/chat/completions").build())
+                .protocol(Protocol.HTTP_1_1)
+                .code(status)
+                .message("status " + status)
+                .build();
+    }
+
+    private long calls(String outcome) {
+        return registry.get("ai.http.call").tag("provider", "groq").tag("outcome", outcome).timer().count();
+    }
+}
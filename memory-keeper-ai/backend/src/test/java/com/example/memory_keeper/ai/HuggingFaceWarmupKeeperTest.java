@@ -0,0 +1,138 @@
+package com.example.memory_keeper.ai;
+
+import com.example.memory_keeper.config.HuggingFaceWarmupConfig;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.OkHttpClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs the keeper against a stand-in Hugging Face that answers 503 "model is
+ * loading" a few times before it serves the model.
+ */
+class HuggingFaceWarmupKeeperTest {
+
+    private static final String LOADING = "{\"error\":\"Model is currently loading\",\"estimated_time\":1.0}";
+    private static final String EMOTIONS = "[[{\"label\":\"joy\",\"score\":0.9}]]";
+
+    private final AtomicInteger calls = new AtomicInteger();
+    private volatile int loadingReplies;
+
+    private HttpServer server;
+    private ExecutorService executor;
+    private HuggingFaceWarmupConfig config;
+    private HuggingFaceClient client;
+    private HuggingFaceWarmupKeeper keeper;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            boolean loading = calls.incrementAndGet() <= loadingReplies;
+            byte[] body = (loading ? LOADING : EMOTIONS).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(loading ? 503 : 200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+
+        AIHttpClientFactory httpClientFactory = mock(AIHttpClientFactory.class);
+        when(httpClientFactory.forProvider(AIProvider.HUGGINGFACE)).thenReturn(new OkHttpClient());
+        client = new HuggingFaceClient(new ObjectMapper(), httpClientFactory, mock(UsageRecorder.class));
+        ReflectionTestUtils.setField(client, "apiKey", "test");
+        ReflectionTestUtils.setField(client, "baseUrl", "http://127.0.0.1:" + server.getAddress().getPort() + "/models");
+        client.initHttpClient();
+
+        config = new HuggingFaceWarmupConfig();
+        config.setModels(List.of());
+        config.setLoadingCheckInterval(Duration.ofMillis(20));
+        config.setMaxWait(Duration.ofSeconds(5));
+        executor = Executors.newCachedThreadPool();
+        keeper = new HuggingFaceWarmupKeeper(client, config, new TaskExecutorAdapter(executor), new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    @Test
+    void waitsOutColdStartAndRetriesTheCall() throws Exception {
+        loadingReplies = 3;
+
+        Future<JsonNode> result = executor.submit(() ->
+                keeper.whenReady(HuggingFaceClient.EMOTION_MODEL, () -> client.detectEmotions("we danced")));
+        tickUntil(result);
+
+        assertThat(result.get(5, TimeUnit.SECONDS).get(0).get("label").asText()).isEqualTo("joy");
+        assertThat(keeper.getState(HuggingFaceClient.EMOTION_MODEL)).isEqualTo(HuggingFaceWarmupKeeper.State.READY);
+        // First call, then readiness pings until the stand-in stopped loading, then the call again
+        assertThat(calls.get()).isGreaterThan(loadingReplies);
+    }
+
+    @Test
+    void givesUpAfterMaxWait() {
+        loadingReplies = Integer.MAX_VALUE;
+        config.setMaxWait(Duration.ofMillis(200));
+
+        Future<JsonNode> result = executor.submit(() ->
+                keeper.whenReady(HuggingFaceClient.EMOTION_MODEL, () -> client.detectEmotions("we danced")));
+
+        assertThatThrownBy(() -> {
+            tickUntil(result);
+            result.get(5, TimeUnit.SECONDS);
+        }).hasCauseInstanceOf(ModelLoadingException.class);
+        assertThat(keeper.getState(HuggingFaceClient.EMOTION_MODEL)).isEqualTo(HuggingFaceWarmupKeeper.State.LOADING);
+    }
+
+    @Test
+    void onlyPingsRecentlyUsedModelsWhenKeepWarmIsSet() throws Exception {
+        config.setModels(List.of(HuggingFaceClient.EMOTION_MODEL));
+        config.setKeepWarmAfterUse(Duration.ofMinutes(30));
+
+        keeper.tick();
+        Thread.sleep(100);
+        assertThat(calls).hasValue(0);
+
+        keeper.whenReady(HuggingFaceClient.EMOTION_MODEL, () -> client.detectEmotions("we danced"));
+        keeper.tick();
+        Thread.sleep(100);
+        // The call itself, then one warm-up ping
+        assertThat(calls).hasValue(2);
+    }
+
+    private void tickUntil(Future<?> result) throws InterruptedException {
+        long until = System.currentTimeMillis() + 5000;
+        while (!result.isDone() && System.currentTimeMillis() < until) {
+            keeper.tick();
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.memory_keeper.ai;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PassageIndexTest {
+
+    private static final PassageIndex.Passage WEDDING =
+            new PassageIndex.Passage(1L, "Our wedding", "We danced all night in the village hall.", 0, 1);
+    private static final PassageIndex.Passage WEDDING_LATER =
+            new PassageIndex.Passage(1L, "Our wedding", "The cake collapsed before anyone could cut it.", 1, 1);
+    private static final PassageIndex.Passage FARM =
+            new PassageIndex.Passage(2L, "The farm", "Milking cows at dawn, every single morning.", 0, 2);
+    private static final PassageIndex.Passage WAR =
+            new PassageIndex.Passage(3L, "The war years", "Rationing meant one egg a week, and no cake.", 0, 3);
+
+    private final PassageIndex index = new PassageIndex(List.of(WEDDING, WEDDING_LATER, FARM, WAR), 1.2, 0.75);
+
+    @Test
+    void ranksPassagesByRelevance() {
+        List<PassageIndex.Passage> results = index.search("Tell me about the cows on the farm", 2, 10_000);
+
+        assertThat(results).first().isEqualTo(FARM);
+    }
+
+    @Test
+    void stemmingMatchesWordForms() {
+        assertThat(index.search("Did you go dancing?", 1, 10_000)).containsExactly(WEDDING);
+    }
+
+    @Test
+    void rarerTermsWeighMore() {
+        // "cake" appears twice, "collapsed" once
+        assertThat(index.search("cake collapsed", 1, 10_000)).containsExactly(WEDDING_LATER);
+    }
+
+    @Test
+    void fallsBackToNewestStoryOpeningsWhenNothingMatches() {
+        List<PassageIndex.Passage> results = index.search("how are you?", 3, 10_000);
+
+        assertThat(results).containsExactly(WAR, FARM, WEDDING);
+    }
+
+    @Test
+    void respectsTopKAndCharacterBudget() {
+        assertThat(index.search("cake", 1, 10_000)).hasSize(1);
+
+        int warCost = WAR.title().length() + WAR.text().length();
+        List<PassageIndex.Passage> results = index.search("how are you?", 3, warCost);
+        assertThat(results).containsExactly(WAR);
+    }
+
+    @Test
+    void termsDropStopwordsAndShortTokens() {
+        assertThat(PassageIndex.terms("Tell me about the dances, Grandma! A b")).containsExactly("danc");
+        assertThat(PassageIndex.terms(null)).isEmpty();
+    }
+
+    @Test
+    void emptyIndexFindsNothing() {
+        PassageIndex empty = new PassageIndex(List.of(), 1.2, 0.75);
+
+        assertThat(empty.size()).isZero();
+        assertThat(empty.search("anything", 5, 1000)).isEmpty();
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.memory_keeper.ai;
+
+import com.example.memory_keeper.config.AIResilienceConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProviderCircuitBreakerTest {
+
+    private AIResilienceConfig.Settings settings;
+
+    @BeforeEach
+    void setUp() {
+        settings = AIResilienceConfig.Settings.builtIn();
+        settings.setWindowSize(4);
+        settings.setMinimumCalls(4);
+        settings.setFailureRateThreshold(0.5);
+        settings.setOpenDuration(Duration.ofMillis(100));
+        settings.setHalfOpenCalls(2);
+    }
+
+    @Test
+    void staysClosedUntilMinimumCallsAreRecorded() {
+        ProviderCircuitBreaker breaker = new ProviderCircuitBreaker(settings);
+
+        call(breaker, true);
+        call(breaker, true);
+        call(breaker, true);
+
+        assertThat(breaker.getState()).isEqualTo(ProviderCircuitBreaker.State.CLOSED);
+        assertThat(breaker.failureRate()).isEqualTo(1.0);
+    }
+
+    @Test
+    void opensAtTheFailureThresholdAndRejectsCalls() {
+        ProviderCircuitBreaker breaker = new ProviderCircuitBreaker(settings);
+
+        call(breaker, false);
+        call(breaker, false);
+        call(breaker, true);
+        call(breaker, true);
+
+        assertThat(breaker.getState()).isEqualTo(ProviderCircuitBreaker.State.OPEN);
+        assertThat(breaker.tryAcquire()).isFalse();
+        assertThat(breaker.remainingOpen()).isPositive();
+    }
+
+    @Test
+    void stateGaugeRanksOpenHighest() {
+        assertThat(ProviderResilienceRegistry.stateValue(ProviderCircuitBreaker.State.CLOSED)).isZero();
+        assertThat(ProviderResilienceRegistry.stateValue(ProviderCircuitBreaker.State.HALF_OPEN)).isEqualTo(1);
+        assertThat(ProviderResilienceRegistry.stateValue(ProviderCircuitBreaker.State.OPEN)).isEqualTo(2);
+    }
+
+    @Test
+    void oldFailuresSlideOutOfTheWindow() {
+        settings.setFailureRateThreshold(0.75);
+        ProviderCircuitBreaker breaker = new ProviderCircuitBreaker(settings);
+
+        call(breaker, true);
+        call(breaker, true);
+        call(breaker, false);
+        call(breaker, false);
+        call(breaker, false);
+        call(breaker, false);
+
+        assertThat(breaker.getRecordedCalls()).isEqualTo(4);
+        assertThat(breaker.failureRate()).isZero();
+        assertThat(breaker.getState()).isEqualTo(ProviderCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void halfOpenClosesAfterSuccessfulProbes() throws InterruptedException {
+        ProviderCircuitBreaker breaker = openedBreaker();
+        Thread.sleep(150);
+
+        assertThat(breaker.getState()).isEqualTo(ProviderCircuitBreaker.State.HALF_OPEN);
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.tryAcquire()).isTrue();
+        // Only halfOpenCalls probes at a time
+        assertThat(breaker.tryAcquire()).isFalse();
+
+        breaker.onSuccess();
+        breaker.onSuccess();
+
+        assertThat(breaker.getState()).isEqualTo(ProviderCircuitBreaker.State.CLOSED);
+        assertThat(breaker.getRecordedCalls()).isZero();
+    }
+
+    @Test
+    void halfOpenReopensOnFirstFailedProbe() throws InterruptedException {
+        ProviderCircuitBreaker breaker = openedBreaker();
+        Thread.sleep(150);
+
+        assertThat(breaker.tryAcquire()).isTrue();
+        breaker.onFailure();
+
+        assertThat(breaker.getState()).isEqualTo(ProviderCircuitBreaker.State.OPEN);
+        assertThat(breaker.tryAcquire()).isFalse();
+    }
+
+    @Test
+    void providerOverridesKeepUnsetDefaults() {
+        AIResilienceConfig config = new AIResilienceConfig();
+        AIResilienceConfig.Settings groq = new AIResilienceConfig.Settings();
+        groq.setMaxConcurrent(32);
+        groq.setRetryOnStatus(List.of(503));
+        config.getDefaults().setMaxRetries(5);
+        config.getProviders().put("groq", groq);
+
+        AIResilienceConfig.Settings merged = config.settingsFor("groq");
+
+        assertThat(merged.getMaxConcurrent()).isEqualTo(32);
+        assertThat(merged.getRetryOnStatus()).containsExactly(503);
+        assertThat(merged.getMaxRetries()).isEqualTo(5);
+        assertThat(merged.getWindowSize()).isEqualTo(20);
+        assertThat(config.settingsFor("unknown").getMaxConcurrent()).isEqualTo(16);
+    }
+
+    private ProviderCircuitBreaker openedBreaker() {
+        ProviderCircuitBreaker breaker = new ProviderCircuitBreaker(settings);
+        for (int i = 0; i < 4; i++) {
+            call(breaker, true);
+        }
+        assertThat(breaker.getState()).isEqualTo(ProviderCircuitBreaker.State.OPEN);
+        return breaker;
+    }
+
+    private static void call(ProviderCircuitBreaker breaker, boolean fail) {
+        assertThat(breaker.tryAcquire()).isTrue();
+        if (fail) {
+            breaker.onFailure();
+        } else {
+            breaker.onSuccess();
+        }
+    }
+}
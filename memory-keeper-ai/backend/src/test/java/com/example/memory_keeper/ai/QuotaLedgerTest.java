@@ -0,0 +1,140 @@
+package com.example.memory_keeper.ai;
+
+import com.example.memory_keeper.config.AIQuotaConfig;
+import com.example.memory_keeper.model.entity.Family;
+import com.example.memory_keeper.model.entity.User;
+import com.example.memory_keeper.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class QuotaLedgerTest {
+
+    private static final long LIMIT = 1000;
+
+    private SimpleMeterRegistry meterRegistry;
+    private QuotaLedger ledger;
+    private UsageContext.Handle context;
+
+    @BeforeEach
+    void setUp() {
+        AIQuotaConfig config = new AIQuotaConfig();
+        config.setMaxFamilyShare(0.25);
+        AIQuotaConfig.Budget budget = new AIQuotaConfig.Budget();
+        budget.setMonthlyLimit(LIMIT);
+        config.getProviders().put("elevenlabs", budget);
+
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findByEmailWithFamily("ann@example.com")).thenReturn(Optional.of(member(1L, 10L)));
+        when(userRepository.findByEmailWithFamily("bob@example.com")).thenReturn(Optional.of(member(2L, 10L)));
+        when(userRepository.findByEmailWithFamily("cat@example.com")).thenReturn(Optional.of(member(3L, 20L)));
+
+        meterRegistry = new SimpleMeterRegistry();
+        ledger = new QuotaLedger(config, userRepository, mock(JdbcTemplate.class), meterRegistry);
+        ledger.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    @Test
+    void grantsWithinTheFamilyShare() {
+        as("ann@example.com");
+
+        assertThat(ledger.tryReserve(AIProvider.ELEVENLABS, 250)).isPresent();
+        assertThat(ledger.tryReserve(AIProvider.ELEVENLABS, 1)).isEmpty();
+        assertThat(meterRegistry.get("ai.quota.denied").tag("reason", "family").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void familyMembersShareOneBudget() throws QuotaExceededException {
+        as("ann@example.com");
+        ledger.commit(ledger.reserve(AIProvider.ELEVENLABS, 200), 200);
+
+        as("bob@example.com");
+        assertThat(ledger.tryReserve(AIProvider.ELEVENLABS, 100)).isEmpty();
+
+        as("cat@example.com");
+        assertThat(ledger.tryReserve(AIProvider.ELEVENLABS, 100)).isPresent();
+    }
+
+    @Test
+    void releasedReservationsGiveTheBudgetBack() throws QuotaExceededException {
+        as("ann@example.com");
+        QuotaLedger.Reservation reservation = ledger.reserve(AIProvider.ELEVENLABS, 250);
+
+        ledger.release(reservation);
+        // Settling twice has no effect
+        ledger.commit(reservation, 250);
+
+        assertThat(ledger.tryReserve(AIProvider.ELEVENLABS, 250)).isPresent();
+    }
+
+    @Test
+    void refusesPastTheProviderLimit() {
+        ledger.syncFromProvider(AIProvider.ELEVENLABS, 950, LIMIT, 0);
+        as("cat@example.com");
+
+        assertThatThrownBy(() -> ledger.reserve(AIProvider.ELEVENLABS, 100))
+                .isInstanceOf(QuotaExceededException.class);
+        assertThat(meterRegistry.get("ai.quota.denied").tag("reason", "global").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void backgroundWorkIsOnlyBoundByTheProviderLimit() {
+        assertThat(ledger.tryReserve(AIProvider.ELEVENLABS, 900)).isPresent();
+        assertThat(ledger.tryReserve(AIProvider.ELEVENLABS, 200)).isEmpty();
+    }
+
+    @Test
+    void unmeteredProvidersAreAlwaysGranted() {
+        assertThat(ledger.tryReserve(AIProvider.GROQ, 1_000_000)).isPresent();
+    }
+
+    @Test
+    void lowerProviderCountKeepsFamilyUsageWithinTheCycle() throws QuotaExceededException {
+        as("ann@example.com");
+        ledger.commit(ledger.reserve(AIProvider.ELEVENLABS, 250), 250);
+
+        // The provider has not caught up with our own count yet; same cycle
+        ledger.syncFromProvider(AIProvider.ELEVENLABS, 100, LIMIT, 1_700_000_000L);
+        ledger.syncFromProvider(AIProvider.ELEVENLABS, 120, LIMIT, 1_700_000_000L);
+
+        assertThat(ledger.tryReserve(AIProvider.ELEVENLABS, 1)).isEmpty();
+    }
+
+    @Test
+    void newResetTimeStartsFamilyUsageOver() throws QuotaExceededException {
+        ledger.syncFromProvider(AIProvider.ELEVENLABS, 0, LIMIT, 1_700_000_000L);
+        as("ann@example.com");
+        ledger.commit(ledger.reserve(AIProvider.ELEVENLABS, 250), 250);
+
+        ledger.syncFromProvider(AIProvider.ELEVENLABS, 0, LIMIT, 1_702_600_000L);
+
+        assertThat(ledger.tryReserve(AIProvider.ELEVENLABS, 250)).isPresent();
+    }
+
+    private void as(String email) {
+        if (context != null) {
+            context.close();
+        }
+        context = UsageContext.open(new UsageContext.Scope("test", email, null, null));
+    }
+
+    private static User member(long userId, long familyId) {
+        return User.builder().id(userId).family(Family.builder().id(familyId).build()).build();
+    }
+}
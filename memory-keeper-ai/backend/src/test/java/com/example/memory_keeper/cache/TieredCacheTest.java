@@ -0,0 +1,184 @@
+package com.example.memory_keeper.cache;
+
+import com.example.memory_keeper.config.AICacheConfig;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TieredCacheTest {
+
+    private RedisTemplate<String, Object> redisTemplate;
+    private ValueOperations<String, Object> valueOperations;
+    private SimpleMeterRegistry meterRegistry;
+    private AICacheConfig.Settings settings;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redisTemplate = mock(RedisTemplate.class);
+        valueOperations = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        meterRegistry = new SimpleMeterRegistry();
+        settings = new AICacheConfig.Settings();
+    }
+
+    private TieredCache<String> cache() {
+        return new TieredCache<>("test", String.class, settings, redisTemplate, new ObjectMapper(), meterRegistry);
+    }
+
+    @Test
+    void servesSecondReadFromLocalTier() {
+        TieredCache<String> cache = cache();
+        cache.put("k", "v");
+
+        assertThat(cache.get("k")).isEqualTo("v");
+        verify(valueOperations, never()).get(anyString());
+        assertThat(meterRegistry.get("ai.cache.requests").tag("result", "hit_local").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void fallsBackToRedisAndPromotesToLocal() {
+        when(valueOperations.get("cache:test:k")).thenReturn("v");
+        TieredCache<String> cache = cache();
+
+        assertThat(cache.get("k")).isEqualTo("v");
+        assertThat(cache.get("k")).isEqualTo("v");
+        verify(valueOperations, times(1)).get("cache:test:k");
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedLocalEntry() {
+        settings.setLocalMaxEntries(2);
+        TieredCache<String> cache = cache();
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.get("a");
+        cache.put("c", "3");
+
+        // b was least recently used; Redis has nothing, so it's gone
+        assertThat(cache.get("b")).isNull();
+        assertThat(cache.get("a")).isEqualTo("1");
+        assertThat(cache.get("c")).isEqualTo("3");
+    }
+
+    @Test
+    void concurrentCallersShareOneComputation() throws Exception {
+        TieredCache<String> cache = cache();
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<String> first = executor.submit(() -> cache.getOrCompute("k", () -> {
+                loads.incrementAndGet();
+                loading.countDown();
+                await(release);
+                return "v";
+            }));
+            assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+            Future<String> second = executor.submit(() -> cache.getOrCompute("k", () -> {
+                loads.incrementAndGet();
+                return "other";
+            }));
+            // Let the second caller find the in-flight computation before it completes
+            Thread.sleep(100);
+            release.countDown();
+
+            assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("v");
+            assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo("v");
+            assertThat(loads).hasValue(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void doesNotCacheFailures() {
+        TieredCache<String> cache = cache();
+
+        assertThatThrownBy(() -> cache.getOrCompute("k", () -> {
+            throw new IllegalStateException("boom");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(cache.getOrCompute("k", () -> "v")).isEqualTo("v");
+    }
+
+    @Test
+    void skipsValuesTheCallerMarksUncacheable() {
+        TieredCache<String> cache = cache();
+
+        assertThat(cache.getOrCompute("k", () -> "partial", value -> false)).isEqualTo("partial");
+        assertThat(cache.getOrCompute("k", () -> "complete", value -> true)).isEqualTo("complete");
+        assertThat(cache.get("k")).isEqualTo("complete");
+    }
+
+    @Test
+    void backsOffFromRedisAfterConnectionFailure() {
+        when(valueOperations.get(anyString())).thenThrow(new RedisConnectionFailureException("down"));
+        TieredCache<String> cache = cache();
+
+        assertThat(cache.get("a")).isNull();
+        assertThat(cache.get("b")).isNull();
+        // Second read skipped Redis entirely
+        verify(valueOperations, times(1)).get(anyString());
+
+        cache.put("c", "3");
+        verify(valueOperations, never()).set(anyString(), any(), any(Duration.class));
+        assertThat(cache.get("c")).isEqualTo("3");
+    }
+
+    @Test
+    void unreadableEntryIsDroppedWithoutBackOff() {
+        when(valueOperations.get("cache:test:bad")).thenThrow(new SerializationException("old format"));
+        when(valueOperations.get("cache:test:good")).thenReturn("v");
+        TieredCache<String> cache = cache();
+
+        assertThat(cache.get("bad")).isNull();
+        verify(redisTemplate).delete("cache:test:bad");
+        // Redis is still used for other keys
+        assertThat(cache.get("good")).isEqualTo("v");
+    }
+
+    @Test
+    void disabledCacheAlwaysComputes() {
+        settings.setEnabled(false);
+        TieredCache<String> cache = cache();
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.getOrCompute("k", () -> "v" + loads.incrementAndGet());
+        assertThat(cache.getOrCompute("k", () -> "v" + loads.incrementAndGet())).isEqualTo("v2");
+        verify(valueOperations, never()).get(anyString());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
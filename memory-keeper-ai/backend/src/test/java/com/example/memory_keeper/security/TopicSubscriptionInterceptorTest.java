@@ -0,0 +1,136 @@
+package com.example.memory_keeper.security;
+
+import com.example.memory_keeper.service.EnhancementJobService;
+import com.example.memory_keeper.service.ImageJobService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+import java.security.Principal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * SUBSCRIBE frames as the broker channel sees them, for the owner of a
+ * job or family member of a story, another user, an anonymous session and
+ * wildcard destinations.
+ */
+class TopicSubscriptionInterceptorTest {
+
+    private static final String JOB_ID = "3f1c2a9e-7b4d-4e0a-9c61-2d8f5b7a1e34";
+
+    private final EnhancementJobService enhancementJobService = mock(EnhancementJobService.class);
+    private final ImageJobService imageJobService = mock(ImageJobService.class);
+    private final MessageChannel channel = mock(MessageChannel.class);
+    private TopicSubscriptionInterceptor interceptor;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        when(enhancementJobService.isOwner(JOB_ID, "ann@example.com")).thenReturn(true);
+        when(imageJobService.canView(3L, "ann@example.com")).thenReturn(true);
+        ObjectProvider<EnhancementJobService> jobs = mock(ObjectProvider.class);
+        when(jobs.getObject()).thenReturn(enhancementJobService);
+        ObjectProvider<ImageJobService> images = mock(ObjectProvider.class);
+        when(images.getObject()).thenReturn(imageJobService);
+
+        interceptor = new TopicSubscriptionInterceptor(mock(JwtTokenProvider.class),
+                mock(CustomUserDetailsService.class), jobs, images);
+    }
+
+    @Test
+    void ownerMayFollowTheirJob() {
+        Message<?> message = subscribe("/topic/jobs/" + JOB_ID, user("ann@example.com"));
+
+        assertThat(interceptor.preSend(message, channel)).isSameAs(message);
+    }
+
+    @Test
+    void otherUserMayNotFollowTheJob() {
+        assertThatThrownBy(() -> interceptor.preSend(subscribe("/topic/jobs/" + JOB_ID, user("bob@example.com")), channel))
+                .isInstanceOf(AccessDeniedException.class);
+    }
+
+    @Test
+    void anonymousSessionMayNotFollowTheJob() {
+        assertThatThrownBy(() -> interceptor.preSend(subscribe("/topic/jobs/" + JOB_ID, null), channel))
+                .isInstanceOf(AccessDeniedException.class);
+        verify(enhancementJobService, never()).isOwner(anyString(), any());
+    }
+
+    @Test
+    void wildcardDestinationsAreRefused() {
+        for (String destination : List.of("/topic/**", "/topic/jobs/*", "/topic/jobs/3f1c2a9e-????",
+                "/topic/jobs/{id}", "/**")) {
+            assertThatThrownBy(() -> interceptor.preSend(subscribe(destination, user("ann@example.com")), channel))
+                    .as(destination)
+                    .isInstanceOf(AccessDeniedException.class);
+        }
+    }
+
+    @Test
+    void unknownTopicsAreRefused() {
+        for (String destination : List.of("/topic", "/topic/", "/topic/jobs", "/topic/jobs/" + JOB_ID + "/more",
+                "/topic/other")) {
+            assertThatThrownBy(() -> interceptor.preSend(subscribe(destination, user("ann@example.com")), channel))
+                    .as(destination)
+                    .isInstanceOf(AccessDeniedException.class);
+        }
+    }
+
+    @Test
+    void familyMayFollowTheStoryImage() {
+        Message<?> message = subscribe("/topic/stories/3/image", user("ann@example.com"));
+
+        assertThat(interceptor.preSend(message, channel)).isSameAs(message);
+    }
+
+    @Test
+    void outsidersMayNotFollowTheStoryImage() {
+        assertThatThrownBy(() -> interceptor.preSend(subscribe("/topic/stories/3/image", user("bob@example.com")), channel))
+                .isInstanceOf(AccessDeniedException.class);
+        assertThatThrownBy(() -> interceptor.preSend(subscribe("/topic/stories/3/image", null), channel))
+                .isInstanceOf(AccessDeniedException.class);
+    }
+
+    @Test
+    void storyImageWildcardsAreRefused() {
+        for (String destination : List.of("/topic/stories/*/image", "/topic/stories/**", "/topic/stories/?/image",
+                "/topic/stories/{id}/image", "/topic/stories/3/*", "/topic/stories/abc/image")) {
+            assertThatThrownBy(() -> interceptor.preSend(subscribe(destination, user("ann@example.com")), channel))
+                    .as(destination)
+                    .isInstanceOf(AccessDeniedException.class);
+        }
+        verify(imageJobService, never()).canView(any(), anyString());
+    }
+
+    // ==================== HELPER METHODS ====================
+
+    private static Message<byte[]> subscribe(String destination, Principal user) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+        accessor.setDestination(destination);
+        accessor.setSubscriptionId("sub-0");
+        accessor.setUser(user);
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private static Principal user(String email) {
+        return new UsernamePasswordAuthenticationToken(email, null, List.of());
+    }
+}
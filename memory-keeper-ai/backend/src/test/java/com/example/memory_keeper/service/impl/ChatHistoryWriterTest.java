@@ -0,0 +1,169 @@
+package com.example.memory_keeper.service.impl;
+
+import com.example.memory_keeper.config.ChatHistoryConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs the writer against a stand-in chat_messages table that rejects one
+ * message, and so every batch holding it.
+ */
+class ChatHistoryWriterTest {
+
+    private static final String REJECTED = "rejected";
+
+    private final List<String> written = new CopyOnWriteArrayList<>();
+    private final AtomicInteger rejectedWrites = new AtomicInteger();
+    // Batch inserts wait for this, to catch a flush mid-write
+    private volatile CountDownLatch batchGate = new CountDownLatch(0);
+
+    private SimpleMeterRegistry meterRegistry;
+    private ChatHistoryWriter writer;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.batchUpdate(anyString(), any(List.class), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenAnswer(invocation -> {
+                    batchGate.await(5, TimeUnit.SECONDS);
+                    List<Object> rows = invocation.getArgument(1);
+                    ParameterizedPreparedStatementSetter<Object> setter = invocation.getArgument(3);
+                    List<String> messages = new ArrayList<>();
+                    for (Object row : rows) {
+                        messages.add(bound(ps -> setter.setValues(ps, row)));
+                    }
+                    if (messages.contains(REJECTED)) {
+                        throw new DataIntegrityViolationException("value too long");
+                    }
+                    written.addAll(messages);
+                    return new int[0][0];
+                });
+        doAnswer(invocation -> {
+            PreparedStatementSetter setter = invocation.getArgument(1);
+            String message = bound(setter);
+            if (REJECTED.equals(message)) {
+                rejectedWrites.incrementAndGet();
+                throw new DataIntegrityViolationException("value too long");
+            }
+            written.add(message);
+            return 1;
+        }).when(jdbcTemplate).update(anyString(), any(PreparedStatementSetter.class));
+
+        ChatHistoryConfig config = new ChatHistoryConfig();
+        config.setMaxWriteAttempts(3);
+        meterRegistry = new SimpleMeterRegistry();
+        writer = new ChatHistoryWriter(jdbcTemplate, config, new TaskExecutorAdapter(Runnable::run), meterRegistry);
+        writer.initMetrics();
+    }
+
+    @Test
+    void writesTheRestOfAFailedBatchOneByOne() {
+        enqueue("first");
+        enqueue(REJECTED);
+        enqueue("second");
+
+        writer.flush();
+
+        assertThat(written).containsExactly("first", "second");
+        assertThat(pending()).isEqualTo(1);
+    }
+
+    @Test
+    void dropsAMessageThatKeepsFailing() {
+        enqueue(REJECTED);
+
+        writer.flush();
+        writer.flush();
+        assertThat(pending()).isEqualTo(1);
+        writer.flush();
+        writer.flush();
+
+        assertThat(rejectedWrites).hasValue(3);
+        assertThat(pending()).isZero();
+        assertThat(written).isEmpty();
+    }
+
+    @Test
+    void flushingASessionLeavesOtherSessionsQueued() {
+        enqueue("mine");
+        enqueue(2L, "session:b", "someone else's");
+
+        writer.flushSession(1L, "session:a");
+
+        assertThat(written).containsExactly("mine");
+        assertThat(pending()).isEqualTo(1);
+    }
+
+    @Test
+    void flushingASessionWaitsForARunningBatchHoldingIt() throws Exception {
+        enqueue("mine");
+        batchGate = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            executor.execute(writer::flush);
+            // Until the background flush has taken the message off the queue
+            while (pending() > 0) {
+                Thread.sleep(1);
+            }
+            Future<?> read = executor.submit(() -> writer.flushSession(1L, "session:a"));
+
+            Thread.sleep(100);
+            assertThat(read).isNotDone();
+            batchGate.countDown();
+            read.get(5, TimeUnit.SECONDS);
+            assertThat(written).containsExactly("mine");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void enqueue(String message) {
+        enqueue(1L, "session:a", message);
+    }
+
+    private void enqueue(Long userId, String sessionKey, String message) {
+        writer.enqueue(new ChatHistoryWriter.PendingMessage(userId, null, sessionKey, message, "reply",
+                LocalDateTime.now()));
+    }
+
+    private double pending() {
+        return meterRegistry.get("ai.chat.history.pending").gauge().value();
+    }
+
+    // The message a setter binds, as the 4th parameter
+    private static String bound(PreparedStatementSetter setter) throws Exception {
+        PreparedStatement ps = mock(PreparedStatement.class);
+        String[] message = new String[1];
+        doAnswer(invocation -> message[0] = invocation.getArgument(1)).when(ps).setString(eq(4), anyString());
+        setter.setValues(ps);
+        return message[0];
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.memory_keeper.service.impl;
+
+import com.example.memory_keeper.config.AIEnhanceConfig;
+import com.example.memory_keeper.dto.response.AIResponse;
+import com.example.memory_keeper.dto.response.EnhancementJobResponse;
+import com.example.memory_keeper.exception.UnauthorizedException;
+import com.example.memory_keeper.model.enums.JobStatus;
+import com.example.memory_keeper.service.AIService;
+import com.example.memory_keeper.service.EnhancementListener;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Jobs submitted by one user, checked against that user, another one and
+ * nobody. The executor never runs them, so they stay queued, except where
+ * a test runs one to completion on the calling thread.
+ */
+class EnhancementJobServiceImplTest {
+
+    private EnhancementJobServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        service = new EnhancementJobServiceImpl(mock(AIService.class), mock(SimpMessagingTemplate.class),
+                mock(AsyncTaskExecutor.class), new AIEnhanceConfig(), new ObjectMapper().findAndRegisterModules());
+    }
+
+    @AfterEach
+    void signOut() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void onlyTheSubmitterOwnsAJob() {
+        signIn("ann@example.com");
+        String jobId = service.submit("We walked to school", null).getJobId();
+
+        assertThat(service.isOwner(jobId, "ann@example.com")).isTrue();
+        assertThat(service.isOwner(jobId, "bob@example.com")).isFalse();
+        assertThat(service.isOwner(jobId, null)).isFalse();
+        assertThat(service.isOwner("no-such-job", "ann@example.com")).isFalse();
+    }
+
+    @Test
+    void onlyTheSubmitterCanReadAJob() {
+        signIn("ann@example.com");
+        String jobId = service.submit("We walked to school", null).getJobId();
+        EnhancementJobResponse own = service.getJob(jobId);
+        assertThat(own.getJobId()).isEqualTo(jobId);
+
+        signIn("bob@example.com");
+        assertThatThrownBy(() -> service.getJob(jobId)).isInstanceOf(UnauthorizedException.class);
+
+        SecurityContextHolder.clearContext();
+        assertThatThrownBy(() -> service.getJob(jobId)).isInstanceOf(UnauthorizedException.class);
+    }
+
+    @Test
+    void anonymousCallersCannotSubmit() {
+        assertThatThrownBy(() -> service.submit("We walked to school", null))
+                .isInstanceOf(UnauthorizedException.class);
+    }
+
+    @Test
+    void progressAfterCompletionIsIgnored() {
+        AIResponse result = new AIResponse();
+        result.setTitle("The farm");
+        AtomicReference<EnhancementListener> listener = new AtomicReference<>();
+        AIService aiService = mock(AIService.class);
+        when(aiService.enhanceStory(anyString(), isNull(), any(EnhancementListener.class))).thenAnswer(invocation -> {
+            listener.set(invocation.getArgument(2));
+            listener.get().onStepCompleted("enhance", result);
+            return result;
+        });
+        EnhancementJobServiceImpl inline = new EnhancementJobServiceImpl(aiService, mock(SimpMessagingTemplate.class),
+                new TaskExecutorAdapter(Runnable::run), new AIEnhanceConfig(), new ObjectMapper().findAndRegisterModules());
+
+        signIn("ann@example.com");
+        String jobId = inline.submit("We walked to school", null).getJobId();
+        AIResponse late = new AIResponse();
+        late.setTitle("Too late");
+        listener.get().onStepCompleted("tts", late);
+        listener.get().onStepFailed("emotions", "timed out");
+
+        EnhancementJobResponse job = inline.getJob(jobId);
+        assertThat(job.getStatus()).isEqualTo(JobStatus.COMPLETED);
+        assertThat(job.getCompletedSteps()).containsExactly("enhance");
+        assertThat(job.getFailedSteps()).isEmpty();
+        assertThat(job.getResult().getTitle()).isEqualTo("The farm");
+    }
+
+    private static void signIn(String email) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(email, null, List.of()));
+    }
+}
@@ -0,0 +1,194 @@
+package com.example.memory_keeper.service.impl;
+
+import com.example.memory_keeper.dto.response.AIResponse;
+import com.example.memory_keeper.service.EnhancementListener;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs steps on a real thread pool, with gates standing in for slow
+ * providers, to check fan-out, timeouts, late finishers and cancellation.
+ */
+class EnhancementPipelineTest {
+
+    private static final Duration LONG = Duration.ofSeconds(10);
+    private static final Duration SHORT = Duration.ofMillis(50);
+
+    private final List<String> events = new CopyOnWriteArrayList<>();
+    private final AIResponse response = new AIResponse();
+
+    private ExecutorService threads;
+    private EnhancementPipeline pipeline;
+
+    @BeforeEach
+    void setUp() {
+        threads = Executors.newFixedThreadPool(4);
+        EnhancementListener listener = new EnhancementListener() {
+            @Override
+            public void onStepCompleted(String step, AIResponse partial) {
+                events.add("completed:" + step);
+            }
+
+            @Override
+            public void onStepFailed(String step, String error) {
+                events.add("failed:" + step + ":" + error);
+            }
+        };
+        pipeline = new EnhancementPipeline(response, listener, new TaskExecutorAdapter(threads));
+    }
+
+    @AfterEach
+    void tearDown() {
+        threads.shutdownNow();
+    }
+
+    @Test
+    void stepsRunAtTheSameTime() {
+        // Each step waits for the other to start, so this only finishes if they run in parallel
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        CompletableFuture<String> title = pipeline.step("title", LONG, step -> {
+            bothStarted.countDown();
+            assertThat(bothStarted.await(5, TimeUnit.SECONDS)).isTrue();
+            step.update(r -> r.setTitle("The farm"));
+            return "title";
+        });
+        CompletableFuture<String> summary = pipeline.step("summary", LONG, step -> {
+            bothStarted.countDown();
+            assertThat(bothStarted.await(5, TimeUnit.SECONDS)).isTrue();
+            step.update(r -> r.setSummary("Milking cows"));
+            return "summary";
+        });
+
+        assertThat(title.join()).isEqualTo("title");
+        assertThat(summary.join()).isEqualTo("summary");
+        assertThat(response.getTitle()).isEqualTo("The farm");
+        assertThat(response.getSummary()).isEqualTo("Milking cows");
+        assertThat(events).containsExactlyInAnyOrder("completed:title", "completed:summary");
+    }
+
+    @Test
+    void timedOutStepIsInterrupted() throws Exception {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        CompletableFuture<Void> slow = pipeline.step("tts", SHORT, step -> {
+            try {
+                Thread.sleep(LONG.toMillis());
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                throw e;
+            }
+            return null;
+        });
+
+        assertThatThrownBy(slow::join).isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(TimeoutException.class);
+        assertThat(interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void stepFinishingAfterItsTimeoutChangesNothing() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(1);
+        CompletableFuture<Void> late = pipeline.optional("tts", pipeline.step("tts", SHORT, step -> {
+            awaitIgnoringInterrupts(release);
+            step.update(r -> r.setTtsAudioUrl("https://audio.example.com/late.mp3"));
+            finished.countDown();
+            return null;
+        }));
+
+        late.join();
+        release.countDown();
+        assertThat(finished.await(5, TimeUnit.SECONDS)).isTrue();
+        threads.shutdown();
+        assertThat(threads.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(response.getTtsAudioUrl()).isNull();
+        assertThat(response.getFailedSteps()).containsExactly("tts");
+        assertThat(events).containsExactly("failed:tts:timed out");
+    }
+
+    @Test
+    void failedOptionalStepIsReportedAndSkipped() {
+        pipeline.optional("emotions", pipeline.step("emotions", LONG, step -> {
+            throw new IllegalStateException("model is loading");
+        })).join();
+
+        assertThat(response.getFailedSteps()).containsExactly("emotions");
+        assertThat(events).containsExactly("failed:emotions:model is loading");
+    }
+
+    @Test
+    void closeInterruptsRunningStepsAndSilencesTheRest() throws Exception {
+        CountDownLatch started = new CountDownLatch(2);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        CompletableFuture<Void> running = pipeline.optional("sentiment", pipeline.step("sentiment", LONG, step -> {
+            started.countDown();
+            try {
+                Thread.sleep(LONG.toMillis());
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                throw e;
+            }
+            return null;
+        }));
+
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(1);
+        pipeline.step("title", LONG, step -> {
+            started.countDown();
+            awaitIgnoringInterrupts(release);
+            step.update(r -> r.setTitle("Too late"));
+            finished.countDown();
+            return null;
+        });
+
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        pipeline.close();
+        pipeline.update(r -> r.setSummary("Too late"));
+        release.countDown();
+
+        assertThat(interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(finished.await(5, TimeUnit.SECONDS)).isTrue();
+        threads.shutdown();
+        assertThat(threads.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(running).isNotDone();
+        assertThat(response.getTitle()).isNull();
+        assertThat(response.getSummary()).isNull();
+        assertThat(response.getFailedSteps()).isEmpty();
+        assertThat(events).isEmpty();
+    }
+
+    // ==================== HELPER METHODS ====================
+
+    // Stands in for a provider call that does not react to interrupts
+    private static void awaitIgnoringInterrupts(CountDownLatch latch) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
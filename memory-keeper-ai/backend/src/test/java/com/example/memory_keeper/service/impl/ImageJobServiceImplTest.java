@@ -0,0 +1,95 @@
+package com.example.memory_keeper.service.impl;
+
+import com.example.memory_keeper.config.AIImageJobsConfig;
+import com.example.memory_keeper.dto.response.ImageJobResponse;
+import com.example.memory_keeper.model.enums.JobStatus;
+import com.example.memory_keeper.repository.FamilyRepository;
+import com.example.memory_keeper.repository.StoryRepository;
+import com.example.memory_keeper.repository.UserRepository;
+import com.example.memory_keeper.service.AIService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.springframework.cache.CacheManager;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.sql.ResultSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs a job through the worker against a stand-in image_jobs row, on the
+ * calling thread and with no signed-in user, as the real workers do.
+ */
+class ImageJobServiceImplTest {
+
+    private static final String IMAGE_URL = "https://images.example.com/story-3.png";
+
+    // The one image_jobs row, joined with its story and author
+    private final Map<String, Object> row = new HashMap<>(Map.of(
+            "id", 7L, "story_id", 3L, "attempts", 1, "status", JobStatus.RUNNING.name(),
+            "title", "The farm", "text", "Milking cows at dawn", "email", "ann@example.com"));
+
+    private final SimpMessagingTemplate messagingTemplate = mock(SimpMessagingTemplate.class);
+    private ImageJobServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        AIService aiService = mock(AIService.class);
+        when(aiService.generateStoryImage("Milking cows at dawn", "The farm"))
+                .thenReturn(CompletableFuture.completedFuture(IMAGE_URL));
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class, this::jdbc);
+
+        service = new ImageJobServiceImpl(aiService, new AIImageJobsConfig(), jdbcTemplate,
+                mock(UserRepository.class), mock(StoryRepository.class), mock(FamilyRepository.class),
+                messagingTemplate, new TaskExecutorAdapter(Runnable::run), mock(CacheManager.class),
+                new SimpleMeterRegistry());
+        service.registerMetrics();
+    }
+
+    @Test
+    void publishesEachTransitionWithoutASignedInUser() {
+        service.poll();
+
+        ArgumentCaptor<Object> published = ArgumentCaptor.forClass(Object.class);
+        verify(messagingTemplate, times(2)).convertAndSend(eq("/topic/stories/3/image"), published.capture());
+        assertThat(published.getAllValues())
+                .extracting(job -> ((ImageJobResponse) job).getStatus())
+                .containsExactly(JobStatus.RUNNING, JobStatus.COMPLETED);
+        assertThat(((ImageJobResponse) published.getValue()).getImageUrl()).isEqualTo(IMAGE_URL);
+    }
+
+    private Object jdbc(InvocationOnMock invocation) throws Throwable {
+        String method = invocation.getMethod().getName();
+        if (method.equals("query")) {
+            RowMapper<?> mapper = invocation.getArgument(1);
+            return List.of(mapper.mapRow(resultSet(), 0));
+        }
+        if (method.equals("queryForList") && invocation.<String>getArgument(0).contains("'COMPLETED'")) {
+            row.put("status", JobStatus.COMPLETED.name());
+            row.put("image_url", invocation.getArgument(2));
+            // The story's author
+            return List.of(1L);
+        }
+        return Mockito.RETURNS_DEFAULTS.answer(invocation);
+    }
+
+    private ResultSet resultSet() {
+        return mock(ResultSet.class, invocation -> row.get(invocation.<String>getArgument(0)));
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.memory_keeper.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class AliasSamplerTest {
+
+    private static final int DRAWS = 200_000;
+
+    @Test
+    void drawsInProportionToTheWeights() {
+        double[] weights = {1, 2, 3, 4};
+
+        double[] frequencies = frequencies(new AliasSampler(weights), new SplittableRandom(42));
+
+        for (int i = 0; i < weights.length; i++) {
+            assertThat(frequencies[i]).isCloseTo(weights[i] / 10, within(0.01));
+        }
+    }
+
+    @Test
+    void neverDrawsZeroWeights() {
+        double[] frequencies = frequencies(new AliasSampler(new double[]{0, 5, 0, 1}), new SplittableRandom(7));
+
+        assertThat(frequencies[0]).isZero();
+        assertThat(frequencies[2]).isZero();
+        assertThat(frequencies[1]).isCloseTo(5.0 / 6, within(0.01));
+    }
+
+    @Test
+    void allZeroWeightsDrawUniformly() {
+        double[] frequencies = frequencies(new AliasSampler(new double[]{0, 0, 0}), new SplittableRandom(3));
+
+        assertThat(frequencies).containsExactly(new double[]{1.0 / 3, 1.0 / 3, 1.0 / 3}, within(0.01));
+    }
+
+    @Test
+    void singleItemIsAlwaysDrawn() {
+        AliasSampler sampler = new AliasSampler(new double[]{0.3});
+        SplittableRandom random = new SplittableRandom(1);
+
+        assertThat(sampler.size()).isEqualTo(1);
+        for (int i = 0; i < 1000; i++) {
+            assertThat(sampler.sample(random)).isZero();
+        }
+    }
+
+    @Test
+    void rejectsNegativeAndNaNWeights() {
+        assertThatThrownBy(() -> new AliasSampler(new double[]{1, -1}))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new AliasSampler(new double[]{Double.NaN}))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void emptyWeightsBuildAnEmptySampler() {
+        assertThat(new AliasSampler(new double[0]).size()).isZero();
+    }
+
+    private static double[] frequencies(AliasSampler sampler, SplittableRandom random) {
+        double[] counts = new double[sampler.size()];
+        for (int i = 0; i < DRAWS; i++) {
+            counts[sampler.sample(random)]++;
+        }
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] /= DRAWS;
+        }
+        return counts;
+    }
+}
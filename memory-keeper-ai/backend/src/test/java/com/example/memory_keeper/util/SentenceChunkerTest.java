@@ -0,0 +1,55 @@
+package com.example.memory_keeper.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SentenceChunkerTest {
+
+    @Test
+    void blankTextHasNoChunks() {
+        assertThat(SentenceChunker.chunk(null, 100)).isEmpty();
+        assertThat(SentenceChunker.chunk("   ", 100)).isEmpty();
+    }
+
+    @Test
+    void shortTextIsOneChunk() {
+        assertThat(SentenceChunker.chunk("We moved to Leeds. It rained.", 100))
+                .containsExactly("We moved to Leeds. It rained.");
+    }
+
+    @Test
+    void packsSentencesUpToTheLimit() {
+        String text = "One two three. Four five six. Seven eight nine.";
+
+        List<String> chunks = SentenceChunker.chunk(text, 30);
+
+        assertThat(chunks).containsExactly("One two three. Four five six.", "Seven eight nine.");
+        assertThat(chunks).allSatisfy(chunk -> assertThat(chunk.length()).isLessThanOrEqualTo(30));
+    }
+
+    @Test
+    void splitsLongSentenceAtLastSpaceThatFits() {
+        List<String> chunks = SentenceChunker.chunk("alpha beta gamma delta epsilon", 12);
+
+        assertThat(chunks).containsExactly("alpha beta", "gamma delta", "epsilon");
+    }
+
+    @Test
+    void hardSplitsWordsLongerThanTheLimit() {
+        assertThat(SentenceChunker.chunk("abcdefghij", 4)).containsExactly("abcd", "efgh", "ij");
+    }
+
+    @Test
+    void keepsEveryWordInOrder() {
+        String text = "Grandma baked bread every Sunday. The kitchen smelled of yeast and cinnamon! "
+                + "Did we ever thank her? We did, often, with flour on our hands.";
+
+        List<String> chunks = SentenceChunker.chunk(text, 40);
+
+        assertThat(String.join(" ", chunks)).isEqualTo(text);
+        assertThat(chunks).allSatisfy(chunk -> assertThat(chunk.length()).isLessThanOrEqualTo(40));
+    }
+}